@@ -0,0 +1,24 @@
+package com.megaache.xmslocationmanager.fakes;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.base.SimpleLocationListener;
+
+/**
+ * Keeps the last received values, so the work done for delivering them cannot be eliminated
+ */
+public class NoOpLocationListener extends SimpleLocationListener {
+
+    public volatile Location lastLocation;
+    public volatile int lastFailType;
+
+    @Override
+    public void onLocationChanged(Location location) {
+        lastLocation = location;
+    }
+
+    @Override
+    public void onLocationFailed(int type) {
+        lastFailType = type;
+    }
+}
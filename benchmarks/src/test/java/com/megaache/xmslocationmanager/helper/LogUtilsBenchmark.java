@@ -0,0 +1,102 @@
+package com.megaache.xmslocationmanager.helper;
+
+import com.megaache.xmslocationmanager.helper.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogUtilsBenchmark {
+
+    private static final String TAG = "LogUtilsBenchmark";
+
+    /**
+     * off: logging disabled, info: INFO calls are logged, warn: INFO calls are filtered by level
+     */
+    @Param({"off", "info", "warn"})
+    public String mode;
+
+    private final String provider = "gps";
+    private float accuracy = 12.5f;
+
+    @Setup
+    public void setUp() {
+        LogUtils.setLogger(new LastMessageLogger());
+        LogUtils.setLevel("warn".equals(mode) ? LogUtils.WARN : LogUtils.VERBOSE);
+        LogUtils.enable(!"off".equals(mode));
+    }
+
+    @TearDown
+    public void tearDown() {
+        LogUtils.enable(false);
+        LogUtils.setLevel(LogUtils.VERBOSE);
+    }
+
+    @Benchmark
+    public void constantMessage() {
+        LogUtils.logI(TAG, "Requesting location update...");
+    }
+
+    @Benchmark
+    public void parameterizedMessage() {
+        LogUtils.logI(TAG, "Updating shared {} subscription", provider);
+    }
+
+    @Benchmark
+    public void parameterizedPrimitiveMessage() {
+        LogUtils.logI(TAG, "Location received from {} with accuracy {}", provider, accuracy);
+    }
+
+    @Benchmark
+    public void concatenatedMessage() {
+        // How call sites used to look, the message is built even when logging is off
+        LogUtils.logI(TAG, "Location received from " + provider + " with accuracy " + accuracy);
+    }
+
+    private static final class LastMessageLogger implements Logger {
+
+        private volatile String lastMessage;
+
+        @Override
+        public void logD(String className, String message) {
+            lastMessage = message;
+        }
+
+        @Override
+        public void logE(String className, String message) {
+            lastMessage = message;
+        }
+
+        @Override
+        public void logI(String className, String message) {
+            lastMessage = message;
+        }
+
+        @Override
+        public void logV(String className, String message) {
+            lastMessage = message;
+        }
+
+        @Override
+        public void logW(String className, String message) {
+            lastMessage = message;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.megaache.xmslocationmanager.helper.continuoustask;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scheduling a {@linkplain ContinuousTask} through its scheduler onto a {@linkplain TimingWheel},
+ * the wheel is not ticking so nothing expires meanwhile
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContinuousTaskSchedulerBenchmark {
+
+    private static final long DELAY = 20 * 1000;
+
+    private TimingWheel timingWheel;
+    private ContinuousTask continuousTask;
+
+    @Setup
+    public void setUp() {
+        timingWheel = new TimingWheel(TimingWheel.DEFAULT_TICK_MILLIS, TimingWheel.DEFAULT_WHEEL_SIZE,
+              new FakeClock(), null);
+        continuousTask = new ContinuousTask("benchmarkTask", new ContinuousTaskRunner() {
+            @Override
+            public void runScheduledTask(@NonNull String taskId) {
+            }
+        }, timingWheel, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+        });
+    }
+
+    @Benchmark
+    public int delayAndStop() {
+        continuousTask.delayed(DELAY);
+        continuousTask.stop();
+        return timingWheel.pendingCount();
+    }
+
+    @Benchmark
+    public int delayPauseResumeStop() {
+        continuousTask.delayed(DELAY);
+        continuousTask.pause();
+        continuousTask.resume();
+        continuousTask.stop();
+        return timingWheel.pendingCount();
+    }
+}
@@ -0,0 +1,67 @@
+package com.megaache.xmslocationmanager.helper.continuoustask;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule and cancel cost of {@linkplain TimingWheel}, which should not depend on how many timeouts are pending
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+    private static final long DELAY = 20 * 1000;
+
+    @Param({ "0", "10000" })
+    public int pending;
+
+    private TimingWheel timingWheel;
+    private TimingWheel.Timeout[] pendingTimeouts;
+
+    private final Runnable task = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        // Not ticking, so pending timeouts stay on the wheel
+        timingWheel = new TimingWheel(TimingWheel.DEFAULT_TICK_MILLIS, TimingWheel.DEFAULT_WHEEL_SIZE,
+              new FakeClock(), null);
+        pendingTimeouts = new TimingWheel.Timeout[pending];
+        for (int i = 0; i < pending; i++) {
+            pendingTimeouts[i] = timingWheel.schedule(task, DELAY + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (TimingWheel.Timeout timeout : pendingTimeouts) {
+            timeout.cancel();
+        }
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        return timingWheel.schedule(task, DELAY).cancel();
+    }
+}
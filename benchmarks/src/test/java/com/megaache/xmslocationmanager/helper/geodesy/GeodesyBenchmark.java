@@ -0,0 +1,83 @@
+package com.megaache.xmslocationmanager.helper.geodesy;
+
+import com.megaache.xmslocationmanager.fakes.PlatformDistance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per distance of {@linkplain Geodesy} and {@linkplain LocalTangentPlane} between points up to 10 km apart,
+ * against the algorithm of {@linkplain android.location.Location#distanceTo}, which allocates its result array
+ * like distanceBetween does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeodesyBenchmark {
+
+    private static final int POINT_COUNT = 1024;
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+
+    private final double[] latitudes = new double[POINT_COUNT];
+    private final double[] longitudes = new double[POINT_COUNT];
+
+    private final LocalTangentPlane plane = new LocalTangentPlane(LATITUDE, LONGITUDE);
+    private final double cosLatitude = Geodesy.cosLatitude(LATITUDE);
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < POINT_COUNT; i++) {
+            latitudes[i] = LATITUDE + (random.nextDouble() * 2 - 1) * 0.06;
+            longitudes[i] = LONGITUDE + (random.nextDouble() * 2 - 1) * 0.06;
+        }
+    }
+
+    @Benchmark
+    public double platform() {
+        int i = next();
+        float[] results = new float[1];
+        PlatformDistance.distanceBetween(LATITUDE, LONGITUDE, latitudes[i], longitudes[i], results);
+        return results[0];
+    }
+
+    @Benchmark
+    public double haversine() {
+        int i = next();
+        return Geodesy.haversine(LATITUDE, LONGITUDE, latitudes[i], longitudes[i]);
+    }
+
+    @Benchmark
+    public double equirectangular() {
+        int i = next();
+        return Geodesy.equirectangular(LATITUDE, LONGITUDE, latitudes[i], longitudes[i], cosLatitude);
+    }
+
+    @Benchmark
+    public double localTangentPlane() {
+        int i = next();
+        return plane.distanceFromOrigin(latitudes[i], longitudes[i]);
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) & (POINT_COUNT - 1);
+        return i;
+    }
+}
@@ -0,0 +1,126 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.GeofencingConfiguration;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time {@linkplain GeofenceEngine} takes to evaluate one fix, with the given number of fences spread over a
+ * metropolitan area of about 110 x 85 kilometers, 80% circles and 20% hexagons. Fixes follow a walk through the area,
+ * so fences are entered and exited all the time. It should stay well below a millisecond with 100k fences.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceEngineBenchmark {
+
+    private static final int TRACK_SIZE = 1024;
+    private static final long SECOND = 1000L * 1000 * 1000;
+    private static final double METERS_PER_DEGREE = 6371009 * Math.PI / 180;
+    private static final double AREA_LATITUDE = 41;
+    private static final double AREA_LONGITUDE = 29;
+    private static final double AREA_SIZE = 1;
+
+    @Param({ "1000", "100000" })
+    public int fenceCount;
+
+    private final double[] latitudes = new double[TRACK_SIZE];
+    private final double[] longitudes = new double[TRACK_SIZE];
+    private final FakeLocation location = new FakeLocation("fused", 0, 0, 0, 10);
+    private final CountingGeofenceListener geofenceListener = new CountingGeofenceListener();
+
+    private GeofenceEngine geofenceEngine;
+    private long time;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Geofence> fences = new ArrayList<>(fenceCount);
+        for (int i = 0; i < fenceCount; i++) {
+            double latitude = AREA_LATITUDE + random.nextDouble() * AREA_SIZE;
+            double longitude = AREA_LONGITUDE + random.nextDouble() * AREA_SIZE;
+            float radius = 50 + random.nextInt(450);
+
+            if (i % 5 == 0) {
+                fences.add(hexagon("fence" + i, latitude, longitude, radius));
+            } else {
+                fences.add(Geofence.circle("fence" + i, latitude, longitude, radius));
+            }
+        }
+
+        geofenceEngine = new GeofenceEngine(new GeofencingConfiguration.Builder().build());
+        geofenceEngine.addGeofences(fences);
+
+        // Walking through the area, then back, so the track loops without jumps
+        double latitude = AREA_LATITUDE + AREA_SIZE / 2;
+        double longitude = AREA_LONGITUDE + AREA_SIZE / 2;
+        for (int i = 0; i < TRACK_SIZE / 2; i++) {
+            latitude += (20 + random.nextGaussian() * 5) / METERS_PER_DEGREE;
+            longitude += (20 + random.nextGaussian() * 5) / METERS_PER_DEGREE;
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            latitudes[TRACK_SIZE - 1 - i] = latitude;
+            longitudes[TRACK_SIZE - 1 - i] = longitude;
+        }
+    }
+
+    @Benchmark
+    public int evaluateFix() {
+        int i = index;
+        index = (i + 1) & (TRACK_SIZE - 1);
+        time += SECOND;
+
+        location.setElapsedRealtimeNanos(time);
+        location.setLatitude(latitudes[i]);
+        location.setLongitude(longitudes[i]);
+        geofenceEngine.evaluate(location, geofenceListener);
+        return geofenceListener.transitions;
+    }
+
+    private static Geofence hexagon(String id, double latitude, double longitude, float radius) {
+        double[] latitudes = new double[6];
+        double[] longitudes = new double[6];
+        double longitudeScale = Math.cos(Math.toRadians(latitude));
+        for (int i = 0; i < 6; i++) {
+            double angle = i * Math.PI / 3;
+            latitudes[i] = latitude + radius * Math.sin(angle) / METERS_PER_DEGREE;
+            longitudes[i] = longitude + radius * Math.cos(angle) / METERS_PER_DEGREE / longitudeScale;
+        }
+        return Geofence.polygon(id, latitudes, longitudes);
+    }
+
+    private static final class CountingGeofenceListener implements GeofenceListener {
+
+        private int transitions;
+
+        @Override
+        public void onGeofenceTransition(@NonNull Geofence geofence, int transition, @NonNull Location location) {
+            transitions++;
+        }
+    }
+}
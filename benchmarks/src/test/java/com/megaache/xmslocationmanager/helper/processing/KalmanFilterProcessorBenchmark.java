@@ -0,0 +1,81 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@linkplain KalmanFilterProcessor} on a noisy track of 1 Hz fixes, in fixes per second.
+ * Location objects are reused and reset to their raw values before each fix. Processor copies each fix as it does
+ * on a device, but into a {@linkplain FakeLocation}, since the copy constructor of the stub android.jar copies
+ * nothing. So the copy, the only allocation per fix, is measured along with the filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KalmanFilterProcessorBenchmark {
+
+    private static final int TRACK_SIZE = 1024;
+    private static final long SECOND = 1000L * 1000 * 1000;
+    private static final double METERS_PER_DEGREE = 6371009 * Math.PI / 180;
+
+    private final double[] latitudes = new double[TRACK_SIZE];
+    private final double[] longitudes = new double[TRACK_SIZE];
+    private final float[] accuracies = new float[TRACK_SIZE];
+    private final FakeLocation[] locations = new FakeLocation[TRACK_SIZE];
+
+    private KalmanFilterProcessor processor;
+    private long time;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < TRACK_SIZE; i++) {
+            // Driving to the north east at about 14 m/s with GPS noise
+            float accuracy = 3 + random.nextInt(20);
+            latitudes[i] = 41.0 + (i * 10 + random.nextGaussian() * accuracy) / METERS_PER_DEGREE;
+            longitudes[i] = 29.0 + (i * 10 + random.nextGaussian() * accuracy) / METERS_PER_DEGREE;
+            accuracies[i] = accuracy;
+            locations[i] = new FakeLocation("fused", 0, 0, 0, accuracy);
+        }
+
+        processor = new KalmanFilterProcessor() {
+            @Override
+            Location copyOf(Location location) {
+                return new FakeLocation(location);
+            }
+        };
+    }
+
+    @Benchmark
+    public Location processFix() {
+        int i = index;
+        index = (i + 1) & (TRACK_SIZE - 1);
+        time += SECOND;
+
+        FakeLocation location = locations[i];
+        location.setElapsedRealtimeNanos(time);
+        location.setLatitude(latitudes[i]);
+        location.setLongitude(longitudes[i]);
+        location.setAccuracy(accuracies[i]);
+        return processor.process(location);
+    }
+}
@@ -0,0 +1,95 @@
+package com.megaache.xmslocationmanager.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a dispatch path with generated fixes at a fixed rate on the calling thread, which plays the callback
+ * thread of the library. Dispatches are scheduled open loop, a slow dispatch delays the following ones instead
+ * of lowering the rate, so the latency shows when the thread saturates. Bytes allocated per fix are read
+ * from {@linkplain com.sun.management.ThreadMXBean} of the dispatching thread, the harness itself allocates
+ * nothing while measuring.
+ */
+public final class LoadHarness {
+
+    // Last millisecond before a dispatch is spun, parking can oversleep by more than the gap between fixes
+    private static final long SPIN_NANOS = 1000000;
+
+    private LoadHarness() {
+        // No instance
+    }
+
+    /**
+     * Dispatches one or more fixes into the path under load
+     */
+    public interface Dispatcher {
+
+        /**
+         * @param sequence number of the dispatch, starting from 0 for every run
+         */
+        void dispatch(int sequence);
+    }
+
+    /**
+     * Dispatches warmupDispatches as fast as possible, then measures given number of dispatches
+     *
+     * @param fixesPerDispatch  number of fixes a dispatch delivers
+     * @param fixesPerSecond    rate to offer fixes at, 0 to dispatch as fast as possible
+     */
+    public static LoadReport run(String name, Dispatcher dispatcher, int fixesPerDispatch, double fixesPerSecond,
+          int dispatches, int warmupDispatches) {
+        for (int i = 0; i < warmupDispatches; i++) {
+            dispatcher.dispatch(i);
+        }
+
+        long[] latencies = new long[dispatches];
+        long period = fixesPerSecond > 0 ? (long) (1e9 * fixesPerDispatch / fixesPerSecond) : 0;
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocatedBytes(threadId);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < dispatches; i++) {
+            long scheduled = period > 0 ? start + i * period : System.nanoTime();
+            if (period > 0) awaitUntil(scheduled);
+
+            dispatcher.dispatch(i);
+            latencies[i] = System.nanoTime() - scheduled;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long allocatedAfter = allocatedBytes(threadId);
+        int fixes = dispatches * fixesPerDispatch;
+        double bytesPerFix = allocatedBefore < 0 || allocatedAfter < 0
+              ? Double.NaN : (double) (allocatedAfter - allocatedBefore) / fixes;
+
+        Arrays.sort(latencies);
+        return new LoadReport(name, fixesPerSecond, fixes, elapsed, percentile(latencies, 0.50),
+              percentile(latencies, 0.99), latencies[dispatches - 1], bytesPerFix);
+    }
+
+    private static void awaitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Bytes allocated so far by given thread, -1 if the JVM does not tell
+     */
+    private static long allocatedBytes(long threadId) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) return -1;
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) return -1;
+        return bean.getThreadAllocatedBytes(threadId);
+    }
+}
@@ -0,0 +1,90 @@
+package com.megaache.xmslocationmanager.load;
+
+import java.util.Locale;
+
+/**
+ * Result of one {@linkplain LoadHarness} run. Latencies are of a dispatch, which every fix in it waits for,
+ * measured from the time it was scheduled, so time spent waiting behind slow dispatches is included.
+ */
+public final class LoadReport {
+
+    private final String name;
+    private final double offeredRate;
+    private final int fixes;
+    private final long elapsedNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final double bytesPerFix;
+
+    LoadReport(String name, double offeredRate, int fixes, long elapsedNanos, long p50Nanos, long p99Nanos,
+          long maxNanos, double bytesPerFix) {
+        this.name = name;
+        this.offeredRate = offeredRate;
+        this.fixes = fixes;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.bytesPerFix = bytesPerFix;
+    }
+
+    // region Getters
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Fixes per second the run was asked for, 0 if they were dispatched as fast as possible
+     */
+    public double offeredRate() {
+        return offeredRate;
+    }
+
+    public int fixes() {
+        return fixes;
+    }
+
+    /**
+     * Fixes per second actually dispatched
+     */
+    public double throughput() {
+        return fixes * 1e9 / elapsedNanos;
+    }
+
+    public long p50Nanos() {
+        return p50Nanos;
+    }
+
+    public long p99Nanos() {
+        return p99Nanos;
+    }
+
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Bytes allocated by the dispatching thread per fix, {@linkplain Double#NaN} if the JVM cannot tell
+     */
+    public double bytesPerFix() {
+        return bytesPerFix;
+    }
+    // endregion
+
+    /**
+     * Returns true if the fixes could not be dispatched as fast as they were offered
+     */
+    public boolean isSaturated() {
+        return offeredRate > 0 && throughput() < offeredRate * 0.95;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: %d fixes, offered %s, sustained %.0f fixes/s%s, "
+                    + "latency p50 %.1f us, p99 %.1f us, max %.1f us, %.1f bytes/fix",
+              name, fixes, offeredRate > 0 ? String.format(Locale.US, "%.0f fixes/s", offeredRate) : "max",
+              throughput(), isSaturated() ? " (saturated)" : "", p50Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3,
+              bytesPerFix);
+    }
+}
@@ -0,0 +1,8 @@
+package com.megaache.xmslocationmanager.load;
+
+/**
+ * JUnit category of the tests whose budgets are in time, which depends on the machine. They are left out of the
+ * test task and run by the loadTest task, see benchmarks/build.gradle.
+ */
+public interface LoadTest {
+}
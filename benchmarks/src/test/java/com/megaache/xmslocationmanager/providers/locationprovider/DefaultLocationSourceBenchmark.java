@@ -0,0 +1,80 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.content.Context;
+import android.location.LocationListener;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultLocationSourceBenchmark {
+
+    private static final long ACCEPTABLE_TIME_PERIOD = 5 * 60 * 1000;
+    private static final float ACCEPTABLE_ACCURACY = 5f;
+
+    private DefaultLocationSource defaultLocationSource;
+    private FakeLocation sufficientLocation;
+    private FakeLocation staleLocation;
+    private FakeLocation inaccurateLocation;
+
+    @Setup
+    public void setUp() {
+        // Elapsed realtime is 1 hour, wall clock is far from it to make sure it is not used
+        FakeClock clock = new FakeClock(TimeUnit.HOURS.toNanos(1), 0);
+        defaultLocationSource = new DefaultLocationSource(mock(Context.class, withSettings().stubOnly()),
+              mock(ContinuousTaskRunner.class, withSettings().stubOnly()),
+              mock(LocationListener.class, withSettings().stubOnly()), false, null, clock);
+
+        long now = clock.elapsedRealtimeNanos();
+        long stale = now - TimeUnit.MILLISECONDS.toNanos(2 * ACCEPTABLE_TIME_PERIOD);
+        sufficientLocation = new FakeLocation(LocationManager.GPS_PROVIDER, now, 41, 29, 3f);
+        staleLocation = new FakeLocation(LocationManager.GPS_PROVIDER, stale, 41, 29, 3f);
+        inaccurateLocation = new FakeLocation(LocationManager.NETWORK_PROVIDER, now, 41, 29, 50f);
+    }
+
+    @Benchmark
+    public boolean sufficientLocation() {
+        return defaultLocationSource.isLocationSufficient(sufficientLocation, ACCEPTABLE_TIME_PERIOD,
+              ACCEPTABLE_ACCURACY);
+    }
+
+    @Benchmark
+    public boolean staleLocation() {
+        return defaultLocationSource.isLocationSufficient(staleLocation, ACCEPTABLE_TIME_PERIOD,
+              ACCEPTABLE_ACCURACY);
+    }
+
+    @Benchmark
+    public boolean inaccurateLocation() {
+        return defaultLocationSource.isLocationSufficient(inaccurateLocation, ACCEPTABLE_TIME_PERIOD,
+              ACCEPTABLE_ACCURACY);
+    }
+
+    @Benchmark
+    public boolean nullLocation() {
+        return defaultLocationSource.isLocationSufficient(null, ACCEPTABLE_TIME_PERIOD, ACCEPTABLE_ACCURACY);
+    }
+}
@@ -0,0 +1,194 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.XMSLocationManager;
+import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
+import com.megaache.xmslocationmanager.configuration.PermissionConfiguration;
+import com.megaache.xmslocationmanager.configuration.XMSConfiguration;
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.fakes.FakePermissionProvider;
+import com.megaache.xmslocationmanager.fakes.FakeSimpleTask;
+import com.megaache.xmslocationmanager.fakes.NoOpLocationListener;
+import com.megaache.xmslocationmanager.helper.clock.DefaultClock;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+import com.megaache.xmslocationmanager.listener.FallbackListener;
+import com.megaache.xmslocationmanager.view.ContextProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xms.g.tasks.Task;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures the dispatch flow from {@linkplain DispatcherLocationProvider} to the actual providers
+ * until the first location is delivered. Sources are replaced by fakes, so only the library's own work
+ * and allocations are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private final NoOpLocationListener locationListener = new NoOpLocationListener();
+
+    private DefaultLocationSource defaultLocationSource;
+    private XMSLocationSource xmsLocationSource;
+    private XMSLocationManager defaultProvidersManager;
+    private DispatcherLocationProvider xmsDispatcher;
+    private FakeSimpleTask<Location> lastLocationTask;
+    private Location location;
+
+    @Setup
+    public void setUp() {
+        location = new FakeLocation(LocationManager.GPS_PROVIDER, System.currentTimeMillis(), 3f);
+        ContextProcessor contextProcessor = new ContextProcessor(mock(Application.class, withSettings().stubOnly()));
+        defaultLocationSource = new FakeDefaultLocationSource();
+        xmsLocationSource = new FakeXMSLocationSource();
+
+        FakePermissionProvider permissionProvider = new FakePermissionProvider(
+              new String[] { Manifest.permission.ACCESS_FINE_LOCATION }, null);
+        permissionProvider.grantPermission(true);
+
+        XMSLocationConfiguration defaultProvidersConfiguration = new XMSLocationConfiguration.Builder()
+              .askForPermission(new PermissionConfiguration.Builder()
+                    .permissionProvider(permissionProvider)
+                    .build())
+              .useDefaultProviders(new DefaultProviderConfiguration.Builder().build())
+              .build();
+
+        DispatcherLocationProvider defaultDispatcher = new DispatcherLocationProvider();
+        defaultDispatcher.setDispatcherLocationSource(createDispatcherSource());
+        defaultProvidersManager = new XMSLocationManager.Builder(contextProcessor)
+              .configuration(defaultProvidersConfiguration)
+              .locationProvider(defaultDispatcher)
+              .notify(locationListener)
+              .build();
+
+        // XMSConfiguration.Builder creates an XMS location request, which needs the Play Services on device
+        XMSLocationConfiguration xmsConfiguration = new XMSLocationConfiguration.Builder()
+              .useXMS(mock(XMSConfiguration.class, withSettings().stubOnly()))
+              .build();
+
+        xmsDispatcher = new DispatcherLocationProvider();
+        xmsDispatcher.setDispatcherLocationSource(createDispatcherSource());
+        xmsDispatcher.configure(contextProcessor, xmsConfiguration, locationListener);
+    }
+
+    @Benchmark
+    public Location defaultProvidersFromManager() {
+        defaultProvidersManager.get();
+        defaultProvidersManager.cancel();
+        return locationListener.lastLocation;
+    }
+
+    @Benchmark
+    public Location xmsFromDispatcher() {
+        // Availability check is skipped since it requires Play Services on device
+        xmsDispatcher.getLocationFromXMS();
+        lastLocationTask.success(location);
+        xmsDispatcher.cancel();
+        return locationListener.lastLocation;
+    }
+
+    private DispatcherLocationSource createDispatcherSource() {
+        return new FakeDispatcherLocationSource();
+    }
+
+    private final class FakeDispatcherLocationSource extends DispatcherLocationSource {
+
+        FakeDispatcherLocationSource() {
+            super(mock(ContinuousTaskRunner.class, withSettings().stubOnly()), null, new DefaultClock());
+        }
+
+        @Override
+        DefaultLocationProvider createDefaultLocationProvider() {
+            DefaultLocationProvider provider = new DefaultLocationProvider();
+            provider.setDefaultLocationSource(defaultLocationSource);
+            return provider;
+        }
+
+        @Override
+        XMSLocationProvider createXMSLocationProvider(FallbackListener fallbackListener) {
+            XMSLocationProvider provider = new XMSLocationProvider(fallbackListener);
+            provider.setDispatcherLocationSource(xmsLocationSource);
+            return provider;
+        }
+    }
+
+    /**
+     * GPS is enabled and its last known location is always sufficient
+     */
+    private final class FakeDefaultLocationSource extends DefaultLocationSource {
+
+        FakeDefaultLocationSource() {
+            super(mock(Context.class, withSettings().stubOnly()),
+                  mock(ContinuousTaskRunner.class, withSettings().stubOnly()),
+                  mock(LocationListener.class, withSettings().stubOnly()), false, null,
+                  new DefaultClock());
+        }
+
+        @Override
+        boolean isProviderEnabled(String provider) {
+            return LocationManager.GPS_PROVIDER.equals(provider);
+        }
+
+        @Override
+        Location getLastKnownLocation(String provider) {
+            return location;
+        }
+
+        @Override
+        boolean isLocationSufficient(Location location, long acceptableTimePeriod, float acceptableAccuracy) {
+            return true;
+        }
+    }
+
+    /**
+     * Last location is delivered by the benchmark through the returned task, updates are never requested
+     */
+    private final class FakeXMSLocationSource extends XMSLocationSource {
+
+        FakeXMSLocationSource() {
+            super(null, null, false, null, null, null);
+        }
+
+        @NonNull
+        @Override
+        Task<Location> getLastLocation() {
+            lastLocationTask = new FakeSimpleTask<>();
+            return lastLocationTask;
+        }
+
+        @Override
+        void requestLocationUpdate() {
+        }
+
+        @Override
+        void removeLocationUpdates() {
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.app.Application;
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
+import com.megaache.xmslocationmanager.configuration.XMSConfiguration;
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.fakes.NoOpLocationListener;
+import com.megaache.xmslocationmanager.helper.UpdateRequest;
+import com.megaache.xmslocationmanager.helper.clock.DefaultClock;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+import com.megaache.xmslocationmanager.listener.FallbackListener;
+import com.megaache.xmslocationmanager.load.LoadHarness;
+import com.megaache.xmslocationmanager.load.LoadReport;
+import com.megaache.xmslocationmanager.load.LoadTest;
+import com.megaache.xmslocationmanager.view.ContextProcessor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.xms.g.location.LocationResult;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Loads the delivery paths of {@linkplain XMSLocationProvider} and {@linkplain DefaultLocationProvider} with
+ * generated fixes through the callbacks their sources call, and fails when a path gets slower or allocates more
+ * than its budget. Sources are fakes which never reach the platform, so only the library's own work is measured.
+ *
+ * Allocation budgets don't depend on the machine, so they are checked by the test task. Time budgets are
+ * {@linkplain LoadTest}s, run by the loadTest task which writes the report of every run to the directory
+ * given by {@linkplain #REPORT_DIR_PROPERTY}. They leave a wide margin over the measurements on a developer
+ * machine, so that a failure means a regression of the path rather than a slower build machine. Machines slower
+ * still, such as shared CI runners, widen every time budget by the factor given by
+ * {@linkplain #BUDGET_SCALE_PROPERTY}.
+ */
+public class ProviderLoadTest {
+
+    /**
+     * Rate which every path must sustain without saturating, far above any real location source
+     */
+    private static final double OFFERED_RATE = 10000;
+
+    /**
+     * Fixes per second a path must reach when fixes are dispatched as fast as possible
+     */
+    private static final double MIN_SATURATED_THROUGHPUT = 100000;
+
+    /**
+     * Median latency of a dispatch at {@linkplain #OFFERED_RATE}, half of the time between two fixes
+     */
+    private static final long MAX_P50_NANOS = 50000;
+
+    /**
+     * Tail latency of a dispatch at {@linkplain #OFFERED_RATE}, which leaves room for a GC pause or the thread
+     * being preempted, both of which delay every dispatch scheduled meanwhile
+     */
+    private static final long MAX_P99_NANOS = 10000000;
+
+    /**
+     * Bytes each fix can allocate on the callback thread, apart from the location itself
+     */
+    private static final double MAX_BYTES_PER_FIX = 64;
+
+    private static final int FIX_COUNT = 1024;
+    private static final int BATCH_SIZE = 4;
+    private static final int WARMUP_DISPATCHES = 20000;
+    private static final int PACED_DISPATCHES = 5000;
+    private static final int SATURATED_DISPATCHES = 200000;
+
+    static final String REPORT_DIR_PROPERTY = "load.reportDir";
+    static final String BUDGET_SCALE_PROPERTY = "load.budgetScale";
+
+    private final NoOpLocationListener listener = new NoOpLocationListener();
+    private final Location[] locations = new Location[FIX_COUNT];
+    private final LocationResult[] singleResults = new LocationResult[FIX_COUNT];
+    private final LocationResult[] batchResults = new LocationResult[FIX_COUNT / BATCH_SIZE];
+
+    private XMSLocationProvider xmsLocationProvider;
+    private DefaultLocationProvider defaultLocationProvider;
+
+    @Before
+    public void setUp() {
+        long now = System.nanoTime();
+        for (int i = 0; i < FIX_COUNT; i++) {
+            // Driving to the north east at about 14 m/s
+            locations[i] = new FakeLocation(LocationManager.GPS_PROVIDER, now + i * 1000000000L,
+                  41.0 + i * 1e-4, 29.0 + i * 1e-4, 5f);
+
+            List<Location> single = new ArrayList<>();
+            single.add(locations[i]);
+            singleResults[i] = LocationResult.create(single);
+        }
+        for (int i = 0; i < batchResults.length; i++) {
+            List<Location> batch = new ArrayList<>();
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                batch.add(locations[i * BATCH_SIZE + j]);
+            }
+            batchResults[i] = LocationResult.create(batch);
+        }
+
+        ContextProcessor contextProcessor = new ContextProcessor(mock(Application.class, withSettings().stubOnly()));
+
+        xmsLocationProvider = new XMSLocationProvider(mock(FallbackListener.class, withSettings().stubOnly()));
+        xmsLocationProvider.setDispatcherLocationSource(new FakeXMSLocationSource());
+        // XMSConfiguration.Builder creates an XMS location request, which needs the Play Services on device
+        xmsLocationProvider.configure(contextProcessor, new XMSLocationConfiguration.Builder()
+              .keepTracking(true)
+              .useXMS(mock(XMSConfiguration.class, withSettings().stubOnly()))
+              .build(), listener);
+
+        defaultLocationProvider = new DefaultLocationProvider();
+        defaultLocationProvider.setDefaultLocationSource(new FakeDefaultLocationSource());
+        defaultLocationProvider.configure(contextProcessor, new XMSLocationConfiguration.Builder()
+              .keepTracking(true)
+              .useDefaultProviders(new DefaultProviderConfiguration.Builder().build())
+              .build(), listener);
+        defaultLocationProvider.setCurrentProvider(LocationManager.GPS_PROVIDER);
+    }
+
+    @Test
+    public void xmsProviderShouldNotAllocatePerFix() {
+        assertAllocationBudget(run("XMSLocationProvider.onLocationResult", xmsDispatcher(), 1, 0));
+    }
+
+    @Test
+    public void xmsProviderWithBatchesShouldNotAllocatePerFix() {
+        assertAllocationBudget(run("XMSLocationProvider.onLocationResult batches of " + BATCH_SIZE,
+              xmsBatchDispatcher(), BATCH_SIZE, 0));
+    }
+
+    @Test
+    public void defaultProviderShouldNotAllocatePerFix() {
+        assertAllocationBudget(run("DefaultLocationProvider.onLocationChanged", defaultDispatcher(), 1, 0));
+    }
+
+    @Test
+    @Category(LoadTest.class)
+    public void xmsProviderShouldStayWithinTimeBudgets() {
+        assertWithinTimeBudgets(record(run("XMSLocationProvider.onLocationResult", xmsDispatcher(), 1,
+              OFFERED_RATE)));
+        assertSaturatedThroughput(record(run("XMSLocationProvider.onLocationResult", xmsDispatcher(), 1, 0)));
+    }
+
+    @Test
+    @Category(LoadTest.class)
+    public void xmsProviderWithBatchesShouldStayWithinTimeBudgets() {
+        String name = "XMSLocationProvider.onLocationResult batches of " + BATCH_SIZE;
+        assertWithinTimeBudgets(record(run(name, xmsBatchDispatcher(), BATCH_SIZE, OFFERED_RATE)));
+        assertSaturatedThroughput(record(run(name, xmsBatchDispatcher(), BATCH_SIZE, 0)));
+    }
+
+    @Test
+    @Category(LoadTest.class)
+    public void defaultProviderShouldStayWithinTimeBudgets() {
+        assertWithinTimeBudgets(record(run("DefaultLocationProvider.onLocationChanged", defaultDispatcher(), 1,
+              OFFERED_RATE)));
+        assertSaturatedThroughput(record(run("DefaultLocationProvider.onLocationChanged", defaultDispatcher(), 1,
+              0)));
+    }
+
+    private LoadHarness.Dispatcher xmsDispatcher() {
+        return new LoadHarness.Dispatcher() {
+            @Override
+            public void dispatch(int sequence) {
+                xmsLocationProvider.onLocationResult(singleResults[sequence & (FIX_COUNT - 1)]);
+            }
+        };
+    }
+
+    private LoadHarness.Dispatcher xmsBatchDispatcher() {
+        return new LoadHarness.Dispatcher() {
+            @Override
+            public void dispatch(int sequence) {
+                xmsLocationProvider.onLocationResult(batchResults[sequence % batchResults.length]);
+            }
+        };
+    }
+
+    private LoadHarness.Dispatcher defaultDispatcher() {
+        return new LoadHarness.Dispatcher() {
+            @Override
+            public void dispatch(int sequence) {
+                defaultLocationProvider.onLocationChanged(locations[sequence & (FIX_COUNT - 1)]);
+            }
+        };
+    }
+
+    private static LoadReport run(String name, LoadHarness.Dispatcher dispatcher, int fixesPerDispatch,
+          double fixesPerSecond) {
+        return LoadHarness.run(name, dispatcher, fixesPerDispatch, fixesPerSecond,
+              fixesPerSecond > 0 ? PACED_DISPATCHES : SATURATED_DISPATCHES, WARMUP_DISPATCHES);
+    }
+
+    /**
+     * Appends given report to the report file of the loadTest task, nothing is written outside of it
+     */
+    private static LoadReport record(LoadReport report) {
+        String reportDir = System.getProperty(REPORT_DIR_PROPERTY);
+        if (reportDir == null) return report;
+
+        try {
+            Writer writer = new FileWriter(new File(reportDir, ProviderLoadTest.class.getSimpleName() + ".txt"), true);
+            try {
+                writer.write(report + "\n");
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Load report cannot be written: " + e.getMessage(), e);
+        }
+        return report;
+    }
+
+    private static void assertWithinTimeBudgets(LoadReport report) {
+        double scale = budgetScale();
+        assertThat(report.isSaturated()).as("%s", report).isFalse();
+        assertThat(report.p50Nanos()).as("%s", report).isLessThanOrEqualTo((long) (MAX_P50_NANOS * scale));
+        assertThat(report.p99Nanos()).as("%s", report).isLessThanOrEqualTo((long) (MAX_P99_NANOS * scale));
+    }
+
+    private static void assertSaturatedThroughput(LoadReport report) {
+        assertThat(report.throughput()).as("%s", report)
+              .isGreaterThanOrEqualTo(MIN_SATURATED_THROUGHPUT / budgetScale());
+    }
+
+    /**
+     * @return factor given by {@linkplain #BUDGET_SCALE_PROPERTY} to widen time budgets by, at least 1
+     */
+    private static double budgetScale() {
+        String scale = System.getProperty(BUDGET_SCALE_PROPERTY);
+        if (scale == null) return 1;
+
+        try {
+            return Math.max(1, Double.parseDouble(scale));
+        } catch (NumberFormatException e) {
+            throw new AssertionError(BUDGET_SCALE_PROPERTY + " is not a number: " + scale, e);
+        }
+    }
+
+    private static void assertAllocationBudget(LoadReport report) {
+        if (!Double.isNaN(report.bytesPerFix())) {
+            assertThat(report.bytesPerFix()).as("%s", report).isLessThanOrEqualTo(MAX_BYTES_PER_FIX);
+        }
+    }
+
+    /**
+     * Updates are never requested from the platform
+     */
+    private static final class FakeXMSLocationSource extends XMSLocationSource {
+
+        FakeXMSLocationSource() {
+            super(null, null, false, null, null, null);
+        }
+
+        @Override
+        void requestLocationUpdate() {
+        }
+
+        @Override
+        void removeLocationUpdates() {
+        }
+    }
+
+    /**
+     * Keeps the update request of the provider, without the platform
+     */
+    private static final class FakeDefaultLocationSource extends DefaultLocationSource {
+
+        private final UpdateRequest updateRequest = new UpdateRequest(null, null) {
+            @Override
+            protected void requestLocationUpdates(String provider, long minTime, float minDistance) {
+            }
+        };
+
+        FakeDefaultLocationSource() {
+            super(mock(Context.class, withSettings().stubOnly()),
+                  mock(ContinuousTaskRunner.class, withSettings().stubOnly()),
+                  mock(LocationListener.class, withSettings().stubOnly()), false, null,
+                  new DefaultClock());
+        }
+
+        @Override
+        void removeLocationUpdates(LocationListener locationListener) {
+        }
+
+        @Override
+        UpdateRequest getUpdateRequest() {
+            return updateRequest;
+        }
+
+        @Override
+        boolean switchTaskIsRemoved() {
+            return true;
+        }
+    }
+}
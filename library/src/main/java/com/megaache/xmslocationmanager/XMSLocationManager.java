@@ -3,29 +3,69 @@ package com.megaache.xmslocationmanager;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.location.Location;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
 import com.megaache.xmslocationmanager.constants.FailType;
 import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.constants.Stage;
+import com.megaache.xmslocationmanager.helper.ExecutorLocationListener;
 import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.cache.CachingLocationListener;
+import com.megaache.xmslocationmanager.helper.cache.LocationCache;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.clock.DefaultClock;
 import com.megaache.xmslocationmanager.helper.logging.DefaultLogger;
 import com.megaache.xmslocationmanager.helper.logging.Logger;
+import com.megaache.xmslocationmanager.helper.logging.RingBufferLogger;
+import com.megaache.xmslocationmanager.helper.metrics.MetricsLocationListener;
+import com.megaache.xmslocationmanager.helper.metrics.StageMetrics;
+import com.megaache.xmslocationmanager.helper.metrics.StageTracer;
+import com.megaache.xmslocationmanager.helper.processing.FixProcessor;
+import com.megaache.xmslocationmanager.helper.processing.ProcessingLocationListener;
+import com.megaache.xmslocationmanager.helper.geofence.GeofenceEngine;
+import com.megaache.xmslocationmanager.helper.geofence.GeofenceLocationListener;
+import com.megaache.xmslocationmanager.helper.geohash.FixIndex;
+import com.megaache.xmslocationmanager.helper.geohash.IndexingLocationListener;
+import com.megaache.xmslocationmanager.helper.history.FixHistory;
+import com.megaache.xmslocationmanager.helper.history.HistoryLocationListener;
+import com.megaache.xmslocationmanager.helper.recording.RecordingLocationListener;
+import com.megaache.xmslocationmanager.helper.recording.TrajectoryRecorder;
+import com.megaache.xmslocationmanager.helper.tracking.ProgressiveDelivery;
 import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.MetricsListener;
 import com.megaache.xmslocationmanager.listener.PermissionListener;
 import com.megaache.xmslocationmanager.providers.locationprovider.DispatcherLocationProvider;
 import com.megaache.xmslocationmanager.providers.locationprovider.LocationProvider;
 import com.megaache.xmslocationmanager.providers.permissionprovider.PermissionProvider;
 import com.megaache.xmslocationmanager.view.ContextProcessor;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 public class XMSLocationManager implements PermissionListener {
 
+    private static final String TAG = "XMSLocationManager";
+
     private LocationListener listener;
     private XMSLocationConfiguration configuration;
     private LocationProvider activeProvider;
     private PermissionProvider permissionProvider;
+    private LocationCache locationCache;
+    private StageTracer stageTracer;
+    private Clock clock;
+    private ProgressiveDelivery progressiveDelivery;
+    private TrajectoryRecorder trajectoryRecorder;
+    private FixHistory fixHistory;
+    private GeofenceEngine geofenceEngine;
+    private FixIndex fixIndex;
 
     /**
      * Library tries to log as much as possible in order to make it transparent to see what is actually going on
@@ -45,6 +85,17 @@ public class XMSLocationManager implements PermissionListener {
         LogUtils.setLogger(logger);
     }
 
+    /**
+     * Logs below given level are ignored, such as {@linkplain LogUtils#INFO}. Level checks are done before
+     * any message is built, so leaving log enabled in production with a higher level costs almost nothing.
+     * Use {@link RingBufferLogger} to keep the latest lines in memory and dump them on demand.
+     *
+     * Default level is {@linkplain LogUtils#VERBOSE}.
+     */
+    public static void setLogLevel(int level) {
+        LogUtils.setLevel(level);
+    }
+
     /**
      * To create an instance of this manager you MUST specify a LocationConfiguration
      */
@@ -52,6 +103,14 @@ public class XMSLocationManager implements PermissionListener {
         this.listener = builder.listener;
         this.configuration = builder.configuration;
         this.activeProvider = builder.activeProvider;
+        this.locationCache = builder.locationCache;
+        this.stageTracer = builder.stageTracer;
+        this.clock = builder.clock;
+        this.progressiveDelivery = builder.progressiveDelivery;
+        this.trajectoryRecorder = builder.trajectoryRecorder;
+        this.fixHistory = builder.fixHistory;
+        this.geofenceEngine = builder.geofenceEngine;
+        this.fixIndex = builder.fixIndex;
 
         this.permissionProvider = getConfiguration().permissionConfiguration().permissionProvider();
         this.permissionProvider.setContextProcessor(builder.contextProcessor);
@@ -64,6 +123,19 @@ public class XMSLocationManager implements PermissionListener {
         private LocationListener listener;
         private XMSLocationConfiguration configuration;
         private LocationProvider activeProvider;
+        private LocationCache locationCache;
+        private Looper callbackLooper;
+        private Executor listenerExecutor;
+        private boolean deliverOnMainThread = false;
+        private MetricsListener metricsListener;
+        private StageTracer stageTracer = StageTracer.NONE;
+        private Clock clock = new DefaultClock();
+        private ProgressiveDelivery progressiveDelivery;
+        private TrajectoryRecorder trajectoryRecorder;
+        private FixHistory fixHistory;
+        private GeofenceEngine geofenceEngine;
+        private FixIndex fixIndex;
+        private final List<FixProcessor> fixProcessors = new ArrayList<>();
 
         /**
          * Builder object to create LocationManager
@@ -131,6 +203,73 @@ public class XMSLocationManager implements PermissionListener {
             return this;
         }
 
+        /**
+         * Location updates, timeouts and listener callbacks run on given looper, such as the looper of a
+         * {@linkplain android.os.HandlerThread}, instead of the looper of the thread which calls get().
+         * Dialogs and permission requests are still shown from the calling thread.
+         */
+        public Builder callbackLooper(@NonNull Looper looper) {
+            this.callbackLooper = looper;
+            return this;
+        }
+
+        /**
+         * Listener callbacks are dispatched on given executor, regardless of where location updates are received.
+         * Takes precedence over {@linkplain #deliverOnMainThread(boolean)}.
+         */
+        public Builder listenerExecutor(@NonNull Executor executor) {
+            this.listenerExecutor = executor;
+            return this;
+        }
+
+        /**
+         * When location updates are received on a {@linkplain #callbackLooper(Looper)}, set this to true
+         * in order to receive listener callbacks back on the main thread.
+         * Default is False.
+         */
+        public Builder deliverOnMainThread(boolean deliverOnMainThread) {
+            this.deliverOnMainThread = deliverOnMainThread;
+            return this;
+        }
+
+        /**
+         * Specify a MetricsListener to receive an event for every stage of getting location, every fallback
+         * and the outcome of every request. Latency histograms of the stages are kept in
+         * {@linkplain XMSLocationManager#getStageMetrics()} as well.
+         * When it is not set, nothing is measured.
+         */
+        public Builder metricsListener(@NonNull MetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Adds a stage to the processing pipeline, every location passes through the stages in the order
+         * they are added before it is delivered to the listener, see {@linkplain FixProcessor}.
+         * Stages keep their state, such as
+         * {@linkplain com.megaache.xmslocationmanager.helper.processing.KalmanFilterProcessor},
+         * so do not share the same instance between managers.
+         */
+        public Builder addFixProcessor(@NonNull FixProcessor fixProcessor) {
+            this.fixProcessors.add(fixProcessor);
+            return this;
+        }
+
+        /**
+         * Freshness of locations, stage durations and every timeout (provider wait periods, the race deadline,
+         * the grace window of concurrent providers and the progressive deadline) are measured by given clock,
+         * as well as the pacing of shared subscriptions and trace replays, so tests can run them on a virtual clock
+         * instead of waiting. Once a virtual clock is moved,
+         * {@linkplain com.megaache.xmslocationmanager.helper.continuoustask.TimingWheel#forClock(Clock)} of it needs
+         * to expire the timeouts passed meanwhile.
+         * Default is {@linkplain DefaultClock}, which is based on
+         * {@linkplain android.os.SystemClock#elapsedRealtimeNanos()}.
+         */
+        public Builder clock(@NonNull Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
         public XMSLocationManager build() {
             if (contextProcessor == null) {
                 throw new IllegalStateException("You must set a context to LocationManager.");
@@ -144,6 +283,73 @@ public class XMSLocationManager implements PermissionListener {
                 locationProvider(new DispatcherLocationProvider());
             }
 
+            if (configuration.useWarmStartCache() && contextProcessor.getContext() != null) {
+                locationCache = LocationCache.getInstance(contextProcessor.getContext(),
+                      configuration.warmStartCacheSize());
+            }
+
+            if (listener != null) {
+                if (listenerExecutor != null) {
+                    listener = new ExecutorLocationListener(listener, listenerExecutor);
+                } else if (deliverOnMainThread) {
+                    listener = new ExecutorLocationListener(listener,
+                          ExecutorLocationListener.looperExecutor(Looper.getMainLooper()));
+                }
+            }
+
+            if (configuration.isProgressive() && listener != null) {
+                progressiveDelivery = new ProgressiveDelivery(listener, activeProvider,
+                      configuration.defaultProviderConfiguration().acceptableAccuracy(),
+                      configuration.progressiveDeadline(), callbackLooper, clock);
+                listener = progressiveDelivery;
+            }
+
+            if (locationCache != null && listener != null) {
+                // Manager keeps the strong reference, providers only keep a weak one
+                listener = new CachingLocationListener(listener, locationCache);
+            }
+
+            if (configuration.trajectoryRecordingConfiguration() != null && listener != null
+                  && contextProcessor.getContext() != null) {
+                trajectoryRecorder = TrajectoryRecorder.create(contextProcessor.getContext(),
+                      configuration.trajectoryRecordingConfiguration());
+                listener = new RecordingLocationListener(listener, trajectoryRecorder);
+            }
+
+            if (configuration.useFixHistory() && listener != null) {
+                fixHistory = new FixHistory(configuration.fixHistoryCapacity(), clock);
+                listener = new HistoryLocationListener(listener, fixHistory);
+            }
+
+            if (configuration.fixIndexConfiguration() != null && listener != null) {
+                fixIndex = new FixIndex(configuration.fixIndexConfiguration());
+                listener = new IndexingLocationListener(listener, fixIndex);
+            }
+
+            if (configuration.geofencingConfiguration() != null && listener != null) {
+                geofenceEngine = new GeofenceEngine(configuration.geofencingConfiguration());
+                listener = new GeofenceLocationListener(listener, geofenceEngine);
+            }
+
+            if (!fixProcessors.isEmpty() && listener != null) {
+                // Processed locations are the ones which are cached and recorded, so processing comes first
+                listener = new ProcessingLocationListener(listener, fixProcessors.toArray(new FixProcessor[0]));
+            }
+
+            if (metricsListener != null) {
+                stageTracer = new StageMetrics(metricsListener, clock);
+                this.activeProvider.setStageTracer(stageTracer);
+
+                if (listener != null) {
+                    listener = new MetricsLocationListener(listener, stageTracer);
+                }
+            }
+
+            if (callbackLooper != null) {
+                this.activeProvider.setCallbackLooper(callbackLooper);
+            }
+            this.activeProvider.setClock(clock);
+
             this.activeProvider.configure(contextProcessor, configuration, listener);
 
             return new XMSLocationManager(this);
@@ -157,12 +363,56 @@ public class XMSLocationManager implements PermissionListener {
         return configuration;
     }
 
+    /**
+     * Returns latency histograms of the stages, if a {@linkplain MetricsListener} is set to the builder
+     */
+    @Nullable
+    public StageMetrics getStageMetrics() {
+        return stageTracer instanceof StageMetrics ? (StageMetrics) stageTracer : null;
+    }
+
+    /**
+     * Returns the recorder which keeps delivered locations on the disk, if
+     * {@linkplain XMSLocationConfiguration#trajectoryRecordingConfiguration()} is set
+     */
+    @Nullable
+    public TrajectoryRecorder getTrajectoryRecorder() {
+        return trajectoryRecorder;
+    }
+
+    /**
+     * Returns the recent locations delivered to the listener, if
+     * {@linkplain XMSLocationConfiguration#fixHistoryCapacity()} is set. It can be queried from any thread.
+     */
+    @Nullable
+    public FixHistory getFixHistory() {
+        return fixHistory;
+    }
+
+    /**
+     * Returns the engine to add fences to, if {@linkplain XMSLocationConfiguration#geofencingConfiguration()} is set
+     */
+    @Nullable
+    public GeofenceEngine getGeofenceEngine() {
+        return geofenceEngine;
+    }
+
+    /**
+     * Returns the index of delivered locations, if {@linkplain XMSLocationConfiguration#fixIndexConfiguration()} is
+     * set. It can be queried from any thread.
+     */
+    @Nullable
+    public FixIndex getFixIndex() {
+        return fixIndex;
+    }
+
     /**
      * Google suggests to stop location updates when the activity is no longer in focus
      * http://developer.android.com/training/location/receive-location-updates.html#stop-updates
      */
     public void onPause() {
         activeProvider.onPause();
+        if (progressiveDelivery != null) progressiveDelivery.pause();
     }
 
     /**
@@ -170,6 +420,7 @@ public class XMSLocationManager implements PermissionListener {
      */
     public void onResume() {
         activeProvider.onResume();
+        if (progressiveDelivery != null) progressiveDelivery.resume();
     }
 
     /**
@@ -177,6 +428,8 @@ public class XMSLocationManager implements PermissionListener {
      */
     public void onDestroy() {
         activeProvider.onDestroy();
+        if (progressiveDelivery != null) progressiveDelivery.stop();
+        if (trajectoryRecorder != null) trajectoryRecorder.close();
     }
 
     /**
@@ -212,12 +465,15 @@ public class XMSLocationManager implements PermissionListener {
      */
     public void cancel() {
         activeProvider.cancel();
+        if (progressiveDelivery != null) progressiveDelivery.stop();
     }
 
     /**
      * The only method you need to call to trigger getting location process
      */
     public void get() {
+        stageTracer.requestStarted();
+        if (progressiveDelivery != null) progressiveDelivery.start();
         askForPermission();
     }
 
@@ -229,6 +485,7 @@ public class XMSLocationManager implements PermissionListener {
     }
 
     void askForPermission() {
+        stageTracer.stageStarted(Stage.ASK_FOR_PERMISSION, ProviderType.NONE);
         if (permissionProvider.hasPermission()) {
             permissionGranted(true);
         } else {
@@ -237,25 +494,50 @@ public class XMSLocationManager implements PermissionListener {
             }
 
             if (permissionProvider.requestPermissions()) {
-                LogUtils.logI("Waiting until we receive any callback from PermissionProvider...");
+                LogUtils.logI(TAG, "Waiting until we receive any callback from PermissionProvider...");
             } else {
-                LogUtils.logI("Couldn't get permission, Abort!");
+                LogUtils.logI(TAG, "Couldn't get permission, Abort!");
                 failed(FailType.PERMISSION_DENIED);
             }
         }
     }
 
     private void permissionGranted(boolean alreadyHadPermission) {
-        LogUtils.logI("We got permission!");
+        LogUtils.logI(TAG, "We got permission!");
+        stageTracer.stageFinished(Stage.ASK_FOR_PERMISSION, ProviderType.NONE);
 
         if (listener != null) {
             listener.onPermissionGranted(alreadyHadPermission);
         }
 
+        if (deliverCachedLocation() && (!getConfiguration().keepTracking() || isProgressiveFinished())) {
+            return;
+        }
+
         activeProvider.get();
     }
 
+    private boolean isProgressiveFinished() {
+        return progressiveDelivery != null && progressiveDelivery.isFinished();
+    }
+
+    private boolean deliverCachedLocation() {
+        if (locationCache == null || getConfiguration().defaultProviderConfiguration() == null) return false;
+
+        Location location = locationCache.sufficientLocation(
+              getConfiguration().defaultProviderConfiguration().acceptableTimePeriod(),
+              getConfiguration().defaultProviderConfiguration().acceptableAccuracy(), clock);
+        if (location == null) return false;
+
+        LogUtils.logI(TAG, "Cached location is sufficient, delivering it before starting any provider...");
+        if (listener != null) {
+            listener.onLocationChanged(location);
+        }
+        return true;
+    }
+
     private void failed(@FailType int type) {
+        stageTracer.stageFinished(Stage.ASK_FOR_PERMISSION, ProviderType.NONE);
         if (listener != null) {
             listener.onLocationFailed(type);
         }
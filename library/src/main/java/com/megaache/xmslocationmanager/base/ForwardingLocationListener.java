@@ -0,0 +1,133 @@
+package com.megaache.xmslocationmanager.base;
+
+import android.location.Location;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.GeofenceTransition;
+import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.helper.geofence.Geofence;
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.ProgressiveLocationListener;
+import com.megaache.xmslocationmanager.listener.TimeToFirstFixListener;
+
+import java.util.List;
+
+/**
+ * {@linkplain LocationListener} which forwards every call to the given delegate.
+ * Override only the methods you need to intercept.
+ *
+ * Optional listener interfaces are implemented as well, and they are forwarded only if the delegate implements them.
+ * Since a forwarding listener implements all of them, whether a chain takes an optional callback is to be asked
+ * with {@linkplain #isListening(LocationListener, Class)} instead of checking the type of its first listener.
+ */
+public class ForwardingLocationListener implements LocationListener, BatchLocationListener, TimeToFirstFixListener,
+      BestFixListener, ProgressiveLocationListener, GeofenceListener {
+
+    private final LocationListener delegate;
+
+    public ForwardingLocationListener(@NonNull LocationListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @NonNull
+    public LocationListener delegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns true if given listener takes the calls of given optional listener interface, such as
+     * {@linkplain BatchLocationListener}. Forwarding listeners are followed down to the listener they forward to.
+     */
+    public static boolean isListening(@Nullable LocationListener listener, @NonNull Class<?> listenerType) {
+        while (listener instanceof ForwardingLocationListener) {
+            listener = ((ForwardingLocationListener) listener).delegate;
+        }
+        return listenerType.isInstance(listener);
+    }
+
+    @Override
+    public void onProcessTypeChanged(@ProcessType int processType) {
+        delegate.onProcessTypeChanged(processType);
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        delegate.onLocationChanged(location);
+    }
+
+    /**
+     * Delegates which don't implement {@linkplain BatchLocationListener} receive the locations one by one
+     */
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        if (delegate instanceof BatchLocationListener) {
+            ((BatchLocationListener) delegate).onLocationsChanged(locations);
+        } else {
+            for (int i = 0; i < locations.size(); i++) {
+                delegate.onLocationChanged(locations.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void onLocationFailed(@FailType int type) {
+        delegate.onLocationFailed(type);
+    }
+
+    @Override
+    public void onPermissionGranted(boolean alreadyHadPermission) {
+        delegate.onPermissionGranted(alreadyHadPermission);
+    }
+
+    @Override
+    public void onStatusChanged(String provider, int status, Bundle extras) {
+        delegate.onStatusChanged(provider, status, extras);
+    }
+
+    @Override
+    public void onProviderEnabled(String provider) {
+        delegate.onProviderEnabled(provider);
+    }
+
+    @Override
+    public void onProviderDisabled(String provider) {
+        delegate.onProviderDisabled(provider);
+    }
+
+    @Override
+    public void onTimeToFirstFix(@ProviderType int providerType, long elapsedMillis) {
+        if (delegate instanceof TimeToFirstFixListener) {
+            ((TimeToFirstFixListener) delegate).onTimeToFirstFix(providerType, elapsedMillis);
+        }
+    }
+
+    @Override
+    public void onBestFix(@NonNull Location location, float score) {
+        if (delegate instanceof BestFixListener) {
+            ((BestFixListener) delegate).onBestFix(location, score);
+        }
+    }
+
+    @Override
+    public void onProgressiveLocation(@NonNull Location location, boolean isFinal) {
+        if (delegate instanceof ProgressiveLocationListener) {
+            ((ProgressiveLocationListener) delegate).onProgressiveLocation(location, isFinal);
+        }
+    }
+
+    @Override
+    public void onGeofenceTransition(@NonNull Geofence geofence, @GeofenceTransition int transition,
+          @NonNull Location location) {
+        if (delegate instanceof GeofenceListener) {
+            ((GeofenceListener) delegate).onGeofenceTransition(geofence, transition, location);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.megaache.xmslocationmanager.configuration;
+
+public class AdaptiveTrackingConfiguration {
+
+    private final long minInterval;
+    private final long maxInterval;
+    private final float sampleDistance;
+    private final float stationarySpeed;
+
+    private AdaptiveTrackingConfiguration(Builder builder) {
+        this.minInterval = builder.minInterval;
+        this.maxInterval = builder.maxInterval;
+        this.sampleDistance = builder.sampleDistance;
+        this.stationarySpeed = builder.stationarySpeed;
+    }
+
+    public AdaptiveTrackingConfiguration.Builder newBuilder() {
+        return new AdaptiveTrackingConfiguration.Builder()
+              .minInterval(minInterval)
+              .maxInterval(maxInterval)
+              .sampleDistance(sampleDistance)
+              .stationarySpeed(stationarySpeed);
+    }
+
+    // region Getters
+    public long minInterval() {
+        return minInterval;
+    }
+
+    public long maxInterval() {
+        return maxInterval;
+    }
+
+    public float sampleDistance() {
+        return sampleDistance;
+    }
+
+    public float stationarySpeed() {
+        return stationarySpeed;
+    }
+    // endregion
+
+    public static class Builder {
+
+        private long minInterval = Defaults.ADAPTIVE_MIN_INTERVAL;
+        private long maxInterval = Defaults.ADAPTIVE_MAX_INTERVAL;
+        private float sampleDistance = Defaults.ADAPTIVE_SAMPLE_DISTANCE;
+        private float stationarySpeed = Defaults.ADAPTIVE_STATIONARY_SPEED;
+
+        /**
+         * Shortest interval in milliseconds to request updates with, used while moving fast.
+         * Default is {@linkplain Defaults#ADAPTIVE_MIN_INTERVAL}
+         */
+        public Builder minInterval(long minInterval) {
+            if (minInterval <= 0) {
+                throw new IllegalArgumentException("minInterval must be greater than 0.");
+            }
+
+            this.minInterval = minInterval;
+            return this;
+        }
+
+        /**
+         * Longest interval in milliseconds to request updates with, used while stationary.
+         * Default is {@linkplain Defaults#ADAPTIVE_MAX_INTERVAL}
+         */
+        public Builder maxInterval(long maxInterval) {
+            if (maxInterval <= 0) {
+                throw new IllegalArgumentException("maxInterval must be greater than 0.");
+            }
+
+            this.maxInterval = maxInterval;
+            return this;
+        }
+
+        /**
+         * Distance in meters that is aimed to be travelled between two updates, interval is calculated
+         * by dividing it to the current speed and kept between {@linkplain #minInterval(long)} and
+         * {@linkplain #maxInterval(long)}.
+         * Default is {@linkplain Defaults#ADAPTIVE_SAMPLE_DISTANCE}
+         */
+        public Builder sampleDistance(float sampleDistance) {
+            if (sampleDistance <= 0) {
+                throw new IllegalArgumentException("sampleDistance must be greater than 0.");
+            }
+
+            this.sampleDistance = sampleDistance;
+            return this;
+        }
+
+        /**
+         * Speed in meters per second below which user is considered as stationary, then
+         * {@linkplain #maxInterval(long)} is used and XMS is asked for a lower power priority.
+         * Default is {@linkplain Defaults#ADAPTIVE_STATIONARY_SPEED}
+         */
+        public Builder stationarySpeed(float stationarySpeed) {
+            if (stationarySpeed < 0) {
+                throw new IllegalArgumentException("stationarySpeed cannot be set to negative value.");
+            }
+
+            this.stationarySpeed = stationarySpeed;
+            return this;
+        }
+
+        public AdaptiveTrackingConfiguration build() {
+            if (minInterval > maxInterval) {
+                throw new IllegalStateException("minInterval cannot be greater than maxInterval.");
+            }
+
+            return new AdaptiveTrackingConfiguration(this);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.megaache.xmslocationmanager.configuration;
 
 import androidx.annotation.Nullable;
 
+import com.megaache.xmslocationmanager.constants.FailType;
 import com.megaache.xmslocationmanager.constants.ProviderType;
 import com.megaache.xmslocationmanager.helper.StringUtils;
+import com.megaache.xmslocationmanager.helper.tracking.BestFixTracker;
 import com.megaache.xmslocationmanager.providers.dialogprovider.DialogProvider;
 import com.megaache.xmslocationmanager.providers.dialogprovider.SimpleMessageDialogProvider;
 
@@ -16,6 +18,10 @@ public class DefaultProviderConfiguration {
     private final long gpsWaitPeriod;
     private final long networkWaitPeriod;
     private final DialogProvider gpsDialogProvider;
+    private final boolean deliverBestFixOnTimeout;
+    private final float minimumFixScore;
+    private final boolean concurrentProviders;
+    private final long gpsGracePeriod;
 
     private DefaultProviderConfiguration(Builder builder) {
         this.requiredTimeInterval = builder.requiredTimeInterval;
@@ -25,6 +31,10 @@ public class DefaultProviderConfiguration {
         this.gpsWaitPeriod = builder.gpsWaitPeriod;
         this.networkWaitPeriod = builder.networkWaitPeriod;
         this.gpsDialogProvider = builder.gpsDialogProvider;
+        this.deliverBestFixOnTimeout = builder.deliverBestFixOnTimeout;
+        this.minimumFixScore = builder.minimumFixScore;
+        this.concurrentProviders = builder.concurrentProviders;
+        this.gpsGracePeriod = builder.gpsGracePeriod;
     }
 
     public DefaultProviderConfiguration.Builder newBuilder() {
@@ -35,7 +45,11 @@ public class DefaultProviderConfiguration {
               .acceptableTimePeriod(acceptableTimePeriod)
               .setWaitPeriod(ProviderType.GPS, gpsWaitPeriod)
               .setWaitPeriod(ProviderType.NETWORK, networkWaitPeriod)
-              .gpsDialogProvider(gpsDialogProvider);
+              .gpsDialogProvider(gpsDialogProvider)
+              .deliverBestFixOnTimeout(deliverBestFixOnTimeout)
+              .minimumFixScore(minimumFixScore)
+              .concurrentProviders(concurrentProviders)
+              .gpsGracePeriod(gpsGracePeriod);
     }
 
     // region Getters
@@ -71,6 +85,22 @@ public class DefaultProviderConfiguration {
     public long networkWaitPeriod() {
         return networkWaitPeriod;
     }
+
+    public boolean deliverBestFixOnTimeout() {
+        return deliverBestFixOnTimeout;
+    }
+
+    public float minimumFixScore() {
+        return minimumFixScore;
+    }
+
+    public boolean concurrentProviders() {
+        return concurrentProviders;
+    }
+
+    public long gpsGracePeriod() {
+        return gpsGracePeriod;
+    }
     // endregion
 
 
@@ -84,6 +114,10 @@ public class DefaultProviderConfiguration {
         private long networkWaitPeriod = Defaults.WAIT_PERIOD;
         private DialogProvider gpsDialogProvider;
         private String gpsMessage = Defaults.EMPTY_STRING;
+        private boolean deliverBestFixOnTimeout = Defaults.DELIVER_BEST_FIX_ON_TIMEOUT;
+        private float minimumFixScore = Defaults.MIN_FIX_SCORE;
+        private boolean concurrentProviders = Defaults.CONCURRENT_PROVIDERS;
+        private long gpsGracePeriod = Defaults.GPS_GRACE_PERIOD;
 
         /**
          * TimeInterval will be used while getting location from default location providers
@@ -202,6 +236,60 @@ public class DefaultProviderConfiguration {
             return this;
         }
 
+        /**
+         * Indicates whether to deliver the best location received so far, instead of failing with
+         * {@linkplain FailType#TIMEOUT}, when no location satisfies acceptableAccuracy and acceptableTimePeriod
+         * within the wait periods. Locations are ranked by a score of their age, accuracy and provider,
+         * see {@linkplain BestFixTracker}.
+         * Default is {@linkplain Defaults#DELIVER_BEST_FIX_ON_TIMEOUT}
+         */
+        public Builder deliverBestFixOnTimeout(boolean deliverBestFixOnTimeout) {
+            this.deliverBestFixOnTimeout = deliverBestFixOnTimeout;
+            return this;
+        }
+
+        /**
+         * Minimum score between 0 and 1 that the best location needs to have to be delivered on timeout,
+         * will be used only when {@linkplain #deliverBestFixOnTimeout(boolean)} is set to true.
+         * Default is {@linkplain Defaults#MIN_FIX_SCORE}
+         */
+        public Builder minimumFixScore(float minimumFixScore) {
+            if (minimumFixScore < 0 || minimumFixScore > 1) {
+                throw new IllegalArgumentException("minimumFixScore must be between 0 and 1.");
+            }
+
+            this.minimumFixScore = minimumFixScore;
+            return this;
+        }
+
+        /**
+         * Indicates whether to listen GPS and Network providers at the same time, instead of waiting
+         * gpsWaitPeriod for GPS before asking Network. The first location of either provider is delivered, as it is
+         * when they are asked one after the other, then both providers are released together.
+         * This is used only when both providers are enabled, otherwise they are asked one after the other.
+         * Default is {@linkplain Defaults#CONCURRENT_PROVIDERS}
+         */
+        public Builder concurrentProviders(boolean concurrentProviders) {
+            this.concurrentProviders = concurrentProviders;
+            return this;
+        }
+
+        /**
+         * Indicates how long to wait for a GPS location when a Network location is received first,
+         * will be used only when {@linkplain #concurrentProviders(boolean)} is set to true.
+         * If GPS provides a location at least as accurate in this period it is delivered instead,
+         * otherwise the Network one.
+         * Default is {@linkplain Defaults#GPS_GRACE_PERIOD}, which delivers the Network location right away.
+         */
+        public Builder gpsGracePeriod(long milliseconds) {
+            if (milliseconds < 0) {
+                throw new IllegalArgumentException("gpsGracePeriod cannot be set to negative value.");
+            }
+
+            this.gpsGracePeriod = milliseconds;
+            return this;
+        }
+
         public DefaultProviderConfiguration build() {
             if (gpsDialogProvider == null && StringUtils.isNotEmpty(gpsMessage)) {
                 gpsDialogProvider = new SimpleMessageDialogProvider(gpsMessage);
@@ -12,14 +12,43 @@ public final class Defaults {
     private static final int MINUTE = 60 * SECOND;
 
     static final int WAIT_PERIOD = 20 * SECOND;
+    static final long MAX_WAIT_TIME = 0;
+    static final long GPS_GRACE_PERIOD = 0;
     static final int TIME_PERIOD = 5 * MINUTE;
 
     static final int LOCATION_DISTANCE_INTERVAL = 0;
     static final int LOCATION_INTERVAL = 5 * MINUTE;
 
     static final float MIN_ACCURACY = 5.0f;
+    static final float MIN_FIX_SCORE = 0.1f;
+
+    static final long ADAPTIVE_MIN_INTERVAL = 5 * SECOND;
+    static final long ADAPTIVE_MAX_INTERVAL = 5 * MINUTE;
+    static final float ADAPTIVE_SAMPLE_DISTANCE = 50;
+    static final float ADAPTIVE_STATIONARY_SPEED = 0.5f;
+
+    // An hour of tracking with one location per second
+    static final int TRAJECTORY_SEGMENT_CAPACITY = 60 * 60;
+    static final int TRAJECTORY_MAX_SEGMENTS = 0;
+
+    // About a kilometer, around the size of a typical fence
+    static final double GEOFENCE_CELL_SIZE = 0.01;
+    static final long GEOFENCE_DWELL_TIME = 0;
+    static final float GEOFENCE_MAX_HYSTERESIS = 100;
+
+    // 7 geohash characters
+    static final int FIX_INDEX_PRECISION = 35;
+    static final long FIX_INDEX_BUCKET_DURATION = 60 * MINUTE;
+    static final long FIX_INDEX_RETENTION = 7L * 24 * 60 * MINUTE;
 
     static final boolean KEEP_TRACKING = false;
+    static final boolean DELIVER_BEST_FIX_ON_TIMEOUT = true;
+    static final boolean RACE_PROVIDERS = false;
+    static final boolean CONCURRENT_PROVIDERS = false;
+    static final boolean SHARE_SUBSCRIPTIONS = false;
+    static final int WARM_START_CACHE_SIZE = 0;
+    static final int FIX_HISTORY_CAPACITY = 0;
+    static final long PROGRESSIVE_DEADLINE = 0;
     static final boolean FALLBACK_TO_DEFAULT = true;
     static final boolean ASK_FOR_GP_SERVICES = false;
     static final boolean ASK_FOR_SETTINGS_API = true;
@@ -0,0 +1,90 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import com.megaache.xmslocationmanager.helper.geohash.Geohash;
+
+public class FixIndexConfiguration {
+
+    private final int precision;
+    private final long bucketDuration;
+    private final long retention;
+
+    private FixIndexConfiguration(Builder builder) {
+        this.precision = builder.precision;
+        this.bucketDuration = builder.bucketDuration;
+        this.retention = builder.retention;
+    }
+
+    public FixIndexConfiguration.Builder newBuilder() {
+        return new FixIndexConfiguration.Builder()
+              .precision(precision)
+              .bucketDuration(bucketDuration)
+              .retention(retention);
+    }
+
+    // region Getters
+    public int precision() {
+        return precision;
+    }
+
+    public long bucketDuration() {
+        return bucketDuration;
+    }
+
+    public long retention() {
+        return retention;
+    }
+    // endregion
+
+    public static class Builder {
+
+        private int precision = Defaults.FIX_INDEX_PRECISION;
+        private long bucketDuration = Defaults.FIX_INDEX_BUCKET_DURATION;
+        private long retention = Defaults.FIX_INDEX_RETENTION;
+
+        /**
+         * Number of bits of the geohash cells fixes are indexed by, every 5 bits is one geohash character.
+         * Queries only look at the cells around the area they ask for, so smaller cells suit smaller areas.
+         * Default is {@linkplain Defaults#FIX_INDEX_PRECISION}, cells of about 150 x 150 meters.
+         */
+        public Builder precision(int precision) {
+            if (precision < Geohash.MIN_BITS || precision > Geohash.MAX_BITS) {
+                throw new IllegalArgumentException("precision must be between " + Geohash.MIN_BITS + " and "
+                      + Geohash.MAX_BITS + ".");
+            }
+
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Fixes are indexed separately for every period of this many milliseconds, so a query only looks at
+         * the periods it asks for, and old periods are dropped as a whole.
+         * Default is {@linkplain Defaults#FIX_INDEX_BUCKET_DURATION}
+         */
+        public Builder bucketDuration(long bucketDuration) {
+            if (bucketDuration <= 0) {
+                throw new IllegalArgumentException("bucketDuration must be greater than 0.");
+            }
+
+            this.bucketDuration = bucketDuration;
+            return this;
+        }
+
+        /**
+         * Fixes older than this many milliseconds than the newest fix are dropped.
+         * Default is {@linkplain Defaults#FIX_INDEX_RETENTION}, set 0 to keep all of them.
+         */
+        public Builder retention(long retention) {
+            if (retention < 0) {
+                throw new IllegalArgumentException("retention cannot be set to negative value.");
+            }
+
+            this.retention = retention;
+            return this;
+        }
+
+        public FixIndexConfiguration build() {
+            return new FixIndexConfiguration(this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import com.megaache.xmslocationmanager.helper.geofence.GeofenceEngine;
+
+public class GeofencingConfiguration {
+
+    private static final double MAX_CELL_SIZE = 10;
+
+    private final double cellSize;
+    private final long dwellTime;
+    private final float maxHysteresis;
+
+    private GeofencingConfiguration(Builder builder) {
+        this.cellSize = builder.cellSize;
+        this.dwellTime = builder.dwellTime;
+        this.maxHysteresis = builder.maxHysteresis;
+    }
+
+    public GeofencingConfiguration.Builder newBuilder() {
+        return new GeofencingConfiguration.Builder()
+              .cellSize(cellSize)
+              .dwellTime(dwellTime)
+              .maxHysteresis(maxHysteresis);
+    }
+
+    // region Getters
+    public double cellSize() {
+        return cellSize;
+    }
+
+    public long dwellTime() {
+        return dwellTime;
+    }
+
+    public float maxHysteresis() {
+        return maxHysteresis;
+    }
+    // endregion
+
+    public static class Builder {
+
+        private double cellSize = Defaults.GEOFENCE_CELL_SIZE;
+        private long dwellTime = Defaults.GEOFENCE_DWELL_TIME;
+        private float maxHysteresis = Defaults.GEOFENCE_MAX_HYSTERESIS;
+
+        /**
+         * Size in degrees of the grid cells which {@linkplain GeofenceEngine} indexes fences by. Only the fences
+         * overlapping the cell of a location are checked, so it should be around the size of a typical fence.
+         * Default is {@linkplain Defaults#GEOFENCE_CELL_SIZE}, about 1 kilometer.
+         */
+        public Builder cellSize(double cellSize) {
+            if (cellSize <= 0 || cellSize > MAX_CELL_SIZE) {
+                throw new IllegalArgumentException("cellSize must be greater than 0 and at most "
+                      + MAX_CELL_SIZE + " degrees.");
+            }
+
+            this.cellSize = cellSize;
+            return this;
+        }
+
+        /**
+         * Time in milliseconds to stay in a fence after entering it, until a dwell transition is delivered.
+         * Default is {@linkplain Defaults#GEOFENCE_DWELL_TIME}, which means dwell transitions are not delivered.
+         */
+        public Builder dwellTime(long dwellTime) {
+            if (dwellTime < 0) {
+                throw new IllegalArgumentException("dwellTime cannot be set to negative value.");
+            }
+
+            this.dwellTime = dwellTime;
+            return this;
+        }
+
+        /**
+         * A location needs to be inside a fence by its accuracy to enter it, and outside by its accuracy to exit,
+         * so an inaccurate location around the border doesn't flip the state. This is the largest margin
+         * in meters that accuracy can make, so very inaccurate locations can still cause transitions.
+         * Default is {@linkplain Defaults#GEOFENCE_MAX_HYSTERESIS}
+         */
+        public Builder maxHysteresis(float maxHysteresis) {
+            if (maxHysteresis < 0) {
+                throw new IllegalArgumentException("maxHysteresis cannot be set to negative value.");
+            }
+
+            this.maxHysteresis = maxHysteresis;
+            return this;
+        }
+
+        public GeofencingConfiguration build() {
+            return new GeofencingConfiguration(this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.helper.recording.TrajectoryReader;
+
+import java.io.File;
+
+public class TrajectoryRecordingConfiguration {
+
+    // Segment files are mapped as a whole, so they need to stay within the limits of a mapping
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 24;
+
+    private final File directory;
+    private final int segmentCapacity;
+    private final int maxSegments;
+
+    private TrajectoryRecordingConfiguration(Builder builder) {
+        this.directory = builder.directory;
+        this.segmentCapacity = builder.segmentCapacity;
+        this.maxSegments = builder.maxSegments;
+    }
+
+    public TrajectoryRecordingConfiguration.Builder newBuilder() {
+        return new TrajectoryRecordingConfiguration.Builder()
+              .directory(directory)
+              .segmentCapacity(segmentCapacity)
+              .maxSegments(maxSegments);
+    }
+
+    // region Getters
+    @Nullable
+    public File directory() {
+        return directory;
+    }
+
+    public int segmentCapacity() {
+        return segmentCapacity;
+    }
+
+    public int maxSegments() {
+        return maxSegments;
+    }
+    // endregion
+
+    public static class Builder {
+
+        private File directory;
+        private int segmentCapacity = Defaults.TRAJECTORY_SEGMENT_CAPACITY;
+        private int maxSegments = Defaults.TRAJECTORY_MAX_SEGMENTS;
+
+        /**
+         * Directory to keep the segment files in, use {@linkplain TrajectoryReader} to read them back.
+         * If this is not set, a directory under the files directory of the application is used.
+         */
+        public Builder directory(@Nullable File directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Number of locations a segment file holds, a new segment is started once it is full.
+         * Each location takes 16 bytes on the disk.
+         * Default is {@linkplain Defaults#TRAJECTORY_SEGMENT_CAPACITY}
+         */
+        public Builder segmentCapacity(int segmentCapacity) {
+            if (segmentCapacity <= 0 || segmentCapacity > MAX_SEGMENT_CAPACITY) {
+                throw new IllegalArgumentException("segmentCapacity must be between 1 and "
+                      + MAX_SEGMENT_CAPACITY + ".");
+            }
+
+            this.segmentCapacity = segmentCapacity;
+            return this;
+        }
+
+        /**
+         * Number of segment files to keep, the oldest ones are deleted when a new segment is started.
+         * Default is {@linkplain Defaults#TRAJECTORY_MAX_SEGMENTS}, which means all of them are kept.
+         */
+        public Builder maxSegments(int maxSegments) {
+            if (maxSegments < 0) {
+                throw new IllegalArgumentException("maxSegments cannot be set to negative value.");
+            }
+
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        public TrajectoryRecordingConfiguration build() {
+            return new TrajectoryRecordingConfiguration(this);
+        }
+    }
+}
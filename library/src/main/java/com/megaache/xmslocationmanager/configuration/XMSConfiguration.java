@@ -3,6 +3,7 @@ package com.megaache.xmslocationmanager.configuration;
 import androidx.annotation.NonNull;
 
 import com.megaache.xmslocationmanager.XMSLocationRequest;
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
 import com.megaache.xmslocationmanager.providers.locationprovider.DefaultLocationProvider;
 import com.megaache.xmslocationmanager.providers.locationprovider.XMSLocationProvider;
 
@@ -15,6 +16,7 @@ public class XMSConfiguration {
     private final boolean failOnSettingsApiSuspended;
     private final boolean ignoreLastKnowLocation;
     private final long XMSWaitPeriod;
+    private final long maxWaitTime;
 
     private XMSConfiguration(Builder builder) {
         this.locationRequest = builder.xmsLocationRequest;
@@ -24,6 +26,7 @@ public class XMSConfiguration {
         this.failOnSettingsApiSuspended = builder.failOnSettingsApiSuspended;
         this.ignoreLastKnowLocation = builder.ignoreLastKnowLocation;
         this.XMSWaitPeriod = builder.XMSWaitPeriod;
+        this.maxWaitTime = builder.maxWaitTime;
     }
 
     public XMSConfiguration.Builder newBuilder() {
@@ -34,7 +37,8 @@ public class XMSConfiguration {
               .askForSettingsApi(askForSettingsApi)
               .failOnSettingsApiSuspended(failOnSettingsApiSuspended)
               .ignoreLastKnowLocation(ignoreLastKnowLocation)
-              .setWaitPeriod(XMSWaitPeriod);
+              .setWaitPeriod(XMSWaitPeriod)
+              .setMaxWaitTime(maxWaitTime);
     }
 
     // region Getters
@@ -66,6 +70,14 @@ public class XMSConfiguration {
         return XMSWaitPeriod;
     }
 
+    public long maxWaitTime() {
+        return maxWaitTime;
+    }
+
+    public boolean batchLocations() {
+        return maxWaitTime > 0;
+    }
+
     // endregion
 
     public static class Builder {
@@ -77,6 +89,7 @@ public class XMSConfiguration {
         private boolean failOnSettingsApiSuspended = Defaults.FAIL_ON_SETTINGS_API_SUSPENDED;
         private boolean ignoreLastKnowLocation = Defaults.IGNORE_LAST_KNOW_LOCATION;
         private long XMSWaitPeriod = Defaults.WAIT_PERIOD;
+        private long maxWaitTime = Defaults.MAX_WAIT_TIME;
 
         /**
          * XMSLocationRequest object that you specified to use while getting location from Google/Huawei Play Services whichever is available
@@ -162,7 +175,29 @@ public class XMSConfiguration {
             return this;
         }
 
+        /**
+         * Enables batching, location updates are collected by the device for up to given time
+         * and delivered at once, which saves battery while tracking in background. It is applied to
+         * {@linkplain #xmsLocationRequest(XMSLocationRequest)} as its max wait time, and it should be
+         * at least twice the interval of the request, otherwise locations are delivered as they come.
+         * Implement {@linkplain BatchLocationListener} to receive each batch in a single call.
+         *
+         * Default is 0, which means batching is disabled.
+         */
+        public Builder setMaxWaitTime(long milliseconds) {
+            if (milliseconds < 0) {
+                throw new IllegalArgumentException("maxWaitTime cannot be set to negative value.");
+            }
+
+            this.maxWaitTime = milliseconds;
+            return this;
+        }
+
         public XMSConfiguration build() {
+            if (maxWaitTime > 0) {
+                xmsLocationRequest.setMaxWaitTime(maxWaitTime);
+            }
+
             return new XMSConfiguration(this);
         }
     }
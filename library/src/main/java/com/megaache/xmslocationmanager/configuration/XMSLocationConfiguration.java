@@ -2,17 +2,39 @@ package com.megaache.xmslocationmanager.configuration;
 
 import androidx.annotation.Nullable;
 
+import com.megaache.xmslocationmanager.helper.history.FixHistory;
+import com.megaache.xmslocationmanager.helper.recording.TrajectoryReader;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+import com.megaache.xmslocationmanager.listener.ProgressiveLocationListener;
 import com.megaache.xmslocationmanager.providers.permissionprovider.StubPermissionProvider;
 
 public class XMSLocationConfiguration {
 
     private final boolean keepTracking;
+    private final boolean raceProviders;
+    private final boolean shareSubscriptions;
+    private final int warmStartCacheSize;
+    private final int fixHistoryCapacity;
+    private final long progressiveDeadline;
+    private final AdaptiveTrackingConfiguration adaptiveTrackingConfiguration;
+    private final TrajectoryRecordingConfiguration trajectoryRecordingConfiguration;
+    private final GeofencingConfiguration geofencingConfiguration;
+    private final FixIndexConfiguration fixIndexConfiguration;
     private final PermissionConfiguration permissionConfiguration;
     private final XMSConfiguration xmsConfiguration;
     private final DefaultProviderConfiguration defaultProviderConfiguration;
 
     private XMSLocationConfiguration(Builder builder) {
         this.keepTracking = builder.keepTracking;
+        this.raceProviders = builder.raceProviders;
+        this.shareSubscriptions = builder.shareSubscriptions;
+        this.warmStartCacheSize = builder.warmStartCacheSize;
+        this.fixHistoryCapacity = builder.fixHistoryCapacity;
+        this.progressiveDeadline = builder.progressiveDeadline;
+        this.adaptiveTrackingConfiguration = builder.adaptiveTrackingConfiguration;
+        this.trajectoryRecordingConfiguration = builder.trajectoryRecordingConfiguration;
+        this.geofencingConfiguration = builder.geofencingConfiguration;
+        this.fixIndexConfiguration = builder.fixIndexConfiguration;
         this.permissionConfiguration = builder.permissionConfiguration;
         this.xmsConfiguration = builder.xmsConfiguration;
         this.defaultProviderConfiguration = builder.defaultProviderConfiguration;
@@ -21,14 +43,78 @@ public class XMSLocationConfiguration {
     public XMSLocationConfiguration.Builder newBuilder() {
         return new XMSLocationConfiguration.Builder()
               .keepTracking(keepTracking)
+              .raceProviders(raceProviders)
+              .shareSubscriptions(shareSubscriptions)
+              .warmStartCache(warmStartCacheSize)
+              .fixHistory(fixHistoryCapacity)
+              .progressive(progressiveDeadline)
+              .adaptiveTracking(adaptiveTrackingConfiguration)
+              .recordTrajectory(trajectoryRecordingConfiguration)
+              .geofencing(geofencingConfiguration)
+              .indexFixes(fixIndexConfiguration)
               .askForPermission(permissionConfiguration)
               .useXMS(xmsConfiguration)
               .useDefaultProviders(defaultProviderConfiguration);
     }
 
     // region Getters
+    /**
+     * Also true in progressive mode, since providers need to keep delivering until it is over
+     */
     public boolean keepTracking() {
-        return keepTracking;
+        return keepTracking || isProgressive();
+    }
+
+    public boolean raceProviders() {
+        return raceProviders;
+    }
+
+    public boolean shareSubscriptions() {
+        return shareSubscriptions;
+    }
+
+    public int warmStartCacheSize() {
+        return warmStartCacheSize;
+    }
+
+    public boolean useWarmStartCache() {
+        return warmStartCacheSize > 0;
+    }
+
+    public int fixHistoryCapacity() {
+        return fixHistoryCapacity;
+    }
+
+    public boolean useFixHistory() {
+        return fixHistoryCapacity > 0;
+    }
+
+    public long progressiveDeadline() {
+        return progressiveDeadline;
+    }
+
+    public boolean isProgressive() {
+        return progressiveDeadline > 0;
+    }
+
+    @Nullable
+    public AdaptiveTrackingConfiguration adaptiveTrackingConfiguration() {
+        return adaptiveTrackingConfiguration;
+    }
+
+    @Nullable
+    public TrajectoryRecordingConfiguration trajectoryRecordingConfiguration() {
+        return trajectoryRecordingConfiguration;
+    }
+
+    @Nullable
+    public GeofencingConfiguration geofencingConfiguration() {
+        return geofencingConfiguration;
+    }
+
+    @Nullable
+    public FixIndexConfiguration fixIndexConfiguration() {
+        return fixIndexConfiguration;
     }
 
     public PermissionConfiguration permissionConfiguration() {
@@ -48,6 +134,15 @@ public class XMSLocationConfiguration {
     public static class Builder {
 
         private boolean keepTracking = Defaults.KEEP_TRACKING;
+        private boolean raceProviders = Defaults.RACE_PROVIDERS;
+        private boolean shareSubscriptions = Defaults.SHARE_SUBSCRIPTIONS;
+        private int warmStartCacheSize = Defaults.WARM_START_CACHE_SIZE;
+        private int fixHistoryCapacity = Defaults.FIX_HISTORY_CAPACITY;
+        private long progressiveDeadline = Defaults.PROGRESSIVE_DEADLINE;
+        private AdaptiveTrackingConfiguration adaptiveTrackingConfiguration;
+        private TrajectoryRecordingConfiguration trajectoryRecordingConfiguration;
+        private GeofencingConfiguration geofencingConfiguration;
+        private FixIndexConfiguration fixIndexConfiguration;
         private PermissionConfiguration permissionConfiguration;
         private XMSConfiguration xmsConfiguration;
         private DefaultProviderConfiguration defaultProviderConfiguration;
@@ -62,6 +157,127 @@ public class XMSLocationConfiguration {
             return this;
         }
 
+        /**
+         * By default default providers are only asked for location after XMS fails or after
+         * {@linkplain XMSConfiguration#xmsWaitPeriod()} passes. If you set this to true, both of them will be started
+         * at the same time, the first location that satisfies {@linkplain DefaultProviderConfiguration#acceptableAccuracy()}
+         * and {@linkplain DefaultProviderConfiguration#acceptableTimePeriod()} wins and the other one is canceled.
+         * Requires both {@linkplain XMSConfiguration} and {@linkplain DefaultProviderConfiguration} to be set.
+         * Default is False.
+         */
+        public Builder raceProviders(boolean raceProviders) {
+            this.raceProviders = raceProviders;
+            return this;
+        }
+
+        /**
+         * If you set this to true, location updates are requested through a process-wide hub which keeps
+         * only one subscription per source (XMS, GPS, Network) no matter how many managers are active,
+         * merging their requests and fanning each location out to all of them.
+         * The subscription is removed when the last manager stops listening.
+         * Default is False.
+         */
+        public Builder shareSubscriptions(boolean shareSubscriptions) {
+            this.shareSubscriptions = shareSubscriptions;
+            return this;
+        }
+
+        /**
+         * Number of delivered locations to keep per provider in a small file on the disk.
+         * When it is set, the cache is read while the manager is being built, and if the newest cached location
+         * satisfies {@linkplain DefaultProviderConfiguration#acceptableAccuracy()} and
+         * {@linkplain DefaultProviderConfiguration#acceptableTimePeriod()} it is delivered as soon as permission
+         * is granted, even after a reboot. Requires {@linkplain DefaultProviderConfiguration} to be set.
+         * Default is 0, which means cache is disabled.
+         */
+        public Builder warmStartCache(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("warmStartCache cannot be set to negative value.");
+            }
+
+            this.warmStartCacheSize = size;
+            return this;
+        }
+
+        /**
+         * Number of delivered locations to keep in memory for queries over the recent history, such as the distance
+         * travelled in the last minutes, see {@linkplain FixHistory}. Oldest locations are overwritten.
+         * Default is 0, which means history is not kept.
+         */
+        public Builder fixHistory(int capacity) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("fixHistory cannot be set to negative value.");
+            }
+
+            this.fixHistoryCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Progressive mode is a one-shot mode for the cases where something needs to be displayed right away,
+         * but a precise location is needed eventually. The first location from any source is delivered immediately,
+         * then only the ones which are more accurate than the last delivered one, until a location satisfies
+         * {@linkplain DefaultProviderConfiguration#acceptableAccuracy()} or given deadline in milliseconds passes.
+         * Then all providers are stopped. Implement {@linkplain ProgressiveLocationListener} to know which
+         * delivery is the final one. Requires {@linkplain DefaultProviderConfiguration} to be set,
+         * and cannot be used together with {@linkplain #keepTracking(boolean)}.
+         * Default is 0, which means progressive mode is disabled.
+         */
+        public Builder progressive(long deadline) {
+            if (deadline < 0) {
+                throw new IllegalArgumentException("progressive deadline cannot be set to negative value.");
+            }
+
+            this.progressiveDeadline = deadline;
+            return this;
+        }
+
+        /**
+         * While keeping track, adapts the update interval to the speed of the user instead of using a fixed one:
+         * the faster the user moves the shorter it gets, and while user is stationary updates are requested
+         * rarely and with a lower power priority. Active request is replaced in place, so updates continue
+         * without a gap while the interval changes. Requires {@linkplain #keepTracking(boolean)} to be true.
+         * If this is not set, the interval of the provider configurations is used for the whole session.
+         */
+        public Builder adaptiveTracking(AdaptiveTrackingConfiguration adaptiveTrackingConfiguration) {
+            this.adaptiveTrackingConfiguration = adaptiveTrackingConfiguration;
+            return this;
+        }
+
+        /**
+         * While keeping track, appends every delivered location to segment files on the disk, which can be
+         * read back by {@linkplain TrajectoryReader}. Locations are written on a background thread into
+         * memory-mapped files, so recording never blocks the delivery of locations.
+         * Requires {@linkplain #keepTracking(boolean)} to be true.
+         * If this is not set, nothing is recorded.
+         */
+        public Builder recordTrajectory(TrajectoryRecordingConfiguration trajectoryRecordingConfiguration) {
+            this.trajectoryRecordingConfiguration = trajectoryRecordingConfiguration;
+            return this;
+        }
+
+        /**
+         * Evaluates every delivered location against the fences added to
+         * {@linkplain com.megaache.xmslocationmanager.XMSLocationManager#getGeofenceEngine()}, without the limits of
+         * platform geofencing. Implement {@linkplain GeofenceListener} to receive the transitions.
+         * If this is not set, locations are not evaluated.
+         */
+        public Builder geofencing(GeofencingConfiguration geofencingConfiguration) {
+            this.geofencingConfiguration = geofencingConfiguration;
+            return this;
+        }
+
+        /**
+         * Indexes every delivered location by its geohash cell and time, so
+         * {@linkplain com.megaache.xmslocationmanager.XMSLocationManager#getFixIndex()} can answer which places
+         * were visited and which areas were covered without going through every location.
+         * If this is not set, locations are not indexed.
+         */
+        public Builder indexFixes(FixIndexConfiguration fixIndexConfiguration) {
+            this.fixIndexConfiguration = fixIndexConfiguration;
+            return this;
+        }
+
         /**
          * This configuration is required in order to configure Permission Request process.
          * If this is not set, then no permission will be requested from user and
@@ -97,6 +313,28 @@ public class XMSLocationConfiguration {
                       + " Please see XMSConfiguration and DefaultProviderConfiguration");
             }
 
+            if (raceProviders && (xmsConfiguration == null || defaultProviderConfiguration == null)) {
+                throw new IllegalStateException("raceProviders requires both of the provider configurations."
+                      + " Please see XMSConfiguration and DefaultProviderConfiguration");
+            }
+
+            if (adaptiveTrackingConfiguration != null && !keepTracking) {
+                throw new IllegalStateException("adaptiveTracking requires keepTracking to be true.");
+            }
+
+            if (trajectoryRecordingConfiguration != null && !keepTracking) {
+                throw new IllegalStateException("recordTrajectory requires keepTracking to be true.");
+            }
+
+            if (progressiveDeadline > 0 && keepTracking) {
+                throw new IllegalStateException("progressive is a one-shot mode, it cannot be used with keepTracking.");
+            }
+
+            if (progressiveDeadline > 0 && defaultProviderConfiguration == null) {
+                throw new IllegalStateException("progressive requires DefaultProviderConfiguration"
+                      + " to know acceptableAccuracy.");
+            }
+
             if (permissionConfiguration == null) {
                 permissionConfiguration = new PermissionConfiguration.Builder()
                       .permissionProvider(new StubPermissionProvider())
@@ -0,0 +1,33 @@
+package com.megaache.xmslocationmanager.constants;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@IntDef({FallbackReason.TIMEOUT, FallbackReason.NOT_AVAILABLE, FallbackReason.FAILED,
+      FallbackReason.USER_DECLINED})
+@Retention(RetentionPolicy.SOURCE)
+public @interface FallbackReason {
+
+    /**
+     * Provider didn't deliver any location in its wait period.
+     */
+    int TIMEOUT = 1;
+
+    /**
+     * Provider is not available on device or it is disabled, such as XMS is missing or GPS is switched off.
+     */
+    int NOT_AVAILABLE = 2;
+
+    /**
+     * Provider was started but it failed, such as XMS SettingsApi failure.
+     */
+    int FAILED = 3;
+
+    /**
+     * User declined to resolve the problem, such as canceling XMS error dialog or GPS enable dialog.
+     */
+    int USER_DECLINED = 4;
+
+}
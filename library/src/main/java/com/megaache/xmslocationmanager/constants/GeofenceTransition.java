@@ -0,0 +1,16 @@
+package com.megaache.xmslocationmanager.constants;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@IntDef({GeofenceTransition.ENTER, GeofenceTransition.EXIT, GeofenceTransition.DWELL})
+@Retention(RetentionPolicy.SOURCE)
+public @interface GeofenceTransition {
+
+    int ENTER = 1;
+    int EXIT = 2;
+    int DWELL = 4;
+
+}
@@ -0,0 +1,27 @@
+package com.megaache.xmslocationmanager.constants;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@IntDef({OverflowStrategy.LATEST, OverflowStrategy.DROP_OLDEST, OverflowStrategy.BUFFER})
+@Retention(RetentionPolicy.SOURCE)
+public @interface OverflowStrategy {
+
+    /**
+     * Only the newest location is kept until the subscriber asks for it, older ones are dropped
+     */
+    int LATEST = 1;
+
+    /**
+     * Locations are kept up to the buffer size, the oldest one is dropped to make room for a new one
+     */
+    int DROP_OLDEST = 2;
+
+    /**
+     * Locations are kept up to the buffer size, the stream fails once a location does not fit
+     */
+    int BUFFER = 3;
+
+}
@@ -0,0 +1,38 @@
+package com.megaache.xmslocationmanager.constants;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@IntDef({Stage.ASK_FOR_PERMISSION, Stage.CHECK_XMS_AVAILABILITY, Stage.GET_LAST_LOCATION,
+      Stage.CHECK_LOCATION_SETTINGS, Stage.REQUEST_LOCATION_UPDATES})
+@Retention(RetentionPolicy.SOURCE)
+public @interface Stage {
+
+    /**
+     * From the moment get() is called until permission is granted or denied,
+     * it is finished immediately if the application already has the permissions.
+     */
+    int ASK_FOR_PERMISSION = 0;
+
+    /**
+     * Checking whether Google/Huawei Play Services are available on device.
+     */
+    int CHECK_XMS_AVAILABILITY = 1;
+
+    /**
+     * Asking the provider for its last known location.
+     */
+    int GET_LAST_LOCATION = 2;
+
+    /**
+     * Waiting for SettingsApi to tell whether location settings are satisfied, including the dialog if it is shown.
+     */
+    int CHECK_LOCATION_SETTINGS = 3;
+
+    /**
+     * From the moment location updates are requested until the first location update is received.
+     */
+    int REQUEST_LOCATION_UPDATES = 4;
+}
@@ -0,0 +1,27 @@
+package com.megaache.xmslocationmanager.constants;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@IntDef({TraceFormat.GPX, TraceFormat.NMEA, TraceFormat.CSV})
+@Retention(RetentionPolicy.SOURCE)
+public @interface TraceFormat {
+
+    /**
+     * Track or route points of a GPX file
+     */
+    int GPX = 1;
+
+    /**
+     * RMC and GGA sentences of an NMEA 0183 log
+     */
+    int NMEA = 2;
+
+    /**
+     * Comma separated values with a header row naming the columns
+     */
+    int CSV = 3;
+
+}
@@ -0,0 +1,32 @@
+package com.megaache.xmslocationmanager.constants;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@IntDef({TransportProfile.WALKING, TransportProfile.CYCLING, TransportProfile.DRIVING, TransportProfile.FLYING})
+@Retention(RetentionPolicy.SOURCE)
+public @interface TransportProfile {
+
+    /**
+     * Walking or running, up to 7 m/s
+     */
+    int WALKING = 1;
+
+    /**
+     * Cycling, up to 20 m/s
+     */
+    int CYCLING = 2;
+
+    /**
+     * Driving or trains, up to 70 m/s
+     */
+    int DRIVING = 3;
+
+    /**
+     * Airplanes, up to 300 m/s
+     */
+    int FLYING = 4;
+
+}
@@ -0,0 +1,169 @@
+package com.megaache.xmslocationmanager.helper;
+
+import android.location.Location;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.GeofenceTransition;
+import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.helper.geofence.Geofence;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Dispatches every callback to the actual listener on given {@linkplain Executor}
+ */
+public class ExecutorLocationListener extends ForwardingLocationListener {
+
+    private final Executor executor;
+
+    public ExecutorLocationListener(@NonNull LocationListener delegate, @NonNull Executor executor) {
+        super(delegate);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns an executor which posts given commands to the looper
+     */
+    public static Executor looperExecutor(@NonNull Looper looper) {
+        final Handler handler = new Handler(looper);
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                handler.post(command);
+            }
+        };
+    }
+
+    @Override
+    public void onProcessTypeChanged(@ProcessType final int processType) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onProcessTypeChanged(processType);
+            }
+        });
+    }
+
+    @Override
+    public void onLocationChanged(final Location location) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onLocationChanged(location);
+            }
+        });
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        // Batch is only valid during the call, so a copy is dispatched
+        final List<Location> batch = new ArrayList<>(locations);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onLocationsChanged(batch);
+            }
+        });
+    }
+
+    @Override
+    public void onLocationFailed(@FailType final int type) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onLocationFailed(type);
+            }
+        });
+    }
+
+    @Override
+    public void onPermissionGranted(final boolean alreadyHadPermission) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onPermissionGranted(alreadyHadPermission);
+            }
+        });
+    }
+
+    @Override
+    public void onStatusChanged(final String provider, final int status, final Bundle extras) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onStatusChanged(provider, status, extras);
+            }
+        });
+    }
+
+    @Override
+    public void onProviderEnabled(final String provider) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onProviderEnabled(provider);
+            }
+        });
+    }
+
+    @Override
+    public void onProviderDisabled(final String provider) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onProviderDisabled(provider);
+            }
+        });
+    }
+
+    @Override
+    public void onTimeToFirstFix(@ProviderType final int providerType, final long elapsedMillis) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onTimeToFirstFix(providerType, elapsedMillis);
+            }
+        });
+    }
+
+    @Override
+    public void onBestFix(@NonNull final Location location, final float score) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onBestFix(location, score);
+            }
+        });
+    }
+
+    @Override
+    public void onProgressiveLocation(@NonNull final Location location, final boolean isFinal) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onProgressiveLocation(location, isFinal);
+            }
+        });
+    }
+
+    @Override
+    public void onGeofenceTransition(@NonNull final Geofence geofence, @GeofenceTransition final int transition,
+          @NonNull final Location location) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorLocationListener.super.onGeofenceTransition(geofence, transition, location);
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.megaache.xmslocationmanager.helper;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.geodesy.Geodesy;
+
+public final class LocationUtils {
+
+    /**
+     * Returned by {@linkplain #timeNanosOf(Location)} for locations which have no elapsed realtime,
+     * such as the ones read from the location cache
+     */
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    private LocationUtils() {
+        // no instance
+    }
+
+    /**
+     * Haversine distance in meters, unlike {@linkplain Location#distanceBetween} nothing is allocated,
+     * see {@linkplain Geodesy} for faster approximations
+     */
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        return Geodesy.haversine(latitude1, longitude1, latitude2, longitude2);
+    }
+
+    /**
+     * Time of given location in nanoseconds since boot, or {@linkplain #UNKNOWN_TIME} if it is not set.
+     * Wall clock time is not used instead, since it has a different base and can be changed any time.
+     */
+    public static long timeNanosOf(@NonNull Location location) {
+        long elapsedRealtimeNanos = location.getElapsedRealtimeNanos();
+        return elapsedRealtimeNanos != 0 ? elapsedRealtimeNanos : UNKNOWN_TIME;
+    }
+
+    /**
+     * Age of given location in milliseconds. Elapsed realtime is used when the location has it from the current boot,
+     * since the wall clock can be changed any time, otherwise its wall clock time is compared with the wall clock.
+     */
+    public static long ageOf(@NonNull Location location, @NonNull Clock clock) {
+        long elapsedRealtimeNanos = location.getElapsedRealtimeNanos();
+        if (elapsedRealtimeNanos != 0) {
+            long now = clock.elapsedRealtimeNanos();
+            // Otherwise it is from a previous boot
+            if (elapsedRealtimeNanos <= now) return (now - elapsedRealtimeNanos) / 1000000;
+        }
+        return clock.currentTimeMillis() - location.getTime();
+    }
+
+    /**
+     * Returns true if given location is not older than acceptableTimePeriod
+     * and its accuracy is not worse than acceptableAccuracy
+     */
+    public static boolean isSufficient(@Nullable Location location, long acceptableTimePeriod,
+          float acceptableAccuracy, @NonNull Clock clock) {
+        if (location == null) return false;
+
+        return acceptableAccuracy >= location.getAccuracy() && ageOf(location, clock) <= acceptableTimePeriod;
+    }
+}
@@ -1,15 +1,35 @@
 package com.megaache.xmslocationmanager.helper;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.megaache.xmslocationmanager.helper.logging.DefaultLogger;
 import com.megaache.xmslocationmanager.helper.logging.Logger;
 
+/**
+ * Logging surface of the library. Every class passes its own constant tag, and messages are given as
+ * a pattern with up to three arguments which replace "{}" placeholders in order. Nothing is built
+ * unless logging is enabled and the level of the call is loggable, so log calls are safe to keep in production.
+ * Primitive arguments are boxed before the level is checked though, so calls on the path of every location
+ * which pass them are guarded by {@linkplain #isLoggable(int)}.
+ */
 public final class LogUtils {
 
-    private static boolean isEnabled = false;
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+
+    private static final String DEFAULT_TAG = "XMSLocationManager";
+    private static final String PLACEHOLDER = "{}";
+
+    private static volatile boolean isEnabled = false;
+    private static volatile int minLevel = VERBOSE;
 
-    private static Logger activeLogger = new DefaultLogger();
+    private static volatile Logger activeLogger = new DefaultLogger();
 
     private LogUtils() {
         // No instance
@@ -19,35 +39,155 @@ public final class LogUtils {
         LogUtils.isEnabled = isEnabled;
     }
 
+    /**
+     * Calls below given level are ignored, default is {@linkplain #VERBOSE}
+     */
+    public static void setLevel(int level) {
+        LogUtils.minLevel = level;
+    }
+
     public static void setLogger(@NonNull Logger logger) {
         activeLogger = logger;
     }
 
+    /**
+     * Returns true if a call with given level would be forwarded to the logger.
+     * Use it to guard log calls whose arguments are expensive to compute.
+     */
+    public static boolean isLoggable(int level) {
+        return isEnabled && level >= minLevel;
+    }
+
+    // region Untagged
     public static void logD(String message) {
-        if (isEnabled) activeLogger.logD(getClassName(), message);
+        if (isLoggable(DEBUG)) activeLogger.logD(DEFAULT_TAG, message);
     }
 
     public static void logE(String message) {
-        if (isEnabled) activeLogger.logE(getClassName(), message);
+        if (isLoggable(ERROR)) activeLogger.logE(DEFAULT_TAG, message);
     }
 
     public static void logI(String message) {
-        if (isEnabled) activeLogger.logI(getClassName(), message);
+        if (isLoggable(INFO)) activeLogger.logI(DEFAULT_TAG, message);
     }
 
     public static void logV(String message) {
-        if (isEnabled) activeLogger.logV(getClassName(), message);
+        if (isLoggable(VERBOSE)) activeLogger.logV(DEFAULT_TAG, message);
     }
 
     public static void logW(String message) {
-        if (isEnabled) activeLogger.logW(getClassName(), message);
+        if (isLoggable(WARN)) activeLogger.logW(DEFAULT_TAG, message);
+    }
+    // endregion
+
+    // region Debug
+    public static void logD(String tag, String message) {
+        if (isLoggable(DEBUG)) activeLogger.logD(tag, message);
+    }
+
+    public static void logD(String tag, String pattern, @Nullable Object arg1) {
+        if (isLoggable(DEBUG)) activeLogger.logD(tag, format(pattern, arg1, null, null, 1));
+    }
+
+    public static void logD(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(DEBUG)) activeLogger.logD(tag, format(pattern, arg1, arg2, null, 2));
+    }
+
+    public static void logD(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2,
+          @Nullable Object arg3) {
+        if (isLoggable(DEBUG)) activeLogger.logD(tag, format(pattern, arg1, arg2, arg3, 3));
+    }
+    // endregion
+
+    // region Error
+    public static void logE(String tag, String message) {
+        if (isLoggable(ERROR)) activeLogger.logE(tag, message);
+    }
+
+    public static void logE(String tag, String pattern, @Nullable Object arg1) {
+        if (isLoggable(ERROR)) activeLogger.logE(tag, format(pattern, arg1, null, null, 1));
+    }
+
+    public static void logE(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(ERROR)) activeLogger.logE(tag, format(pattern, arg1, arg2, null, 2));
+    }
+
+    public static void logE(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2,
+          @Nullable Object arg3) {
+        if (isLoggable(ERROR)) activeLogger.logE(tag, format(pattern, arg1, arg2, arg3, 3));
+    }
+    // endregion
+
+    // region Info
+    public static void logI(String tag, String message) {
+        if (isLoggable(INFO)) activeLogger.logI(tag, message);
+    }
+
+    public static void logI(String tag, String pattern, @Nullable Object arg1) {
+        if (isLoggable(INFO)) activeLogger.logI(tag, format(pattern, arg1, null, null, 1));
+    }
+
+    public static void logI(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(INFO)) activeLogger.logI(tag, format(pattern, arg1, arg2, null, 2));
+    }
+
+    public static void logI(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2,
+          @Nullable Object arg3) {
+        if (isLoggable(INFO)) activeLogger.logI(tag, format(pattern, arg1, arg2, arg3, 3));
+    }
+    // endregion
+
+    // region Verbose
+    public static void logV(String tag, String message) {
+        if (isLoggable(VERBOSE)) activeLogger.logV(tag, message);
+    }
+
+    public static void logV(String tag, String pattern, @Nullable Object arg1) {
+        if (isLoggable(VERBOSE)) activeLogger.logV(tag, format(pattern, arg1, null, null, 1));
+    }
+
+    public static void logV(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(VERBOSE)) activeLogger.logV(tag, format(pattern, arg1, arg2, null, 2));
+    }
+
+    public static void logV(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2,
+          @Nullable Object arg3) {
+        if (isLoggable(VERBOSE)) activeLogger.logV(tag, format(pattern, arg1, arg2, arg3, 3));
+    }
+    // endregion
+
+    // region Warning
+    public static void logW(String tag, String message) {
+        if (isLoggable(WARN)) activeLogger.logW(tag, message);
+    }
+
+    public static void logW(String tag, String pattern, @Nullable Object arg1) {
+        if (isLoggable(WARN)) activeLogger.logW(tag, format(pattern, arg1, null, null, 1));
+    }
+
+    public static void logW(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(WARN)) activeLogger.logW(tag, format(pattern, arg1, arg2, null, 2));
     }
 
-    private static String getClassName() {
-        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-        StackTraceElement relevantTrace = trace[4];
-        String className = relevantTrace.getClassName();
-        int lastIndex = className.lastIndexOf('.');
-        return className.substring(lastIndex + 1);
+    public static void logW(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2,
+          @Nullable Object arg3) {
+        if (isLoggable(WARN)) activeLogger.logW(tag, format(pattern, arg1, arg2, arg3, 3));
+    }
+    // endregion
+
+    static String format(String pattern, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
+          int argCount) {
+        StringBuilder builder = new StringBuilder(pattern.length() + 16 * argCount);
+        int start = 0;
+        for (int i = 0; i < argCount; i++) {
+            int index = pattern.indexOf(PLACEHOLDER, start);
+            if (index < 0) break;
+
+            builder.append(pattern, start, index);
+            builder.append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+            start = index + PLACEHOLDER.length();
+        }
+        builder.append(pattern, start, pattern.length());
+        return builder.toString();
     }
-}
\ No newline at end of file
+}
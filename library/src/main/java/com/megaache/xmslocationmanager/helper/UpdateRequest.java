@@ -2,35 +2,80 @@ package com.megaache.xmslocationmanager.helper;
 
 import android.location.LocationListener;
 import android.location.LocationManager;
+import android.os.Looper;
 
 public class UpdateRequest {
 
     private final LocationManager locationManager;
     private final LocationListener locationListener;
+    private final Looper looper;
 
+    // Either a single provider or several, so re-requesting a single one doesn't allocate an array
     private String provider;
+    private String[] providers;
     private long minTime;
     private float minDistance;
 
     public UpdateRequest(LocationManager locationManager, LocationListener locationListener) {
+        this(locationManager, locationListener, null);
+    }
+
+    /**
+     * @param looper on which location updates will be received, or null to receive them on the calling thread
+     */
+    public UpdateRequest(LocationManager locationManager, LocationListener locationListener, Looper looper) {
         this.locationManager = locationManager;
         this.locationListener = locationListener;
+        this.looper = looper;
     }
 
     public void run(String provider, long minTime, float minDistance) {
         this.provider = provider;
+        this.providers = null;
+        this.minTime = minTime;
+        this.minDistance = minDistance;
+        run();
+    }
+
+    /**
+     * Subscribes the same listener to all given providers, so {@linkplain #release()} removes all of them together
+     */
+    public void run(String[] providers, long minTime, float minDistance) {
+        this.provider = null;
+        this.providers = providers;
         this.minTime = minTime;
         this.minDistance = minDistance;
         run();
     }
 
-    @SuppressWarnings("ResourceType")
     public void run() {
-        if(StringUtils.isNotEmpty(provider)) {
+        if (providers == null) {
+            if (StringUtils.isNotEmpty(provider)) {
+                requestLocationUpdates(provider, minTime, minDistance);
+            }
+            return;
+        }
+
+        for (String provider : providers) {
+            if (StringUtils.isNotEmpty(provider)) {
+                requestLocationUpdates(provider, minTime, minDistance);
+            }
+        }
+    }
+
+    @SuppressWarnings("ResourceType")
+    protected void requestLocationUpdates(String provider, long minTime, float minDistance) {
+        if (looper != null) {
+            locationManager.requestLocationUpdates(provider, minTime, minDistance, locationListener, looper);
+        } else {
             locationManager.requestLocationUpdates(provider, minTime, minDistance, locationListener);
         }
     }
 
+    protected Looper getLooper() {
+        return looper;
+    }
+
     @SuppressWarnings("ResourceType")
     public void release() {
         if (locationManager != null) locationManager.removeUpdates(locationListener);
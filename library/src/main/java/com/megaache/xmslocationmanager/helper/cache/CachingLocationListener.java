@@ -0,0 +1,37 @@
+package com.megaache.xmslocationmanager.helper.cache;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.List;
+
+/**
+ * Records every location delivered to the actual listener into {@linkplain LocationCache}
+ */
+public class CachingLocationListener extends ForwardingLocationListener {
+
+    private final LocationCache locationCache;
+
+    public CachingLocationListener(@NonNull LocationListener delegate, @NonNull LocationCache locationCache) {
+        super(delegate);
+        this.locationCache = locationCache;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        locationCache.put(location);
+        super.onLocationChanged(location);
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            locationCache.put(locations.get(i));
+        }
+        super.onLocationsChanged(locations);
+    }
+}
@@ -0,0 +1,315 @@
+package com.megaache.xmslocationmanager.helper.cache;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps the last N delivered locations per provider in a small memory-mapped file, so that a sufficient location
+ * can be answered right away even on a fresh process, before any provider is started.
+ *
+ * Reads are served from memory. Writes are queued and flushed to the file in batches on a background thread,
+ * so they never block the delivery path.
+ */
+public class LocationCache {
+
+    private static final String TAG = "LocationCache";
+
+    static final String FILE_NAME = "xms_location_cache";
+
+    static final int SLOT_FUSED = 0;
+    static final int SLOT_GPS = 1;
+    static final int SLOT_NETWORK = 2;
+    static final int SLOT_OTHER = 3;
+    static final int SLOT_COUNT = 4;
+
+    private static final String FUSED_PROVIDER = "fused";
+
+    private static final int MAGIC = 0x584D5343; // XMSC
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_HEADER_SIZE = 8;
+    // time, latitude, longitude, altitude, accuracy, speed, bearing, flags
+    static final int RECORD_SIZE = 8 + 8 + 8 + 8 + 4 + 4 + 4 + 4;
+
+    private static final int FLAG_ALTITUDE = 1;
+    private static final int FLAG_SPEED = 1 << 1;
+    private static final int FLAG_BEARING = 1 << 2;
+    private static final int FLAG_ACCURACY = 1 << 3;
+
+    private static LocationCache instance;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final Executor writeExecutor;
+    private final Location[] newestInSlot = new Location[SLOT_COUNT];
+    private final List<Location> pendingWrites = new ArrayList<>();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private boolean isFlushScheduled = false;
+
+    /**
+     * Returns the process-wide cache, the file is mapped and read when this is called for the first time.
+     * Capacity is fixed by the first call, since every manager writes through the same mapping,
+     * a different capacity asked later is ignored. Returns null if the file cannot be mapped.
+     */
+    @Nullable
+    public static synchronized LocationCache getInstance(@NonNull Context context, int capacity) {
+        if (instance == null) {
+            try {
+                File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+                instance = new LocationCache(map(file, capacity), capacity, createWriteExecutor());
+            } catch (IOException e) {
+                LogUtils.logE(TAG, "Couldn't map location cache file: {}", e.getMessage());
+                return null;
+            }
+        } else if (instance.capacity != capacity) {
+            LogUtils.logW(TAG, "Location cache is already open with capacity {}, ignoring capacity {}.",
+                  instance.capacity, capacity);
+        }
+        return instance;
+    }
+
+    LocationCache(ByteBuffer buffer, int capacity, Executor writeExecutor) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.writeExecutor = writeExecutor;
+        load();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    static int fileSize(int capacity) {
+        return HEADER_SIZE + SLOT_COUNT * (SLOT_HEADER_SIZE + capacity * RECORD_SIZE);
+    }
+
+    /**
+     * Returns the newest cached location among all providers, or null if there is none
+     */
+    @Nullable
+    public synchronized Location newest() {
+        Location newest = null;
+        for (Location location : newestInSlot) {
+            if (location != null && (newest == null || location.getTime() > newest.getTime())) {
+                newest = location;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Returns the newest cached location if it is not older than acceptableTimePeriod
+     * and its accuracy is not worse than acceptableAccuracy, otherwise null
+     */
+    @Nullable
+    public Location sufficientLocation(long acceptableTimePeriod, float acceptableAccuracy, @NonNull Clock clock) {
+        Location newest = newest();
+        return LocationUtils.isSufficient(newest, acceptableTimePeriod, acceptableAccuracy, clock) ? newest : null;
+    }
+
+    /**
+     * Queues given location to be written, it is available to {@linkplain #newest()} right away
+     */
+    public void put(@Nullable Location location) {
+        if (location == null) return;
+
+        synchronized (this) {
+            int slot = slotOf(location.getProvider());
+            // Same instance is delivered again when it is answered from the cache
+            if (newestInSlot[slot] == location) return;
+
+            newestInSlot[slot] = location;
+            pendingWrites.add(location);
+            if (isFlushScheduled) return;
+            isFlushScheduled = true;
+        }
+        writeExecutor.execute(flushTask);
+    }
+
+    /**
+     * Returns the locations of given provider from oldest to newest
+     */
+    @NonNull
+    synchronized List<Location> read(int slot) {
+        int slotOffset = slotOffset(slot);
+        int head = buffer.getInt(slotOffset);
+        int count = buffer.getInt(slotOffset + 4);
+
+        List<Location> locations = new ArrayList<>(count);
+        for (int i = count; i > 0; i--) {
+            int index = (head - i + capacity) % capacity;
+            locations.add(readRecord(recordOffset(slot, index), providerOf(slot)));
+        }
+        return locations;
+    }
+
+    @WorkerThread
+    void flush() {
+        Location[] batch;
+        synchronized (this) {
+            batch = pendingWrites.toArray(new Location[0]);
+            pendingWrites.clear();
+            isFlushScheduled = false;
+
+            for (Location location : batch) {
+                append(location);
+            }
+        }
+
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    static int slotOf(@Nullable String provider) {
+        if (FUSED_PROVIDER.equals(provider)) return SLOT_FUSED;
+        if (LocationManager.GPS_PROVIDER.equals(provider)) return SLOT_GPS;
+        if (LocationManager.NETWORK_PROVIDER.equals(provider)) return SLOT_NETWORK;
+        return SLOT_OTHER;
+    }
+
+    private void load() {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != capacity) {
+            LogUtils.logI(TAG, "Location cache is empty or has an incompatible format, resetting it.");
+            reset();
+            return;
+        }
+
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            int slotOffset = slotOffset(slot);
+            int head = buffer.getInt(slotOffset);
+            int count = buffer.getInt(slotOffset + 4);
+            if (count > 0) {
+                int newestIndex = (head - 1 + capacity) % capacity;
+                newestInSlot[slot] = readRecord(recordOffset(slot, newestIndex), providerOf(slot));
+            }
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, capacity);
+    }
+
+    private void append(Location location) {
+        int slot = slotOf(location.getProvider());
+        int slotOffset = slotOffset(slot);
+        int head = buffer.getInt(slotOffset);
+        int count = buffer.getInt(slotOffset + 4);
+
+        writeRecord(recordOffset(slot, head), location);
+        buffer.putInt(slotOffset, (head + 1) % capacity);
+        buffer.putInt(slotOffset + 4, Math.min(count + 1, capacity));
+    }
+
+    private void writeRecord(int offset, Location location) {
+        int flags = 0;
+        if (location.hasAltitude()) flags |= FLAG_ALTITUDE;
+        if (location.hasSpeed()) flags |= FLAG_SPEED;
+        if (location.hasBearing()) flags |= FLAG_BEARING;
+        if (location.hasAccuracy()) flags |= FLAG_ACCURACY;
+
+        buffer.putLong(offset, location.getTime());
+        buffer.putDouble(offset + 8, location.getLatitude());
+        buffer.putDouble(offset + 16, location.getLongitude());
+        buffer.putDouble(offset + 24, location.getAltitude());
+        buffer.putFloat(offset + 32, location.getAccuracy());
+        buffer.putFloat(offset + 36, location.getSpeed());
+        buffer.putFloat(offset + 40, location.getBearing());
+        buffer.putInt(offset + 44, flags);
+    }
+
+    // For test purposes
+    @NonNull
+    Location newLocation(String provider) {
+        return new Location(provider);
+    }
+
+    private Location readRecord(int offset, String provider) {
+        Location location = newLocation(provider);
+        location.setTime(buffer.getLong(offset));
+        location.setLatitude(buffer.getDouble(offset + 8));
+        location.setLongitude(buffer.getDouble(offset + 16));
+
+        int flags = buffer.getInt(offset + 44);
+        if ((flags & FLAG_ALTITUDE) != 0) location.setAltitude(buffer.getDouble(offset + 24));
+        if ((flags & FLAG_ACCURACY) != 0) location.setAccuracy(buffer.getFloat(offset + 32));
+        if ((flags & FLAG_SPEED) != 0) location.setSpeed(buffer.getFloat(offset + 36));
+        if ((flags & FLAG_BEARING) != 0) location.setBearing(buffer.getFloat(offset + 40));
+        return location;
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_SIZE + slot * (SLOT_HEADER_SIZE + capacity * RECORD_SIZE);
+    }
+
+    private int recordOffset(int slot, int index) {
+        return slotOffset(slot) + SLOT_HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    private static String providerOf(int slot) {
+        switch (slot) {
+            case SLOT_FUSED:
+                return FUSED_PROVIDER;
+            case SLOT_GPS:
+                return LocationManager.GPS_PROVIDER;
+            case SLOT_NETWORK:
+                return LocationManager.NETWORK_PROVIDER;
+            default:
+                return LocationManager.PASSIVE_PROVIDER;
+        }
+    }
+
+    private static MappedByteBuffer map(File file, int capacity) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            // The mapping stays valid after the channel is closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static ExecutorService createWriteExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "XMSLocationCacheWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.megaache.xmslocationmanager.helper.clock;
+
+/**
+ * Source of time for every freshness and timeout decision of the library.
+ * {@linkplain DefaultClock} is used unless another one is set, tests and benchmarks can provide a virtual one
+ * to run long scenarios without waiting.
+ */
+public interface Clock {
+
+    /**
+     * Monotonic time since boot including deep sleep in nanoseconds, on the same base as
+     * {@linkplain android.location.Location#getElapsedRealtimeNanos()}
+     */
+    long elapsedRealtimeNanos();
+
+    /**
+     * Wall clock time in milliseconds, only used for locations which don't have elapsed realtime,
+     * such as the ones restored from a cache after a reboot
+     */
+    long currentTimeMillis();
+}
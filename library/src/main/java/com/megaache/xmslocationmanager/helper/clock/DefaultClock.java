@@ -0,0 +1,16 @@
+package com.megaache.xmslocationmanager.helper.clock;
+
+import android.os.SystemClock;
+
+public class DefaultClock implements Clock {
+
+    @Override
+    public long elapsedRealtimeNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
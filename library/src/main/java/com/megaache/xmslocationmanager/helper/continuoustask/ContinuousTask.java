@@ -1,14 +1,32 @@
 package com.megaache.xmslocationmanager.helper.continuoustask;
 
 import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-public class ContinuousTask extends Handler implements Runnable {
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+import java.util.concurrent.Executor;
+
+public class ContinuousTask implements Runnable {
 
     private final String taskId;
     private final ContinuousTaskScheduler continuousTaskScheduler;
     private final ContinuousTaskRunner continuousTaskRunner;
+    private final TimingWheel timingWheel;
+    private final Executor executor;
+
+    // Accessed only on the thread of the executor
+    private TimingWheel.Timeout timeout;
+
+    private final Runnable expiredTask = new Runnable() {
+        @Override
+        public void run() {
+            executor.execute(ContinuousTask.this);
+        }
+    };
 
     public interface ContinuousTaskRunner {
         /**
@@ -20,9 +38,47 @@ public class ContinuousTask extends Handler implements Runnable {
     }
 
     public ContinuousTask(@NonNull String taskId, @NonNull ContinuousTaskRunner continuousTaskRunner) {
+        this(taskId, continuousTaskRunner, TimingWheel.getInstance(), handlerExecutor(new Handler()));
+    }
+
+    /**
+     * Creates a task which runs on given looper instead of the looper of the current thread
+     */
+    public ContinuousTask(@NonNull String taskId, @NonNull ContinuousTaskRunner continuousTaskRunner,
+          @NonNull Looper looper) {
+        this(taskId, continuousTaskRunner, TimingWheel.getInstance(), handlerExecutor(new Handler(looper)));
+    }
+
+    /**
+     * Creates a task which is timed by given wheel and runs on given executor, it doesn't require Android
+     */
+    public ContinuousTask(@NonNull String taskId, @NonNull ContinuousTaskRunner continuousTaskRunner,
+          @NonNull TimingWheel timingWheel, @NonNull Executor executor) {
         this.taskId = taskId;
-        continuousTaskScheduler = new ContinuousTaskScheduler(this);
         this.continuousTaskRunner = continuousTaskRunner;
+        this.timingWheel = timingWheel;
+        this.executor = executor;
+        continuousTaskScheduler = new ContinuousTaskScheduler(this);
+    }
+
+    /**
+     * Creates a task on given looper, or on the looper of the current thread if it is null
+     */
+    public static ContinuousTask create(@NonNull String taskId, @NonNull ContinuousTaskRunner continuousTaskRunner,
+          @Nullable Looper looper) {
+        return looper == null
+              ? new ContinuousTask(taskId, continuousTaskRunner)
+              : new ContinuousTask(taskId, continuousTaskRunner, looper);
+    }
+
+    /**
+     * Creates a task on given looper, or on the looper of the current thread if it is null,
+     * whose delays pass on given clock
+     */
+    public static ContinuousTask create(@NonNull String taskId, @NonNull ContinuousTaskRunner continuousTaskRunner,
+          @Nullable Looper looper, @NonNull Clock clock) {
+        Handler handler = looper == null ? new Handler() : new Handler(looper);
+        return new ContinuousTask(taskId, continuousTaskRunner, TimingWheel.forClock(clock), handlerExecutor(handler));
     }
 
     public void delayed(long delay) {
@@ -43,18 +99,34 @@ public class ContinuousTask extends Handler implements Runnable {
 
     @Override
     public void run() {
+        // It might be unregistered or scheduled again after it is expired but before it is run here
+        if (timeout == null || !timeout.isExpired()) return;
+
+        timeout = null;
         continuousTaskRunner.runScheduledTask(taskId);
     }
 
     void schedule(long delay) {
-        postDelayed(this, delay);
+        timeout = timingWheel.schedule(expiredTask, delay);
     }
 
     void unregister() {
-        removeCallbacks(this);
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
     }
 
     long getCurrentTime() {
-        return System.currentTimeMillis();
+        return timingWheel.currentTimeMillis();
+    }
+
+    private static Executor handlerExecutor(final Handler handler) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                handler.post(runnable);
+            }
+        };
     }
 }
@@ -0,0 +1,341 @@
+package com.megaache.xmslocationmanager.helper.continuoustask;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.clock.DefaultClock;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel which is shared by all {@linkplain ContinuousTask}s of a clock, so they don't need a Handler
+ * each.
+ * Timeouts are kept in doubly linked lists per bucket, so both scheduling and canceling are O(1).
+ * Time is read from the elapsed realtime of a {@linkplain Clock}, which doesn't jump when the wall clock is changed.
+ * <p>
+ * Timeouts are run on the ticking thread, so they are expected to only hand the actual work over to where it
+ * belongs, as {@linkplain ContinuousTask} does by posting to its own executor. The ticking thread doesn't wake up
+ * on every tick, only at the earliest pending deadline, and it walks each bucket at most once however long it
+ * slept. Without a ticking executor nothing ticks by itself, and {@linkplain #expireTimeouts(long)} needs to be
+ * called, which is how it is driven in tests.
+ * <p>
+ * A wheel of a virtual clock still ticks at the earliest deadline, but it can't know when the clock is moved,
+ * so whoever moves it calls {@linkplain #expireTimeouts()} to run the timeouts passed meanwhile.
+ */
+public class TimingWheel {
+
+    static final long DEFAULT_TICK_MILLIS = 10;
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final long NOT_SCHEDULED = Long.MAX_VALUE;
+
+    private static TimingWheel instance;
+    private static ScheduledExecutorService sharedTickingExecutor;
+    private static final Map<Clock, WeakReference<TimingWheel>> clockWheels = new WeakHashMap<>();
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final long startNanos;
+    private final Clock clock;
+    @Nullable private final ScheduledExecutorService tickingExecutor;
+
+    private long currentTick = 0;
+    private int pendingCount = 0;
+    private ScheduledFuture<?> tickingFuture;
+    private long scheduledTick = NOT_SCHEDULED;
+
+    private final Runnable tickingTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (TimingWheel.this) {
+                tickingFuture = null;
+                scheduledTick = NOT_SCHEDULED;
+            }
+            expireTimeouts(nanoTime());
+        }
+    };
+
+    /**
+     * Returns the wheel which is shared by every {@linkplain ContinuousTask} in the process,
+     * it ticks on a single daemon thread.
+     */
+    public static synchronized TimingWheel getInstance() {
+        if (instance == null) {
+            instance = new TimingWheel(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, new DefaultClock(),
+                  sharedTickingExecutor());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the wheel which times every {@linkplain ContinuousTask} of given clock,
+     * it is {@linkplain #getInstance()} for {@linkplain DefaultClock}. All wheels tick on the same daemon thread.
+     */
+    public static synchronized TimingWheel forClock(@NonNull Clock clock) {
+        if (clock.getClass() == DefaultClock.class) return getInstance();
+
+        // Wheel refers to its clock, so it is only weakly referred here not to keep the clock alive
+        WeakReference<TimingWheel> reference = clockWheels.get(clock);
+        TimingWheel wheel = reference == null ? null : reference.get();
+        if (wheel == null) {
+            wheel = new TimingWheel(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, clock, sharedTickingExecutor());
+            clockWheels.put(clock, new WeakReference<>(wheel));
+        }
+        return wheel;
+    }
+
+    /**
+     * @param tickMillis resolution of the wheel, timeouts run at most this late
+     * @param wheelSize number of buckets, rounded up to a power of two
+     * @param clock the wheel runs by
+     * @param tickingExecutor runs the ticks, or null to drive the wheel by {@linkplain #expireTimeouts(long)}
+     */
+    public TimingWheel(long tickMillis, int wheelSize, @NonNull Clock clock,
+          @Nullable ScheduledExecutorService tickingExecutor) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be greater than 0.");
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30.");
+        }
+
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) size <<= 1;
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        this.tickingExecutor = tickingExecutor;
+        this.clock = clock;
+        this.startNanos = nanoTime();
+    }
+
+    /**
+     * Runs given task on the ticking thread once the delay is passed, unless returned timeout is canceled
+     */
+    @NonNull
+    public Timeout schedule(@NonNull Runnable task, long delayMillis) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(this, task);
+
+        synchronized (this) {
+            long elapsedNanos = nanoTime() - startNanos;
+            if (pendingCount == 0) {
+                // Wheel didn't tick while idle, skip the ticks passed meanwhile instead of walking them later
+                currentTick = Math.max(currentTick, elapsedNanos / tickNanos);
+            }
+
+            // Round up, so a timeout never runs before its delay
+            long deadlineTick = (elapsedNanos + delayNanos + tickNanos - 1) / tickNanos;
+            timeout.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+            link(timeout);
+            pendingCount++;
+
+            if (timeout.deadlineTick < scheduledTick) tickAt(timeout.deadlineTick);
+        }
+        return timeout;
+    }
+
+    /**
+     * Current time of the clock the wheel runs by, in milliseconds
+     */
+    public long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime());
+    }
+
+    public synchronized int pendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Runs every timeout whose deadline is passed on the clock, to be called after a virtual clock is moved
+     */
+    public void expireTimeouts() {
+        expireTimeouts(nanoTime());
+    }
+
+    /**
+     * Advances the wheel up to given elapsed realtime of the clock, running every timeout whose deadline is passed.
+     * Timeouts run in the order of their deadlines, except for the ones which are more than a round late.
+     */
+    void expireTimeouts(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        Timeout expired = null;
+        Timeout lastExpired = null;
+
+        synchronized (this) {
+            // Every bucket holds the timeouts of every round, so one round is enough to collect all that are passed
+            long lastTick = Math.min(targetTick, currentTick + buckets.length);
+            for (long tick = currentTick + 1; tick <= lastTick && pendingCount > 0; tick++) {
+                Timeout timeout = buckets[(int) (tick & mask)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= targetTick) {
+                        unlink(timeout);
+                        pendingCount--;
+                        timeout.state = Timeout.EXPIRED;
+                        // Reuse the links to collect expired ones in order, they are not in any bucket anymore
+                        if (lastExpired == null) {
+                            expired = timeout;
+                        } else {
+                            lastExpired.next = timeout;
+                        }
+                        lastExpired = timeout;
+                    }
+                    timeout = next;
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+
+            if (pendingCount == 0) {
+                stopTicking();
+            } else if (tickingExecutor != null) {
+                tickAt(nextDeadlineTick());
+            }
+        }
+
+        // Run outside of the lock, so tasks can schedule and cancel freely
+        while (expired != null) {
+            Timeout next = expired.next;
+            expired.next = null;
+            expired.task.run();
+            expired = next;
+        }
+    }
+
+    private long nanoTime() {
+        return clock.elapsedRealtimeNanos();
+    }
+
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.state != Timeout.PENDING) return false;
+
+        unlink(timeout);
+        timeout.state = Timeout.CANCELED;
+        if (--pendingCount == 0) stopTicking();
+        return true;
+    }
+
+    private void link(Timeout timeout) {
+        int index = (int) (timeout.deadlineTick & mask);
+        Timeout head = buckets[index];
+        timeout.next = head;
+        if (head != null) head.prev = timeout;
+        buckets[index] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.deadlineTick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Returns the earliest deadline among the pending timeouts, there must be at least one
+     */
+    private long nextDeadlineTick() {
+        long earliest = NOT_SCHEDULED;
+        for (long tick = currentTick + 1; tick <= currentTick + buckets.length; tick++) {
+            for (Timeout timeout = buckets[(int) (tick & mask)]; timeout != null; timeout = timeout.next) {
+                // Any timeout of this round is the earliest one, since buckets are walked in order
+                if (timeout.deadlineTick == tick) return tick;
+                earliest = Math.min(earliest, timeout.deadlineTick);
+            }
+        }
+        return earliest;
+    }
+
+    private void tickAt(long tick) {
+        if (tickingExecutor == null) return;
+
+        stopTicking();
+        long delayNanos = Math.max(0, startNanos + tick * tickNanos - nanoTime());
+        tickingFuture = tickingExecutor.schedule(tickingTask, delayNanos, TimeUnit.NANOSECONDS);
+        scheduledTick = tick;
+    }
+
+    private void stopTicking() {
+        if (tickingFuture != null) {
+            tickingFuture.cancel(false);
+            tickingFuture = null;
+        }
+        scheduledTick = NOT_SCHEDULED;
+    }
+
+    private static ScheduledExecutorService sharedTickingExecutor() {
+        if (sharedTickingExecutor == null) {
+            sharedTickingExecutor = createTickingExecutor();
+        }
+        return sharedTickingExecutor;
+    }
+
+    private static ScheduledExecutorService createTickingExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "XMSLocationManager-TimingWheel");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Handle of a scheduled task
+     */
+    public static final class Timeout {
+
+        static final int PENDING = 0;
+        static final int EXPIRED = 1;
+        static final int CANCELED = 2;
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+
+        // Guarded by the wheel
+        long deadlineTick;
+        int state = PENDING;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(TimingWheel wheel, Runnable task) {
+            this.wheel = wheel;
+            this.task = task;
+        }
+
+        /**
+         * Removes the timeout from the wheel, returns false if it is already run or canceled
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+        public boolean isExpired() {
+            synchronized (wheel) {
+                return state == EXPIRED;
+            }
+        }
+
+        public boolean isCanceled() {
+            synchronized (wheel) {
+                return state == CANCELED;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.megaache.xmslocationmanager.helper.fix;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Primitive copy of a location, for the places where locations are kept by the library instead of being passed
+ * through, such as the queue of {@linkplain com.megaache.xmslocationmanager.helper.recording.TrajectoryRecorder}.
+ * It holds no Bundle, no boxed values and no provider String. {@linkplain Location} is only built again when it
+ * is asked by {@linkplain #toLocation()}.
+ *
+ * Latitude and longitude are kept in 1e-7 degrees, which is about 1 centimeter. Unknown accuracy, speed and
+ * bearing are kept as {@linkplain Float#NaN}, unknown elapsed realtime as 0.
+ */
+public final class CompactFix {
+
+    public static final byte PROVIDER_UNKNOWN = 0;
+    public static final byte PROVIDER_FUSED = 1;
+    public static final byte PROVIDER_GPS = 2;
+    public static final byte PROVIDER_NETWORK = 3;
+    public static final byte PROVIDER_PASSIVE = 4;
+
+    static final String FUSED_PROVIDER = "fused";
+
+    private static final double DEGREE_SCALE = 1e7;
+
+    private final int latitudeE7;
+    private final int longitudeE7;
+    private final float accuracy;
+    private final long elapsedRealtimeNanos;
+    private final long time;
+    private final float speed;
+    private final float bearing;
+    private final byte providerId;
+
+    public CompactFix(int latitudeE7, int longitudeE7, float accuracy, long elapsedRealtimeNanos, long time,
+          float speed, float bearing, byte providerId) {
+        this.latitudeE7 = latitudeE7;
+        this.longitudeE7 = longitudeE7;
+        this.accuracy = accuracy;
+        this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+        this.time = time;
+        this.speed = speed;
+        this.bearing = bearing;
+        this.providerId = providerId;
+    }
+
+    @NonNull
+    public static CompactFix from(@NonNull Location location) {
+        return new CompactFix(toE7(location.getLatitude()), toE7(location.getLongitude()),
+              location.hasAccuracy() ? location.getAccuracy() : Float.NaN,
+              location.getElapsedRealtimeNanos(), location.getTime(),
+              location.hasSpeed() ? location.getSpeed() : Float.NaN,
+              location.hasBearing() ? location.getBearing() : Float.NaN,
+              providerIdOf(location.getProvider()));
+    }
+
+    /**
+     * Builds a new {@linkplain Location} with the values of this fix
+     */
+    @NonNull
+    public Location toLocation() {
+        Location location = new Location(provider());
+        location.setLatitude(latitude());
+        location.setLongitude(longitude());
+        location.setTime(time);
+        location.setElapsedRealtimeNanos(elapsedRealtimeNanos);
+        if (hasAccuracy()) location.setAccuracy(accuracy);
+        if (hasSpeed()) location.setSpeed(speed);
+        if (hasBearing()) location.setBearing(bearing);
+        return location;
+    }
+
+    // region Getters
+    public int latitudeE7() {
+        return latitudeE7;
+    }
+
+    public int longitudeE7() {
+        return longitudeE7;
+    }
+
+    public double latitude() {
+        return latitudeE7 / DEGREE_SCALE;
+    }
+
+    public double longitude() {
+        return longitudeE7 / DEGREE_SCALE;
+    }
+
+    public float accuracy() {
+        return accuracy;
+    }
+
+    public boolean hasAccuracy() {
+        return !Float.isNaN(accuracy);
+    }
+
+    public long elapsedRealtimeNanos() {
+        return elapsedRealtimeNanos;
+    }
+
+    public long time() {
+        return time;
+    }
+
+    public float speed() {
+        return speed;
+    }
+
+    public boolean hasSpeed() {
+        return !Float.isNaN(speed);
+    }
+
+    public float bearing() {
+        return bearing;
+    }
+
+    public boolean hasBearing() {
+        return !Float.isNaN(bearing);
+    }
+
+    public byte providerId() {
+        return providerId;
+    }
+
+    @NonNull
+    public String provider() {
+        return providerOf(providerId);
+    }
+    // endregion
+
+    public static int toE7(double degrees) {
+        return (int) Math.round(degrees * DEGREE_SCALE);
+    }
+
+    public static byte providerIdOf(@Nullable String provider) {
+        if (FUSED_PROVIDER.equals(provider)) return PROVIDER_FUSED;
+        if (LocationManager.GPS_PROVIDER.equals(provider)) return PROVIDER_GPS;
+        if (LocationManager.NETWORK_PROVIDER.equals(provider)) return PROVIDER_NETWORK;
+        if (LocationManager.PASSIVE_PROVIDER.equals(provider)) return PROVIDER_PASSIVE;
+        return PROVIDER_UNKNOWN;
+    }
+
+    @NonNull
+    public static String providerOf(byte providerId) {
+        switch (providerId) {
+            case PROVIDER_FUSED:
+                return FUSED_PROVIDER;
+            case PROVIDER_GPS:
+                return LocationManager.GPS_PROVIDER;
+            case PROVIDER_NETWORK:
+                return LocationManager.NETWORK_PROVIDER;
+            case PROVIDER_PASSIVE:
+                return LocationManager.PASSIVE_PROVIDER;
+            default:
+                return "";
+        }
+    }
+}
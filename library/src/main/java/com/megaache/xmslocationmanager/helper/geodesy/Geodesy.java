@@ -0,0 +1,77 @@
+package com.megaache.xmslocationmanager.helper.geodesy;
+
+/**
+ * Distances between coordinates on primitive doubles, nothing is allocated. Unlike
+ * {@linkplain android.location.Location#distanceBetween}, which solves the WGS84 ellipsoid iteratively and
+ * allocates a result array, these trade a bounded error for speed:
+ * <ul>
+ * <li>{@linkplain #haversine} is exact on a sphere of {@linkplain #EARTH_RADIUS}, within 0.6% of the ellipsoid
+ * at any distance.</li>
+ * <li>{@linkplain #equirectangular} takes the cosine of a reference latitude, so it can be computed once for many
+ * distances around the same place. Up to 10 km from the reference latitude, below 70 degrees, it stays within
+ * 0.6% of the ellipsoid as well, and within 1.2% up to 100 km.</li>
+ * <li>{@linkplain LocalTangentPlane} projects onto a plane touching the ellipsoid at an origin, below 70 degrees
+ * within 0.01% of the ellipsoid up to 1 km from the origin and within 0.1% up to 10 km.</li>
+ * </ul>
+ */
+public final class Geodesy {
+
+    /**
+     * Mean radius of the earth in meters
+     */
+    public static final double EARTH_RADIUS = 6371009;
+
+    /**
+     * Length of a degree of latitude on the sphere of {@linkplain #EARTH_RADIUS}
+     */
+    public static final double METERS_PER_DEGREE = EARTH_RADIUS * Math.PI / 180;
+
+    // WGS84 ellipsoid
+    static final double SEMI_MAJOR_AXIS = 6378137;
+    static final double FLATTENING = 1 / 298.257223563;
+    static final double ECCENTRICITY_SQUARED = FLATTENING * (2 - FLATTENING);
+
+    // Keeps longitude scale finite at the poles
+    private static final double MIN_COSINE = 1e-6;
+
+    private Geodesy() {
+        // No instance
+    }
+
+    /**
+     * Great circle distance in meters on the sphere of {@linkplain #EARTH_RADIUS}
+     */
+    public static double haversine(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinHalfDeltaLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+
+        double a = sinHalfDeltaPhi * sinHalfDeltaPhi
+              + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Cosine of given latitude for {@linkplain #equirectangular}, never 0
+     */
+    public static double cosLatitude(double latitude) {
+        return Math.max(MIN_COSINE, Math.cos(Math.toRadians(latitude)));
+    }
+
+    /**
+     * Distance in meters on a plane where a degree of longitude is shortened by given cosine of a latitude
+     * close to both points, see {@linkplain #cosLatitude(double)}. Longitudes are compared the short way
+     * around the antimeridian.
+     */
+    public static double equirectangular(double latitude1, double longitude1, double latitude2, double longitude2,
+          double cosLatitude) {
+        double deltaLongitude = longitude2 - longitude1;
+        if (deltaLongitude > 180) deltaLongitude -= 360;
+        if (deltaLongitude < -180) deltaLongitude += 360;
+
+        double x = deltaLongitude * cosLatitude;
+        double y = latitude2 - latitude1;
+        return METERS_PER_DEGREE * Math.sqrt(x * x + y * y);
+    }
+}
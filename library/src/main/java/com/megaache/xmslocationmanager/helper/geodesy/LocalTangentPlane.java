@@ -0,0 +1,114 @@
+package com.megaache.xmslocationmanager.helper.geodesy;
+
+/**
+ * East-North-Up plane touching the WGS84 ellipsoid at an origin. Coordinates around the origin are projected to
+ * meters with the radii of curvature of the ellipsoid at the origin, so distances on the plane stay within 0.01%
+ * of the ellipsoid up to 1 km away and within 0.1% up to 10 km, see {@linkplain Geodesy}. Projecting a point is a few multiplications, nothing is allocated,
+ * and the origin can be moved to reuse the same instance.
+ */
+public class LocalTangentPlane {
+
+    private double originLatitude;
+    private double originLongitude;
+    private double originAltitude;
+    private double metersPerDegreeLatitude;
+    private double metersPerDegreeLongitude;
+    private double radius;
+
+    public LocalTangentPlane(double originLatitude, double originLongitude) {
+        setOrigin(originLatitude, originLongitude, 0);
+    }
+
+    /**
+     * @param originAltitude in meters, only used by {@linkplain #up(double, double, double)}
+     */
+    public void setOrigin(double originLatitude, double originLongitude, double originAltitude) {
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.originAltitude = originAltitude;
+
+        double sinLatitude = Math.sin(Math.toRadians(originLatitude));
+        double w = 1 - Geodesy.ECCENTRICITY_SQUARED * sinLatitude * sinLatitude;
+        double primeVerticalRadius = Geodesy.SEMI_MAJOR_AXIS / Math.sqrt(w);
+        double meridianRadius = primeVerticalRadius * (1 - Geodesy.ECCENTRICITY_SQUARED) / w;
+
+        metersPerDegreeLatitude = Math.toRadians(meridianRadius);
+        metersPerDegreeLongitude = Math.toRadians(primeVerticalRadius) * Geodesy.cosLatitude(originLatitude);
+        radius = Math.sqrt(meridianRadius * primeVerticalRadius);
+    }
+
+    // region Getters
+    public double originLatitude() {
+        return originLatitude;
+    }
+
+    public double originLongitude() {
+        return originLongitude;
+    }
+
+    public double originAltitude() {
+        return originAltitude;
+    }
+    // endregion
+
+    /**
+     * Meters to the east of the origin, longitudes are compared the short way around the antimeridian
+     */
+    public double east(double longitude) {
+        double delta = longitude - originLongitude;
+        if (delta > 180) delta -= 360;
+        if (delta < -180) delta += 360;
+        return delta * metersPerDegreeLongitude;
+    }
+
+    /**
+     * Meters to the north of the origin
+     */
+    public double north(double latitude) {
+        return (latitude - originLatitude) * metersPerDegreeLatitude;
+    }
+
+    /**
+     * Meters above the plane, which is below the altitude difference as the earth curves away from the plane
+     */
+    public double up(double latitude, double longitude, double altitude) {
+        double east = east(longitude);
+        double north = north(latitude);
+        return altitude - originAltitude - (east * east + north * north) / (2 * radius);
+    }
+
+    /**
+     * Latitude of the point given meters to the north of the origin
+     */
+    public double latitudeOf(double north) {
+        return originLatitude + north / metersPerDegreeLatitude;
+    }
+
+    /**
+     * Longitude of the point given meters to the east of the origin, between -180 and 180
+     */
+    public double longitudeOf(double east) {
+        double longitude = originLongitude + east / metersPerDegreeLongitude;
+        if (longitude > 180) longitude -= 360;
+        if (longitude < -180) longitude += 360;
+        return longitude;
+    }
+
+    /**
+     * Distance in meters between given points on the plane
+     */
+    public double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double x = east(longitude2) - east(longitude1);
+        double y = north(latitude2) - north(latitude1);
+        return Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Distance in meters from the origin to given point on the plane
+     */
+    public double distanceFromOrigin(double latitude, double longitude) {
+        double x = east(longitude);
+        double y = north(latitude);
+        return Math.sqrt(x * x + y * y);
+    }
+}
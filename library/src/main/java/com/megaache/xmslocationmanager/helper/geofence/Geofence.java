@@ -0,0 +1,189 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.geodesy.Geodesy;
+
+/**
+ * Immutable circular or polygon fence, identified by its id. Fences crossing the antimeridian are not supported.
+ */
+public final class Geofence {
+
+    private final String id;
+    private final double latitude;
+    private final double longitude;
+    private final float radius;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    private Geofence(String id, double latitude, double longitude, float radius, double[] latitudes,
+          double[] longitudes, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radius = radius;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    /**
+     * @param radius in meters
+     */
+    @NonNull
+    public static Geofence circle(@NonNull String id, double latitude, double longitude, float radius) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be greater than 0.");
+        }
+
+        double latitudeSpan = radius / Geodesy.METERS_PER_DEGREE;
+        double longitudeSpan = latitudeSpan / Geodesy.cosLatitude(latitude);
+        return new Geofence(id, latitude, longitude, radius, null, null,
+              latitude - latitudeSpan, latitude + latitudeSpan, longitude - longitudeSpan, longitude + longitudeSpan);
+    }
+
+    /**
+     * @param latitudes  of the vertices in order, the last vertex is connected to the first one
+     * @param longitudes of the vertices in the same order
+     */
+    @NonNull
+    public static Geofence polygon(@NonNull String id, @NonNull double[] latitudes, @NonNull double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("latitudes and longitudes must have the same length.");
+        }
+
+        if (latitudes.length < 3) {
+            throw new IllegalArgumentException("latitudes must contain at least 3 vertices.");
+        }
+
+        double minLatitude = Double.MAX_VALUE;
+        double maxLatitude = -Double.MAX_VALUE;
+        double minLongitude = Double.MAX_VALUE;
+        double maxLongitude = -Double.MAX_VALUE;
+        for (int i = 0; i < latitudes.length; i++) {
+            minLatitude = Math.min(minLatitude, latitudes[i]);
+            maxLatitude = Math.max(maxLatitude, latitudes[i]);
+            minLongitude = Math.min(minLongitude, longitudes[i]);
+            maxLongitude = Math.max(maxLongitude, longitudes[i]);
+        }
+
+        return new Geofence(id, (minLatitude + maxLatitude) / 2, (minLongitude + maxLongitude) / 2, 0,
+              latitudes.clone(), longitudes.clone(), minLatitude, maxLatitude, minLongitude, maxLongitude);
+    }
+
+    // region Getters
+    @NonNull
+    public String id() {
+        return id;
+    }
+
+    public boolean isCircle() {
+        return latitudes == null;
+    }
+
+    /**
+     * Center of the circle, or the center of the bounding box of the polygon
+     */
+    public double latitude() {
+        return latitude;
+    }
+
+    public double longitude() {
+        return longitude;
+    }
+
+    /**
+     * Radius of the circle in meters, 0 for a polygon
+     */
+    public float radius() {
+        return radius;
+    }
+
+    /**
+     * Number of vertices of the polygon, 0 for a circle
+     */
+    public int vertexCount() {
+        return isCircle() ? 0 : latitudes.length;
+    }
+
+    public double vertexLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double vertexLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public double minLatitude() {
+        return minLatitude;
+    }
+
+    public double maxLatitude() {
+        return maxLatitude;
+    }
+
+    public double minLongitude() {
+        return minLongitude;
+    }
+
+    public double maxLongitude() {
+        return maxLongitude;
+    }
+    // endregion
+
+    /**
+     * Distance in meters from given point to the border of this fence, negative if the point is inside
+     */
+    public double distanceToBorder(double latitude, double longitude) {
+        if (isCircle()) {
+            return LocationUtils.distance(this.latitude, this.longitude, latitude, longitude) - radius;
+        }
+
+        // Vertices are projected onto a plane touching the earth at given point, which stays at the origin
+        double longitudeScale = Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        int count = latitudes.length;
+        double previousX = (longitudes[count - 1] - longitude) * longitudeScale;
+        double previousY = (latitudes[count - 1] - latitude) * Geodesy.METERS_PER_DEGREE;
+
+        boolean inside = false;
+        double minSquaredDistance = Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            double x = (longitudes[i] - longitude) * longitudeScale;
+            double y = (latitudes[i] - latitude) * Geodesy.METERS_PER_DEGREE;
+
+            if ((y > 0) != (previousY > 0) && 0 < previousX + (x - previousX) * (0 - previousY) / (y - previousY)) {
+                inside = !inside;
+            }
+            minSquaredDistance = Math.min(minSquaredDistance, squaredDistanceToSegment(previousX, previousY, x, y));
+
+            previousX = x;
+            previousY = y;
+        }
+
+        double distance = Math.sqrt(minSquaredDistance);
+        return inside ? -distance : distance;
+    }
+
+    /**
+     * Squared distance from the origin to the segment between given points
+     */
+    private static double squaredDistanceToSegment(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, -(x1 * dx + y1 * dy) / lengthSquared));
+        double x = x1 + t * dx;
+        double y = y1 + t * dy;
+        return x * x + y * y;
+    }
+}
@@ -0,0 +1,185 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.configuration.GeofencingConfiguration;
+import com.megaache.xmslocationmanager.constants.GeofenceTransition;
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates every delivered location against any number of fences, without the limits of platform geofencing.
+ * Fences are kept in a {@linkplain GeofenceIndex}, so only the ones around a location are checked, in addition to
+ * the ones it is already inside of. A location needs to be inside a fence by its accuracy to enter it and outside
+ * by its accuracy to exit it, up to {@linkplain GeofencingConfiguration#maxHysteresis()}.
+ *
+ * Fences can be added and removed from any thread. The index is rebuilt once per call, so add them in bulk.
+ * Locations are evaluated on the thread which delivers them, changes are applied from the next location on.
+ * Fences which are removed while inside of them don't deliver an exit transition.
+ */
+public class GeofenceEngine {
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final double cellSize;
+    private final long dwellTimeNanos;
+    private final float maxHysteresis;
+
+    private volatile GeofenceIndex index = GeofenceIndex.EMPTY;
+
+    // Only accessed by the evaluating thread
+    private GeofenceIndex evaluatedIndex = GeofenceIndex.EMPTY;
+    private boolean[] isInside = new boolean[0];
+    private final List<InsideFence> insideFences = new ArrayList<>();
+
+    public GeofenceEngine(@NonNull GeofencingConfiguration configuration) {
+        this.cellSize = configuration.cellSize();
+        this.dwellTimeNanos = configuration.dwellTime() * NANOS_PER_MILLI;
+        this.maxHysteresis = configuration.maxHysteresis();
+    }
+
+    /**
+     * Adds given fences, replacing the ones with the same id
+     */
+    public synchronized void addGeofences(@NonNull Collection<Geofence> geofences) {
+        Map<String, Geofence> fences = fencesById();
+        for (Geofence geofence : geofences) {
+            fences.remove(geofence.id());
+            fences.put(geofence.id(), geofence);
+        }
+        index = new GeofenceIndex(fences.values().toArray(new Geofence[0]), cellSize);
+    }
+
+    /**
+     * Removes the fences with given ids, unknown ids are ignored
+     */
+    public synchronized void removeGeofences(@NonNull Collection<String> ids) {
+        Set<String> removedIds = new HashSet<>(ids);
+        List<Geofence> fences = new ArrayList<>();
+        for (Geofence fence : index.fences()) {
+            if (!removedIds.contains(fence.id())) fences.add(fence);
+        }
+        index = new GeofenceIndex(fences.toArray(new Geofence[0]), cellSize);
+    }
+
+    public synchronized void clearGeofences() {
+        index = GeofenceIndex.EMPTY;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @Nullable
+    public Geofence geofence(@NonNull String id) {
+        GeofenceIndex current = index;
+        int position = current.indexOf(id);
+        return position < 0 ? null : current.fenceAt(position);
+    }
+
+    /**
+     * Delivers the transitions given location causes. Apart from the transitions, nothing is allocated.
+     * Must only be called from one thread at a time.
+     */
+    public void evaluate(@NonNull Location location, @NonNull GeofenceListener listener) {
+        GeofenceIndex current = index;
+        if (current != evaluatedIndex) applyIndex(current);
+
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        double margin = location.hasAccuracy() ? Math.min(location.getAccuracy(), maxHysteresis) : 0;
+        long timeNanos = LocationUtils.timeNanosOf(location);
+
+        for (int i = insideFences.size() - 1; i >= 0; i--) {
+            InsideFence insideFence = insideFences.get(i);
+            Geofence fence = current.fenceAt(insideFence.position);
+
+            if (fence.distanceToBorder(latitude, longitude) > margin) {
+                insideFences.remove(i);
+                isInside[insideFence.position] = false;
+                listener.onGeofenceTransition(fence, GeofenceTransition.EXIT, location);
+            } else if (dwellTimeNanos > 0 && !insideFence.dwelled && timeNanos != LocationUtils.UNKNOWN_TIME) {
+                if (insideFence.enteredNanos == LocationUtils.UNKNOWN_TIME) {
+                    // Entered by a location without time, dwelling is counted from the first one with time
+                    insideFence.enteredNanos = timeNanos;
+                } else if (timeNanos - insideFence.enteredNanos >= dwellTimeNanos) {
+                    insideFence.dwelled = true;
+                    listener.onGeofenceTransition(fence, GeofenceTransition.DWELL, location);
+                }
+            }
+        }
+
+        int cell = current.cellOf(latitude, longitude);
+        if (cell >= 0) {
+            for (int i = current.cellStart(cell); i < current.cellEnd(cell); i++) {
+                checkEnter(current, current.cellFence(i), latitude, longitude, margin, timeNanos, location, listener);
+            }
+        }
+        for (int i = 0; i < current.largeFenceCount(); i++) {
+            checkEnter(current, current.largeFence(i), latitude, longitude, margin, timeNanos, location, listener);
+        }
+    }
+
+    private void checkEnter(GeofenceIndex current, int position, double latitude, double longitude, double margin,
+          long timeNanos, Location location, GeofenceListener listener) {
+        if (isInside[position]) return;
+
+        Geofence fence = current.fenceAt(position);
+        if (fence.distanceToBorder(latitude, longitude) < -margin) {
+            isInside[position] = true;
+            insideFences.add(new InsideFence(position, timeNanos));
+            listener.onGeofenceTransition(fence, GeofenceTransition.ENTER, location);
+        }
+    }
+
+    /**
+     * Moves the state of the fences which are still there to their positions in given index
+     */
+    private void applyIndex(GeofenceIndex current) {
+        isInside = new boolean[current.size()];
+        for (int i = insideFences.size() - 1; i >= 0; i--) {
+            InsideFence insideFence = insideFences.get(i);
+            Geofence fence = evaluatedIndex.fenceAt(insideFence.position);
+            int position = current.indexOf(fence.id());
+
+            if (position < 0 || current.fenceAt(position) != fence) {
+                insideFences.remove(i);
+            } else {
+                insideFence.position = position;
+                isInside[position] = true;
+            }
+        }
+        evaluatedIndex = current;
+    }
+
+    private Map<String, Geofence> fencesById() {
+        Map<String, Geofence> fences = new LinkedHashMap<>();
+        for (Geofence fence : index.fences()) {
+            fences.put(fence.id(), fence);
+        }
+        return fences;
+    }
+
+    private static class InsideFence {
+
+        private int position;
+        private long enteredNanos;
+        private boolean dwelled;
+
+        InsideFence(int position, long enteredNanos) {
+            this.position = position;
+            this.enteredNanos = enteredNanos;
+        }
+    }
+}
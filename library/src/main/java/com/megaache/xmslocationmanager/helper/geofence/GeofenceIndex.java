@@ -0,0 +1,168 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable grid index of a set of fences. Every fence is listed under the cells its bounding box overlaps,
+ * cells are kept as a sorted array of keys with the fences of each cell next to each other, so looking up
+ * a point is a binary search and allocates nothing. Fences overlapping too many cells are checked for every point.
+ */
+final class GeofenceIndex {
+
+    static final GeofenceIndex EMPTY = new GeofenceIndex(new Geofence[0], 1);
+
+    // Larger fences would take most of the index, and they are rare
+    static final int MAX_CELLS_PER_FENCE = 1024;
+
+    private final double cellSize;
+    private final Geofence[] fences;
+    private final Map<String, Integer> indexOfId;
+
+    private final long[] cellKeys;
+    // Fences of cellKeys[i] are between cellStarts[i] and cellStarts[i + 1] in cellFences
+    private final int[] cellStarts;
+    private final int[] cellFences;
+    private final int[] largeFences;
+
+    GeofenceIndex(@NonNull Geofence[] fences, double cellSize) {
+        this.cellSize = cellSize;
+        this.fences = fences;
+        this.indexOfId = new HashMap<>(fences.length * 2);
+
+        int pairCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < fences.length; i++) {
+            indexOfId.put(fences[i].id(), i);
+            long cells = cellCountOf(fences[i]);
+            if (cells > MAX_CELLS_PER_FENCE) {
+                largeCount++;
+            } else {
+                pairCount += cells;
+            }
+        }
+
+        // Cell of every fence and cell pair, then the distinct ones in order
+        long[] pairKeys = new long[pairCount];
+        int[] pairFences = new int[pairCount];
+        largeFences = new int[largeCount];
+        int pair = 0;
+        int large = 0;
+        for (int i = 0; i < fences.length; i++) {
+            Geofence fence = fences[i];
+            if (cellCountOf(fence) > MAX_CELLS_PER_FENCE) {
+                largeFences[large++] = i;
+                continue;
+            }
+
+            for (int row = rowOf(fence.minLatitude()); row <= rowOf(fence.maxLatitude()); row++) {
+                for (int column = columnOf(fence.minLongitude()); column <= columnOf(fence.maxLongitude()); column++) {
+                    pairKeys[pair] = keyOf(row, column);
+                    pairFences[pair] = i;
+                    pair++;
+                }
+            }
+        }
+
+        long[] sortedKeys = pairKeys.clone();
+        Arrays.sort(sortedKeys);
+        int distinct = 0;
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i == 0 || sortedKeys[i] != sortedKeys[i - 1]) sortedKeys[distinct++] = sortedKeys[i];
+        }
+        cellKeys = Arrays.copyOf(sortedKeys, distinct);
+
+        cellStarts = new int[distinct + 1];
+        int[] cellOfPair = new int[pairCount];
+        for (int i = 0; i < pairCount; i++) {
+            cellOfPair[i] = Arrays.binarySearch(cellKeys, pairKeys[i]);
+            cellStarts[cellOfPair[i] + 1]++;
+        }
+        for (int i = 0; i < distinct; i++) {
+            cellStarts[i + 1] += cellStarts[i];
+        }
+
+        cellFences = new int[pairCount];
+        int[] filled = new int[distinct];
+        for (int i = 0; i < pairCount; i++) {
+            int cell = cellOfPair[i];
+            cellFences[cellStarts[cell] + filled[cell]++] = pairFences[i];
+        }
+    }
+
+    double cellSize() {
+        return cellSize;
+    }
+
+    int size() {
+        return fences.length;
+    }
+
+    @NonNull
+    Geofence fenceAt(int index) {
+        return fences[index];
+    }
+
+    /**
+     * Returns -1 if there is no fence with given id
+     */
+    int indexOf(@Nullable String id) {
+        Integer index = indexOfId.get(id);
+        return index == null ? -1 : index;
+    }
+
+    @NonNull
+    Geofence[] fences() {
+        return fences;
+    }
+
+    /**
+     * Returns the cell which contains given point, -1 if no fence overlaps it
+     */
+    int cellOf(double latitude, double longitude) {
+        int cell = Arrays.binarySearch(cellKeys, keyOf(rowOf(latitude), columnOf(longitude)));
+        return cell < 0 ? -1 : cell;
+    }
+
+    int cellStart(int cell) {
+        return cellStarts[cell];
+    }
+
+    int cellEnd(int cell) {
+        return cellStarts[cell + 1];
+    }
+
+    int cellFence(int position) {
+        return cellFences[position];
+    }
+
+    int largeFenceCount() {
+        return largeFences.length;
+    }
+
+    int largeFence(int position) {
+        return largeFences[position];
+    }
+
+    private long cellCountOf(Geofence fence) {
+        long rows = rowOf(fence.maxLatitude()) - rowOf(fence.minLatitude()) + 1;
+        long columns = columnOf(fence.maxLongitude()) - columnOf(fence.minLongitude()) + 1;
+        return rows * columns;
+    }
+
+    private int rowOf(double latitude) {
+        return (int) Math.floor(latitude / cellSize);
+    }
+
+    private int columnOf(double longitude) {
+        return (int) Math.floor(longitude / cellSize);
+    }
+
+    private static long keyOf(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
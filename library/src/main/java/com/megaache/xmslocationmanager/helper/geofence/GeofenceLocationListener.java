@@ -0,0 +1,39 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.List;
+
+/**
+ * Evaluates every location delivered to the actual listener by {@linkplain GeofenceEngine},
+ * transitions are delivered to the actual listener if it implements {@linkplain GeofenceListener}
+ */
+public class GeofenceLocationListener extends ForwardingLocationListener {
+
+    private final GeofenceEngine geofenceEngine;
+
+    public GeofenceLocationListener(@NonNull LocationListener delegate, @NonNull GeofenceEngine geofenceEngine) {
+        super(delegate);
+        this.geofenceEngine = geofenceEngine;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        super.onLocationChanged(location);
+        geofenceEngine.evaluate(location, this);
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        super.onLocationsChanged(locations);
+        for (int i = 0; i < locations.size(); i++) {
+            geofenceEngine.evaluate(locations.get(i), this);
+        }
+    }
+}
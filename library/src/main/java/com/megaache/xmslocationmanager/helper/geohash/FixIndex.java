@@ -0,0 +1,267 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.configuration.FixIndexConfiguration;
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.geodesy.Geodesy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of delivered fixes by geohash cell and time, for questions such as whether the device has been around
+ * a place in the last week, or which areas it covered today. Fixes are kept in {@linkplain TimeBucket}s of
+ * {@linkplain FixIndexConfiguration#bucketDuration()}, each with a posting list per cell, so a query only walks
+ * the buckets of its time range and the cells of its area, instead of every fix.
+ *
+ * Times are wall clock times of the fixes in milliseconds, since the history can span reboots.
+ * Fixes can be queried from any thread.
+ */
+public class FixIndex {
+
+    private final int precision;
+    private final long bucketDuration;
+    private final long retention;
+
+    // Sorted by their start
+    private final List<TimeBucket> buckets = new ArrayList<>();
+    private long newestTime = Long.MIN_VALUE;
+
+    public FixIndex(@NonNull FixIndexConfiguration configuration) {
+        this.precision = configuration.precision();
+        this.bucketDuration = configuration.bucketDuration();
+        this.retention = configuration.retention();
+    }
+
+    public synchronized void add(@NonNull Location location) {
+        long time = location.getTime();
+        if (retention > 0 && newestTime != Long.MIN_VALUE && time <= newestTime - retention) return;
+
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        bucketOf(time).add(Geohash.encode(latitude, longitude, precision), latitude, longitude, time);
+
+        if (time > newestTime) {
+            newestTime = time;
+            dropExpiredBuckets();
+        }
+    }
+
+    /**
+     * Number of bits of the cells fixes are indexed by
+     */
+    public int precision() {
+        return precision;
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            size += buckets.get(i).size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns true if there is any fix between given times within given radius in meters of given point
+     */
+    public synchronized boolean hasBeenWithin(double latitude, double longitude, double radius, long from, long to) {
+        return findWithinRadius(latitude, longitude, radius, from, to, FixVisitor.STOP) > 0;
+    }
+
+    /**
+     * Visits the fixes between given times within given radius in meters of given point, newest first per cell
+     *
+     * @param visitor can be null to only count them
+     * @return number of visited fixes
+     */
+    public synchronized int findWithinRadius(double latitude, double longitude, double radius, long from, long to,
+          @Nullable FixVisitor visitor) {
+        double latitudeSpan = radius / Geodesy.METERS_PER_DEGREE;
+        double longitudeSpan = latitudeSpan / Geodesy.cosLatitude(latitude);
+        return find(latitude - latitudeSpan, longitude - longitudeSpan, latitude + latitudeSpan,
+              longitude + longitudeSpan, latitude, longitude, radius, from, to, visitor);
+    }
+
+    /**
+     * Visits the fixes between given times inside given box, newest first per cell
+     *
+     * @param visitor can be null to only count them
+     * @return number of visited fixes
+     */
+    public synchronized int findWithinBounds(double minLatitude, double minLongitude, double maxLatitude,
+          double maxLongitude, long from, long to, @Nullable FixVisitor visitor) {
+        return find(minLatitude, minLongitude, maxLatitude, maxLongitude, 0, 0, Double.NaN, from, to, visitor);
+    }
+
+    /**
+     * Returns the distinct cells of given precision which contain a fix between given times, in order.
+     * Precision can be lower than {@linkplain #precision()} to ask for larger areas.
+     */
+    @NonNull
+    public synchronized long[] coveredCells(long from, long to, int precision) {
+        if (precision < Geohash.MIN_BITS || precision > this.precision) {
+            throw new IllegalArgumentException("precision must be between " + Geohash.MIN_BITS + " and "
+                  + this.precision + ".");
+        }
+
+        long[] cells = new long[16];
+        int count = 0;
+        for (int i = firstBucketAfter(from); i < buckets.size() && buckets.get(i).start() <= to; i++) {
+            TimeBucket bucket = buckets.get(i);
+            boolean isWholeBucketInRange = bucket.start() >= from && bucket.start() + bucketDuration - 1 <= to;
+
+            for (int slot = 0; slot < bucket.slotCount(); slot++) {
+                if (!bucket.isSlotUsed(slot)) continue;
+
+                long cell = bucket.cellAt(slot);
+                if (!isWholeBucketInRange && !hasFixBetween(bucket, cell, from, to)) continue;
+
+                if (count == cells.length) cells = Arrays.copyOf(cells, count * 2);
+                cells[count++] = Geohash.parent(cell, this.precision, precision);
+            }
+        }
+
+        Arrays.sort(cells, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || cells[i] != cells[i - 1]) cells[distinct++] = cells[i];
+        }
+        return Arrays.copyOf(cells, distinct);
+    }
+
+    private int find(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+          double latitude, double longitude, double radius, long from, long to, @Nullable FixVisitor visitor) {
+        long minRow = Geohash.rowOf(minLatitude, precision);
+        long maxRow = Geohash.rowOf(maxLatitude, precision);
+        long minColumn = Geohash.columnOf(minLongitude, precision);
+        long maxColumn = Geohash.columnOf(maxLongitude, precision);
+        long cellCount = (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+
+        int found = 0;
+        for (int i = firstBucketAfter(from); i < buckets.size() && buckets.get(i).start() <= to; i++) {
+            TimeBucket bucket = buckets.get(i);
+
+            if (cellCount <= bucket.slotCount()) {
+                for (long row = minRow; row <= maxRow; row++) {
+                    for (long column = minColumn; column <= maxColumn; column++) {
+                        long cell = Geohash.interleave(column, row, precision);
+                        int visited = visitCell(bucket, cell, minLatitude, minLongitude, maxLatitude, maxLongitude,
+                              latitude, longitude, radius, from, to, visitor);
+                        if (visited < 0) return found - visited - 1;
+                        found += visited;
+                    }
+                }
+            } else {
+                // The area has more cells than the bucket, so only the cells of the bucket are checked
+                for (int slot = 0; slot < bucket.slotCount(); slot++) {
+                    if (!bucket.isSlotUsed(slot)) continue;
+
+                    long cell = bucket.cellAt(slot);
+                    long row = Geohash.rowOfCell(cell, precision);
+                    long column = Geohash.columnOfCell(cell, precision);
+                    if (row < minRow || row > maxRow || column < minColumn || column > maxColumn) continue;
+
+                    int visited = visitCell(bucket, cell, minLatitude, minLongitude, maxLatitude, maxLongitude,
+                          latitude, longitude, radius, from, to, visitor);
+                    if (visited < 0) return found - visited - 1;
+                    found += visited;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of visited fixes of given cell, or -(number + 1) if visitor asked to stop
+     */
+    private int visitCell(TimeBucket bucket, long cell, double minLatitude, double minLongitude, double maxLatitude,
+          double maxLongitude, double latitude, double longitude, double radius, long from, long to,
+          @Nullable FixVisitor visitor) {
+        int visited = 0;
+        for (int fix = bucket.head(cell); !TimeBucket.isNone(fix); fix = bucket.previous(fix)) {
+            long time = bucket.time(fix);
+            double fixLatitude = bucket.latitude(fix);
+            double fixLongitude = bucket.longitude(fix);
+            if (time < from || time > to) continue;
+            if (fixLatitude < minLatitude || fixLatitude > maxLatitude
+                  || fixLongitude < minLongitude || fixLongitude > maxLongitude) continue;
+            if (!Double.isNaN(radius)
+                  && LocationUtils.distance(latitude, longitude, fixLatitude, fixLongitude) > radius) continue;
+
+            visited++;
+            if (visitor != null && !visitor.visit(fixLatitude, fixLongitude, time)) return -visited - 1;
+        }
+        return visited;
+    }
+
+    private boolean hasFixBetween(TimeBucket bucket, long cell, long from, long to) {
+        for (int fix = bucket.head(cell); !TimeBucket.isNone(fix); fix = bucket.previous(fix)) {
+            if (bucket.time(fix) >= from && bucket.time(fix) <= to) return true;
+        }
+        return false;
+    }
+
+    private TimeBucket bucketOf(long time) {
+        long remainder = time % bucketDuration;
+        long start = time - (remainder < 0 ? remainder + bucketDuration : remainder);
+
+        // Fixes mostly arrive in order
+        int last = buckets.size() - 1;
+        if (last >= 0 && buckets.get(last).start() == start) return buckets.get(last);
+
+        int position = firstBucketAfter(start);
+        if (position < buckets.size() && buckets.get(position).start() == start) return buckets.get(position);
+
+        TimeBucket bucket = new TimeBucket(start);
+        buckets.add(position, bucket);
+        return bucket;
+    }
+
+    /**
+     * Position of the first bucket which ends after given time
+     */
+    private int firstBucketAfter(long time) {
+        int low = 0;
+        int high = buckets.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buckets.get(middle).start() + bucketDuration <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void dropExpiredBuckets() {
+        if (retention == 0) return;
+
+        int expired = firstBucketAfter(newestTime - retention);
+        if (expired > 0) buckets.subList(0, expired).clear();
+    }
+
+    /**
+     * Receives the fixes found by a query
+     */
+    public interface FixVisitor {
+
+        FixVisitor STOP = new FixVisitor() {
+            @Override
+            public boolean visit(double latitude, double longitude, long time) {
+                return false;
+            }
+        };
+
+        /**
+         * @return false to stop the query
+         */
+        boolean visit(double latitude, double longitude, long time);
+    }
+}
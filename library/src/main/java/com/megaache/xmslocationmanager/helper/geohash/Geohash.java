@@ -0,0 +1,132 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Geohash cells as primitive longs. A cell of n bits holds the bits of the longitude and the latitude interleaved,
+ * longitude first, in its lowest n bits. Removing the last bits of a cell gives the larger cell which contains it,
+ * so cells of every precision form a hierarchy, and cells of 5k bits map to the well known k character geohashes.
+ */
+public final class Geohash {
+
+    public static final int MIN_BITS = 1;
+    public static final int MAX_BITS = 60;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+        // No instance
+    }
+
+    public static long encode(double latitude, double longitude, int bits) {
+        return interleave(columnOf(longitude, bits), rowOf(latitude, bits), bits);
+    }
+
+    /**
+     * Cell of given number of bits which contains given cell
+     */
+    public static long parent(long cell, int bits, int parentBits) {
+        return cell >>> (bits - parentBits);
+    }
+
+    /**
+     * Returns the well known string of given cell, bits must be a multiple of 5
+     */
+    @NonNull
+    public static String toString(long cell, int bits) {
+        if (bits % 5 != 0) {
+            throw new IllegalArgumentException("bits must be a multiple of 5.");
+        }
+
+        char[] characters = new char[bits / 5];
+        for (int i = characters.length - 1; i >= 0; i--) {
+            characters[i] = BASE32[(int) (cell & 31)];
+            cell >>>= 5;
+        }
+        return new String(characters);
+    }
+
+    public static double minLatitude(long cell, int bits) {
+        return coordinateOf(rowOfCell(cell, bits), latitudeBits(bits), 180) - 90;
+    }
+
+    public static double maxLatitude(long cell, int bits) {
+        return coordinateOf(rowOfCell(cell, bits) + 1, latitudeBits(bits), 180) - 90;
+    }
+
+    public static double minLongitude(long cell, int bits) {
+        return coordinateOf(columnOfCell(cell, bits), longitudeBits(bits), 360) - 180;
+    }
+
+    public static double maxLongitude(long cell, int bits) {
+        return coordinateOf(columnOfCell(cell, bits) + 1, longitudeBits(bits), 360) - 180;
+    }
+
+    // region Grid
+    static int longitudeBits(int bits) {
+        return (bits + 1) / 2;
+    }
+
+    static int latitudeBits(int bits) {
+        return bits / 2;
+    }
+
+    /**
+     * Row of given latitude on the grid of given number of bits, clamped to the grid
+     */
+    static long rowOf(double latitude, int bits) {
+        return indexOf(latitude + 90, 180, latitudeBits(bits));
+    }
+
+    static long columnOf(double longitude, int bits) {
+        return indexOf(longitude + 180, 360, longitudeBits(bits));
+    }
+
+    /**
+     * Cell at given column and row of the grid of given number of bits
+     */
+    static long interleave(long column, long row, int bits) {
+        long cell = 0;
+        int longitudeBit = longitudeBits(bits);
+        int latitudeBit = latitudeBits(bits);
+        for (int i = 0; i < bits; i++) {
+            cell <<= 1;
+            if (i % 2 == 0) {
+                cell |= (column >>> --longitudeBit) & 1;
+            } else {
+                cell |= (row >>> --latitudeBit) & 1;
+            }
+        }
+        return cell;
+    }
+
+    static long rowOfCell(long cell, int bits) {
+        return deinterleave(cell, bits, 1);
+    }
+
+    static long columnOfCell(long cell, int bits) {
+        return deinterleave(cell, bits, 0);
+    }
+    // endregion
+
+    /**
+     * Collects every other bit of given cell, starting from the given bit counted from the highest one
+     */
+    private static long deinterleave(long cell, int bits, int first) {
+        long value = 0;
+        for (int i = first; i < bits; i += 2) {
+            value = (value << 1) | ((cell >>> (bits - 1 - i)) & 1);
+        }
+        return value;
+    }
+
+    private static long indexOf(double offset, double range, int bits) {
+        long count = 1L << bits;
+        long index = (long) Math.floor(offset / range * count);
+        return Math.max(0, Math.min(count - 1, index));
+    }
+
+    private static double coordinateOf(long index, int bits, double range) {
+        return index * range / (1L << bits);
+    }
+}
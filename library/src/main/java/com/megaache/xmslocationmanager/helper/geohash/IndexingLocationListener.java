@@ -0,0 +1,37 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.List;
+
+/**
+ * Adds every location delivered to the actual listener into {@linkplain FixIndex}
+ */
+public class IndexingLocationListener extends ForwardingLocationListener {
+
+    private final FixIndex fixIndex;
+
+    public IndexingLocationListener(@NonNull LocationListener delegate, @NonNull FixIndex fixIndex) {
+        super(delegate);
+        this.fixIndex = fixIndex;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        fixIndex.add(location);
+        super.onLocationChanged(location);
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            fixIndex.add(locations.get(i));
+        }
+        super.onLocationsChanged(locations);
+    }
+}
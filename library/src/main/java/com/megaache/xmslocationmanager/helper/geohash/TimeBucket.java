@@ -0,0 +1,145 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import java.util.Arrays;
+
+/**
+ * Fixes of one period of time, with a posting list per cell. Fixes are kept in parallel arrays, and every fix
+ * points to the previous fix of its cell, so a posting list is walked from the head kept for its cell
+ * in an open addressing table. Nothing is allocated per fix apart from growing the arrays.
+ */
+final class TimeBucket {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NONE = -1;
+
+    private final long start;
+
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] previousInCell = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Open addressing table from cell to the newest fix of the cell, a head of NONE is an empty slot
+    private long[] cells = new long[INITIAL_CAPACITY];
+    private int[] heads = newHeads(INITIAL_CAPACITY);
+    private int cellCount;
+
+    TimeBucket(long start) {
+        this.start = start;
+    }
+
+    long start() {
+        return start;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long cell, double latitude, double longitude, long time) {
+        if (size == latitudes.length) {
+            int capacity = size * 2;
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            times = Arrays.copyOf(times, capacity);
+            previousInCell = Arrays.copyOf(previousInCell, capacity);
+        }
+
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        times[size] = time;
+
+        int slot = slotOf(cell);
+        if (heads[slot] == NONE) {
+            cells[slot] = cell;
+            cellCount++;
+        }
+        previousInCell[size] = heads[slot];
+        heads[slot] = size;
+        size++;
+
+        // Kept at most half full
+        if (cellCount * 2 > cells.length) rehash(cells.length * 2);
+    }
+
+    /**
+     * Newest fix of given cell, {@linkplain #NONE} if there is none
+     */
+    int head(long cell) {
+        return heads[slotOf(cell)];
+    }
+
+    /**
+     * Fix added to the same cell before given one, {@linkplain #NONE} if there is none
+     */
+    int previous(int fix) {
+        return previousInCell[fix];
+    }
+
+    double latitude(int fix) {
+        return latitudes[fix];
+    }
+
+    double longitude(int fix) {
+        return longitudes[fix];
+    }
+
+    long time(int fix) {
+        return times[fix];
+    }
+
+    int slotCount() {
+        return cells.length;
+    }
+
+    boolean isSlotUsed(int slot) {
+        return heads[slot] != NONE;
+    }
+
+    long cellAt(int slot) {
+        return cells[slot];
+    }
+
+    static boolean isNone(int fix) {
+        return fix == NONE;
+    }
+
+    /**
+     * Slot of given cell, or the empty slot it would take
+     */
+    private int slotOf(long cell) {
+        int mask = cells.length - 1;
+        int slot = mix(cell) & mask;
+        while (heads[slot] != NONE && cells[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldCells = cells;
+        int[] oldHeads = heads;
+        cells = new long[capacity];
+        heads = newHeads(capacity);
+
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldHeads[i] == NONE) continue;
+
+            int slot = slotOf(oldCells[i]);
+            cells[slot] = oldCells[i];
+            heads[slot] = oldHeads[i];
+        }
+    }
+
+    private static int[] newHeads(int capacity) {
+        int[] heads = new int[capacity];
+        Arrays.fill(heads, NONE);
+        return heads;
+    }
+
+    private static int mix(long cell) {
+        long hash = cell * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,268 @@
+package com.megaache.xmslocationmanager.helper.history;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the last {@linkplain #capacity()} delivered locations in parallel primitive arrays, oldest ones are
+ * overwritten. Queries walk the arrays from the newest fix backwards and allocate nothing.
+ *
+ * Locations are added by a single thread, the one which delivers them, while queries can be called from any
+ * thread. A query never blocks the writer: it reads a sequence number before and after reading the arrays,
+ * and reads them again if a location was added in between.
+ *
+ * Time windows are measured on elapsed realtime, locations without it are never within a window.
+ */
+public class FixHistory {
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final Clock clock;
+    private final int capacity;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final float[] accuracies;
+    private final long[] timesNanos;
+
+    // Odd while a location is being written, otherwise twice the number of locations added so far
+    private final AtomicLong sequence = new AtomicLong();
+
+    public FixHistory(int capacity, @NonNull Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0.");
+        }
+
+        this.clock = clock;
+        this.capacity = capacity;
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+        this.accuracies = new float[capacity];
+        this.timesNanos = new long[capacity];
+    }
+
+    /**
+     * Must only be called from one thread at a time
+     */
+    public void add(@NonNull Location location) {
+        long written = sequence.incrementAndGet() / 2;
+        int slot = (int) (written % capacity);
+
+        latitudes[slot] = location.getLatitude();
+        longitudes[slot] = location.getLongitude();
+        accuracies[slot] = location.hasAccuracy() ? location.getAccuracy() : Float.NaN;
+        timesNanos[slot] = LocationUtils.timeNanosOf(location);
+
+        sequence.incrementAndGet();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of locations kept, at most {@linkplain #capacity()}
+     */
+    public int size() {
+        return sizeOf(beginRead());
+    }
+
+    /**
+     * Number of locations received in the last given milliseconds
+     */
+    public int countWithin(long periodMillis) {
+        long since = sinceOf(periodMillis);
+        while (true) {
+            long startSequence = beginRead();
+            int size = sizeOf(startSequence);
+            int newest = newestSlotOf(startSequence);
+
+            int count = 0;
+            while (count < size && timesNanos[slotBefore(newest, count)] >= since) {
+                count++;
+            }
+
+            if (endRead(startSequence)) return count;
+        }
+    }
+
+    /**
+     * Distance in meters travelled through the last given number of locations
+     */
+    public double pathLength(int lastCount) {
+        return pathLength(lastCount, Long.MIN_VALUE);
+    }
+
+    /**
+     * Distance in meters travelled through the locations received in the last given milliseconds
+     */
+    public double pathLengthWithin(long periodMillis) {
+        return pathLength(Integer.MAX_VALUE, sinceOf(periodMillis));
+    }
+
+    /**
+     * Average accuracy in meters of the last given number of locations, the ones without accuracy are skipped.
+     * Returns {@linkplain Float#NaN} if none of them has accuracy.
+     */
+    public float averageAccuracy(int lastCount) {
+        while (true) {
+            long startSequence = beginRead();
+            int count = Math.min(lastCount, sizeOf(startSequence));
+            int newest = newestSlotOf(startSequence);
+
+            double sum = 0;
+            int known = 0;
+            for (int i = 0; i < count; i++) {
+                float accuracy = accuracies[slotBefore(newest, i)];
+                if (!Float.isNaN(accuracy)) {
+                    sum += accuracy;
+                    known++;
+                }
+            }
+
+            if (endRead(startSequence)) return known == 0 ? Float.NaN : (float) (sum / known);
+        }
+    }
+
+    /**
+     * Sets given bounds to the smallest box which contains the last given number of locations
+     *
+     * @return false if there is no location, bounds are left as they are then
+     */
+    public boolean bounds(int lastCount, @NonNull Bounds bounds) {
+        return bounds(lastCount, Long.MIN_VALUE, bounds);
+    }
+
+    /**
+     * Sets given bounds to the smallest box which contains the locations received in the last given milliseconds
+     *
+     * @return false if there is no location in that period, bounds are left as they are then
+     */
+    public boolean boundsWithin(long periodMillis, @NonNull Bounds bounds) {
+        return bounds(Integer.MAX_VALUE, sinceOf(periodMillis), bounds);
+    }
+
+    private double pathLength(int lastCount, long since) {
+        while (true) {
+            long startSequence = beginRead();
+            int count = Math.min(lastCount, sizeOf(startSequence));
+            int newest = newestSlotOf(startSequence);
+
+            double length = 0;
+            int slot = newest;
+            for (int i = 1; i < count; i++) {
+                int previous = slotBefore(newest, i);
+                if (timesNanos[previous] < since) break;
+
+                length += LocationUtils.distance(latitudes[previous], longitudes[previous],
+                      latitudes[slot], longitudes[slot]);
+                slot = previous;
+            }
+
+            if (endRead(startSequence)) return length;
+        }
+    }
+
+    private boolean bounds(int lastCount, long since, Bounds bounds) {
+        while (true) {
+            long startSequence = beginRead();
+            int count = Math.min(lastCount, sizeOf(startSequence));
+            int newest = newestSlotOf(startSequence);
+
+            double minLatitude = Double.MAX_VALUE;
+            double minLongitude = Double.MAX_VALUE;
+            double maxLatitude = -Double.MAX_VALUE;
+            double maxLongitude = -Double.MAX_VALUE;
+            int found = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = slotBefore(newest, i);
+                if (timesNanos[slot] < since) break;
+
+                minLatitude = Math.min(minLatitude, latitudes[slot]);
+                maxLatitude = Math.max(maxLatitude, latitudes[slot]);
+                minLongitude = Math.min(minLongitude, longitudes[slot]);
+                maxLongitude = Math.max(maxLongitude, longitudes[slot]);
+                found++;
+            }
+
+            if (endRead(startSequence)) {
+                if (found == 0) return false;
+
+                bounds.set(minLatitude, minLongitude, maxLatitude, maxLongitude);
+                return true;
+            }
+        }
+    }
+
+    private long beginRead() {
+        long startSequence = sequence.get();
+        while ((startSequence & 1) != 0) {
+            // Writing a location takes a few stores, wait for it instead of parking
+            startSequence = sequence.get();
+        }
+        return startSequence;
+    }
+
+    private boolean endRead(long startSequence) {
+        // An atomic update instead of a plain read, so reads of the arrays cannot be moved after it
+        return sequence.getAndAdd(0) == startSequence;
+    }
+
+    private int sizeOf(long startSequence) {
+        return (int) Math.min(capacity, startSequence / 2);
+    }
+
+    private int newestSlotOf(long startSequence) {
+        return (int) ((startSequence / 2 - 1) % capacity);
+    }
+
+    private int slotBefore(int newest, int steps) {
+        int slot = newest - steps;
+        return slot < 0 ? slot + capacity : slot;
+    }
+
+    private long sinceOf(long periodMillis) {
+        return clock.elapsedRealtimeNanos() - periodMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Holder for the result of bounds queries, so the same instance can be reused for every query
+     */
+    public static class Bounds {
+
+        private double minLatitude;
+        private double minLongitude;
+        private double maxLatitude;
+        private double maxLongitude;
+
+        void set(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLatitude = maxLatitude;
+            this.maxLongitude = maxLongitude;
+        }
+
+        // region Getters
+        public double minLatitude() {
+            return minLatitude;
+        }
+
+        public double minLongitude() {
+            return minLongitude;
+        }
+
+        public double maxLatitude() {
+            return maxLatitude;
+        }
+
+        public double maxLongitude() {
+            return maxLongitude;
+        }
+        // endregion
+    }
+}
@@ -0,0 +1,37 @@
+package com.megaache.xmslocationmanager.helper.history;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.List;
+
+/**
+ * Adds every location delivered to the actual listener into {@linkplain FixHistory}
+ */
+public class HistoryLocationListener extends ForwardingLocationListener {
+
+    private final FixHistory fixHistory;
+
+    public HistoryLocationListener(@NonNull LocationListener delegate, @NonNull FixHistory fixHistory) {
+        super(delegate);
+        this.fixHistory = fixHistory;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        fixHistory.add(location);
+        super.onLocationChanged(location);
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            fixHistory.add(locations.get(i));
+        }
+        super.onLocationsChanged(locations);
+    }
+}
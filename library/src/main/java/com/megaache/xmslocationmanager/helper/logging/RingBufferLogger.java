@@ -0,0 +1,134 @@
+package com.megaache.xmslocationmanager.helper.logging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Keeps the last N log lines in memory, in preallocated arrays, so logging can stay on in production
+ * and be dumped on demand, e.g. when a user reports a problem.
+ * An optional delegate receives every line as well.
+ */
+public class RingBufferLogger implements Logger {
+
+    private static final char[] LEVELS = {'D', 'E', 'I', 'V', 'W'};
+    private static final int LEVEL_D = 0;
+    private static final int LEVEL_E = 1;
+    private static final int LEVEL_I = 2;
+    private static final int LEVEL_V = 3;
+    private static final int LEVEL_W = 4;
+
+    private final long[] times;
+    private final byte[] levels;
+    private final String[] tags;
+    private final String[] messages;
+    private final Logger delegate;
+
+    private int head = 0;
+    private int count = 0;
+
+    public RingBufferLogger(int capacity) {
+        this(capacity, null);
+    }
+
+    public RingBufferLogger(int capacity, @Nullable Logger delegate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0.");
+        }
+
+        this.times = new long[capacity];
+        this.levels = new byte[capacity];
+        this.tags = new String[capacity];
+        this.messages = new String[capacity];
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void logD(String className, String message) {
+        append(LEVEL_D, className, message);
+        if (delegate != null) delegate.logD(className, message);
+    }
+
+    @Override
+    public void logE(String className, String message) {
+        append(LEVEL_E, className, message);
+        if (delegate != null) delegate.logE(className, message);
+    }
+
+    @Override
+    public void logI(String className, String message) {
+        append(LEVEL_I, className, message);
+        if (delegate != null) delegate.logI(className, message);
+    }
+
+    @Override
+    public void logV(String className, String message) {
+        append(LEVEL_V, className, message);
+        if (delegate != null) delegate.logV(className, message);
+    }
+
+    @Override
+    public void logW(String className, String message) {
+        append(LEVEL_W, className, message);
+        if (delegate != null) delegate.logW(className, message);
+    }
+
+    /**
+     * Returns the number of lines currently kept
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Writes kept lines from oldest to newest, one line each as "time level/tag: message"
+     */
+    public synchronized void dump(@NonNull Appendable appendable) throws IOException {
+        int capacity = times.length;
+        for (int i = count; i > 0; i--) {
+            int index = (head - i + capacity) % capacity;
+            appendable.append(String.valueOf(times[index])).append(' ')
+                  .append(LEVELS[levels[index]]).append('/')
+                  .append(tags[index]).append(": ")
+                  .append(messages[index]).append('\n');
+        }
+    }
+
+    /**
+     * Returns kept lines from oldest to newest, see {@linkplain #dump(Appendable)}
+     */
+    @NonNull
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            dump(builder);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+        }
+        return builder.toString();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = null;
+            messages[i] = null;
+        }
+        head = 0;
+        count = 0;
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private synchronized void append(int level, String tag, String message) {
+        times[head] = currentTimeMillis();
+        levels[head] = (byte) level;
+        tags[head] = tag;
+        messages[head] = message;
+
+        head = (head + 1) % times.length;
+        if (count < times.length) count++;
+    }
+}
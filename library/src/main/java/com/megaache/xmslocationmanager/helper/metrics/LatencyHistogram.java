@@ -0,0 +1,124 @@
+package com.megaache.xmslocationmanager.helper.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Log-linear histogram of durations in nanoseconds, every power of two is split into 8 buckets so any recorded
+ * value is reported with at most 12.5% error. Buckets are preallocated, recording never allocates.
+ * Values above {@linkplain #MAX_VALUE} (about 36 minutes) are recorded as {@linkplain #MAX_VALUE}.
+ */
+public class LatencyHistogram {
+
+    public static final long MAX_VALUE = (1L << 41) - 1;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    public synchronized void record(long value) {
+        if (value < 0) value = 0;
+        if (value > MAX_VALUE) value = MAX_VALUE;
+
+        counts[bucketIndex(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    public synchronized long count() {
+        return totalCount;
+    }
+
+    /**
+     * Returns 0 if nothing is recorded yet
+     */
+    public synchronized long min() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public synchronized long max() {
+        return max;
+    }
+
+    public synchronized long mean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Returns the highest value of the bucket which contains given percentile, 0 if nothing is recorded yet
+     *
+     * @param percentile between 0 and 100
+     */
+    public synchronized long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100.");
+        }
+        if (totalCount == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Writes a line per non-empty bucket as "lowerBound,upperBound,count"
+     */
+    public synchronized void dump(@NonNull Appendable appendable) throws IOException {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] == 0) continue;
+
+            appendable.append(String.valueOf(bucketLowerBound(i))).append(',')
+                  .append(String.valueOf(bucketUpperBound(i))).append(',')
+                  .append(String.valueOf(counts[i])).append('\n');
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return bucketLowerBound(index) + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.megaache.xmslocationmanager.helper.metrics;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.List;
+
+/**
+ * Reports the outcome of every request to {@linkplain StageTracer}, as it is delivered to the actual listener.
+ * Any location which is not from GPS or Network provider is counted as {@linkplain ProviderType#XMS}.
+ */
+public class MetricsLocationListener extends ForwardingLocationListener {
+
+    private final StageTracer stageTracer;
+
+    public MetricsLocationListener(@NonNull LocationListener delegate, @NonNull StageTracer stageTracer) {
+        super(delegate);
+        this.stageTracer = stageTracer;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        stageTracer.fix(providerTypeOf(location));
+        super.onLocationChanged(location);
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        stageTracer.fix(providerTypeOf(locations.get(0)));
+        super.onLocationsChanged(locations);
+    }
+
+    @Override
+    public void onLocationFailed(@FailType int type) {
+        stageTracer.failure(type);
+        super.onLocationFailed(type);
+    }
+
+    @ProviderType
+    static int providerTypeOf(Location location) {
+        if (location == null) return ProviderType.NONE;
+        if (LocationManager.GPS_PROVIDER.equals(location.getProvider())) return ProviderType.GPS;
+        if (LocationManager.NETWORK_PROVIDER.equals(location.getProvider())) return ProviderType.NETWORK;
+        return ProviderType.XMS;
+    }
+}
@@ -0,0 +1,176 @@
+package com.megaache.xmslocationmanager.helper.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.constants.Stage;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.clock.DefaultClock;
+import com.megaache.xmslocationmanager.listener.MetricsListener;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Measures every stage reported by the providers, keeps a {@linkplain LatencyHistogram} per stage
+ * and for time to first fix, and forwards every event to the given {@linkplain MetricsListener}.
+ * Stages of the same kind can run for different providers at the same time, e.g. while racing providers,
+ * so they are tracked per provider.
+ */
+public class StageMetrics extends StageTracer {
+
+    private static final int STAGE_COUNT = 5;
+    private static final int PROVIDER_TYPE_COUNT = 5;
+    private static final long NOT_STARTED = -1;
+    private static final String[] STAGE_NAMES = {"askForPermission", "checkXMSAvailability", "getLastLocation",
+          "checkLocationSettings", "requestLocationUpdates"};
+
+    private final MetricsListener listener;
+    private final Clock clock;
+    private final LatencyHistogram[] stageLatencies = new LatencyHistogram[STAGE_COUNT];
+    private final LatencyHistogram timeToFixLatency = new LatencyHistogram();
+    private final long[] stageStartTimes = new long[STAGE_COUNT * PROVIDER_TYPE_COUNT];
+
+    private long requestStartTime = NOT_STARTED;
+    private boolean outcomeReported = false;
+
+    public StageMetrics(@Nullable MetricsListener listener) {
+        this(listener, new DefaultClock());
+    }
+
+    public StageMetrics(@Nullable MetricsListener listener, @NonNull Clock clock) {
+        this.listener = listener;
+        this.clock = clock;
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            stageLatencies[i] = new LatencyHistogram();
+        }
+        Arrays.fill(stageStartTimes, NOT_STARTED);
+    }
+
+    @Override
+    public synchronized void requestStarted() {
+        long now = elapsedRealtimeNanos();
+        Arrays.fill(stageStartTimes, NOT_STARTED);
+        requestStartTime = now;
+        outcomeReported = false;
+
+        if (listener != null) listener.onRequestStarted(now);
+    }
+
+    @Override
+    public synchronized void stageStarted(@Stage int stage, @ProviderType int providerType) {
+        long now = elapsedRealtimeNanos();
+        stageStartTimes[index(stage, providerType)] = now;
+
+        if (listener != null) listener.onStageStarted(stage, providerType, now);
+    }
+
+    /**
+     * Ignored if the stage is not started, or it is already finished
+     */
+    @Override
+    public synchronized void stageFinished(@Stage int stage, @ProviderType int providerType) {
+        int index = index(stage, providerType);
+        long startTime = stageStartTimes[index];
+        if (startTime == NOT_STARTED) return;
+
+        long now = elapsedRealtimeNanos();
+        long duration = now - startTime;
+        stageStartTimes[index] = NOT_STARTED;
+        stageLatencies[stage].record(duration);
+
+        if (listener != null) listener.onStageFinished(stage, providerType, now, duration);
+    }
+
+    /**
+     * Stages which are still running for the provider that is given up are dropped without being recorded
+     */
+    @Override
+    public synchronized void fallback(@ProviderType int from, @ProviderType int to, @FallbackReason int reason) {
+        long now = elapsedRealtimeNanos();
+        for (int stage = 0; stage < STAGE_COUNT; stage++) {
+            stageStartTimes[index(stage, from)] = NOT_STARTED;
+        }
+
+        if (listener != null) listener.onFallback(from, to, reason, now);
+    }
+
+    /**
+     * Only the first fix of each request is reported
+     */
+    @Override
+    public synchronized void fix(@ProviderType int providerType) {
+        if (outcomeReported) return;
+        outcomeReported = true;
+
+        long now = elapsedRealtimeNanos();
+        long timeToFix = requestStartTime == NOT_STARTED ? 0 : now - requestStartTime;
+        timeToFixLatency.record(timeToFix);
+
+        if (listener != null) listener.onFix(providerType, now, timeToFix);
+    }
+
+    /**
+     * Ignored if a fix or failure is already reported for the request
+     */
+    @Override
+    public synchronized void failure(@FailType int failType) {
+        if (outcomeReported) return;
+        outcomeReported = true;
+
+        if (listener != null) listener.onFailure(failType, elapsedRealtimeNanos());
+    }
+
+    // region Getters
+    @NonNull
+    public LatencyHistogram stageLatency(@Stage int stage) {
+        return stageLatencies[stage];
+    }
+
+    @NonNull
+    public LatencyHistogram timeToFixLatency() {
+        return timeToFixLatency;
+    }
+    // endregion
+
+    /**
+     * Writes a summary line per stage and for time to first fix as
+     * "name,count,mean,p50,p90,p99,max", all in nanoseconds
+     */
+    public void dump(@NonNull Appendable appendable) throws IOException {
+        for (int stage = 0; stage < STAGE_COUNT; stage++) {
+            dump(appendable, STAGE_NAMES[stage], stageLatencies[stage]);
+        }
+        dump(appendable, "timeToFirstFix", timeToFixLatency);
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : stageLatencies) {
+            histogram.reset();
+        }
+        timeToFixLatency.reset();
+    }
+
+    // For test purposes
+    long elapsedRealtimeNanos() {
+        return clock.elapsedRealtimeNanos();
+    }
+
+    private static void dump(Appendable appendable, String name, LatencyHistogram histogram) throws IOException {
+        appendable.append(name).append(',')
+              .append(String.valueOf(histogram.count())).append(',')
+              .append(String.valueOf(histogram.mean())).append(',')
+              .append(String.valueOf(histogram.percentile(50))).append(',')
+              .append(String.valueOf(histogram.percentile(90))).append(',')
+              .append(String.valueOf(histogram.percentile(99))).append(',')
+              .append(String.valueOf(histogram.max())).append('\n');
+    }
+
+    private static int index(int stage, int providerType) {
+        return stage * PROVIDER_TYPE_COUNT + providerType;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.megaache.xmslocationmanager.helper.metrics;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.constants.Stage;
+
+/**
+ * Providers report their stages through this class while getting location. This implementation does nothing,
+ * not even reading the clock, so it is used whenever no {@linkplain com.megaache.xmslocationmanager.listener.MetricsListener}
+ * is registered. See {@linkplain StageMetrics} for the one which records them.
+ */
+public class StageTracer {
+
+    public static final StageTracer NONE = new StageTracer();
+
+    protected StageTracer() {
+    }
+
+    public void requestStarted() {
+    }
+
+    public void stageStarted(@Stage int stage, @ProviderType int providerType) {
+    }
+
+    public void stageFinished(@Stage int stage, @ProviderType int providerType) {
+    }
+
+    public void fallback(@ProviderType int from, @ProviderType int to, @FallbackReason int reason) {
+    }
+
+    public void fix(@ProviderType int providerType) {
+    }
+
+    public void failure(@FailType int failType) {
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A stage of the processing pipeline which every location passes through before it is delivered to the listener,
+ * see {@linkplain com.megaache.xmslocationmanager.XMSLocationManager.Builder#addFixProcessor(FixProcessor)}.
+ * Stages are called one location at a time, in the order locations are received, on the thread which receives
+ * location updates. So they don't need to be thread-safe, but they should be quick and avoid allocating.
+ * <p>
+ * A location can be delivered to the listeners of several managers at once when they share subscriptions,
+ * so a stage must never modify the location it receives. A stage which changes values returns a copy instead.
+ */
+public interface FixProcessor {
+
+    /**
+     * @return given location, a modified copy of it, or null to drop it, in which case
+     * the following stages and the listener won't receive it
+     */
+    @Nullable
+    Location process(@NonNull Location location);
+
+}
@@ -0,0 +1,153 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.geodesy.LocalTangentPlane;
+
+/**
+ * Smooths the jitter of consecutive locations with a constant velocity Kalman filter. Reported accuracy of each
+ * location is used as its measurement noise, so accurate locations are trusted more than the inaccurate ones.
+ * Latitude, longitude and accuracy of each location are replaced by the estimated values on a copy of it,
+ * which is the only allocation per location, since the received location may be delivered to other managers too.
+ * <p>
+ * Positions are estimated in meters on a plane tangent to the first location, east and north axes are
+ * independent and share the same covariance. The filter starts over when time goes backwards or there is
+ * a gap longer than {@linkplain #MAX_GAP_NANOS} between locations. Locations without accuracy are passed as they are.
+ */
+public class KalmanFilterProcessor implements FixProcessor {
+
+    /**
+     * Default standard deviation of the acceleration, in m/s^2, which suits walking or driving in a city
+     */
+    public static final double DEFAULT_ACCELERATION_NOISE = 3;
+
+    static final long MAX_GAP_NANOS = 60L * 1000 * 1000 * 1000;
+
+    private static final double INITIAL_VELOCITY_VARIANCE = 100;
+    // Tangent plane is moved along with the estimate, so the projection error stays negligible
+    private static final double MAX_DISTANCE_FROM_ORIGIN = 10000;
+
+    private final double accelerationVariance;
+
+    private boolean isInitialized = false;
+    private long lastTimeNanos;
+    private final LocalTangentPlane plane = new LocalTangentPlane(0, 0);
+
+    // State: east and north position in meters, and their velocities in m/s
+    private double x;
+    private double y;
+    private double vx;
+    private double vy;
+
+    // Covariance of position and velocity, same for both axes
+    private double p00;
+    private double p01;
+    private double p11;
+
+    public KalmanFilterProcessor() {
+        this(DEFAULT_ACCELERATION_NOISE);
+    }
+
+    /**
+     * @param accelerationNoise standard deviation of the acceleration in m/s^2, higher values follow sudden
+     *                          movements quicker but smooth less
+     */
+    public KalmanFilterProcessor(double accelerationNoise) {
+        if (accelerationNoise <= 0) {
+            throw new IllegalArgumentException("accelerationNoise must be greater than 0.");
+        }
+
+        this.accelerationVariance = accelerationNoise * accelerationNoise;
+    }
+
+    @NonNull
+    @Override
+    public Location process(@NonNull Location location) {
+        if (!location.hasAccuracy() || location.getAccuracy() <= 0) return location;
+
+        long timeNanos = LocationUtils.timeNanosOf(location);
+        if (timeNanos == LocationUtils.UNKNOWN_TIME) return location;
+
+        double measurementVariance = (double) location.getAccuracy() * location.getAccuracy();
+        long gap = timeNanos - lastTimeNanos;
+
+        if (!isInitialized || gap < 0 || gap > MAX_GAP_NANOS) {
+            initialize(location, timeNanos, measurementVariance);
+            return location;
+        }
+
+        predict(gap / 1e9);
+        update(plane.east(location.getLongitude()), plane.north(location.getLatitude()), measurementVariance);
+        lastTimeNanos = timeNanos;
+
+        Location estimate = copyOf(location);
+        estimate.setLatitude(plane.latitudeOf(y));
+        estimate.setLongitude(plane.longitudeOf(x));
+        estimate.setAccuracy((float) Math.sqrt(p00));
+
+        if (Math.abs(x) > MAX_DISTANCE_FROM_ORIGIN || Math.abs(y) > MAX_DISTANCE_FROM_ORIGIN) {
+            moveOrigin(estimate.getLatitude(), estimate.getLongitude());
+        }
+        return estimate;
+    }
+
+    // For test purposes
+    @NonNull
+    Location copyOf(@NonNull Location location) {
+        return new Location(location);
+    }
+
+    /**
+     * Forgets the estimate, next location starts the filter over
+     */
+    public void reset() {
+        isInitialized = false;
+    }
+
+    private void initialize(Location location, long timeNanos, double measurementVariance) {
+        moveOrigin(location.getLatitude(), location.getLongitude());
+        vx = 0;
+        vy = 0;
+        p00 = measurementVariance;
+        p01 = 0;
+        p11 = INITIAL_VELOCITY_VARIANCE;
+        lastTimeNanos = timeNanos;
+        isInitialized = true;
+    }
+
+    private void predict(double dt) {
+        x += vx * dt;
+        y += vy * dt;
+
+        double dt2 = dt * dt;
+        p00 += 2 * dt * p01 + dt2 * p11 + accelerationVariance * dt2 * dt2 / 4;
+        p01 += dt * p11 + accelerationVariance * dt2 * dt / 2;
+        p11 += accelerationVariance * dt2;
+    }
+
+    private void update(double measuredX, double measuredY, double measurementVariance) {
+        double innovationVariance = p00 + measurementVariance;
+        double positionGain = p00 / innovationVariance;
+        double velocityGain = p01 / innovationVariance;
+
+        double innovationX = measuredX - x;
+        double innovationY = measuredY - y;
+        x += positionGain * innovationX;
+        y += positionGain * innovationY;
+        vx += velocityGain * innovationX;
+        vy += velocityGain * innovationY;
+
+        p11 -= velocityGain * p01;
+        p00 *= 1 - positionGain;
+        p01 *= 1 - positionGain;
+    }
+
+    private void moveOrigin(double latitude, double longitude) {
+        plane.setOrigin(latitude, longitude, 0);
+        x = 0;
+        y = 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes every location through the given {@linkplain FixProcessor}s in order, before it is delivered to the actual listener
+ */
+public class ProcessingLocationListener extends ForwardingLocationListener {
+
+    private final FixProcessor[] processors;
+    private final List<Location> processedBatch = new ArrayList<>();
+
+    public ProcessingLocationListener(@NonNull LocationListener delegate, @NonNull FixProcessor[] processors) {
+        super(delegate);
+        this.processors = processors;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        Location processed = process(location);
+        if (processed != null) {
+            super.onLocationChanged(processed);
+        }
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        // Batches are only valid during the call, so the same list is reused for every batch
+        processedBatch.clear();
+        for (int i = 0; i < locations.size(); i++) {
+            Location processed = process(locations.get(i));
+            if (processed != null) {
+                processedBatch.add(processed);
+            }
+        }
+
+        if (!processedBatch.isEmpty()) {
+            super.onLocationsChanged(processedBatch);
+        }
+        processedBatch.clear();
+    }
+
+    private Location process(Location location) {
+        for (int i = 0; i < processors.length && location != null; i++) {
+            location = processors[i].process(location);
+        }
+        return location;
+    }
+}
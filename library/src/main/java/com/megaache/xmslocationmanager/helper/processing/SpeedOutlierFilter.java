@@ -0,0 +1,136 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.constants.TransportProfile;
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+
+/**
+ * Drops a location when the speed it implies from the last accepted location is not possible for the
+ * {@linkplain TransportProfile}, such as a Network location which jumps kilometers away and back.
+ * Accuracy of both locations is taken into account, so the jitter of accurate locations is never dropped.
+ * <p>
+ * In case of the last accepted location is wrong itself, the filter would drop every following location,
+ * so after {@linkplain #MAX_CONSECUTIVE_DROPS} drops in a row the next location is accepted regardless.
+ */
+public class SpeedOutlierFilter implements FixProcessor {
+
+    private static final String TAG = "SpeedOutlierFilter";
+
+    static final int MAX_CONSECUTIVE_DROPS = 5;
+
+    private final float maxSpeed;
+
+    private boolean hasLastAccepted = false;
+    private long lastTimeNanos;
+    private double lastLatitude;
+    private double lastLongitude;
+    private float lastAccuracy;
+    private int consecutiveDrops = 0;
+
+    // Written only by the thread which receives locations
+    private volatile long acceptedCount = 0;
+    private volatile long droppedCount = 0;
+
+    public SpeedOutlierFilter(@TransportProfile int transportProfile) {
+        this(maxSpeedOf(transportProfile));
+    }
+
+    /**
+     * @param maxSpeed in meters per second
+     */
+    public SpeedOutlierFilter(float maxSpeed) {
+        if (maxSpeed <= 0) {
+            throw new IllegalArgumentException("maxSpeed must be greater than 0.");
+        }
+
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Returns the highest speed in meters per second which is considered possible for given profile
+     */
+    public static float maxSpeedOf(@TransportProfile int transportProfile) {
+        switch (transportProfile) {
+            case TransportProfile.WALKING:
+                return 7;
+            case TransportProfile.CYCLING:
+                return 20;
+            case TransportProfile.DRIVING:
+                return 70;
+            case TransportProfile.FLYING:
+                return 300;
+            default:
+                throw new IllegalArgumentException("Unknown transport profile: " + transportProfile);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Location process(@NonNull Location location) {
+        long timeNanos = LocationUtils.timeNanosOf(location);
+        if (timeNanos == LocationUtils.UNKNOWN_TIME) {
+            // Speed cannot be told without its time, it is passed through without becoming the last accepted one
+            acceptedCount++;
+            return location;
+        }
+
+        if (hasLastAccepted && consecutiveDrops < MAX_CONSECUTIVE_DROPS && isOutlier(location, timeNanos)) {
+            consecutiveDrops++;
+            droppedCount++;
+            if (LogUtils.isLoggable(LogUtils.DEBUG)) {
+                LogUtils.logD(TAG, "Dropped {} location, it is too far from the last accepted one.",
+                      location.getProvider());
+            }
+            return null;
+        }
+
+        hasLastAccepted = true;
+        lastTimeNanos = timeNanos;
+        lastLatitude = location.getLatitude();
+        lastLongitude = location.getLongitude();
+        lastAccuracy = location.hasAccuracy() ? location.getAccuracy() : 0;
+        consecutiveDrops = 0;
+        acceptedCount++;
+        return location;
+    }
+
+    // region Getters
+    public float maxSpeed() {
+        return maxSpeed;
+    }
+
+    public long acceptedCount() {
+        return acceptedCount;
+    }
+
+    public long droppedCount() {
+        return droppedCount;
+    }
+    // endregion
+
+    /**
+     * Forgets the last accepted location and the counters
+     */
+    public void reset() {
+        hasLastAccepted = false;
+        consecutiveDrops = 0;
+        acceptedCount = 0;
+        droppedCount = 0;
+    }
+
+    private boolean isOutlier(Location location, long timeNanos) {
+        double seconds = Math.max(0, timeNanos - lastTimeNanos) / 1e9;
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : 0;
+
+        double distance = LocationUtils.distance(lastLatitude, lastLongitude,
+              location.getLatitude(), location.getLongitude());
+        // Both locations could be anywhere within their accuracy
+        double possibleDistance = maxSpeed * seconds + lastAccuracy + accuracy;
+        return distance > possibleDistance;
+    }
+}
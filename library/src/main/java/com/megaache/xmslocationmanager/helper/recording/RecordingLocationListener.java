@@ -0,0 +1,38 @@
+package com.megaache.xmslocationmanager.helper.recording;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.util.List;
+
+/**
+ * Records every location delivered to the actual listener by {@linkplain TrajectoryRecorder}
+ */
+public class RecordingLocationListener extends ForwardingLocationListener {
+
+    private final TrajectoryRecorder trajectoryRecorder;
+
+    public RecordingLocationListener(@NonNull LocationListener delegate,
+          @NonNull TrajectoryRecorder trajectoryRecorder) {
+        super(delegate);
+        this.trajectoryRecorder = trajectoryRecorder;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        trajectoryRecorder.record(location);
+        super.onLocationChanged(location);
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            trajectoryRecorder.record(locations.get(i));
+        }
+        super.onLocationsChanged(locations);
+    }
+}
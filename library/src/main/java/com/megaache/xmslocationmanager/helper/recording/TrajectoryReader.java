@@ -0,0 +1,147 @@
+package com.megaache.xmslocationmanager.helper.recording;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.fix.CompactFix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the segment files written by {@linkplain TrajectoryRecorder}, including the one which is still being
+ * written and the ones left unsealed by a crashed process.
+ */
+public final class TrajectoryReader {
+
+    private static final String TAG = "TrajectoryReader";
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".xtr";
+
+    private TrajectoryReader() {
+        // No instance
+    }
+
+    /**
+     * Fixes of a segment file, from oldest to newest. Use {@linkplain CompactFix#toLocation()} if
+     * {@linkplain android.location.Location} is needed.
+     */
+    public static final class Segment {
+
+        private final List<CompactFix> fixes;
+        private final boolean isSealed;
+
+        Segment(@NonNull List<CompactFix> fixes, boolean isSealed) {
+            this.fixes = Collections.unmodifiableList(fixes);
+            this.isSealed = isSealed;
+        }
+
+        // region Getters
+        @NonNull
+        public List<CompactFix> fixes() {
+            return fixes;
+        }
+
+        /**
+         * False if the segment is still being written or its footer does not match its content,
+         * then only the fixes committed in its header are returned
+         */
+        public boolean isSealed() {
+            return isSealed;
+        }
+        // endregion
+    }
+
+    /**
+     * Returns all recorded fixes in given directory, from oldest to newest
+     */
+    @NonNull
+    @WorkerThread
+    public static List<CompactFix> readAll(@NonNull File directory) {
+        List<CompactFix> fixes = new ArrayList<>();
+        for (Segment segment : readSegments(directory)) {
+            fixes.addAll(segment.fixes());
+        }
+        return fixes;
+    }
+
+    /**
+     * Returns the segments in given directory from oldest to newest, files which cannot be read are skipped
+     */
+    @NonNull
+    @WorkerThread
+    public static List<Segment> readSegments(@NonNull File directory) {
+        List<Segment> segments = new ArrayList<>();
+        for (File file : segmentFiles(directory)) {
+            Segment segment = read(file);
+            if (segment != null) segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the fixes in given segment file, or null if it is not a segment file
+     */
+    @Nullable
+    @WorkerThread
+    public static Segment read(@NonNull File file) {
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return TrajectorySegment.read(buffer);
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            LogUtils.logE(TAG, "Couldn't read trajectory segment {}: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Segment files in given directory, sorted from oldest to newest
+     */
+    @NonNull
+    static List<File> segmentFiles(@NonNull File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) return new ArrayList<>();
+
+        List<File> segmentFiles = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (indexOf(file) >= 0) segmentFiles.add(file);
+        }
+        // Indexes are zero padded, so names sort in the order they are written
+        Collections.sort(segmentFiles);
+        return segmentFiles;
+    }
+
+    static String fileName(int index) {
+        return String.format(Locale.US, "%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Returns the index of given segment file, or -1 if it is not a segment file
+     */
+    static int indexOf(@NonNull File file) {
+        String name = file.getName();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return -1;
+
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
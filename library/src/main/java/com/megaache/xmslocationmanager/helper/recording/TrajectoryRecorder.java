@@ -0,0 +1,242 @@
+package com.megaache.xmslocationmanager.helper.recording;
+
+import android.content.Context;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.megaache.xmslocationmanager.configuration.TrajectoryRecordingConfiguration;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.fix.CompactFix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Appends delivered locations to memory-mapped segment files, see {@linkplain TrajectorySegment} for the format.
+ *
+ * Locations are copied into {@linkplain CompactFix} and queued on the delivery path, then written in batches on a background thread, so
+ * recording never blocks it. Written records are in the page cache as soon as they are put into the mapping,
+ * so they survive a crash of the process; files are only forced to the disk when a segment is sealed, which
+ * keeps the disk idle between segments during long tracking sessions.
+ */
+public class TrajectoryRecorder {
+
+    private static final String TAG = "TrajectoryRecorder";
+
+    static final String DIRECTORY_NAME = "xms_trajectory";
+
+    private final File directory;
+    private final int segmentCapacity;
+    private final int maxSegments;
+    private final Executor writeExecutor;
+    private final List<CompactFix> pendingWrites = new ArrayList<>();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private final Runnable closeTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+            sealSegment();
+        }
+    };
+
+    private boolean isFlushScheduled = false;
+    private boolean isClosed = false;
+
+    // Only accessed on the write executor
+    private TrajectorySegment segment;
+    private ByteBuffer segmentBuffer;
+    private int nextSegmentIndex = -1;
+
+    /**
+     * Creates a recorder which writes into the directory of given configuration, or into a directory
+     * under the files directory of the application if it is not set
+     */
+    @NonNull
+    public static TrajectoryRecorder create(@NonNull Context context,
+          @NonNull TrajectoryRecordingConfiguration configuration) {
+        File directory = configuration.directory() != null
+              ? configuration.directory()
+              : new File(context.getApplicationContext().getFilesDir(), DIRECTORY_NAME);
+        return new TrajectoryRecorder(directory, configuration.segmentCapacity(), configuration.maxSegments(),
+              createWriteExecutor());
+    }
+
+    TrajectoryRecorder(File directory, int segmentCapacity, int maxSegments, Executor writeExecutor) {
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.maxSegments = maxSegments;
+        this.writeExecutor = writeExecutor;
+    }
+
+    /**
+     * Directory which segment files are written into, to be read by {@linkplain TrajectoryReader}
+     */
+    @NonNull
+    public File directory() {
+        return directory;
+    }
+
+    /**
+     * Queues given location to be written, ignored after {@linkplain #close()}
+     */
+    public void record(@Nullable Location location) {
+        if (location == null) return;
+
+        CompactFix fix = CompactFix.from(location);
+        synchronized (this) {
+            if (isClosed) return;
+
+            pendingWrites.add(fix);
+            if (isFlushScheduled) return;
+            isFlushScheduled = true;
+        }
+        writeExecutor.execute(flushTask);
+    }
+
+    /**
+     * Writes the queued locations and seals the current segment, then stops the writer thread
+     */
+    public void close() {
+        synchronized (this) {
+            if (isClosed) return;
+            isClosed = true;
+        }
+        writeExecutor.execute(closeTask);
+
+        if (writeExecutor instanceof ExecutorService) {
+            // Queued tasks still run
+            ((ExecutorService) writeExecutor).shutdown();
+        }
+    }
+
+    @WorkerThread
+    void flush() {
+        CompactFix[] batch;
+        synchronized (this) {
+            batch = pendingWrites.toArray(new CompactFix[0]);
+            pendingWrites.clear();
+            isFlushScheduled = false;
+        }
+
+        for (CompactFix fix : batch) {
+            append(fix);
+        }
+    }
+
+    private void append(CompactFix fix) {
+        if (segment == null && !startSegment()) return;
+        if (segment.append(fix)) return;
+
+        // Segment is full, or the fix is too far from the previous one to be kept as a difference
+        sealSegment();
+        if (startSegment()) {
+            segment.append(fix);
+        }
+    }
+
+    private boolean startSegment() {
+        if (nextSegmentIndex < 0) {
+            nextSegmentIndex = recoverSegments();
+            if (nextSegmentIndex < 0) return false;
+        }
+
+        File file = new File(directory, TrajectoryReader.fileName(nextSegmentIndex));
+        try {
+            segmentBuffer = map(file, TrajectorySegment.fileSize(segmentCapacity), FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            LogUtils.logE(TAG, "Couldn't map trajectory segment {}: {}", file.getName(), e.getMessage());
+            return false;
+        }
+
+        segment = new TrajectorySegment(segmentBuffer, segmentCapacity);
+        nextSegmentIndex++;
+        deleteOldSegments();
+        return true;
+    }
+
+    private void sealSegment() {
+        if (segment == null) return;
+
+        segment.seal();
+        if (segmentBuffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) segmentBuffer).force();
+        }
+        segment = null;
+        segmentBuffer = null;
+    }
+
+    /**
+     * Seals the segments left unsealed by a previous process, and returns the index of the next segment,
+     * or -1 if the directory cannot be created
+     */
+    private int recoverSegments() {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LogUtils.logE(TAG, "Couldn't create trajectory directory {}", directory.getPath());
+            return -1;
+        }
+
+        int nextIndex = 0;
+        for (File file : TrajectoryReader.segmentFiles(directory)) {
+            nextIndex = Math.max(nextIndex, TrajectoryReader.indexOf(file) + 1);
+            try {
+                if (TrajectorySegment.recover(map(file, file.length(), FileChannel.MapMode.READ_WRITE))) {
+                    LogUtils.logI(TAG, "Sealed trajectory segment {} left unsealed by a previous process.",
+                          file.getName());
+                }
+            } catch (IOException e) {
+                LogUtils.logE(TAG, "Couldn't recover trajectory segment {}: {}", file.getName(), e.getMessage());
+            }
+        }
+        return nextIndex;
+    }
+
+    private void deleteOldSegments() {
+        if (maxSegments == 0) return;
+
+        List<File> files = TrajectoryReader.segmentFiles(directory);
+        for (int i = 0; i < files.size() - maxSegments; i++) {
+            if (!files.get(i).delete()) {
+                LogUtils.logE(TAG, "Couldn't delete trajectory segment {}", files.get(i).getName());
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(File file, long size, FileChannel.MapMode mode) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            // The mapping stays valid after the channel is closed
+            return randomAccessFile.getChannel().map(mode, 0, size);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static ExecutorService createWriteExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "XMSTrajectoryWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,225 @@
+package com.megaache.xmslocationmanager.helper.recording;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.helper.fix.CompactFix;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Format of a segment file, which is written sequentially and never modified afterwards.
+ *
+ * Header keeps the capacity, number of committed records and the first location as the base. Each record has
+ * a fixed width and holds the difference to the previous location: time in milliseconds, latitude and longitude
+ * in 1e-7 degrees, accuracy in decimeters and speed in centimeters per second. Record count in the header is
+ * updated after each record, so a segment left behind by a crashed process is still readable. Once a segment
+ * is full it is sealed by a footer at the end of the file, with a checksum of the header and the records.
+ */
+final class TrajectorySegment {
+
+    static final int MAGIC = 0x584D5354; // XMST
+    static final int FOOTER_MAGIC = 0x584D5346; // XMSF
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    // time, latitude, longitude, accuracy, speed
+    static final int RECORD_SIZE = 4 + 4 + 4 + 2 + 2;
+    static final int FOOTER_SIZE = 16;
+    static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE - FOOTER_SIZE) / RECORD_SIZE;
+
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int BASE_TIME_OFFSET = 16;
+    private static final int BASE_LATITUDE_OFFSET = 24;
+    private static final int BASE_LONGITUDE_OFFSET = 28;
+
+    private static final float ACCURACY_SCALE = 10;
+    private static final float SPEED_SCALE = 100;
+    private static final int UNKNOWN = 0xFFFF;
+    private static final int MAX_QUANTIZED = UNKNOWN - 1;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+
+    private int count = 0;
+    private long lastTime;
+    private int lastLatitude;
+    private int lastLongitude;
+
+    /**
+     * Starts a new segment on given zero filled buffer of {@linkplain #fileSize(int)} bytes
+     */
+    TrajectorySegment(@NonNull ByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) RECORD_SIZE);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(COUNT_OFFSET, 0);
+    }
+
+    static int fileSize(int capacity) {
+        return HEADER_SIZE + capacity * RECORD_SIZE + FOOTER_SIZE;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Appends given fix, returns false if segment is full or the difference to the previous fix does not fit
+     * into a record, then a new segment needs to be started for it
+     */
+    boolean append(@NonNull CompactFix fix) {
+        if (count == capacity) return false;
+
+        int latitude = fix.latitudeE7();
+        int longitude = fix.longitudeE7();
+
+        if (count == 0) {
+            buffer.putLong(BASE_TIME_OFFSET, fix.time());
+            buffer.putInt(BASE_LATITUDE_OFFSET, latitude);
+            buffer.putInt(BASE_LONGITUDE_OFFSET, longitude);
+            lastTime = fix.time();
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+        }
+
+        long timeDelta = fix.time() - lastTime;
+        long latitudeDelta = (long) latitude - lastLatitude;
+        long longitudeDelta = (long) longitude - lastLongitude;
+        if (!fitsInt(timeDelta) || !fitsInt(latitudeDelta) || !fitsInt(longitudeDelta)) return false;
+
+        int offset = HEADER_SIZE + count * RECORD_SIZE;
+        buffer.putInt(offset, (int) timeDelta);
+        buffer.putInt(offset + 4, (int) latitudeDelta);
+        buffer.putInt(offset + 8, (int) longitudeDelta);
+        buffer.putShort(offset + 12, (short) quantize(fix.accuracy(), ACCURACY_SCALE));
+        buffer.putShort(offset + 14, (short) quantize(fix.speed(), SPEED_SCALE));
+
+        lastTime = fix.time();
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+
+        count++;
+        // Count is committed after the record, so a half written record is never read
+        buffer.putInt(COUNT_OFFSET, count);
+        return true;
+    }
+
+    /**
+     * Writes the footer, no more fixes can be appended afterwards
+     */
+    void seal() {
+        seal(buffer, capacity, count);
+    }
+
+    /**
+     * Seals a segment which is left unsealed, such as by a crashed process, with the records committed in its
+     * header. Returns true if it needed to be sealed.
+     */
+    static boolean recover(@NonNull ByteBuffer buffer) {
+        int capacity = capacityOf(buffer);
+        if (capacity < 0 || isSealed(buffer, capacity)) return false;
+
+        seal(buffer, capacity, committedCount(buffer, capacity));
+        return true;
+    }
+
+    /**
+     * Returns the fixes of given segment, or null if it does not hold a segment. Provider, bearing and elapsed
+     * realtime are not recorded, so they are unknown in the returned fixes.
+     */
+    @Nullable
+    static TrajectoryReader.Segment read(@NonNull ByteBuffer buffer) {
+        int capacity = capacityOf(buffer);
+        if (capacity < 0) return null;
+
+        boolean isSealed = isSealed(buffer, capacity);
+        int count = isSealed ? buffer.getInt(footerOffset(capacity) + 4) : committedCount(buffer, capacity);
+
+        List<CompactFix> fixes = new ArrayList<>(count);
+        long time = buffer.getLong(BASE_TIME_OFFSET);
+        int latitude = buffer.getInt(BASE_LATITUDE_OFFSET);
+        int longitude = buffer.getInt(BASE_LONGITUDE_OFFSET);
+
+        for (int i = 0; i < count; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            time += buffer.getInt(offset);
+            latitude += buffer.getInt(offset + 4);
+            longitude += buffer.getInt(offset + 8);
+            fixes.add(new CompactFix(latitude, longitude, dequantize(buffer.getShort(offset + 12), ACCURACY_SCALE),
+                  0, time, dequantize(buffer.getShort(offset + 14), SPEED_SCALE), Float.NaN,
+                  CompactFix.PROVIDER_UNKNOWN));
+        }
+        return new TrajectoryReader.Segment(fixes, isSealed);
+    }
+
+    private static void seal(ByteBuffer buffer, int capacity, int count) {
+        int footerOffset = footerOffset(capacity);
+        buffer.putInt(footerOffset, FOOTER_MAGIC);
+        buffer.putInt(footerOffset + 4, count);
+        buffer.putLong(footerOffset + 8, checksum(buffer, count));
+    }
+
+    private static boolean isSealed(ByteBuffer buffer, int capacity) {
+        int footerOffset = footerOffset(capacity);
+        if (buffer.getInt(footerOffset) != FOOTER_MAGIC) return false;
+
+        int count = buffer.getInt(footerOffset + 4);
+        return count >= 0 && count <= capacity && buffer.getLong(footerOffset + 8) == checksum(buffer, count);
+    }
+
+    /**
+     * Returns the capacity of given segment, or -1 if it does not hold a segment of this version
+     */
+    private static int capacityOf(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE + FOOTER_SIZE) return -1;
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD_SIZE) {
+            return -1;
+        }
+
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        if (capacity <= 0 || capacity > MAX_CAPACITY || buffer.capacity() < fileSize(capacity)) return -1;
+        return capacity;
+    }
+
+    private static int committedCount(ByteBuffer buffer, int capacity) {
+        return Math.max(0, Math.min(capacity, buffer.getInt(COUNT_OFFSET)));
+    }
+
+    private static int footerOffset(int capacity) {
+        return HEADER_SIZE + capacity * RECORD_SIZE;
+    }
+
+    private static long checksum(ByteBuffer buffer, int count) {
+        byte[] bytes = new byte[HEADER_SIZE + count * RECORD_SIZE];
+        ByteBuffer source = buffer.duplicate();
+        source.position(0);
+        source.get(bytes);
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    private static int quantize(float value, float scale) {
+        if (Float.isNaN(value) || value < 0) return UNKNOWN;
+        return (int) Math.min(MAX_QUANTIZED, Math.round(value * scale));
+    }
+
+    private static float dequantize(short value, float scale) {
+        int unsigned = value & 0xFFFF;
+        return unsigned == UNKNOWN ? Float.NaN : unsigned / scale;
+    }
+
+    private static boolean fitsInt(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,258 @@
+package com.megaache.xmslocationmanager.helper.subscription;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.XMSLocationRequest;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+import org.xms.g.location.FusedLocationProviderClient;
+import org.xms.g.location.LocationCallback;
+import org.xms.g.location.LocationResult;
+import org.xms.g.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide hub that multiplexes every {@linkplain LocationCallback} registered through it onto a single
+ * {@linkplain FusedLocationProviderClient} subscription. Active requests are merged into one effective request
+ * (smallest intervals, highest priority) and every result is fanned out to all registered callbacks,
+ * respecting each callback's own fastest interval. The subscription is removed as soon as the last callback leaves.
+ *
+ * The subscription is delivered on the looper of one of the callbacks, results of callbacks registered with
+ * another looper are posted to their own looper.
+ */
+public class FusedSubscriptionHub {
+
+    private static final String TAG = "FusedSubscriptionHub";
+
+    private static FusedSubscriptionHub instance;
+
+    private final List<Client> clients = new ArrayList<>();
+    private final LocationCallback hubCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@Nullable LocationResult locationResult) {
+            dispatch(locationResult);
+        }
+    };
+
+    private FusedLocationProviderClient fusedLocationProviderClient;
+    private XMSLocationRequest activeRequest;
+    // Client whose looper the subscription is delivered on
+    private Client looperClient;
+    // Written under the lock, read on the looper of the subscription
+    private volatile Client[] snapshot = new Client[0];
+
+    public static synchronized FusedSubscriptionHub getInstance() {
+        if (instance == null) {
+            instance = new FusedSubscriptionHub();
+        }
+        return instance;
+    }
+
+    FusedSubscriptionHub() {
+        // Use getInstance
+    }
+
+    /**
+     * Adds given callback to the shared subscription, or updates its request if it is already registered.
+     * Fastest interval of the callback is measured by given clock.
+     */
+    @SuppressWarnings("ResourceType")
+    public synchronized void requestLocationUpdates(@NonNull Context context, @NonNull XMSLocationRequest request,
+          @NonNull LocationCallback callback, @Nullable Looper looper, @NonNull Clock clock) {
+        Client client = find(callback);
+        if (client != null && client.looper != looper) {
+            // Results of the callback are to be delivered on its new looper
+            removeClient(client);
+            client = null;
+        }
+
+        if (client == null) {
+            clients.add(new Client(callback, request, looper, createHandler(looper), clock));
+            LogUtils.logI(TAG, "Callback joined shared XMS subscription, active clients: {}", clients.size());
+        } else {
+            client.request = request;
+            client.clock = clock;
+        }
+
+        if (fusedLocationProviderClient == null) {
+            fusedLocationProviderClient = createClient(context.getApplicationContext());
+        }
+
+        onClientsChanged();
+    }
+
+    /**
+     * Removes given callback from the shared subscription,
+     * the subscription itself is removed once there is no callback left.
+     */
+    public synchronized void removeLocationUpdates(@NonNull LocationCallback callback) {
+        Client client = find(callback);
+        if (client == null) return;
+
+        removeClient(client);
+        LogUtils.logI(TAG, "Callback left shared XMS subscription, active clients: {}", clients.size());
+        onClientsChanged();
+    }
+
+    public synchronized int clientCount() {
+        return clients.size();
+    }
+
+    @Nullable
+    public synchronized XMSLocationRequest activeRequest() {
+        return activeRequest;
+    }
+
+    FusedLocationProviderClient createClient(Context applicationContext) {
+        return LocationServices.getFusedLocationProviderClient(applicationContext);
+    }
+
+    Handler createHandler(@Nullable Looper looper) {
+        return new Handler(looper != null ? looper : Looper.getMainLooper());
+    }
+
+    boolean isCurrentThread(Handler handler) {
+        return handler.getLooper() == Looper.myLooper();
+    }
+
+    void post(Handler handler, Runnable runnable) {
+        handler.post(runnable);
+    }
+
+    private void removeClient(Client client) {
+        clients.remove(client);
+        // Results already posted to its looper are not delivered anymore
+        client.isActive = false;
+    }
+
+    @SuppressWarnings("ResourceType")
+    private void onClientsChanged() {
+        snapshot = clients.toArray(new Client[0]);
+
+        if (clients.isEmpty()) {
+            if (activeRequest != null) {
+                LogUtils.logI(TAG, "No client left, removing shared XMS subscription.");
+                fusedLocationProviderClient.removeLocationUpdates(hubCallback);
+            }
+            activeRequest = null;
+            looperClient = null;
+            return;
+        }
+
+        // The looper of a client which left may be quit already
+        boolean isLooperChanged = looperClient == null || !looperClient.isActive;
+        if (isLooperChanged) {
+            looperClient = clients.get(0);
+        }
+
+        XMSLocationRequest merged = merge(clients);
+        if (activeRequest == null || isLooperChanged || !isSameRequest(activeRequest, merged)) {
+            // Requesting again with the same callback replaces the previous request without any gap
+            LogUtils.logI(TAG, "Updating shared XMS subscription: {}", merged);
+            fusedLocationProviderClient.requestLocationUpdates(merged.getRequest(), hubCallback,
+                  looperClient.handler.getLooper());
+            activeRequest = merged;
+        }
+    }
+
+    private void dispatch(@Nullable final LocationResult locationResult) {
+        Client[] clients = snapshot;
+
+        for (final Client client : clients) {
+            long now = client.elapsedRealtime();
+            if (!client.shouldReceive(now)) continue;
+
+            client.lastDelivery = now;
+            if (isCurrentThread(client.handler)) {
+                // Client may be removed by an earlier callback after the snapshot is taken
+                if (client.isActive) client.callback.onLocationResult(locationResult);
+                continue;
+            }
+
+            post(client.handler, new Runnable() {
+                @Override
+                public void run() {
+                    if (client.isActive) client.callback.onLocationResult(locationResult);
+                }
+            });
+        }
+    }
+
+    @Nullable
+    private Client find(LocationCallback callback) {
+        for (Client client : clients) {
+            if (client.callback == callback) return client;
+        }
+        return null;
+    }
+
+    static XMSLocationRequest merge(List<Client> clients) {
+        long interval = Long.MAX_VALUE;
+        long fastestInterval = Long.MAX_VALUE;
+        long maxWaitTime = Long.MAX_VALUE;
+        float smallestDisplacement = Float.MAX_VALUE;
+        int priority = XMSLocationRequest.PRIORITY_NO_POWER;
+
+        for (Client client : clients) {
+            XMSLocationRequest request = client.request;
+            interval = Math.min(interval, request.getInterval());
+            fastestInterval = Math.min(fastestInterval, request.getFastestInterval());
+            maxWaitTime = Math.min(maxWaitTime, request.getMaxWaitTime());
+            smallestDisplacement = Math.min(smallestDisplacement, request.getSmallestDisplacement());
+            // Lower value means higher priority, see XMSLocationRequest#PRIORITY_HIGH_ACCURACY
+            priority = Math.min(priority, request.getPriority());
+        }
+
+        return XMSLocationRequest.create()
+              .setPriority(priority)
+              .setInterval(interval)
+              .setFastestInterval(fastestInterval)
+              .setMaxWaitTime(maxWaitTime)
+              .setSmallestDisplacement(smallestDisplacement);
+    }
+
+    private static boolean isSameRequest(XMSLocationRequest first, XMSLocationRequest second) {
+        return first.getPriority() == second.getPriority()
+              && first.getInterval() == second.getInterval()
+              && first.getFastestInterval() == second.getFastestInterval()
+              && first.getMaxWaitTime() == second.getMaxWaitTime()
+              && first.getSmallestDisplacement() == second.getSmallestDisplacement();
+    }
+
+    static final class Client {
+
+        final LocationCallback callback;
+        @Nullable
+        final Looper looper;
+        final Handler handler;
+        XMSLocationRequest request;
+        Clock clock;
+        long lastDelivery = Long.MIN_VALUE;
+        volatile boolean isActive = true;
+
+        Client(LocationCallback callback, XMSLocationRequest request, @Nullable Looper looper, Handler handler,
+              Clock clock) {
+            this.callback = callback;
+            this.request = request;
+            this.looper = looper;
+            this.handler = handler;
+            this.clock = clock;
+        }
+
+        long elapsedRealtime() {
+            return clock.elapsedRealtimeNanos() / 1000000;
+        }
+
+        boolean shouldReceive(long now) {
+            return lastDelivery == Long.MIN_VALUE || now - lastDelivery >= request.getFastestInterval();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.megaache.xmslocationmanager.helper.subscription;
+
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide hub that multiplexes every {@linkplain LocationListener} registered through it onto a single
+ * {@linkplain LocationManager} subscription per provider. Active requests for the same provider are merged
+ * into one effective request (smallest time and distance intervals) and every location is fanned out to
+ * all registered listeners, respecting each listener's own intervals.
+ * The subscription of a provider is removed as soon as its last listener leaves.
+ *
+ * The subscription is delivered on the looper of one of the listeners, callbacks of listeners registered with
+ * another looper are posted to their own looper.
+ */
+public class PlatformSubscriptionHub {
+
+    private static final String TAG = "PlatformSubscriptionHub";
+
+    private static PlatformSubscriptionHub instance;
+
+    private final Map<String, ProviderSubscription> subscriptions = new HashMap<>();
+
+    public static synchronized PlatformSubscriptionHub getInstance() {
+        if (instance == null) {
+            instance = new PlatformSubscriptionHub();
+        }
+        return instance;
+    }
+
+    PlatformSubscriptionHub() {
+        // Use getInstance
+    }
+
+    /**
+     * Adds given listener to the shared subscription of the provider,
+     * or updates its request if it is already registered. Minimum time of the listener is measured by given clock.
+     */
+    public synchronized void requestLocationUpdates(@NonNull LocationManager locationManager, @NonNull String provider,
+          long minTime, float minDistance, @NonNull LocationListener listener, @Nullable Looper looper,
+          @NonNull Clock clock) {
+        ProviderSubscription subscription = subscriptions.get(provider);
+        if (subscription == null) {
+            subscription = new ProviderSubscription(locationManager, provider);
+            subscriptions.put(provider, subscription);
+        }
+
+        subscription.add(listener, minTime, minDistance, looper, clock);
+    }
+
+    /**
+     * Removes given listener from all shared subscriptions it belongs to
+     */
+    public synchronized void removeUpdates(@NonNull LocationListener listener) {
+        List<String> emptyProviders = null;
+
+        for (ProviderSubscription subscription : subscriptions.values()) {
+            if (subscription.remove(listener) && subscription.isEmpty()) {
+                if (emptyProviders == null) emptyProviders = new ArrayList<>();
+                emptyProviders.add(subscription.provider);
+            }
+        }
+
+        if (emptyProviders != null) {
+            for (String provider : emptyProviders) {
+                subscriptions.remove(provider);
+            }
+        }
+    }
+
+    public synchronized int clientCount(@NonNull String provider) {
+        ProviderSubscription subscription = subscriptions.get(provider);
+        return subscription == null ? 0 : subscription.clients.size();
+    }
+
+    Handler createHandler(@Nullable Looper looper) {
+        return new Handler(looper != null ? looper : Looper.getMainLooper());
+    }
+
+    boolean isCurrentThread(Handler handler) {
+        return handler.getLooper() == Looper.myLooper();
+    }
+
+    void post(Handler handler, Runnable runnable) {
+        handler.post(runnable);
+    }
+
+    private final class ProviderSubscription implements LocationListener {
+
+        private final LocationManager locationManager;
+        private final String provider;
+        private final List<Client> clients = new ArrayList<>();
+
+        // Written under the lock of the hub, read on the looper of the subscription
+        private volatile Client[] snapshot = new Client[0];
+        private long activeMinTime = -1;
+        private float activeMinDistance = -1;
+        // Client whose looper the subscription is delivered on
+        private Client looperClient;
+
+        ProviderSubscription(LocationManager locationManager, String provider) {
+            this.locationManager = locationManager;
+            this.provider = provider;
+        }
+
+        boolean isEmpty() {
+            return clients.isEmpty();
+        }
+
+        void add(LocationListener listener, long minTime, float minDistance, @Nullable Looper looper, Clock clock) {
+            Client client = find(listener);
+            if (client != null && client.looper != looper) {
+                // Callbacks of the listener are to be delivered on its new looper
+                removeClient(client);
+                client = null;
+            }
+
+            if (client == null) {
+                clients.add(new Client(listener, minTime, minDistance, looper, createHandler(looper), clock));
+                LogUtils.logI(TAG, "Listener joined shared {} subscription, active clients: {}", provider,
+                      clients.size());
+            } else {
+                client.minTime = minTime;
+                client.minDistance = minDistance;
+                client.clock = clock;
+            }
+            onClientsChanged();
+        }
+
+        boolean remove(LocationListener listener) {
+            Client client = find(listener);
+            if (client == null) return false;
+
+            removeClient(client);
+            LogUtils.logI(TAG, "Listener left shared {} subscription, active clients: {}", provider, clients.size());
+            onClientsChanged();
+            return true;
+        }
+
+        private void removeClient(Client client) {
+            clients.remove(client);
+            // Callbacks already posted to its looper are not delivered anymore
+            client.isActive = false;
+        }
+
+        @SuppressWarnings("ResourceType")
+        private void onClientsChanged() {
+            snapshot = clients.toArray(new Client[0]);
+
+            if (clients.isEmpty()) {
+                LogUtils.logI(TAG, "No client left, removing shared {} subscription.", provider);
+                locationManager.removeUpdates(this);
+                activeMinTime = -1;
+                activeMinDistance = -1;
+                looperClient = null;
+                return;
+            }
+
+            // The looper of a client which left may be quit already
+            boolean isLooperChanged = looperClient == null || !looperClient.isActive;
+            if (isLooperChanged) {
+                looperClient = clients.get(0);
+            }
+
+            long minTime = Long.MAX_VALUE;
+            float minDistance = Float.MAX_VALUE;
+            for (Client client : clients) {
+                minTime = Math.min(minTime, client.minTime);
+                minDistance = Math.min(minDistance, client.minDistance);
+            }
+
+            if (isLooperChanged || minTime != activeMinTime || minDistance != activeMinDistance) {
+                // Requesting again with the same listener replaces the previous request without any gap
+                LogUtils.logI(TAG, "Updating shared {} subscription, minTime: {} minDistance: {}", provider, minTime,
+                      minDistance);
+                locationManager.requestLocationUpdates(provider, minTime, minDistance, this,
+                      looperClient.handler.getLooper());
+                activeMinTime = minTime;
+                activeMinDistance = minDistance;
+            }
+        }
+
+        @Nullable
+        private Client find(LocationListener listener) {
+            for (Client client : clients) {
+                if (client.listener == listener) return client;
+            }
+            return null;
+        }
+
+        @Override
+        public void onLocationChanged(final Location location) {
+            for (final Client client : snapshot) {
+                long now = client.elapsedRealtime();
+                if (!client.shouldReceive(location, now)) continue;
+
+                client.lastDelivery = now;
+                client.lastLocation = location;
+                if (isCurrentThread(client.handler)) {
+                    // Client may be removed by an earlier callback after the snapshot is taken
+                    if (client.isActive) client.listener.onLocationChanged(location);
+                    continue;
+                }
+
+                post(client.handler, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (client.isActive) client.listener.onLocationChanged(location);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onStatusChanged(final String provider, final int status, final Bundle extras) {
+            for (final Client client : snapshot) {
+                if (isCurrentThread(client.handler)) {
+                    if (client.isActive) client.listener.onStatusChanged(provider, status, extras);
+                    continue;
+                }
+
+                post(client.handler, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (client.isActive) client.listener.onStatusChanged(provider, status, extras);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onProviderEnabled(final String provider) {
+            for (final Client client : snapshot) {
+                if (isCurrentThread(client.handler)) {
+                    if (client.isActive) client.listener.onProviderEnabled(provider);
+                    continue;
+                }
+
+                post(client.handler, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (client.isActive) client.listener.onProviderEnabled(provider);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onProviderDisabled(final String provider) {
+            for (final Client client : snapshot) {
+                if (isCurrentThread(client.handler)) {
+                    if (client.isActive) client.listener.onProviderDisabled(provider);
+                    continue;
+                }
+
+                post(client.handler, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (client.isActive) client.listener.onProviderDisabled(provider);
+                    }
+                });
+            }
+        }
+    }
+
+    private static final class Client {
+
+        final LocationListener listener;
+        @Nullable
+        final Looper looper;
+        final Handler handler;
+        long minTime;
+        float minDistance;
+        Clock clock;
+        long lastDelivery = Long.MIN_VALUE;
+        Location lastLocation;
+        volatile boolean isActive = true;
+
+        Client(LocationListener listener, long minTime, float minDistance, @Nullable Looper looper, Handler handler,
+              Clock clock) {
+            this.listener = listener;
+            this.minTime = minTime;
+            this.minDistance = minDistance;
+            this.looper = looper;
+            this.handler = handler;
+            this.clock = clock;
+        }
+
+        long elapsedRealtime() {
+            return clock.elapsedRealtimeNanos() / 1000000;
+        }
+
+        boolean shouldReceive(Location location, long now) {
+            if (lastLocation == null) return true;
+            if (now - lastDelivery < minTime) return false;
+            return minDistance <= 0 || LocationUtils.distance(lastLocation.getLatitude(), lastLocation.getLongitude(),
+                  location.getLatitude(), location.getLongitude()) >= minDistance;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.megaache.xmslocationmanager.helper.subscription;
+
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Looper;
+
+import com.megaache.xmslocationmanager.helper.UpdateRequest;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+/**
+ * {@linkplain UpdateRequest} that registers through {@linkplain PlatformSubscriptionHub}
+ * instead of talking to {@linkplain LocationManager} directly.
+ */
+public class SharedUpdateRequest extends UpdateRequest {
+
+    private final LocationManager locationManager;
+    private final LocationListener locationListener;
+    private final Clock clock;
+
+    public SharedUpdateRequest(LocationManager locationManager, LocationListener locationListener, Looper looper,
+          Clock clock) {
+        super(locationManager, locationListener, looper);
+        this.locationManager = locationManager;
+        this.locationListener = locationListener;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void requestLocationUpdates(String provider, long minTime, float minDistance) {
+        PlatformSubscriptionHub.getInstance().requestLocationUpdates(locationManager, provider, minTime, minDistance,
+              locationListener, getLooper() != null ? getLooper() : Looper.myLooper(), clock);
+    }
+
+    @Override
+    public void release() {
+        PlatformSubscriptionHub.getInstance().removeUpdates(locationListener);
+    }
+}
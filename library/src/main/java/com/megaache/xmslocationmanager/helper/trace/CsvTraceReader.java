@@ -0,0 +1,124 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.helper.LogUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Reads a comma separated trace line by line. The first row names the columns, in any order and case:
+ * time, latitude (or lat), longitude (or lon, lng) are required, altitude (or alt, elevation), accuracy,
+ * speed and bearing are optional. Time is either milliseconds since the epoch or an ISO 8601 time, empty
+ * optional values are unknown. Blank lines and lines starting with # are skipped, quoted values are not supported.
+ */
+final class CsvTraceReader implements TraceReader {
+
+    private static final String TAG = "CsvTraceReader";
+    private static final int NONE = -1;
+
+    private final BufferedReader reader;
+
+    private boolean isHeaderRead = false;
+    private int timeColumn = NONE;
+    private int latitudeColumn = NONE;
+    private int longitudeColumn = NONE;
+    private int altitudeColumn = NONE;
+    private int accuracyColumn = NONE;
+    private int speedColumn = NONE;
+    private int bearingColumn = NONE;
+
+    CsvTraceReader(@NonNull BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean next(@NonNull TraceFix fix) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            String[] values = trimmed.split(",", -1);
+            if (!isHeaderRead) {
+                readHeader(values);
+                continue;
+            }
+
+            try {
+                if (parse(values, fix)) return true;
+            } catch (NumberFormatException e) {
+                LogUtils.logW(TAG, "Skipping row which cannot be parsed: {}", line);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader(String[] names) throws IOException {
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim().toLowerCase(Locale.US);
+            if (name.equals("time")) {
+                timeColumn = i;
+            } else if (name.equals("latitude") || name.equals("lat")) {
+                latitudeColumn = i;
+            } else if (name.equals("longitude") || name.equals("lon") || name.equals("lng")) {
+                longitudeColumn = i;
+            } else if (name.equals("altitude") || name.equals("alt") || name.equals("elevation")) {
+                altitudeColumn = i;
+            } else if (name.equals("accuracy")) {
+                accuracyColumn = i;
+            } else if (name.equals("speed")) {
+                speedColumn = i;
+            } else if (name.equals("bearing")) {
+                bearingColumn = i;
+            }
+        }
+
+        if (timeColumn == NONE || latitudeColumn == NONE || longitudeColumn == NONE) {
+            throw new IOException("CSV header must name time, latitude and longitude columns.");
+        }
+        isHeaderRead = true;
+    }
+
+    private boolean parse(String[] values, TraceFix fix) {
+        String time = valueAt(values, timeColumn);
+        String latitude = valueAt(values, latitudeColumn);
+        String longitude = valueAt(values, longitudeColumn);
+        if (time.isEmpty() || latitude.isEmpty() || longitude.isEmpty()) return false;
+
+        fix.clear();
+        fix.setTime(isNumber(time) ? Long.parseLong(time) : TraceReaders.parseTime(time));
+        fix.setPosition(Double.parseDouble(latitude), Double.parseDouble(longitude));
+        fix.setAltitude(optionalValueAt(values, altitudeColumn));
+        fix.setAccuracy(optionalValueAt(values, accuracyColumn));
+        fix.setSpeed(optionalValueAt(values, speedColumn));
+        fix.setBearing(optionalValueAt(values, bearingColumn));
+        return true;
+    }
+
+    private static String valueAt(String[] values, int column) {
+        return column < values.length ? values[column].trim() : "";
+    }
+
+    private static double optionalValueAt(String[] values, int column) {
+        if (column == NONE) return Double.NaN;
+
+        String value = valueAt(values, column);
+        return value.isEmpty() ? Double.NaN : Double.parseDouble(value);
+    }
+
+    private static boolean isNumber(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (!Character.isDigit(character) && !(i == 0 && character == '-')) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,198 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.helper.LogUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads the track and route points of a GPX file tag by tag, without building a document. Position comes from
+ * the lat and lon attributes, and time, ele, hdop as well as the speed and course of the common track point
+ * extensions are read from the children of a point, namespace prefixes are ignored. Waypoints are not read.
+ */
+final class GpxTraceReader implements TraceReader {
+
+    private static final String TAG = "GpxTraceReader";
+
+    private final BufferedReader reader;
+    private final StringBuilder tag = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+
+    private final TraceFix pending = new TraceFix();
+    private boolean isInPoint = false;
+    private boolean isPointValid = false;
+    private boolean hasTime = false;
+    @Nullable
+    private String currentElement;
+
+    GpxTraceReader(@NonNull BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean next(@NonNull TraceFix fix) throws IOException {
+        int character;
+        while ((character = reader.read()) != -1) {
+            if (character != '<') {
+                if (currentElement != null) text.append((char) character);
+                continue;
+            }
+
+            if (!readTag()) continue;
+            if (onTag() && isPointValid && hasTime) {
+                fix.copyFrom(pending);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the tag after a '<' into {@linkplain #tag}, skips comments and declarations
+     *
+     * @return false if it was skipped
+     */
+    private boolean readTag() throws IOException {
+        tag.setLength(0);
+        int character;
+        while ((character = reader.read()) != -1 && character != '>') {
+            tag.append((char) character);
+            if (tag.length() == 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-') {
+                skipComment();
+                return false;
+            }
+        }
+        return tag.length() > 0 && tag.charAt(0) != '?' && tag.charAt(0) != '!';
+    }
+
+    private void skipComment() throws IOException {
+        int dashes = 0;
+        int character;
+        while ((character = reader.read()) != -1) {
+            if (character == '>' && dashes >= 2) return;
+            dashes = character == '-' ? dashes + 1 : 0;
+        }
+    }
+
+    /**
+     * Handles the tag in {@linkplain #tag}
+     *
+     * @return true if a point has ended
+     */
+    private boolean onTag() {
+        boolean isClosing = tag.charAt(0) == '/';
+        boolean isSelfClosing = tag.charAt(tag.length() - 1) == '/';
+        String name = nameOf(isClosing ? 1 : 0);
+
+        if (name.equals("trkpt") || name.equals("rtept")) {
+            if (!isClosing) startPoint();
+            if (isClosing || isSelfClosing) {
+                boolean wasInPoint = isInPoint;
+                isInPoint = false;
+                currentElement = null;
+                return wasInPoint;
+            }
+            return false;
+        }
+
+        if (!isInPoint) return false;
+
+        if (!isClosing && !isSelfClosing) {
+            currentElement = name;
+            text.setLength(0);
+        } else if (isClosing && name.equals(currentElement)) {
+            readValue(name, text.toString().trim());
+            currentElement = null;
+        }
+        return false;
+    }
+
+    private void startPoint() {
+        pending.clear();
+        isInPoint = true;
+        hasTime = false;
+        currentElement = null;
+
+        String latitude = attribute("lat");
+        String longitude = attribute("lon");
+        try {
+            isPointValid = latitude != null && longitude != null;
+            if (isPointValid) pending.setPosition(Double.parseDouble(latitude), Double.parseDouble(longitude));
+        } catch (NumberFormatException e) {
+            isPointValid = false;
+            LogUtils.logW(TAG, "Skipping point which cannot be parsed: {}", tag);
+        }
+    }
+
+    private void readValue(String name, String value) {
+        if (value.isEmpty()) return;
+
+        try {
+            if (name.equals("time")) {
+                pending.setTime(TraceReaders.parseTime(value));
+                hasTime = true;
+            } else if (name.equals("ele")) {
+                pending.setAltitude(Double.parseDouble(value));
+            } else if (name.equals("hdop")) {
+                pending.setAccuracy(Double.parseDouble(value) * TraceReaders.ACCURACY_PER_HDOP);
+            } else if (name.equals("speed")) {
+                pending.setSpeed(Double.parseDouble(value));
+            } else if (name.equals("course")) {
+                pending.setBearing(Double.parseDouble(value));
+            }
+        } catch (NumberFormatException e) {
+            LogUtils.logW(TAG, "Ignoring {} which cannot be parsed: {}", name, value);
+        }
+    }
+
+    /**
+     * Name of the tag starting at given position, without its namespace prefix
+     */
+    private String nameOf(int start) {
+        int end = start;
+        int prefixEnd = start;
+        while (end < tag.length()) {
+            char character = tag.charAt(end);
+            if (Character.isWhitespace(character) || character == '/') break;
+            if (character == ':') prefixEnd = end + 1;
+            end++;
+        }
+        return tag.substring(prefixEnd, end);
+    }
+
+    /**
+     * Value of the attribute of given name in {@linkplain #tag}, null if it is not there
+     */
+    @Nullable
+    private String attribute(String name) {
+        int from = 0;
+        int index;
+        while ((index = tag.indexOf(name, from)) >= 0) {
+            from = index + name.length();
+            if (index == 0 || !Character.isWhitespace(tag.charAt(index - 1))) continue;
+
+            int position = from;
+            while (position < tag.length() && Character.isWhitespace(tag.charAt(position))) position++;
+            if (position >= tag.length() || tag.charAt(position) != '=') continue;
+
+            position++;
+            while (position < tag.length() && Character.isWhitespace(tag.charAt(position))) position++;
+            if (position >= tag.length()) return null;
+
+            char quote = tag.charAt(position);
+            if (quote != '"' && quote != '\'') return null;
+
+            int end = tag.indexOf(String.valueOf(quote), position + 1);
+            return end < 0 ? null : tag.substring(position + 1, end);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,169 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.helper.LogUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads the RMC and GGA sentences of an NMEA 0183 log line by line, of any talker such as GP, GN or GL.
+ * Sentences of the same time of day are merged into one fix: RMC gives the date, speed and bearing,
+ * GGA gives the altitude and an accuracy estimated from HDOP. Sentences with a wrong checksum,
+ * void RMC and GGA without a fix are skipped, as well as any other sentence.
+ *
+ * Logs without RMC have no date, their fixes start on 1970-01-01 and move to the next day
+ * whenever the time of day goes backwards.
+ */
+final class NmeaTraceReader implements TraceReader {
+
+    private static final String TAG = "NmeaTraceReader";
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final double METERS_PER_SECOND_PER_KNOT = 1852.0 / 3600;
+
+    private final BufferedReader reader;
+
+    // Fix of the time of day being read, it is complete once a sentence of another time arrives
+    private final TraceFix pending = new TraceFix();
+    private boolean hasPending = false;
+    private long pendingTimeOfDay;
+
+    private boolean hasDate = false;
+    private long dayMillis = 0;
+    private long lastTimeOfDay = -1;
+
+    NmeaTraceReader(@NonNull BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean next(@NonNull TraceFix fix) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String sentence = line.trim();
+            if (!isValid(sentence)) continue;
+
+            int end = sentence.indexOf('*');
+            String[] fields = sentence.substring(0, end < 0 ? sentence.length() : end).split(",", -1);
+            String type = fields[0].substring(3);
+            if (!type.equals("RMC") && !type.equals("GGA")) continue;
+
+            boolean isComplete = false;
+            try {
+                long timeOfDay = timeOfDay(fields[1]);
+
+                isComplete = hasPending && timeOfDay != pendingTimeOfDay;
+                if (isComplete) {
+                    fix.copyFrom(pending);
+                    hasPending = false;
+                }
+
+                if (type.equals("RMC")) {
+                    readRmc(fields, timeOfDay);
+                } else {
+                    readGga(fields, timeOfDay);
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                LogUtils.logW(TAG, "Skipping sentence which cannot be parsed: {}", line);
+            }
+            if (isComplete) return true;
+        }
+
+        if (!hasPending) return false;
+
+        fix.copyFrom(pending);
+        hasPending = false;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * $GPRMC,hhmmss.ss,A,llll.ll,a,yyyyy.yy,a,knots,course,ddmmyy,...
+     */
+    private void readRmc(String[] fields, long timeOfDay) {
+        if (!"A".equals(fields[2])) return;
+
+        String date = fields[9];
+        long year = TraceReaders.digits(date, 4, 6);
+        dayMillis = TraceReaders.daysFromCivil(year < 80 ? 2000 + year : 1900 + year,
+              TraceReaders.digits(date, 2, 4), TraceReaders.digits(date, 0, 2)) * DAY_MILLIS;
+        hasDate = true;
+
+        startOrContinue(timeOfDay, coordinate(fields[3], fields[4], 2), coordinate(fields[5], fields[6], 3));
+        if (!fields[7].isEmpty()) pending.setSpeed(Double.parseDouble(fields[7]) * METERS_PER_SECOND_PER_KNOT);
+        if (!fields[8].isEmpty()) pending.setBearing(Double.parseDouble(fields[8]));
+    }
+
+    /**
+     * $GPGGA,hhmmss.ss,llll.ll,a,yyyyy.yy,a,quality,satellites,hdop,altitude,M,...
+     */
+    private void readGga(String[] fields, long timeOfDay) {
+        if (fields[6].isEmpty() || "0".equals(fields[6])) return;
+
+        startOrContinue(timeOfDay, coordinate(fields[2], fields[3], 2), coordinate(fields[4], fields[5], 3));
+        if (!fields[8].isEmpty()) pending.setAccuracy(Double.parseDouble(fields[8]) * TraceReaders.ACCURACY_PER_HDOP);
+        if (!fields[9].isEmpty()) pending.setAltitude(Double.parseDouble(fields[9]));
+    }
+
+    private void startOrContinue(long timeOfDay, double latitude, double longitude) {
+        if (!hasPending) {
+            if (!hasDate && lastTimeOfDay >= 0 && timeOfDay < lastTimeOfDay) dayMillis += DAY_MILLIS;
+            lastTimeOfDay = timeOfDay;
+
+            pending.clear();
+            hasPending = true;
+            pendingTimeOfDay = timeOfDay;
+        }
+        pending.setTime(dayMillis + timeOfDay);
+        pending.setPosition(latitude, longitude);
+    }
+
+    /**
+     * Milliseconds since midnight of hhmmss.ss
+     */
+    private static long timeOfDay(String time) {
+        if (time.length() < 6) throw new NumberFormatException("Not a time of day: " + time);
+
+        long millis = ((TraceReaders.digits(time, 0, 2) * 60L + TraceReaders.digits(time, 2, 4)) * 60
+              + TraceReaders.digits(time, 4, 6)) * 1000;
+        if (time.length() > 7 && time.charAt(6) == '.') {
+            millis += Math.round(Double.parseDouble(time.substring(6)) * 1000);
+        }
+        return millis;
+    }
+
+    /**
+     * Degrees of (d)ddmm.mmmm with given number of degree digits and a hemisphere of N, S, E or W
+     */
+    private static double coordinate(String value, String hemisphere, int degreeDigits) {
+        double degrees = TraceReaders.digits(value, 0, degreeDigits)
+              + Double.parseDouble(value.substring(degreeDigits)) / 60;
+        return "S".equals(hemisphere) || "W".equals(hemisphere) ? -degrees : degrees;
+    }
+
+    /**
+     * Returns true for a sentence starting with $ and a talker, whose checksum matches if it has one
+     */
+    private static boolean isValid(String sentence) {
+        if (sentence.length() < 7 || sentence.charAt(0) != '$') return false;
+
+        int end = sentence.indexOf('*');
+        if (end < 0) return true;
+        if (end + 3 > sentence.length()) return false;
+
+        int checksum = 0;
+        for (int i = 1; i < end; i++) {
+            checksum ^= sentence.charAt(i);
+        }
+        try {
+            return checksum == Integer.parseInt(sentence.substring(end + 1, end + 3), 16);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
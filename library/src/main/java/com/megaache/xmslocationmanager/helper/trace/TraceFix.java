@@ -0,0 +1,110 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+/**
+ * A fix read from a trace, filled by {@linkplain TraceReader#next(TraceFix)} so the same instance is reused for
+ * every fix of the trace. Unknown altitude, accuracy, speed and bearing are {@linkplain Double#NaN}.
+ */
+public final class TraceFix {
+
+    private long time;
+    private double latitude;
+    private double longitude;
+    private double altitude;
+    private double accuracy;
+    private double speed;
+    private double bearing;
+
+    public TraceFix() {
+        clear();
+    }
+
+    // region Getters
+    /**
+     * Wall clock time of the fix in milliseconds
+     */
+    public long time() {
+        return time;
+    }
+
+    public double latitude() {
+        return latitude;
+    }
+
+    public double longitude() {
+        return longitude;
+    }
+
+    /**
+     * In meters above the sea level
+     */
+    public double altitude() {
+        return altitude;
+    }
+
+    /**
+     * In meters
+     */
+    public double accuracy() {
+        return accuracy;
+    }
+
+    /**
+     * In meters per second
+     */
+    public double speed() {
+        return speed;
+    }
+
+    /**
+     * In degrees clockwise from the north
+     */
+    public double bearing() {
+        return bearing;
+    }
+    // endregion
+
+    void clear() {
+        time = 0;
+        latitude = 0;
+        longitude = 0;
+        altitude = Double.NaN;
+        accuracy = Double.NaN;
+        speed = Double.NaN;
+        bearing = Double.NaN;
+    }
+
+    void setTime(long time) {
+        this.time = time;
+    }
+
+    void setPosition(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    void setAltitude(double altitude) {
+        this.altitude = altitude;
+    }
+
+    void setAccuracy(double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
+    void setBearing(double bearing) {
+        this.bearing = bearing;
+    }
+
+    void copyFrom(TraceFix other) {
+        time = other.time;
+        latitude = other.latitude;
+        longitude = other.longitude;
+        altitude = other.altitude;
+        accuracy = other.accuracy;
+        speed = other.speed;
+        bearing = other.bearing;
+    }
+}
@@ -0,0 +1,20 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the fixes of a trace one by one, so only the current record is kept in memory however long the trace is.
+ * Records which cannot be parsed, and fixes without a time, are skipped. See {@linkplain TraceReaders}.
+ */
+public interface TraceReader extends Closeable {
+
+    /**
+     * Fills given fix with the next fix of the trace
+     *
+     * @return false if the trace has no more fixes
+     */
+    boolean next(@NonNull TraceFix fix) throws IOException;
+}
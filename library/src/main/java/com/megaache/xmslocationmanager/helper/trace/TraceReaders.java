@@ -0,0 +1,137 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.constants.TraceFormat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Locale;
+
+public final class TraceReaders {
+
+    /**
+     * Accuracy in meters for a horizontal dilution of precision of 1, used by the formats which only report HDOP
+     */
+    static final double ACCURACY_PER_HDOP = 5;
+
+    private TraceReaders() {
+        // No instance
+    }
+
+    /**
+     * Returns a streaming reader of given format, which closes given reader once it is closed
+     */
+    @NonNull
+    public static TraceReader create(@TraceFormat int format, @NonNull Reader reader) {
+        BufferedReader bufferedReader = reader instanceof BufferedReader
+              ? (BufferedReader) reader : new BufferedReader(reader);
+        switch (format) {
+            case TraceFormat.GPX:
+                return new GpxTraceReader(bufferedReader);
+            case TraceFormat.NMEA:
+                return new NmeaTraceReader(bufferedReader);
+            case TraceFormat.CSV:
+                return new CsvTraceReader(bufferedReader);
+            default:
+                throw new IllegalArgumentException("format must be one of TraceFormat values.");
+        }
+    }
+
+    /**
+     * Returns the format of given file name by its extension: gpx, nmea, nma, log or csv
+     */
+    @TraceFormat
+    public static int formatOf(@NonNull String fileName) {
+        String name = fileName.toLowerCase(Locale.US);
+        if (name.endsWith(".gpx")) return TraceFormat.GPX;
+        if (name.endsWith(".nmea") || name.endsWith(".nma") || name.endsWith(".log")) return TraceFormat.NMEA;
+        if (name.endsWith(".csv")) return TraceFormat.CSV;
+        throw new IllegalArgumentException("fileName must end with .gpx, .nmea, .nma, .log or .csv.");
+    }
+
+    /**
+     * Source which opens given file as UTF-8
+     */
+    @NonNull
+    public static TraceSource file(@NonNull final File file) {
+        return new TraceSource() {
+            @NonNull
+            @Override
+            public Reader open() throws IOException {
+                return new InputStreamReader(new FileInputStream(file), "UTF-8");
+            }
+        };
+    }
+
+    /**
+     * Parses an ISO 8601 date and time such as 2020-05-17T08:30:00.250Z into milliseconds since the epoch.
+     * Time without a zone is taken as UTC.
+     */
+    static long parseTime(@NonNull String value) {
+        String text = value.trim();
+        if (text.length() < 19 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(13) != ':'
+              || text.charAt(16) != ':' || (text.charAt(10) != 'T' && text.charAt(10) != ' ')) {
+            throw new NumberFormatException("Not an ISO 8601 time: " + value);
+        }
+
+        long days = daysFromCivil(digits(text, 0, 4), digits(text, 5, 7), digits(text, 8, 10));
+        long millis = ((days * 24 + digits(text, 11, 13)) * 60 + digits(text, 14, 16)) * 60000
+              + digits(text, 17, 19) * 1000L;
+
+        int position = 19;
+        if (position < text.length() && text.charAt(position) == '.') {
+            int start = ++position;
+            while (position < text.length() && Character.isDigit(text.charAt(position))) position++;
+            if (position == start) throw new NumberFormatException("Not an ISO 8601 time: " + value);
+
+            // Only milliseconds are kept
+            int end = Math.min(position, start + 3);
+            long fraction = digits(text, start, end);
+            for (int i = end - start; i < 3; i++) fraction *= 10;
+            millis += fraction;
+        }
+
+        if (position == text.length() || (text.charAt(position) == 'Z' && position == text.length() - 1)) {
+            return millis;
+        }
+
+        char sign = text.charAt(position);
+        if (sign != '+' && sign != '-') throw new NumberFormatException("Not an ISO 8601 time: " + value);
+        String offset = text.substring(position + 1).replace(":", "");
+        if (offset.length() != 4 && offset.length() != 2) {
+            throw new NumberFormatException("Not an ISO 8601 time: " + value);
+        }
+        long offsetMinutes = digits(offset, 0, 2) * 60 + (offset.length() == 4 ? digits(offset, 2, 4) : 0);
+        return sign == '+' ? millis - offsetMinutes * 60000 : millis + offsetMinutes * 60000;
+    }
+
+    /**
+     * Days since 1970-01-01 of given date of the proleptic Gregorian calendar
+     */
+    static long daysFromCivil(long year, long month, long day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses the decimal digits of given range, throws {@linkplain NumberFormatException} on any other character
+     */
+    static int digits(@NonNull CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("Not a digit in: " + text);
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Opens a trace from its beginning, every replay of the trace opens it again
+ */
+public interface TraceSource {
+
+    @NonNull
+    Reader open() throws IOException;
+}
@@ -0,0 +1,139 @@
+package com.megaache.xmslocationmanager.helper.tracking;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.AdaptiveTrackingConfiguration;
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+
+/**
+ * Decides the update interval of a tracking session from the recent speed of the user, within the bounds of
+ * {@linkplain AdaptiveTrackingConfiguration}. Speed is smoothed, and a new interval is only suggested when it
+ * differs enough from the current one, so a jittery speed doesn't make providers re-request all the time.
+ * Stationary state has a hysteresis for the same reason.
+ */
+public class AdaptiveIntervalController {
+
+    private static final String TAG = "AdaptiveIntervalController";
+
+    // Weight of the newest speed sample
+    static final double SMOOTHING = 0.5;
+    // Interval is changed only when the new one is at least this much longer or shorter
+    static final double CHANGE_RATIO = 1.5;
+    // User must move this many times faster than stationary speed to be considered as moving again
+    static final float MOVING_FACTOR = 2;
+
+    private final AdaptiveTrackingConfiguration configuration;
+
+    private long interval;
+    private boolean stationary = false;
+
+    private boolean hasSpeed = false;
+    private double speed;
+
+    private boolean hasLast = false;
+    private long lastTimeNanos;
+    private double lastLatitude;
+    private double lastLongitude;
+
+    public AdaptiveIntervalController(@NonNull AdaptiveTrackingConfiguration configuration, long initialInterval) {
+        this.configuration = configuration;
+        this.interval = initialInterval;
+    }
+
+    // region Getters
+    /**
+     * Interval in milliseconds that updates should currently be requested with
+     */
+    public long interval() {
+        return interval;
+    }
+
+    public boolean isStationary() {
+        return stationary;
+    }
+
+    /**
+     * Smoothed speed in meters per second, 0 until any speed is known
+     */
+    public double speed() {
+        return hasSpeed ? speed : 0;
+    }
+    // endregion
+
+    /**
+     * Takes the given location into account, and returns true if the active request needs to be replaced
+     * with the new {@linkplain #interval()} and {@linkplain #isStationary()} values.
+     */
+    public boolean onLocationChanged(@NonNull Location location) {
+        long timeNanos = LocationUtils.timeNanosOf(location);
+        double sample = speedOf(location, timeNanos);
+
+        if (timeNanos != LocationUtils.UNKNOWN_TIME && (!hasLast || timeNanos > lastTimeNanos)) {
+            hasLast = true;
+            lastTimeNanos = timeNanos;
+            lastLatitude = location.getLatitude();
+            lastLongitude = location.getLongitude();
+        }
+
+        if (sample < 0) return false;
+
+        speed = hasSpeed ? SMOOTHING * sample + (1 - SMOOTHING) * speed : sample;
+        hasSpeed = true;
+
+        boolean wasStationary = stationary;
+        if (stationary) {
+            stationary = speed < configuration.stationarySpeed() * MOVING_FACTOR;
+        } else {
+            stationary = speed < configuration.stationarySpeed();
+        }
+
+        long target = targetInterval();
+        if (wasStationary == stationary && !isSignificantChange(target)) return false;
+
+        if (LogUtils.isLoggable(LogUtils.INFO)) {
+            LogUtils.logI(TAG, "Speed is {} m/s, changing interval from {} ms to {} ms.", speed, interval, target);
+        }
+        interval = target;
+        return true;
+    }
+
+    /**
+     * Forgets the speed history, to be called when a new request is started with the given interval
+     */
+    public void reset(long interval) {
+        this.interval = interval;
+        stationary = false;
+        hasSpeed = false;
+        hasLast = false;
+    }
+
+    long targetInterval() {
+        if (stationary) return configuration.maxInterval();
+
+        long target = (long) (configuration.sampleDistance() / speed * 1000);
+        return Math.max(configuration.minInterval(), Math.min(configuration.maxInterval(), target));
+    }
+
+    private boolean isSignificantChange(long target) {
+        if (target == interval) return false;
+        // Bounds are always applied, otherwise they might never be reached from a close interval
+        if (target == configuration.minInterval() || target == configuration.maxInterval()) return true;
+        return target >= interval * CHANGE_RATIO || target * CHANGE_RATIO <= interval;
+    }
+
+    /**
+     * Speed reported by the location itself if any, otherwise calculated from the previous location.
+     * Returns -1 if it is not possible to tell.
+     */
+    private double speedOf(Location location, long timeNanos) {
+        if (location.hasSpeed()) return location.getSpeed();
+        if (!hasLast || timeNanos == LocationUtils.UNKNOWN_TIME || timeNanos <= lastTimeNanos) return -1;
+
+        double seconds = (timeNanos - lastTimeNanos) / 1e9;
+        return LocationUtils.distance(lastLatitude, lastLongitude, location.getLatitude(), location.getLongitude())
+              / seconds;
+    }
+}
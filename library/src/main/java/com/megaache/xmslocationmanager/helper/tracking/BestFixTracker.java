@@ -0,0 +1,123 @@
+package com.megaache.xmslocationmanager.helper.tracking;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+/**
+ * Keeps the best location received during a request, so it can still be delivered when none of them satisfies
+ * the acceptance criteria in time. Locations are ranked by a score between 0 and 1, which is the product of
+ * <ul>
+ * <li>accuracy factor, 1 within acceptable accuracy and inversely proportional to the accuracy beyond it</li>
+ * <li>age factor, 1 within acceptable time period and inversely proportional to the age beyond it</li>
+ * <li>weight of the source, see {@linkplain #weightOf(int, boolean)}</li>
+ * </ul>
+ * Since ages grow while waiting, the current best is scored again whenever a new location is offered.
+ */
+public class BestFixTracker {
+
+    static final float XMS_WEIGHT = 1f;
+    static final float GPS_WEIGHT = 1f;
+    static final float NETWORK_WEIGHT = 0.8f;
+    static final float UNKNOWN_WEIGHT = 0.6f;
+    // Last known locations are multiplied by this, since they may come from another app's request
+    static final float LAST_KNOWN_FACTOR = 0.9f;
+
+    private final long acceptableTimePeriod;
+    private final float acceptableAccuracy;
+    private final Clock clock;
+
+    private Location best;
+    private float bestWeight;
+
+    public BestFixTracker(long acceptableTimePeriod, float acceptableAccuracy, @NonNull Clock clock) {
+        this.acceptableTimePeriod = acceptableTimePeriod;
+        this.acceptableAccuracy = acceptableAccuracy;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes given location into account, and returns true if it is the best one so far
+     *
+     * @param providerType one of {@linkplain ProviderType#XMS}, {@linkplain ProviderType#GPS}
+     *                     or {@linkplain ProviderType#NETWORK}
+     * @param lastKnown    whether it is a last known location rather than an update
+     */
+    public boolean offer(@Nullable Location location, @ProviderType int providerType, boolean lastKnown) {
+        if (location == null) return false;
+
+        float weight = weightOf(providerType, lastKnown);
+        if (best != null && score(location, weight) <= score(best, bestWeight)) return false;
+
+        best = location;
+        bestWeight = weight;
+        return true;
+    }
+
+    // region Getters
+    @Nullable
+    public Location best() {
+        return best;
+    }
+
+    /**
+     * Current score of {@linkplain #best()}, or 0 if nothing is offered yet
+     */
+    public float bestScore() {
+        return best == null ? 0 : score(best, bestWeight);
+    }
+    // endregion
+
+    /**
+     * Forgets the best location, to be called when a new request starts
+     */
+    public void reset() {
+        best = null;
+        bestWeight = 0;
+    }
+
+    /**
+     * Score of given location from given source, at the current time of the clock
+     */
+    public float score(@NonNull Location location, @ProviderType int providerType, boolean lastKnown) {
+        return score(location, weightOf(providerType, lastKnown));
+    }
+
+    private float score(Location location, float weight) {
+        return factor(acceptableAccuracy, location.getAccuracy())
+              * factor(acceptableTimePeriod, LocationUtils.ageOf(location, clock))
+              * weight;
+    }
+
+    /**
+     * Fused and GPS locations are weighted fully, network locations less since their accuracy is only an estimate
+     */
+    static float weightOf(@ProviderType int providerType, boolean lastKnown) {
+        float weight;
+        switch (providerType) {
+            case ProviderType.XMS:
+                weight = XMS_WEIGHT;
+                break;
+            case ProviderType.GPS:
+                weight = GPS_WEIGHT;
+                break;
+            case ProviderType.NETWORK:
+                weight = NETWORK_WEIGHT;
+                break;
+            default:
+                weight = UNKNOWN_WEIGHT;
+        }
+        return lastKnown ? weight * LAST_KNOWN_FACTOR : weight;
+    }
+
+    private static float factor(double acceptable, double actual) {
+        if (actual <= acceptable) return 1;
+        // Zero acceptable values would make every location score 0, so they are ranked against 1 instead
+        return (float) Math.min(1, Math.max(acceptable, 1) / actual);
+    }
+}
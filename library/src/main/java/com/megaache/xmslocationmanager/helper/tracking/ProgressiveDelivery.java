@@ -0,0 +1,198 @@
+package com.megaache.xmslocationmanager.helper.tracking;
+
+import android.location.Location;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.ProgressiveLocationListener;
+import com.megaache.xmslocationmanager.providers.locationprovider.LocationProvider;
+
+import java.util.List;
+
+/**
+ * Implements {@linkplain XMSLocationConfiguration#isProgressive()} on top of providers which keep tracking:
+ * the first location is delivered right away, then only the ones more accurate than the last delivered one.
+ * As soon as a location reaches the target accuracy, or the deadline passes, the last delivery is marked as final
+ * and the provider is stopped.
+ */
+public class ProgressiveDelivery extends ForwardingLocationListener implements ContinuousTaskRunner {
+
+    private static final String TAG = "ProgressiveDelivery";
+
+    static final String DEADLINE_TASK = "progressiveDeadlineTask";
+    static final String STOP_TASK = "progressiveStopTask";
+
+    private final LocationProvider provider;
+    private final float targetAccuracy;
+    private final long deadline;
+    @Nullable private final Looper looper;
+    private final Clock clock;
+
+    private ContinuousTask deadlineTask;
+    private ContinuousTask stopTask;
+
+    private Location lastDelivered;
+    private boolean isRunning = false;
+    private boolean isFinished = false;
+
+    public ProgressiveDelivery(@NonNull LocationListener delegate, @NonNull LocationProvider provider,
+          float targetAccuracy, long deadline, @Nullable Looper looper, @NonNull Clock clock) {
+        super(delegate);
+        this.provider = provider;
+        this.targetAccuracy = targetAccuracy;
+        this.deadline = deadline;
+        this.looper = looper;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a new progressive request, to be called before the provider is asked for location
+     */
+    public void start() {
+        lastDelivered = null;
+        isRunning = true;
+        isFinished = false;
+        getStopTask().stop();
+        getDeadlineTask().stop();
+        getDeadlineTask().delayed(deadline);
+    }
+
+    /**
+     * Ends the request without any final delivery, when it is canceled from outside
+     */
+    public void stop() {
+        isRunning = false;
+        getDeadlineTask().stop();
+        getStopTask().stop();
+    }
+
+    public void pause() {
+        getDeadlineTask().pause();
+    }
+
+    public void resume() {
+        getDeadlineTask().resume();
+    }
+
+    // region Getters
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Returns true once the final location is delivered, or the deadline is passed
+     */
+    public boolean isFinished() {
+        return isFinished;
+    }
+
+    @Nullable
+    public Location lastDelivered() {
+        return lastDelivered;
+    }
+    // endregion
+
+    @Override
+    public void onLocationChanged(Location location) {
+        if (!isRunning || !isImprovement(location)) return;
+
+        lastDelivered = location;
+        boolean isFinal = location.getAccuracy() <= targetAccuracy;
+        if (isFinal) {
+            LogUtils.logI(TAG, "Target accuracy is reached, delivering the final location...");
+            finish();
+        }
+
+        notifyProgress(location, isFinal);
+        super.onLocationChanged(location);
+    }
+
+    /**
+     * Locations of a batch are considered one by one, since only the improving ones are delivered
+     */
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            onLocationChanged(locations.get(i));
+        }
+    }
+
+    @Override
+    public void onLocationFailed(@FailType int type) {
+        // Providers may still fail until they are stopped
+        if (isFinished) return;
+
+        if (isRunning && lastDelivered != null) {
+            LogUtils.logI(TAG, "Provider failed after a location is delivered, so it is the final one.");
+            finish();
+            notifyProgress(lastDelivered, true);
+        } else {
+            stop();
+            super.onLocationFailed(type);
+        }
+    }
+
+    @Override
+    public void runScheduledTask(@NonNull String taskId) {
+        if (taskId.equals(STOP_TASK)) {
+            provider.cancel();
+        } else if (taskId.equals(DEADLINE_TASK) && isRunning) {
+            finish();
+            if (lastDelivered != null) {
+                LogUtils.logI(TAG, "Deadline is passed, the last delivered location is the final one.");
+                notifyProgress(lastDelivered, true);
+            } else {
+                LogUtils.logI(TAG, "Deadline is passed without any location, calling fail...");
+                super.onLocationFailed(FailType.TIMEOUT);
+            }
+        }
+    }
+
+    private boolean isImprovement(Location location) {
+        return lastDelivered == null || location.getAccuracy() < lastDelivered.getAccuracy();
+    }
+
+    private void finish() {
+        isRunning = false;
+        isFinished = true;
+        getDeadlineTask().stop();
+        // Provider may request updates again right after delivering, so it is stopped once its callback returns
+        getStopTask().stop();
+        getStopTask().delayed(0);
+    }
+
+    private void notifyProgress(Location location, boolean isFinal) {
+        if (isListening(delegate(), ProgressiveLocationListener.class)) {
+            ((ProgressiveLocationListener) delegate()).onProgressiveLocation(location, isFinal);
+        }
+    }
+
+    private ContinuousTask getDeadlineTask() {
+        if (deadlineTask == null) {
+            deadlineTask = createTask(DEADLINE_TASK);
+        }
+        return deadlineTask;
+    }
+
+    private ContinuousTask getStopTask() {
+        if (stopTask == null) {
+            stopTask = createTask(STOP_TASK);
+        }
+        return stopTask;
+    }
+
+    // For test purposes
+    ContinuousTask createTask(String taskId) {
+        return ContinuousTask.create(taskId, this, looper, clock);
+    }
+}
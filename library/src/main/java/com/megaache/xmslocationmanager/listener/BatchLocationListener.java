@@ -0,0 +1,28 @@
+package com.megaache.xmslocationmanager.listener;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.XMSConfiguration;
+
+import java.util.List;
+
+/**
+ * Implement this interface in addition to {@linkplain LocationListener} to receive every location update
+ * from XMS as a single batch, instead of one {@linkplain LocationListener#onLocationChanged(Location)} per location.
+ * Use it together with {@linkplain XMSConfiguration.Builder#setMaxWaitTime(long)}, so locations are collected
+ * by the device and delivered at once, waking up the application only once per batch.
+ */
+public interface BatchLocationListener {
+
+    /**
+     * This method will be invoked whenever new location updates are received from XMS,
+     * last known location and locations from default providers are still delivered one by one.
+     *
+     * @param locations ordered from oldest to newest, never empty. It must not be kept after this method returns,
+     *                  copy it if needed
+     */
+    void onLocationsChanged(@NonNull List<Location> locations);
+
+}
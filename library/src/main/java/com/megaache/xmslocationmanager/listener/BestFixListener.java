@@ -0,0 +1,25 @@
+package com.megaache.xmslocationmanager.listener;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
+
+/**
+ * Implement this interface in addition to {@linkplain LocationListener} to be notified when a location which
+ * doesn't satisfy the acceptance criteria is delivered, because it was the best one available when waiting is over.
+ * See {@linkplain DefaultProviderConfiguration#deliverBestFixOnTimeout()}.
+ */
+public interface BestFixListener {
+
+    /**
+     * This method will be invoked right before given location is delivered by
+     * {@linkplain LocationListener#onLocationChanged(Location)}.
+     *
+     * @param location best location as it is received from the provider
+     * @param score    between 0 and 1, where 1 means it satisfies the acceptance criteria
+     */
+    void onBestFix(@NonNull Location location, float score);
+
+}
@@ -0,0 +1,28 @@
+package com.megaache.xmslocationmanager.listener;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.constants.GeofenceTransition;
+import com.megaache.xmslocationmanager.helper.geofence.Geofence;
+
+/**
+ * Implement this interface in addition to {@linkplain LocationListener} to receive geofence transitions,
+ * while {@linkplain XMSLocationConfiguration#geofencingConfiguration()} is set.
+ */
+public interface GeofenceListener {
+
+    /**
+     * This method will be invoked right after the location which caused the transition is delivered by
+     * {@linkplain LocationListener#onLocationChanged(Location)}.
+     *
+     * @param geofence   the fence which is entered, exited or dwelled in
+     * @param transition one of {@linkplain GeofenceTransition}
+     * @param location   the location which caused the transition
+     */
+    void onGeofenceTransition(@NonNull Geofence geofence, @GeofenceTransition int transition,
+          @NonNull Location location);
+
+}
@@ -0,0 +1,51 @@
+package com.megaache.xmslocationmanager.listener;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.constants.Stage;
+
+/**
+ * Receives an event whenever the manager enters or leaves a {@linkplain Stage} while getting location,
+ * so it is possible to see where the time goes until the first location is delivered.
+ * All timestamps are in nanoseconds from {@linkplain android.os.SystemClock#elapsedRealtimeNanos()}.
+ * Events are delivered synchronously on the thread which runs the stage, so implementations must be quick.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when get() is invoked on the manager, all the following events until the outcome belong to this request.
+     */
+    void onRequestStarted(long timestampNanos);
+
+    /**
+     * @param providerType {@linkplain ProviderType#NONE} for stages that don't belong to any provider
+     */
+    void onStageStarted(@Stage int stage, @ProviderType int providerType, long timestampNanos);
+
+    /**
+     * @param durationNanos time passed since the matching {@linkplain #onStageStarted(int, int, long)}
+     */
+    void onStageFinished(@Stage int stage, @ProviderType int providerType, long timestampNanos, long durationNanos);
+
+    /**
+     * Called when the manager gives up a provider and moves on with another one,
+     * such as XMS to {@linkplain ProviderType#DEFAULT_PROVIDERS} or GPS to Network.
+     */
+    void onFallback(@ProviderType int from, @ProviderType int to, @FallbackReason int reason, long timestampNanos);
+
+    /**
+     * Called once per request, when the first location is delivered.
+     *
+     * @param providerType   {@linkplain ProviderType#GPS} or {@linkplain ProviderType#NETWORK} if the location is
+     *                       from one of them, {@linkplain ProviderType#XMS} otherwise
+     * @param timeToFixNanos time passed since {@linkplain #onRequestStarted(long)}
+     */
+    void onFix(@ProviderType int providerType, long timestampNanos, long timeToFixNanos);
+
+    /**
+     * Called once per request, when the manager fails to deliver any location.
+     */
+    void onFailure(@FailType int failType, long timestampNanos);
+
+}
@@ -0,0 +1,26 @@
+package com.megaache.xmslocationmanager.listener;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+
+/**
+ * Implement this interface in addition to {@linkplain LocationListener} to know which location is the final one,
+ * while {@linkplain XMSLocationConfiguration#isProgressive()} is enabled.
+ */
+public interface ProgressiveLocationListener {
+
+    /**
+     * This method will be invoked right before each location is delivered by
+     * {@linkplain LocationListener#onLocationChanged(Location)}. If the deadline passes before any location
+     * satisfies the acceptable accuracy, the last delivered location is passed here once more as the final one,
+     * without being delivered by {@linkplain LocationListener#onLocationChanged(Location)} again.
+     *
+     * @param location delivered location, each one is more accurate than the previous one
+     * @param isFinal  true if progressive mode is over and providers are stopped
+     */
+    void onProgressiveLocation(@NonNull Location location, boolean isFinal);
+
+}
@@ -0,0 +1,22 @@
+package com.megaache.xmslocationmanager.listener;
+
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+
+/**
+ * Implement this interface in addition to {@linkplain LocationListener} to be notified about
+ * how long each provider took to deliver its first location, while
+ * {@linkplain XMSLocationConfiguration#raceProviders()} is enabled.
+ */
+public interface TimeToFirstFixListener {
+
+    /**
+     * This method will be invoked once per provider, as soon as it delivers its first location.
+     *
+     * @param providerType  one of {@linkplain ProviderType#XMS}, {@linkplain ProviderType#GPS}
+     *                      or {@linkplain ProviderType#NETWORK}
+     * @param elapsedMillis time passed since the providers are started
+     */
+    void onTimeToFirstFix(@ProviderType int providerType, long elapsedMillis);
+
+}
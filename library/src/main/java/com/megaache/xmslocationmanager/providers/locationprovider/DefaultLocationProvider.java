@@ -10,11 +10,20 @@ import android.provider.Settings;
 
 import androidx.annotation.NonNull;
 
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.configuration.AdaptiveTrackingConfiguration;
+import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
 import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
 import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
 import com.megaache.xmslocationmanager.constants.RequestCode;
+import com.megaache.xmslocationmanager.constants.Stage;
 import com.megaache.xmslocationmanager.helper.LogUtils;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+import com.megaache.xmslocationmanager.helper.tracking.AdaptiveIntervalController;
+import com.megaache.xmslocationmanager.helper.tracking.BestFixTracker;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
 import com.megaache.xmslocationmanager.listener.DialogListener;
 import com.megaache.xmslocationmanager.providers.dialogprovider.DialogProvider;
 
@@ -22,11 +31,20 @@ import com.megaache.xmslocationmanager.providers.dialogprovider.DialogProvider;
 public class DefaultLocationProvider extends LocationProvider
       implements ContinuousTaskRunner, LocationListener, DialogListener {
 
+    private static final String TAG = "DefaultLocationProvider";
+    private static final String[] CONCURRENT_PROVIDERS = new String[] { LocationManager.GPS_PROVIDER,
+          LocationManager.NETWORK_PROVIDER };
+
     private DefaultLocationSource defaultLocationSource;
+    private AdaptiveIntervalController adaptiveIntervalController;
+    private BestFixTracker bestFixTracker;
 
     private String provider;
     private Dialog gpsDialog;
 
+    private boolean acquiringConcurrently = false;
+    private Location heldNetworkLocation;
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -34,14 +52,19 @@ public class DefaultLocationProvider extends LocationProvider
         gpsDialog = null;
 
         getSourceProvider().removeSwitchTask();
+        getSourceProvider().removeGpsGraceTask();
         getSourceProvider().removeUpdateRequest();
         getSourceProvider().removeLocationUpdates(this);
     }
 
     @Override
     public void cancel() {
+        acquiringConcurrently = false;
+        heldNetworkLocation = null;
+
         getSourceProvider().getUpdateRequest().release();
         getSourceProvider().getProviderSwitchTask().stop();
+        getSourceProvider().getGpsGraceTask().stop();
     }
 
     @Override
@@ -50,6 +73,7 @@ public class DefaultLocationProvider extends LocationProvider
 
         getSourceProvider().getUpdateRequest().release();
         getSourceProvider().getProviderSwitchTask().pause();
+        getSourceProvider().getGpsGraceTask().pause();
     }
 
     @Override
@@ -60,6 +84,7 @@ public class DefaultLocationProvider extends LocationProvider
 
         if (isWaiting()) {
             getSourceProvider().getProviderSwitchTask().resume();
+            getSourceProvider().getGpsGraceTask().resume();
         }
 
         if (isDialogShowing() && isGPSProviderEnabled()) {
@@ -82,7 +107,8 @@ public class DefaultLocationProvider extends LocationProvider
             if (isGPSProviderEnabled()) {
                 onGPSActivated();
             } else {
-                LogUtils.logI("User didn't activate GPS, so continue with Network Provider");
+                LogUtils.logI(TAG, "User didn't activate GPS, so continue with Network Provider");
+                getStageTracer().fallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.USER_DECLINED);
                 getLocationByNetwork();
             }
         }
@@ -91,18 +117,27 @@ public class DefaultLocationProvider extends LocationProvider
     @Override
     public void get() {
         setWaiting(true);
+        getBestFixTracker().reset();
+
+        if (getConfiguration().defaultProviderConfiguration().concurrentProviders()
+              && isGPSProviderEnabled() && isNetworkProviderEnabled()) {
+            LogUtils.logI(TAG, "GPS and Network are enabled, getting location from both...");
+            askForLocationConcurrently();
+            return;
+        }
 
         // First check for GPS
         if (isGPSProviderEnabled()) {
-            LogUtils.logI("GPS is already enabled, getting location...");
+            LogUtils.logI(TAG, "GPS is already enabled, getting location...");
             askForLocation(LocationManager.GPS_PROVIDER);
         } else {
             // GPS is not enabled,
             if (getConfiguration().defaultProviderConfiguration().askForEnableGPS() && getActivity() != null) {
-                LogUtils.logI("GPS is not enabled, asking user to enable it...");
+                LogUtils.logI(TAG, "GPS is not enabled, asking user to enable it...");
                 askForEnableGPS();
             } else {
-                LogUtils.logI("GPS is not enabled, moving on with Network...");
+                LogUtils.logI(TAG, "GPS is not enabled, moving on with Network...");
+                getStageTracer().fallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.NOT_AVAILABLE);
                 getLocationByNetwork();
             }
         }
@@ -117,17 +152,18 @@ public class DefaultLocationProvider extends LocationProvider
     }
 
     void onGPSActivated() {
-        LogUtils.logI("User activated GPS, listen for location");
+        LogUtils.logI(TAG, "User activated GPS, listen for location");
         askForLocation(LocationManager.GPS_PROVIDER);
     }
 
     void getLocationByNetwork() {
         if (isNetworkProviderEnabled()) {
-            LogUtils.logI("Network is enabled, getting location...");
+            LogUtils.logI(TAG, "Network is enabled, getting location...");
             askForLocation(LocationManager.NETWORK_PROVIDER);
         } else {
-            LogUtils.logI("Network is not enabled, calling fail...");
-            onLocationFailed(FailType.NETWORK_NOT_AVAILABLE);
+            LogUtils.logI(TAG, "Network is not enabled, calling fail...");
+            // GPS may have provided a usable location before it timed out
+            deliverBestFixOrFail(FailType.NETWORK_NOT_AVAILABLE);
         }
     }
 
@@ -138,26 +174,70 @@ public class DefaultLocationProvider extends LocationProvider
         boolean locationIsAlreadyAvailable = checkForLastKnowLocation();
 
         if (getConfiguration().keepTracking() || !locationIsAlreadyAvailable) {
-            LogUtils.logI("Ask for location update...");
+            LogUtils.logI(TAG, "Ask for location update...");
             notifyProcessChange();
             // Ask for immediate location update
             requestUpdateLocation(0, 0, !locationIsAlreadyAvailable);
         } else {
-            LogUtils.logI("We got location, no need to ask for location updates.");
+            LogUtils.logI(TAG, "We got location, no need to ask for location updates.");
+        }
+    }
+
+    /**
+     * Listens GPS and Network at the same time, so that Network is not asked only after gpsWaitPeriod passes.
+     * Both providers are released together once a location is delivered.
+     */
+    void askForLocationConcurrently() {
+        getSourceProvider().getProviderSwitchTask().stop();
+        getSourceProvider().getGpsGraceTask().stop();
+
+        // GPS is checked first, since its last known location is preferred when both are usable
+        setCurrentProvider(LocationManager.GPS_PROVIDER);
+        boolean locationIsAlreadyAvailable = checkForLastKnowLocation();
+        if (!locationIsAlreadyAvailable) {
+            setCurrentProvider(LocationManager.NETWORK_PROVIDER);
+            locationIsAlreadyAvailable = checkForLastKnowLocation();
+        }
+
+        if (locationIsAlreadyAvailable) {
+            if (getConfiguration().keepTracking()) {
+                LogUtils.logI(TAG, "Ask for location update...");
+                notifyProcessChange();
+                requestUpdateLocation(0, 0, false);
+            } else {
+                LogUtils.logI(TAG, "We got location, no need to ask for location updates.");
+            }
+            return;
         }
+
+        LogUtils.logI(TAG, "Ask for location updates from GPS and Network...");
+        setCurrentProvider(LocationManager.GPS_PROVIDER);
+        notifyProcessChange();
+
+        acquiringConcurrently = true;
+        heldNetworkLocation = null;
+
+        DefaultProviderConfiguration configuration = getConfiguration().defaultProviderConfiguration();
+        getSourceProvider().getProviderSwitchTask()
+              .delayed(Math.max(configuration.gpsWaitPeriod(), configuration.networkWaitPeriod()));
+        getStageTracer().stageStarted(Stage.REQUEST_LOCATION_UPDATES, ProviderType.DEFAULT_PROVIDERS);
+        getSourceProvider().getUpdateRequest().run(CONCURRENT_PROVIDERS, 0, 0);
     }
 
     boolean checkForLastKnowLocation() {
+        getStageTracer().stageStarted(Stage.GET_LAST_LOCATION, currentProviderType());
         Location lastKnownLocation = getSourceProvider().getLastKnownLocation(provider);
+        getStageTracer().stageFinished(Stage.GET_LAST_LOCATION, currentProviderType());
 
         if (getSourceProvider().isLocationSufficient(lastKnownLocation,
               getConfiguration().defaultProviderConfiguration().acceptableTimePeriod(),
               getConfiguration().defaultProviderConfiguration().acceptableAccuracy())) {
-            LogUtils.logI("LastKnowLocation is usable.");
+            LogUtils.logI(TAG, "LastKnowLocation is usable.");
             onLocationReceived(lastKnownLocation);
             return true;
         } else {
-            LogUtils.logI("LastKnowLocation is not usable.");
+            LogUtils.logI(TAG, "LastKnowLocation is not usable.");
+            getBestFixTracker().offer(lastKnownLocation, currentProviderType(), true);
         }
 
         return false;
@@ -178,6 +258,7 @@ public class DefaultLocationProvider extends LocationProvider
     void requestUpdateLocation(long timeInterval, long distanceInterval, boolean setCancelTask) {
         if (setCancelTask) {
             getSourceProvider().getProviderSwitchTask().delayed(getWaitPeriod());
+            getStageTracer().stageStarted(Stage.REQUEST_LOCATION_UPDATES, currentProviderType());
         }
 
         getSourceProvider().getUpdateRequest().run(provider, timeInterval, distanceInterval);
@@ -189,6 +270,11 @@ public class DefaultLocationProvider extends LocationProvider
               : getConfiguration().defaultProviderConfiguration().networkWaitPeriod();
     }
 
+    @ProviderType
+    int currentProviderType() {
+        return LocationManager.GPS_PROVIDER.equals(provider) ? ProviderType.GPS : ProviderType.NETWORK;
+    }
+
     private boolean isNetworkProviderEnabled() {
         return getSourceProvider().isProviderEnabled(LocationManager.NETWORK_PROVIDER);
     }
@@ -216,6 +302,11 @@ public class DefaultLocationProvider extends LocationProvider
         if (getSourceProvider().updateRequestIsRemoved()) {
             return;
         }
+        if (acquiringConcurrently) {
+            onConcurrentLocationChanged(location);
+            return;
+        }
+        getStageTracer().stageFinished(Stage.REQUEST_LOCATION_UPDATES, currentProviderType());
         onLocationReceived(location);
 
         // Remove cancelLocationTask because we have already find location,
@@ -226,12 +317,83 @@ public class DefaultLocationProvider extends LocationProvider
 
         getSourceProvider().removeLocationUpdates(this);
 
+        if (getConfiguration().isProgressive()) {
+            // Refinements are needed as soon as possible, until progressive mode is over
+            requestUpdateLocation(0, 0, false);
+        } else if (getConfiguration().keepTracking()) {
+            requestUpdateLocation(getTrackingInterval(location),
+                  getConfiguration().defaultProviderConfiguration().requiredDistanceInterval(), false);
+        }
+    }
+
+    void onConcurrentLocationChanged(Location location) {
+        if (getConfiguration().isProgressive()) {
+            // Each location may be a refinement, progressive delivery cancels both providers once it is over
+            onLocationReceived(location);
+            return;
+        }
+
+        // First location of either provider is delivered as in sequential mode, GPS can only upgrade a Network one
+        long gpsGracePeriod = getConfiguration().defaultProviderConfiguration().gpsGracePeriod();
+        boolean isFromGPS = LocationManager.GPS_PROVIDER.equals(location.getProvider());
+
+        if (!isFromGPS && gpsGracePeriod > 0) {
+            if (heldNetworkLocation == null) {
+                if (LogUtils.isLoggable(LogUtils.INFO)) {
+                    LogUtils.logI(TAG, "Network location is received, waiting {} ms for a better one from GPS...",
+                          gpsGracePeriod);
+                }
+                heldNetworkLocation = location;
+                getSourceProvider().getGpsGraceTask().delayed(gpsGracePeriod);
+            }
+            return;
+        }
+
+        if (isFromGPS && heldNetworkLocation != null
+              && heldNetworkLocation.getAccuracy() < location.getAccuracy()) {
+            LogUtils.logI(TAG, "GPS location is not better than the Network one.");
+            onConcurrentLocationAccepted(heldNetworkLocation);
+        } else {
+            onConcurrentLocationAccepted(location);
+        }
+    }
+
+    void onConcurrentLocationAccepted(Location location) {
+        acquiringConcurrently = false;
+        heldNetworkLocation = null;
+
+        getSourceProvider().getGpsGraceTask().stop();
+        getSourceProvider().getProviderSwitchTask().stop();
+        // Same listener is registered to both providers, so this releases them together
+        getSourceProvider().removeLocationUpdates(this);
+        getStageTracer().stageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.DEFAULT_PROVIDERS);
+
+        setCurrentProvider(LocationManager.GPS_PROVIDER.equals(location.getProvider())
+              ? LocationManager.GPS_PROVIDER : LocationManager.NETWORK_PROVIDER);
+        onLocationReceived(location);
+
         if (getConfiguration().keepTracking()) {
-            requestUpdateLocation(getConfiguration().defaultProviderConfiguration().requiredTimeInterval(),
+            requestUpdateLocation(getTrackingInterval(location),
                   getConfiguration().defaultProviderConfiguration().requiredDistanceInterval(), false);
         }
     }
 
+    /**
+     * Returns {@linkplain DefaultProviderConfiguration#requiredTimeInterval()}, or the interval adapted to the
+     * speed of the user if adaptive tracking is enabled
+     */
+    long getTrackingInterval(Location location) {
+        long requiredTimeInterval = getConfiguration().defaultProviderConfiguration().requiredTimeInterval();
+        AdaptiveTrackingConfiguration configuration = getConfiguration().adaptiveTrackingConfiguration();
+        if (configuration == null) return requiredTimeInterval;
+
+        if (adaptiveIntervalController == null) {
+            adaptiveIntervalController = new AdaptiveIntervalController(configuration, requiredTimeInterval);
+        }
+        adaptiveIntervalController.onLocationChanged(location);
+        return adaptiveIntervalController.interval();
+    }
+
     /**
      * This callback will never be invoked on Android Q and above, and providers can be considered as always in the LocationProvider#AVAILABLE state.
      *
@@ -264,13 +426,53 @@ public class DefaultLocationProvider extends LocationProvider
         if (taskId.equals(DefaultLocationSource.PROVIDER_SWITCH_TASK)) {
             getSourceProvider().getUpdateRequest().release();
 
-            if (LocationManager.GPS_PROVIDER.equals(provider)) {
-                LogUtils.logI("We waited enough for GPS, switching to Network provider...");
+            if (acquiringConcurrently) {
+                onConcurrentWaitPeriodPassed();
+            } else if (LocationManager.GPS_PROVIDER.equals(provider)) {
+                LogUtils.logI(TAG, "We waited enough for GPS, switching to Network provider...");
+                getStageTracer().fallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.TIMEOUT);
                 getLocationByNetwork();
             } else {
-                LogUtils.logI("Network Provider is not provide location in required period, calling fail...");
-                onLocationFailed(FailType.TIMEOUT);
+                LogUtils.logI(TAG, "Network Provider is not provide location in required period.");
+                deliverBestFixOrFail(FailType.TIMEOUT);
             }
+        } else if (taskId.equals(DefaultLocationSource.GPS_GRACE_TASK) && heldNetworkLocation != null) {
+            LogUtils.logI(TAG, "GPS didn't provide a better location in grace period, delivering Network one...");
+            onConcurrentLocationAccepted(heldNetworkLocation);
+        }
+    }
+
+    void onConcurrentWaitPeriodPassed() {
+        if (heldNetworkLocation != null) {
+            onConcurrentLocationAccepted(heldNetworkLocation);
+            return;
+        }
+
+        acquiringConcurrently = false;
+        LogUtils.logI(TAG, "Neither GPS nor Network provided usable location in required period.");
+        deliverBestFixOrFail(FailType.TIMEOUT);
+    }
+
+    /**
+     * Delivers the best location seen during this request if configuration allows and its score is high enough,
+     * otherwise calls fail with given type
+     */
+    void deliverBestFixOrFail(@FailType int failType) {
+        DefaultProviderConfiguration configuration = getConfiguration().defaultProviderConfiguration();
+        Location bestFix = getBestFixTracker().best();
+        float score = getBestFixTracker().bestScore();
+
+        if (configuration.deliverBestFixOnTimeout() && bestFix != null && score >= configuration.minimumFixScore()) {
+            if (LogUtils.isLoggable(LogUtils.INFO)) {
+                LogUtils.logI(TAG, "Delivering the best location received so far, with score {}", score);
+            }
+            if (ForwardingLocationListener.isListening(getListener(), BestFixListener.class)) {
+                ((BestFixListener) getListener()).onBestFix(bestFix, score);
+            }
+            onLocationReceived(bestFix);
+        } else {
+            LogUtils.logI(TAG, "There is no usable location received so far, calling fail...");
+            onLocationFailed(failType);
         }
     }
 
@@ -285,7 +487,8 @@ public class DefaultLocationProvider extends LocationProvider
 
     @Override
     public void onNegativeButtonClick() {
-        LogUtils.logI("User didn't want to enable GPS, so continue with Network Provider");
+        LogUtils.logI(TAG, "User didn't want to enable GPS, so continue with Network Provider");
+        getStageTracer().fallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.USER_DECLINED);
         getLocationByNetwork();
     }
 
@@ -294,9 +497,23 @@ public class DefaultLocationProvider extends LocationProvider
         this.defaultLocationSource = defaultLocationSource;
     }
 
+    boolean isAcquiringConcurrently() {
+        return acquiringConcurrently;
+    }
+
+    BestFixTracker getBestFixTracker() {
+        if (bestFixTracker == null) {
+            DefaultProviderConfiguration configuration = getConfiguration().defaultProviderConfiguration();
+            bestFixTracker = new BestFixTracker(configuration.acceptableTimePeriod(),
+                  configuration.acceptableAccuracy(), getClock());
+        }
+        return bestFixTracker;
+    }
+
     private DefaultLocationSource getSourceProvider() {
         if (defaultLocationSource == null) {
-            defaultLocationSource = new DefaultLocationSource(getContext(), this, this);
+            defaultLocationSource = new DefaultLocationSource(getContext(), this, this,
+                    getConfiguration().shareSubscriptions(), getCallbackLooper(), getClock());
         }
         return defaultLocationSource;
     }
@@ -4,28 +4,43 @@ import android.content.Context;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
+import android.os.Looper;
 
+import com.megaache.xmslocationmanager.helper.LocationUtils;
 import com.megaache.xmslocationmanager.helper.UpdateRequest;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
-
-import java.util.Date;
+import com.megaache.xmslocationmanager.helper.subscription.PlatformSubscriptionHub;
+import com.megaache.xmslocationmanager.helper.subscription.SharedUpdateRequest;
 
 class DefaultLocationSource {
 
     static final String PROVIDER_SWITCH_TASK = "providerSwitchTask";
+    static final String GPS_GRACE_TASK = "gpsGraceTask";
 
+    private final boolean shareSubscription;
+    private final Clock clock;
     private LocationManager locationManager;
     private UpdateRequest updateRequest;
     private ContinuousTask cancelTask;
+    private ContinuousTask gpsGraceTask;
 
     DefaultLocationSource(
             Context context,
             ContinuousTaskRunner continuousTaskRunner,
-            LocationListener locationListener) {
+            LocationListener locationListener,
+            boolean shareSubscription,
+            Looper looper,
+            Clock clock) {
+        this.shareSubscription = shareSubscription;
+        this.clock = clock;
         locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
-        updateRequest = new UpdateRequest(locationManager, locationListener);
-        cancelTask = new ContinuousTask(PROVIDER_SWITCH_TASK, continuousTaskRunner);
+        updateRequest = shareSubscription
+              ? new SharedUpdateRequest(locationManager, locationListener, looper, clock)
+              : new UpdateRequest(locationManager, locationListener, looper);
+        cancelTask = ContinuousTask.create(PROVIDER_SWITCH_TASK, continuousTaskRunner, looper, clock);
+        gpsGraceTask = ContinuousTask.create(GPS_GRACE_TASK, continuousTaskRunner, looper, clock);
     }
 
     boolean isProviderEnabled(String provider) {
@@ -39,6 +54,10 @@ class DefaultLocationSource {
 
     @SuppressWarnings("ResourceType")
     void removeLocationUpdates(LocationListener locationListener) {
+        if (shareSubscription) {
+            PlatformSubscriptionHub.getInstance().removeUpdates(locationListener);
+            return;
+        }
         locationManager.removeUpdates(locationListener);
     }
 
@@ -52,6 +71,11 @@ class DefaultLocationSource {
         cancelTask = null;
     }
 
+    void removeGpsGraceTask() {
+        gpsGraceTask.stop();
+        gpsGraceTask = null;
+    }
+
     boolean switchTaskIsRemoved() {
         return cancelTask == null;
     }
@@ -64,17 +88,15 @@ class DefaultLocationSource {
         return cancelTask;
     }
 
+    ContinuousTask getGpsGraceTask() {
+        return gpsGraceTask;
+    }
+
     UpdateRequest getUpdateRequest() {
         return updateRequest;
     }
 
     boolean isLocationSufficient(Location location, long acceptableTimePeriod, float acceptableAccuracy) {
-        if (location == null) return false;
-
-        float givenAccuracy = location.getAccuracy();
-        long givenTime = location.getTime();
-        long minAcceptableTime = new Date().getTime() - acceptableTimePeriod;
-
-        return minAcceptableTime <= givenTime && acceptableAccuracy >= givenAccuracy;
+        return LocationUtils.isSufficient(location, acceptableTimePeriod, acceptableAccuracy, clock);
     }
 }
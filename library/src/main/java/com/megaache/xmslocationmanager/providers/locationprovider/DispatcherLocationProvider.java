@@ -7,7 +7,10 @@ import android.content.Intent;
 import androidx.annotation.NonNull;
 
 import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
+import com.megaache.xmslocationmanager.constants.ProviderType;
 import com.megaache.xmslocationmanager.constants.RequestCode;
+import com.megaache.xmslocationmanager.constants.Stage;
 import com.megaache.xmslocationmanager.helper.LogUtils;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
 import com.megaache.xmslocationmanager.listener.FallbackListener;
@@ -16,15 +19,20 @@ import org.xms.g.common.ConnectionResult;
 
 public class DispatcherLocationProvider extends LocationProvider implements ContinuousTaskRunner, FallbackListener {
 
+    private static final String TAG = "DispatcherLocationProvider";
+
     private Dialog gpServicesDialog;
     private LocationProvider activeProvider;
+    private ProviderRace providerRace;
     private DispatcherLocationSource dispatcherLocationSource;
 
     @Override
     public void onPause() {
         super.onPause();
 
-        if (activeProvider != null) {
+        if (isRacing()) {
+            providerRace.onPause();
+        } else if (activeProvider != null) {
             activeProvider.onPause();
         }
 
@@ -35,7 +43,9 @@ public class DispatcherLocationProvider extends LocationProvider implements Cont
     public void onResume() {
         super.onResume();
 
-        if (activeProvider != null) {
+        if (isRacing()) {
+            providerRace.onResume();
+        } else if (activeProvider != null) {
             activeProvider.onResume();
         }
 
@@ -46,18 +56,26 @@ public class DispatcherLocationProvider extends LocationProvider implements Cont
     public void onDestroy() {
         super.onDestroy();
 
-        if (activeProvider != null) {
+        if (providerRace != null) {
+            providerRace.onDestroy();
+        } else if (activeProvider != null) {
             activeProvider.onDestroy();
         }
 
         getSourceProvider().gpServicesSwitchTask().stop();
 
+        providerRace = null;
         dispatcherLocationSource = null;
         gpServicesDialog = null;
     }
 
     @Override
     public void cancel() {
+        if (providerRace != null) {
+            providerRace.cancel();
+            providerRace = null;
+        }
+
         if (activeProvider != null) {
             activeProvider.cancel();
         }
@@ -67,23 +85,27 @@ public class DispatcherLocationProvider extends LocationProvider implements Cont
 
     @Override
     public boolean isWaiting() {
+        if (isRacing()) return providerRace.isWaiting();
         return activeProvider != null && activeProvider.isWaiting();
     }
 
     @Override
     public boolean isDialogShowing() {
         boolean gpServicesDialogShown = gpServicesDialog != null && gpServicesDialog.isShowing();
-        boolean anyProviderDialogShown = activeProvider != null && activeProvider.isDialogShowing();
+        boolean anyProviderDialogShown = isRacing() ? providerRace.isDialogShowing()
+                : activeProvider != null && activeProvider.isDialogShowing();
         return gpServicesDialogShown || anyProviderDialogShown;
     }
 
     @Override
     public void runScheduledTask(@NonNull String taskId) {
         if (taskId.equals(DispatcherLocationSource.XMS_SWITCH_TASK)) {
-            if (activeProvider instanceof XMSLocationProvider && activeProvider.isWaiting()) {
-                LogUtils.logI("We couldn't receive location from XMS, so switching default providers...");
+            if (isRacing()) {
+                providerRace.onDeadline();
+            } else if (activeProvider instanceof XMSLocationProvider && activeProvider.isWaiting()) {
+                LogUtils.logI(TAG, "We couldn't receive location from XMS, so switching default providers...");
                 cancel();
-                continueWithDefaultProviders();
+                fallbackToDefaultProviders(FallbackReason.TIMEOUT);
             }
         }
     }
@@ -96,7 +118,9 @@ public class DispatcherLocationProvider extends LocationProvider implements Cont
             // Check whether do we have gpServices now or still not!
             checkXMSAvailability(false);
         } else {
-            if (activeProvider != null) {
+            if (isRacing()) {
+                providerRace.onActivityResult(requestCode, resultCode, data);
+            } else if (activeProvider != null) {
                 activeProvider.onActivityResult(requestCode, resultCode, data);
             }
         }
@@ -107,7 +131,7 @@ public class DispatcherLocationProvider extends LocationProvider implements Cont
         if (getConfiguration().xmsConfiguration() != null) {
             checkXMSAvailability(true);
         } else {
-            LogUtils.logI("Configuration requires not to use XMS Play Services, "
+            LogUtils.logI(TAG, "Configuration requires not to use XMS Play Services, "
                     + "so skipping that step to Default Location Providers");
             continueWithDefaultProviders();
         }
@@ -121,22 +145,24 @@ public class DispatcherLocationProvider extends LocationProvider implements Cont
     }
 
     void checkXMSAvailability(boolean askForXMS) {
+        getStageTracer().stageStarted(Stage.CHECK_XMS_AVAILABILITY, ProviderType.XMS);
         int gpServicesAvailability = getSourceProvider().isXApiAvailable(getContext());
+        getStageTracer().stageFinished(Stage.CHECK_XMS_AVAILABILITY, ProviderType.XMS);
 
 if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
-            LogUtils.logI("XMS is available on device.");
+            LogUtils.logI(TAG, "XMS is available on device.");
             getLocationFromXMS();
         } else {
-            LogUtils.logI("XMS is NOT available on device.");
+            LogUtils.logI(TAG, "XMS is NOT available on device.");
             if (askForXMS) {
                 askForXMS(gpServicesAvailability);
             } else {
-                LogUtils.logI("XMS is NOT available and even though we ask user to handle error, "
+                LogUtils.logI(TAG, "XMS is NOT available and even though we ask user to handle error, "
                         + "it is still NOT available.");
 
                 // This means get method is called by onActivityResult
                 // which we already ask user to handle with gpServices error
-                continueWithDefaultProviders();
+                fallbackToDefaultProviders(FallbackReason.NOT_AVAILABLE);
             }
         }
     }
@@ -147,9 +173,9 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
 
             resolveXMS(gpServicesAvailability);
         } else {
-            LogUtils.logI("Either XMS error is not resolvable "
+            LogUtils.logI(TAG, "Either XMS error is not resolvable "
                     + "or the configuration doesn't wants us to bother user.");
-            continueWithDefaultProviders();
+            fallbackToDefaultProviders(FallbackReason.NOT_AVAILABLE);
         }
     }
 
@@ -162,14 +188,14 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
      *
      */
     void resolveXMS(int gpServicesAvailability) {
-        LogUtils.logI("Asking user to handle XMS error...");
+        LogUtils.logI(TAG, "Asking user to handle XMS error...");
         gpServicesDialog = getSourceProvider().getXApiErrorDialog(getActivity(), gpServicesAvailability,
                 RequestCode.XMS, new DialogInterface.OnCancelListener() {
                     @Override
                     public void onCancel(DialogInterface dialog) {
-                        LogUtils.logI("XMS error could've been resolved, "
+                        LogUtils.logI(TAG, "XMS error could've been resolved, "
                                 + "but user canceled it.");
-                        continueWithDefaultProviders();
+                        fallbackToDefaultProviders(FallbackReason.USER_DECLINED);
                     }
                 });
 
@@ -188,7 +214,7 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
 //                    gpServicesDialog.setOnDismissListener(new DialogInterface.OnDismissListener() {
 //                        @Override
 //                        public void onDismiss(DialogInterface dialog) {
-//                            LogUtils.logI("XMS error could not have been resolved");
+//                            LogUtils.logI(TAG, "XMS error could not have been resolved");
 //                            continueWithDefaultProviders();
 //                        }
 //                    });
@@ -202,8 +228,8 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
                 gpServicesDialog.setOnDismissListener(new DialogInterface.OnDismissListener() {
                     @Override
                     public void onDismiss(DialogInterface dialog) {
-                        LogUtils.logI("XMS error could not have been resolved");
-                        continueWithDefaultProviders();
+                        LogUtils.logI(TAG, "XMS error could not have been resolved");
+                        fallbackToDefaultProviders(FallbackReason.NOT_AVAILABLE);
                     }
                 });
 
@@ -211,32 +237,77 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
 
             gpServicesDialog.show();
         } else {
-            LogUtils.logI("XMS error could've been resolved, but since LocationManager "
+            LogUtils.logI(TAG, "XMS error could've been resolved, but since LocationManager "
                     + "is not running on an Activity, dialog cannot be displayed.");
-            continueWithDefaultProviders();
+            fallbackToDefaultProviders(FallbackReason.NOT_AVAILABLE);
         }
     }
 
     void getLocationFromXMS() {
-        LogUtils.logI("Attempting to get location from Google/Huawei Play Services providers...");
+        if (getConfiguration().raceProviders() && getConfiguration().defaultProviderConfiguration() != null) {
+            raceProviders();
+            return;
+        }
+
+        LogUtils.logI(TAG, "Attempting to get location from Google/Huawei Play Services providers...");
         setLocationProvider(getSourceProvider().createXMSLocationProvider(this));
         getSourceProvider().gpServicesSwitchTask().delayed(getConfiguration()
                 .xmsConfiguration().xmsWaitPeriod());
         activeProvider.get();
     }
 
+    /**
+     * Starts XMS and default providers together, see {@linkplain ProviderRace}
+     */
+    void raceProviders() {
+        LogUtils.logI(TAG, "Attempting to get location from XMS and default providers at the same time...");
+        providerRace = getSourceProvider().createProviderRace(this);
+        getSourceProvider().gpServicesSwitchTask().delayed(getConfiguration()
+                .xmsConfiguration().xmsWaitPeriod());
+        providerRace.start();
+    }
+
+    /**
+     * Called by {@linkplain ProviderRace} as soon as one of the providers wins, so the winner can be
+     * redirected lifecycle events as the active provider from now on.
+     */
+    void onRaceWon(LocationProvider winner) {
+        getSourceProvider().gpServicesSwitchTask().stop();
+        activeProvider = winner;
+    }
+
+    /**
+     * Called by {@linkplain ProviderRace} when none of the providers could deliver any location
+     */
+    void onRaceFailed(@FailType int failType) {
+        getSourceProvider().gpServicesSwitchTask().stop();
+        if (getListener() != null) {
+            getListener().onLocationFailed(failType);
+        }
+    }
+
+    /**
+     * Reports giving up XMS for the given reason, and continues with default providers if they are configured
+     */
+    void fallbackToDefaultProviders(@FallbackReason int reason) {
+        if (getConfiguration().defaultProviderConfiguration() != null) {
+            getStageTracer().fallback(ProviderType.XMS, ProviderType.DEFAULT_PROVIDERS, reason);
+        }
+        continueWithDefaultProviders();
+    }
+
     /**
      * Called in case of Google Play Services failed to retrieve location,
      * or XMSConfiguration doesn't provided by developer
      */
     void continueWithDefaultProviders() {
         if (getConfiguration().defaultProviderConfiguration() == null) {
-            LogUtils.logI("Configuration requires not to use default providers, abort!");
+            LogUtils.logI(TAG, "Configuration requires not to use default providers, abort!");
             if (getListener() != null) {
                 getListener().onLocationFailed(FailType.XMS_NOT_AVAILABLE);
             }
         } else {
-            LogUtils.logI("Attempting to get location from default providers...");
+            LogUtils.logI(TAG, "Attempting to get location from default providers...");
             setLocationProvider(getSourceProvider().createDefaultLocationProvider());
             activeProvider.get();
         }
@@ -247,6 +318,10 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
         activeProvider.configure(this);
     }
 
+    private boolean isRacing() {
+        return providerRace != null && providerRace.isRunning();
+    }
+
     // For test purposes
     void setDispatcherLocationSource(DispatcherLocationSource dispatcherLocationSource) {
         this.dispatcherLocationSource = dispatcherLocationSource;
@@ -254,7 +329,7 @@ if (gpServicesAvailability == ConnectionResult.getSUCCESS()) {
 
     private DispatcherLocationSource getSourceProvider() {
         if (dispatcherLocationSource == null) {
-            dispatcherLocationSource = new DispatcherLocationSource(this);
+            dispatcherLocationSource = new DispatcherLocationSource(this, getCallbackLooper(), getClock());
         }
         return dispatcherLocationSource;
     }
@@ -4,9 +4,13 @@ import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface.OnCancelListener;
+import android.location.Location;
+import android.os.Looper;
 
 import androidx.annotation.Nullable;
 
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
 import com.megaache.xmslocationmanager.listener.FallbackListener;
@@ -17,10 +21,12 @@ class DispatcherLocationSource {
 
     static final String XMS_SWITCH_TASK = "XMSSwitchTask";
 
+    private final Clock clock;
     private ContinuousTask gpServicesSwitchTask;
 
-    DispatcherLocationSource(ContinuousTaskRunner continuousTaskRunner) {
-        this.gpServicesSwitchTask = new ContinuousTask(XMS_SWITCH_TASK, continuousTaskRunner);
+    DispatcherLocationSource(ContinuousTaskRunner continuousTaskRunner, @Nullable Looper looper, Clock clock) {
+        this.clock = clock;
+        this.gpServicesSwitchTask = ContinuousTask.create(XMS_SWITCH_TASK, continuousTaskRunner, looper, clock);
     }
 
     DefaultLocationProvider createDefaultLocationProvider() {
@@ -31,6 +37,10 @@ class DispatcherLocationSource {
         return new XMSLocationProvider(fallbackListener);
     }
 
+    ProviderRace createProviderRace(DispatcherLocationProvider dispatcherLocationProvider) {
+        return new ProviderRace(dispatcherLocationProvider, this);
+    }
+
     ContinuousTask gpServicesSwitchTask() {
         return gpServicesSwitchTask;
     }
@@ -52,4 +62,12 @@ class DispatcherLocationSource {
                 .getErrorDialog(activity, gpServicesAvailability, requestCode, onCancelListener);
     }
 
+    boolean isLocationSufficient(Location location, long acceptableTimePeriod, float acceptableAccuracy) {
+        return LocationUtils.isSufficient(location, acceptableTimePeriod, acceptableAccuracy, clock);
+    }
+
+    long elapsedRealtime() {
+        return clock.elapsedRealtimeNanos() / 1000000;
+    }
+
 }
@@ -3,14 +3,19 @@ package com.megaache.xmslocationmanager.providers.locationprovider;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Looper;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.megaache.xmslocationmanager.XMSLocationManager;
 import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
 import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.clock.DefaultClock;
+import com.megaache.xmslocationmanager.helper.metrics.StageTracer;
 import com.megaache.xmslocationmanager.listener.LocationListener;
 import com.megaache.xmslocationmanager.view.ContextProcessor;
 
@@ -18,7 +23,12 @@ import java.lang.ref.WeakReference;
 
 public abstract class LocationProvider {
 
-    private boolean isWaiting = false;
+    private static final String TAG = "LocationProvider";
+
+    private volatile boolean isWaiting = false;
+    private Looper callbackLooper;
+    private StageTracer stageTracer = StageTracer.NONE;
+    private Clock clock = new DefaultClock();
     private XMSLocationConfiguration configuration;
     private ContextProcessor contextProcessor;
     private WeakReference<LocationListener> weakLocationListener;
@@ -40,12 +50,57 @@ public abstract class LocationProvider {
      */
     @CallSuper
     public void configure(LocationProvider locationProvider) {
+        this.callbackLooper = locationProvider.callbackLooper;
+        this.stageTracer = locationProvider.stageTracer;
+        this.clock = locationProvider.clock;
         this.contextProcessor = locationProvider.contextProcessor;
         this.configuration = locationProvider.configuration;
         this.weakLocationListener = locationProvider.weakLocationListener;
         initialize();
     }
 
+    /**
+     * This is used for passing object between LocationProviders,
+     * when the location callbacks need to be redirected to another listener
+     */
+    @CallSuper
+    public void configure(LocationProvider locationProvider, LocationListener listener) {
+        this.callbackLooper = locationProvider.callbackLooper;
+        this.stageTracer = locationProvider.stageTracer;
+        this.clock = locationProvider.clock;
+        this.contextProcessor = locationProvider.contextProcessor;
+        this.configuration = locationProvider.configuration;
+        this.weakLocationListener = new WeakReference<>(listener);
+        initialize();
+    }
+
+    /**
+     * Sets the looper on which location updates and scheduled tasks should run,
+     * must be called before {@linkplain #configure(ContextProcessor, XMSLocationConfiguration, LocationListener)}.
+     * If it is not set, they run on the looper of the thread which calls {@linkplain #get()}.
+     */
+    public void setCallbackLooper(@Nullable Looper callbackLooper) {
+        this.callbackLooper = callbackLooper;
+    }
+
+    /**
+     * Sets the tracer which stages of getting location are reported to,
+     * must be called before {@linkplain #configure(ContextProcessor, XMSLocationConfiguration, LocationListener)}.
+     * If it is not set, {@linkplain StageTracer#NONE} is used.
+     */
+    public void setStageTracer(@NonNull StageTracer stageTracer) {
+        this.stageTracer = stageTracer;
+    }
+
+    /**
+     * Sets the clock which freshness of locations, elapsed times and timeouts are decided by,
+     * must be called before {@linkplain #configure(ContextProcessor, XMSLocationConfiguration, LocationListener)}.
+     * If it is not set, {@linkplain DefaultClock} is used.
+     */
+    public void setClock(@NonNull Clock clock) {
+        this.clock = clock;
+    }
+
     /**
      * This method will be used to determine whether any LocationProvider
      * is currently displaying dialog or something.
@@ -104,6 +159,21 @@ public abstract class LocationProvider {
     public void onResume() {
     }
 
+    @Nullable
+    protected Looper getCallbackLooper() {
+        return callbackLooper;
+    }
+
+    @NonNull
+    protected StageTracer getStageTracer() {
+        return stageTracer;
+    }
+
+    @NonNull
+    protected Clock getClock() {
+        return clock;
+    }
+
     protected XMSLocationConfiguration getConfiguration() {
         return configuration;
     }
@@ -134,7 +204,7 @@ public abstract class LocationProvider {
         } else if (getActivity() != null) {
             getActivity().startActivityForResult(intent, requestCode);
         } else {
-            LogUtils.logE("Cannot startActivityForResult because host is neither Activity nor Fragment.");
+            LogUtils.logE(TAG, "Cannot startActivityForResult because host is neither Activity nor Fragment.");
             return false;
         }
         return true;
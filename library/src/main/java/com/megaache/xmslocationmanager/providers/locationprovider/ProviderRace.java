@@ -0,0 +1,343 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.content.Intent;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Bundle;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.tracking.BestFixTracker;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
+import com.megaache.xmslocationmanager.listener.FallbackListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.TimeToFirstFixListener;
+
+/**
+ * Runs {@linkplain XMSLocationProvider} and {@linkplain DefaultLocationProvider} at the same time on behalf of
+ * {@linkplain DispatcherLocationProvider}. The first location that satisfies the acceptance criteria wins,
+ * and the other provider is canceled right away. Until then the best location of both is kept by
+ * {@linkplain BestFixTracker}, to be delivered if none of them satisfies the criteria in time.
+ */
+class ProviderRace implements FallbackListener {
+
+    private static final String TAG = "ProviderRace";
+
+    private final DispatcherLocationProvider dispatcher;
+    private final DispatcherLocationSource source;
+
+    private final Racer xmsRacer = new Racer(ProviderType.XMS);
+    private final Racer defaultRacer = new Racer(ProviderType.DEFAULT_PROVIDERS);
+
+    private Racer winner;
+    private Racer bestFixOwner;
+    private BestFixTracker bestFixTracker;
+    private long startTime;
+    private boolean isOver = false;
+
+    ProviderRace(DispatcherLocationProvider dispatcher, DispatcherLocationSource source) {
+        this.dispatcher = dispatcher;
+        this.source = source;
+    }
+
+    void start() {
+        LogUtils.logI(TAG, "Starting XMS and default providers at the same time...");
+        startTime = source.elapsedRealtime();
+
+        DefaultProviderConfiguration configuration = dispatcher.getConfiguration().defaultProviderConfiguration();
+        bestFixTracker = new BestFixTracker(configuration.acceptableTimePeriod(), configuration.acceptableAccuracy(),
+              dispatcher.getClock());
+
+        xmsRacer.enter(source.createXMSLocationProvider(this));
+        defaultRacer.enter(source.createDefaultLocationProvider());
+
+        xmsRacer.provider.get();
+        defaultRacer.provider.get();
+    }
+
+    /**
+     * Returns true until a winner is chosen or the race is over
+     */
+    boolean isRunning() {
+        return !isOver && winner == null;
+    }
+
+    boolean isWaiting() {
+        return xmsRacer.isWaiting() || defaultRacer.isWaiting();
+    }
+
+    boolean isDialogShowing() {
+        return xmsRacer.provider.isDialogShowing() || defaultRacer.provider.isDialogShowing();
+    }
+
+    void onPause() {
+        xmsRacer.provider.onPause();
+        defaultRacer.provider.onPause();
+    }
+
+    void onResume() {
+        xmsRacer.provider.onResume();
+        defaultRacer.provider.onResume();
+    }
+
+    void onDestroy() {
+        isOver = true;
+        xmsRacer.provider.onDestroy();
+        defaultRacer.provider.onDestroy();
+    }
+
+    void cancel() {
+        isOver = true;
+        xmsRacer.provider.cancel();
+        defaultRacer.provider.cancel();
+    }
+
+    void onActivityResult(int requestCode, int resultCode, Intent data) {
+        xmsRacer.provider.onActivityResult(requestCode, resultCode, data);
+        defaultRacer.provider.onActivityResult(requestCode, resultCode, data);
+    }
+
+    /**
+     * Called when XMS wait period is passed but none of the providers could deliver a sufficient location.
+     * If there is any location received so far it is delivered, otherwise XMS is dropped out of the race
+     * and default providers continue on their own.
+     */
+    void onDeadline() {
+        if (!isRunning()) return;
+
+        if (bestFixTracker.best() != null) {
+            LogUtils.logI(TAG, "None of the providers delivered a sufficient location in time, "
+                  + "delivering the best one received so far...");
+            deliverBestFix();
+        } else {
+            LogUtils.logI(TAG, "XMS couldn't deliver any location in time, continuing only with default providers...");
+            declareWinner(defaultRacer);
+        }
+    }
+
+    @Override
+    public void onFallback() {
+        // XMSLocationProvider failed and wants to fallback, but default providers are already running
+        onRacerFailed(xmsRacer, FailType.XMS_NOT_AVAILABLE);
+    }
+
+    void onRacerLocation(Racer racer, Location location) {
+        if (isOver) return;
+
+        if (!racer.hasFix) {
+            racer.hasFix = true;
+            reportTimeToFirstFix(racer, location);
+        }
+
+        if (winner != null) {
+            if (racer == winner) deliver(location);
+            return;
+        }
+
+        if (isLocationSufficient(location)) {
+            LogUtils.logI(TAG, "{} delivered a sufficient location first, it wins the race.", racer.name());
+            declareWinner(racer);
+            deliver(location);
+            return;
+        }
+
+        if (bestFixTracker.offer(location, racer.providerTypeOf(location), false)) {
+            bestFixOwner = racer;
+            if (dispatcher.getConfiguration().isProgressive()) {
+                // Progressive mode needs every improvement right away, not only the winner
+                deliver(location);
+            }
+        }
+
+        if (!dispatcher.getConfiguration().keepTracking()) {
+            // Providers stop by themselves after delivering a location when it is not required to keep tracking
+            racer.isFinished = true;
+            onRacerFinished();
+        }
+    }
+
+    void onRacerFailed(Racer racer, @FailType int failType) {
+        if (isOver) return;
+
+        if (winner != null) {
+            if (racer == winner) {
+                isOver = true;
+                fail(failType);
+            }
+            return;
+        }
+
+        LogUtils.logI(TAG, "{} dropped out of the race.", racer.name());
+        racer.isFinished = true;
+        racer.failType = failType;
+        onRacerFinished();
+    }
+
+    private void onRacerFinished() {
+        if (!xmsRacer.isFinished || !defaultRacer.isFinished) return;
+
+        if (bestFixTracker.best() != null) {
+            LogUtils.logI(TAG, "None of the providers delivered a sufficient location, "
+                  + "delivering the best one received...");
+            deliverBestFix();
+        } else {
+            LogUtils.logI(TAG, "Both providers failed to deliver location.");
+            isOver = true;
+            dispatcher.onRaceFailed(defaultRacer.failType != FailType.UNKNOWN
+                  ? defaultRacer.failType : xmsRacer.failType);
+        }
+    }
+
+    private void deliverBestFix() {
+        Location bestFix = bestFixTracker.best();
+        float score = bestFixTracker.bestScore();
+        if (LogUtils.isLoggable(LogUtils.INFO)) {
+            LogUtils.logI(TAG, "Best location is from {} with score {}", bestFixOwner.name(), score);
+        }
+
+        declareWinner(bestFixOwner);
+        if (ForwardingLocationListener.isListening(dispatcher.getListener(), BestFixListener.class)) {
+            ((BestFixListener) dispatcher.getListener()).onBestFix(bestFix, score);
+        }
+        deliver(bestFix);
+    }
+
+    private void declareWinner(Racer racer) {
+        winner = racer;
+
+        Racer loser = racer == xmsRacer ? defaultRacer : xmsRacer;
+        LogUtils.logI(TAG, "Canceling {}...", loser.name());
+        loser.provider.cancel();
+
+        dispatcher.onRaceWon(racer.provider);
+    }
+
+    private boolean isLocationSufficient(Location location) {
+        DefaultProviderConfiguration configuration = dispatcher.getConfiguration().defaultProviderConfiguration();
+        return source.isLocationSufficient(location, configuration.acceptableTimePeriod(),
+              configuration.acceptableAccuracy());
+    }
+
+    private void reportTimeToFirstFix(Racer racer, Location location) {
+        long elapsed = source.elapsedRealtime() - startTime;
+        if (LogUtils.isLoggable(LogUtils.INFO)) {
+            LogUtils.logI(TAG, "{} delivered its first location in {} ms.", racer.name(), elapsed);
+        }
+
+        LocationListener listener = dispatcher.getListener();
+        if (ForwardingLocationListener.isListening(listener, TimeToFirstFixListener.class)) {
+            ((TimeToFirstFixListener) listener).onTimeToFirstFix(racer.providerTypeOf(location), elapsed);
+        }
+    }
+
+    private void deliver(Location location) {
+        if (dispatcher.getListener() != null) {
+            dispatcher.getListener().onLocationChanged(location);
+        }
+    }
+
+    private void fail(@FailType int failType) {
+        if (dispatcher.getListener() != null) {
+            dispatcher.getListener().onLocationFailed(failType);
+        }
+    }
+
+    // For test purposes
+    Racer xmsRacer() {
+        return xmsRacer;
+    }
+
+    // For test purposes
+    Racer defaultRacer() {
+        return defaultRacer;
+    }
+
+    /**
+     * Sits between one of the racing providers and the actual listener
+     */
+    class Racer implements LocationListener {
+
+        @ProviderType private final int providerType;
+
+        LocationProvider provider;
+        boolean hasFix = false;
+        boolean isFinished = false;
+        @FailType int failType = FailType.UNKNOWN;
+
+        Racer(@ProviderType int providerType) {
+            this.providerType = providerType;
+        }
+
+        void enter(LocationProvider provider) {
+            this.provider = provider;
+            provider.configure(dispatcher, this);
+        }
+
+        boolean isWaiting() {
+            return provider != null && provider.isWaiting();
+        }
+
+        String name() {
+            return providerType == ProviderType.XMS ? "XMS" : "Default providers";
+        }
+
+        @ProviderType
+        int providerTypeOf(Location location) {
+            if (providerType == ProviderType.XMS) return ProviderType.XMS;
+            if (LocationManager.GPS_PROVIDER.equals(location.getProvider())) return ProviderType.GPS;
+            if (LocationManager.NETWORK_PROVIDER.equals(location.getProvider())) return ProviderType.NETWORK;
+            return ProviderType.DEFAULT_PROVIDERS;
+        }
+
+        private boolean shouldForward() {
+            return !isOver && (winner == null || winner == this);
+        }
+
+        @Override
+        public void onProcessTypeChanged(@ProcessType int processType) {
+            if (shouldForward() && dispatcher.getListener() != null) {
+                dispatcher.getListener().onProcessTypeChanged(processType);
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Location location) {
+            onRacerLocation(this, location);
+        }
+
+        @Override
+        public void onLocationFailed(@FailType int type) {
+            onRacerFailed(this, type);
+        }
+
+        @Override
+        public void onPermissionGranted(boolean alreadyHadPermission) {
+            // Permission is handled by the manager before any provider starts
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {
+            if (shouldForward() && dispatcher.getListener() != null) {
+                dispatcher.getListener().onStatusChanged(provider, status, extras);
+            }
+        }
+
+        @Override
+        public void onProviderEnabled(String provider) {
+            if (shouldForward() && dispatcher.getListener() != null) {
+                dispatcher.getListener().onProviderEnabled(provider);
+            }
+        }
+
+        @Override
+        public void onProviderDisabled(String provider) {
+            if (shouldForward() && dispatcher.getListener() != null) {
+                dispatcher.getListener().onProviderDisabled(provider);
+            }
+        }
+    }
+}
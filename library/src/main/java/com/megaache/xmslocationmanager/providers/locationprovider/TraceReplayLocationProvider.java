@@ -0,0 +1,331 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.location.Location;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.XMSLocationManager;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.TraceFormat;
+import com.megaache.xmslocationmanager.helper.ExecutorLocationListener;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.trace.TraceFix;
+import com.megaache.xmslocationmanager.helper.trace.TraceReader;
+import com.megaache.xmslocationmanager.helper.trace.TraceReaders;
+import com.megaache.xmslocationmanager.helper.trace.TraceSource;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Replays the fixes of a GPX, NMEA or CSV trace instead of asking the device, to be set by
+ * {@linkplain XMSLocationManager.Builder#locationProvider(LocationProvider)}. The trace is read as it is replayed,
+ * so traces of any length can be replayed, and fixes are delivered as far apart as they are in the trace divided
+ * by {@linkplain Builder#speed(double)}, up to {@linkplain #MAX_SPEED} times faster than real time.
+ * Replay is paced by {@linkplain #getClock()}, so it only moves on when a virtual clock is moved.
+ *
+ * Every {@linkplain #get()} replays the trace from its beginning on its own thread, the first fix is delivered
+ * right away. Unless the configuration keeps tracking, replay stops after the first fix. Fixes are stamped with
+ * the time of their delivery on {@linkplain #getClock()}, so they are never in the future however fast the trace
+ * is replayed. Above {@linkplain #DEFAULT_SPEED}, fixes are closer in time than in the trace, so speeds calculated
+ * between them are that many times higher, while the speeds recorded in the trace are delivered as they are.
+ * Locations are delivered on the callback looper if one is set, otherwise on the replay thread, which makes
+ * the provider usable on the JVM.
+ */
+public class TraceReplayLocationProvider extends LocationProvider {
+
+    public static final String PROVIDER = "trace";
+    public static final double DEFAULT_SPEED = 1;
+    public static final double MAX_SPEED = 1000;
+
+    private static final String TAG = "TraceReplayLocationProvider";
+    // A virtual clock can be moved at any time, so waits are cut short to notice it
+    private static final long CLOCK_POLL_NANOS = 10L * 1000 * 1000;
+
+    private final TraceSource traceSource;
+    private final int format;
+    private final double speed;
+
+    @Nullable
+    private Replay replay;
+
+    private TraceReplayLocationProvider(Builder builder) {
+        this.traceSource = builder.traceSource;
+        this.format = builder.format;
+        this.speed = builder.speed;
+    }
+
+    // region Getters
+    @TraceFormat
+    public int format() {
+        return format;
+    }
+
+    public double speed() {
+        return speed;
+    }
+    // endregion
+
+    @Override
+    public boolean isDialogShowing() {
+        return false;
+    }
+
+    @Override
+    public void get() {
+        cancel();
+        setWaiting(true);
+
+        LocationListener listener = getListener();
+        if (listener != null) {
+            listener.onProcessTypeChanged(ProcessType.GETTING_LOCATION_FROM_CUSTOM_PROVIDER);
+        }
+
+        Looper callbackLooper = getCallbackLooper();
+        Executor executor = callbackLooper != null ? ExecutorLocationListener.looperExecutor(callbackLooper)
+              : new Executor() {
+                  @Override
+                  public void execute(@NonNull Runnable command) {
+                      command.run();
+                  }
+              };
+
+        replay = new Replay(executor, getConfiguration().keepTracking());
+        Thread thread = new Thread(replay, "XMSTraceReplay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void cancel() {
+        if (replay != null) {
+            LogUtils.logI(TAG, "Stopping trace replay...");
+            replay.cancel();
+            replay = null;
+        }
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        if (replay != null) replay.pause();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (replay != null) replay.resume();
+    }
+
+    @Override
+    public void onDestroy() {
+        cancel();
+        super.onDestroy();
+    }
+
+    // For test purposes
+    @NonNull
+    Location newLocation() {
+        return new Location(PROVIDER);
+    }
+
+    private Location toLocation(TraceFix fix) {
+        Location location = newLocation();
+        location.setLatitude(fix.latitude());
+        location.setLongitude(fix.longitude());
+        if (!Double.isNaN(fix.altitude())) location.setAltitude(fix.altitude());
+        if (!Double.isNaN(fix.accuracy())) location.setAccuracy((float) fix.accuracy());
+        if (!Double.isNaN(fix.speed())) location.setSpeed((float) fix.speed());
+        if (!Double.isNaN(fix.bearing())) location.setBearing((float) fix.bearing());
+        return location;
+    }
+
+    /**
+     * One replay of the trace, it is never restarted once canceled
+     */
+    private final class Replay implements Runnable {
+
+        private final Object lock = new Object();
+        private final Executor executor;
+        private final boolean keepTracking;
+
+        private volatile boolean isCanceled = false;
+        private boolean isPaused = false;
+        private long pausedAt;
+        private long pausedNanos;
+
+        Replay(Executor executor, boolean keepTracking) {
+            this.executor = executor;
+            this.keepTracking = keepTracking;
+        }
+
+        @Override
+        public void run() {
+            int delivered = 0;
+            try {
+                TraceReader reader = TraceReaders.create(format, traceSource.open());
+                try {
+                    TraceFix fix = new TraceFix();
+                    long startNanos = getClock().elapsedRealtimeNanos();
+                    long firstTraceTime = 0;
+                    long offset = 0;
+
+                    while (!isCanceled && reader.next(fix)) {
+                        if (delivered == 0) firstTraceTime = fix.time();
+                        // Fixes going back in time are delivered right away
+                        offset = Math.max(offset, fix.time() - firstTraceTime);
+
+                        if (!awaitUntil(startNanos + (long) (offset * 1e6 / speed))) return;
+                        deliver(toLocation(fix));
+                        delivered++;
+
+                        if (!keepTracking) return;
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                LogUtils.logE(TAG, "Trace cannot be read: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (isCanceled) return;
+
+            LogUtils.logI(TAG, "Trace replay finished with {} fixes.", delivered);
+            if (delivered == 0) fail();
+        }
+
+        void cancel() {
+            synchronized (lock) {
+                isCanceled = true;
+                lock.notifyAll();
+            }
+        }
+
+        void pause() {
+            synchronized (lock) {
+                if (isPaused) return;
+
+                isPaused = true;
+                pausedAt = getClock().elapsedRealtimeNanos();
+            }
+        }
+
+        void resume() {
+            synchronized (lock) {
+                if (!isPaused) return;
+
+                isPaused = false;
+                pausedNanos += getClock().elapsedRealtimeNanos() - pausedAt;
+                lock.notifyAll();
+            }
+        }
+
+        /**
+         * Waits until given elapsed realtime of the clock plus the time spent paused
+         *
+         * @return false if the replay is canceled meanwhile
+         */
+        private boolean awaitUntil(long elapsedRealtimeNanos) throws InterruptedException {
+            synchronized (lock) {
+                while (!isCanceled) {
+                    if (isPaused) {
+                        lock.wait();
+                        continue;
+                    }
+
+                    long remaining = elapsedRealtimeNanos + pausedNanos - getClock().elapsedRealtimeNanos();
+                    if (remaining <= 0) return true;
+
+                    long wait = Math.min(remaining, CLOCK_POLL_NANOS);
+                    lock.wait(wait / 1000000, (int) (wait % 1000000));
+                }
+                return false;
+            }
+        }
+
+        private void deliver(final Location location) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (isCanceled) return;
+
+                    location.setElapsedRealtimeNanos(getClock().elapsedRealtimeNanos());
+                    location.setTime(getClock().currentTimeMillis());
+                    setWaiting(false);
+                    LocationListener listener = getListener();
+                    if (listener != null) listener.onLocationChanged(location);
+                }
+            });
+        }
+
+        private void fail() {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (isCanceled) return;
+
+                    setWaiting(false);
+                    LocationListener listener = getListener();
+                    if (listener != null) listener.onLocationFailed(FailType.UNKNOWN);
+                }
+            });
+        }
+    }
+
+    public static class Builder {
+
+        private final TraceSource traceSource;
+        private int format;
+        private double speed = DEFAULT_SPEED;
+
+        /**
+         * Replays given file, its format is decided by its extension unless {@linkplain #format(int)} is set
+         */
+        public Builder(@NonNull File file) {
+            this.traceSource = TraceReaders.file(file);
+            this.format = TraceReaders.formatOf(file.getName());
+        }
+
+        /**
+         * Replays the trace opened by given source, in given format
+         */
+        public Builder(@NonNull TraceSource traceSource, @TraceFormat int format) {
+            this.traceSource = traceSource;
+            format(format);
+        }
+
+        public Builder format(@TraceFormat int format) {
+            if (format != TraceFormat.GPX && format != TraceFormat.NMEA && format != TraceFormat.CSV) {
+                throw new IllegalArgumentException("format must be one of TraceFormat values.");
+            }
+
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * How many times faster than real time the trace is replayed, between 0 and {@linkplain #MAX_SPEED}.
+         * Default is {@linkplain #DEFAULT_SPEED}
+         */
+        public Builder speed(double speed) {
+            if (speed <= 0 || speed > MAX_SPEED) {
+                throw new IllegalArgumentException("speed must be greater than 0 and at most " + MAX_SPEED + ".");
+            }
+
+            this.speed = speed;
+            return this;
+        }
+
+        public TraceReplayLocationProvider build() {
+            return new TraceReplayLocationProvider(this);
+        }
+    }
+}
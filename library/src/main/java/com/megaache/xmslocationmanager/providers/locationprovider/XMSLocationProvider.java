@@ -8,10 +8,18 @@ import android.location.Location;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.megaache.xmslocationmanager.XMSLocationRequest;
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.configuration.AdaptiveTrackingConfiguration;
 import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
 import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
 import com.megaache.xmslocationmanager.constants.RequestCode;
+import com.megaache.xmslocationmanager.constants.Stage;
 import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.helper.tracking.AdaptiveIntervalController;
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
 import com.megaache.xmslocationmanager.listener.FallbackListener;
 import com.megaache.xmslocationmanager.providers.locationprovider.XMSLocationSource.SourceListener;
 
@@ -25,14 +33,22 @@ import org.xms.g.tasks.OnCompleteListener;
 import org.xms.g.tasks.Task;
 
 import java.lang.ref.WeakReference;
+import java.util.List;
 
 public class XMSLocationProvider extends LocationProvider implements SourceListener {
 
+    private static final String TAG = "XMSLocationProvider";
+
+    // Progressive mode asks for a location every second at most, until it is accurate enough or the deadline passes
+    static final long PROGRESSIVE_INTERVAL = 1000;
+
     private final WeakReference<FallbackListener> fallbackListener;
 
     private boolean settingsDialogIsOn = false;
+    private boolean updatesRequested = false;
 
     private XMSLocationSource xmsLocationSource;
+    private AdaptiveIntervalController adaptiveIntervalController;
 
     XMSLocationProvider(FallbackListener fallbackListener) {
         this.fallbackListener = new WeakReference<>(fallbackListener);
@@ -81,7 +97,7 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
 
     @Override
     public void cancel() {
-        LogUtils.logI("Canceling GooglePlayServiceLocationProvider...");
+        LogUtils.logI(TAG, "Canceling GooglePlayServiceLocationProvider...");
         // not getSourceProvider, because we don't want to create if it doesn't already exist
         if (xmsLocationSource != null) {
             removeLocationUpdates();
@@ -96,10 +112,10 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
             settingsDialogIsOn = false;
 
             if (resultCode == Activity.RESULT_OK) {
-                LogUtils.logI("We got settings changed, requesting location update...");
+                LogUtils.logI(TAG, "We got settings changed, requesting location update...");
                 requestLocationUpdate();
             } else {
-                LogUtils.logI("User denied settingsApi dialog, XMS SettingsApi failing...");
+                LogUtils.logI(TAG, "User denied settingsApi dialog, XMS SettingsApi failing...");
                 settingsApiFail(FailType.XMS_SETTINGS_DENIED);
             }
         }
@@ -108,10 +124,10 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
 
     @Override
     public void onConnected() {
-        LogUtils.logI("Start request location updates.");
+        LogUtils.logI(TAG, "Start request location updates.");
 
         if (getConfiguration().xmsConfiguration().ignoreLastKnowLocation()) {
-            LogUtils.logI("Configuration requires to ignore last know location from XMS Api.");
+            LogUtils.logI(TAG, "Configuration requires to ignore last know location from XMS Api.");
 
             // Request fresh location
             requestLocation(false);
@@ -122,19 +138,26 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
     }
 
     public void onLocationChanged(@NonNull Location location) {
+        getStageTracer().stageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.XMS);
+
         if (getListener() != null) {
             getListener().onLocationChanged(location);
         }
 
-        // Set waiting as false because we got at least one, even though we keep tracking user's location
-        setWaiting(false);
+        onLocationDelivered();
+    }
 
-        if (!getConfiguration().keepTracking()) {
-            // If need to update location once, clear the listener to prevent multiple call
-            LogUtils.logI("We got location and no need to keep tracking, so location update is removed.");
+    /**
+     * Delivers the whole batch in a single call, when the listener implements {@linkplain BatchLocationListener}
+     */
+    void onLocationsChanged(@NonNull List<Location> locations) {
+        getStageTracer().stageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.XMS);
 
-            removeLocationUpdates();
+        if (ForwardingLocationListener.isListening(getListener(), BatchLocationListener.class)) {
+            ((BatchLocationListener) getListener()).onLocationsChanged(locations);
         }
+
+        onLocationDelivered();
     }
 
     @Override
@@ -144,16 +167,25 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
             return;
         }
 
-        for (Location location : locationResult.getLocations()) {
-            onLocationChanged(location);
+        List<Location> locations = locationResult.getLocations();
+        if (locations.isEmpty()) return;
+
+        if (ForwardingLocationListener.isListening(getListener(), BatchLocationListener.class)) {
+            onLocationsChanged(locations);
+        } else {
+            for (int i = 0; i < locations.size(); i++) {
+                onLocationChanged(locations.get(i));
+            }
         }
+
+        adaptInterval(locations);
     }
 
     @Override
     public void onSuccess(LocationSettingsResponse locationSettingsResponse) {
         // All location settings are satisfied. The client can initialize location
         // requests here.
-        LogUtils.logI("We got GPS, Wifi and/or Cell network providers enabled enough "
+        LogUtils.logI(TAG, "We got GPS, Wifi and/or Cell network providers enabled enough "
                 + "to receive location as we needed. Requesting location update...");
         requestLocationUpdate();
     }
@@ -164,14 +196,14 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
 
         if (statusCode == LocationSettingsStatusCodes.getSETTINGS_CHANGE_UNAVAILABLE()) {// Location settings are not satisfied.
             // However, we have no way to fix the settings so we won't show the dialog.
-            LogUtils.logE("Settings change is not available, SettingsApi failing...");
+            LogUtils.logE(TAG, "Settings change is not available, SettingsApi failing...");
             settingsApiFail(FailType.XMS_SETTINGS_DIALOG);
         } else if (statusCode == LocationSettingsStatusCodes.getRESOLUTION_REQUIRED()) {// Location settings are not satisfied. But could be fixed by showing the user
             // a dialog.
             // Cast to a resolvable exception.
             resolveSettingsApi(ResolvableApiException.dynamicCast(exception));
         } else {// for other CommonStatusCodes values
-            LogUtils.logE("LocationSettings failing, status: " + CommonStatusCodes.getStatusCodeString(statusCode));
+            LogUtils.logE(TAG, "LocationSettings failing, status: {}", CommonStatusCodes.getStatusCodeString(statusCode));
             settingsApiFail(FailType.XMS_SETTINGS_DENIED);
         }
     }
@@ -180,22 +212,23 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
         try {
             // Show the dialog by calling startResolutionForResult(),
             // and check the result in onActivityResult().
-            LogUtils.logI("We need settingsApi dialog to switch required settings on.");
+            LogUtils.logI(TAG, "We need settingsApi dialog to switch required settings on.");
             if (getActivity() != null) {
-                LogUtils.logI("Displaying the dialog...");
+                LogUtils.logI(TAG, "Displaying the dialog...");
                 getSourceProvider().startSettingsApiResolutionForResult(resolvable, getActivity());
                 settingsDialogIsOn = true;
             } else {
-                LogUtils.logI("Settings Api cannot show dialog if LocationManager is not running on an activity!");
+                LogUtils.logI(TAG, "Settings Api cannot show dialog if LocationManager is not running on an activity!");
                 settingsApiFail(FailType.VIEW_NOT_REQUIRED_TYPE);
             }
         } catch (IntentSender.SendIntentException e) {
-            LogUtils.logE("Error on displaying SettingsApi dialog, SettingsApi failing...");
+            LogUtils.logE(TAG, "Error on displaying SettingsApi dialog, SettingsApi failing...");
             settingsApiFail(FailType.XMS_SETTINGS_DIALOG);
         }
     }
 
     void checkLastKnowLocation() {
+        getStageTracer().stageStarted(Stage.GET_LAST_LOCATION, ProviderType.XMS);
         getSourceProvider().getLastLocation()
                 .addOnCompleteListener(new OnCompleteListener<Location>() {
                     @Override
@@ -211,15 +244,17 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
                          *
                          * GPS location can be null if GPS is switched off
                          */
+                        getStageTracer().stageFinished(Stage.GET_LAST_LOCATION, ProviderType.XMS);
+
                         if (task.isSuccessful() && task.getResult() != null) {
                             Location lastKnownLocation = task.getResult();
 
-                            LogUtils.logI("LastKnowLocation is available.");
+                            LogUtils.logI(TAG, "LastKnowLocation is available.");
                             onLocationChanged(lastKnownLocation);
 
                             requestLocation(true);
                         } else {
-                            LogUtils.logI("LastKnowLocation is not available.");
+                            LogUtils.logI(TAG, "LastKnowLocation is not available.");
 
                             requestLocation(false);
                         }
@@ -231,35 +266,102 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
         if (getConfiguration().keepTracking() || !locationIsAlreadyAvailable) {
             locationRequired();
         } else {
-            LogUtils.logI("We got location, no need to ask for location updates.");
+            LogUtils.logI(TAG, "We got location, no need to ask for location updates.");
         }
     }
 
     void locationRequired() {
-        LogUtils.logI("Ask for location update...");
+        LogUtils.logI(TAG, "Ask for location update...");
         if (getConfiguration().xmsConfiguration().askForSettingsApi()) {
-            LogUtils.logI("Asking for SettingsApi...");
+            LogUtils.logI(TAG, "Asking for SettingsApi...");
+            getStageTracer().stageStarted(Stage.CHECK_LOCATION_SETTINGS, ProviderType.XMS);
             getSourceProvider().checkLocationSettings();
         } else {
-            LogUtils.logI("SettingsApi is not enabled, requesting for location update...");
+            LogUtils.logI(TAG, "SettingsApi is not enabled, requesting for location update...");
             requestLocationUpdate();
         }
     }
 
     void requestLocationUpdate() {
+        // SettingsApi is done by now, whether it succeeded, user resolved it, or configuration ignores its failure
+        getStageTracer().stageFinished(Stage.CHECK_LOCATION_SETTINGS, ProviderType.XMS);
+
         if (getListener() != null) {
             getListener().onProcessTypeChanged(ProcessType.GETTING_LOCATION_FROM_XMS);
         }
 
-        LogUtils.logI("Requesting location update...");
-        getSourceProvider().requestLocationUpdate();
+        LogUtils.logI(TAG, "Requesting location update...");
+        getStageTracer().stageStarted(Stage.REQUEST_LOCATION_UPDATES, ProviderType.XMS);
+        if (getConfiguration().isProgressive()) {
+            // Source keeps the configured request, so it is used again by any request outside progressive mode
+            getSourceProvider().requestLocationUpdate(
+                  createProgressiveRequest(getConfiguration().xmsConfiguration().locationRequest()));
+        } else {
+            getSourceProvider().requestLocationUpdate();
+        }
+        updatesRequested = true;
+
+        if (getAdaptiveIntervalController() != null) {
+            getAdaptiveIntervalController().reset(getConfiguration().xmsConfiguration().locationRequest().getInterval());
+        }
+    }
+
+    /**
+     * When adaptive tracking is enabled, replaces the active request if the speed of the user requires
+     * a different interval. The request is replaced in place, so updates keep coming meanwhile.
+     */
+    void adaptInterval(List<Location> locations) {
+        AdaptiveIntervalController controller = getAdaptiveIntervalController();
+        // Updates might have been removed while delivering, it must not be requested again then
+        if (controller == null || !updatesRequested) return;
+
+        boolean changed = false;
+        for (int i = 0; i < locations.size(); i++) {
+            changed |= controller.onLocationChanged(locations.get(i));
+        }
+
+        if (changed) {
+            getSourceProvider().requestLocationUpdate(createAdaptedRequest(
+                  getConfiguration().xmsConfiguration().locationRequest(), controller.interval(),
+                  controller.isStationary()));
+        }
+    }
+
+    /**
+     * Copies given request with the new interval, lowering the priority while user is stationary
+     */
+    static XMSLocationRequest createAdaptedRequest(XMSLocationRequest request, long interval, boolean stationary) {
+        int priority = stationary && request.getPriority() == XMSLocationRequest.PRIORITY_HIGH_ACCURACY
+              ? XMSLocationRequest.PRIORITY_BALANCED_POWER_ACCURACY : request.getPriority();
+
+        return XMSLocationRequest.create()
+              .setPriority(priority)
+              .setInterval(interval)
+              .setFastestInterval(Math.min(request.getFastestInterval(), interval))
+              .setMaxWaitTime(request.getMaxWaitTime())
+              .setSmallestDisplacement(request.getSmallestDisplacement());
+    }
+
+    /**
+     * Copies given request with high accuracy and at most {@linkplain #PROGRESSIVE_INTERVAL}, without batching,
+     * since progressive mode is after an accurate location as soon as possible
+     */
+    static XMSLocationRequest createProgressiveRequest(XMSLocationRequest request) {
+        long interval = Math.min(request.getInterval(), PROGRESSIVE_INTERVAL);
+
+        return XMSLocationRequest.create()
+              .setPriority(XMSLocationRequest.PRIORITY_HIGH_ACCURACY)
+              .setInterval(interval)
+              .setFastestInterval(Math.min(request.getFastestInterval(), interval))
+              .setMaxWaitTime(0)
+              .setSmallestDisplacement(0);
     }
 
     void settingsApiFail(@FailType int failType) {
         if (getConfiguration().xmsConfiguration().failOnSettingsApiSuspended()) {
             failed(failType);
         } else {
-            LogUtils.logE("Even though settingsApi failed, configuration requires moving on. "
+            LogUtils.logE(TAG, "Even though settingsApi failed, configuration requires moving on. "
                     + "So requesting location update...");
 
             requestLocationUpdate();
@@ -267,7 +369,10 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
     }
 
     void failed(@FailType int type) {
+        getStageTracer().stageFinished(Stage.CHECK_LOCATION_SETTINGS, ProviderType.XMS);
+
         if (getConfiguration().xmsConfiguration().fallbackToDefault() && fallbackListener.get() != null) {
+            getStageTracer().fallback(ProviderType.XMS, ProviderType.DEFAULT_PROVIDERS, FallbackReason.FAILED);
             fallbackListener.get().onFallback();
         } else {
             if (getListener() != null) {
@@ -285,19 +390,43 @@ public class XMSLocationProvider extends LocationProvider implements SourceListe
     private XMSLocationSource getSourceProvider() {
         if (xmsLocationSource == null) {
             xmsLocationSource = new XMSLocationSource(getContext(),
-                    getConfiguration()  .xmsConfiguration().locationRequest(), this);
+                    getConfiguration()  .xmsConfiguration().locationRequest(),
+                    getConfiguration().shareSubscriptions(), getCallbackLooper(), getClock(), this);
         }
         return xmsLocationSource;
     }
 
+    @Nullable
+    private AdaptiveIntervalController getAdaptiveIntervalController() {
+        AdaptiveTrackingConfiguration configuration = getConfiguration().adaptiveTrackingConfiguration();
+        if (adaptiveIntervalController == null && configuration != null) {
+            adaptiveIntervalController = new AdaptiveIntervalController(configuration,
+                  getConfiguration().xmsConfiguration().locationRequest().getInterval());
+        }
+        return adaptiveIntervalController;
+    }
+
     private void removeLocationUpdates() {
-        LogUtils.logI("Stop location updates...");
+        LogUtils.logI(TAG, "Stop location updates...");
 
         // not getSourceProvider, because we don't want to create if it doesn't already exist
         if (xmsLocationSource != null) {
             setWaiting(false);
+            updatesRequested = false;
             xmsLocationSource.removeLocationUpdates();
         }
     }
 
-}
\ No newline at end of file
+    private void onLocationDelivered() {
+        // Set waiting as false because we got at least one, even though we keep tracking user's location
+        setWaiting(false);
+
+        if (!getConfiguration().keepTracking()) {
+            // If need to update location once, clear the listener to prevent multiple call
+            LogUtils.logI(TAG, "We got location and no need to keep tracking, so location update is removed.");
+
+            removeLocationUpdates();
+        }
+    }
+
+}
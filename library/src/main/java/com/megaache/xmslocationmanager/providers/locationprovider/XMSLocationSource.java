@@ -23,12 +23,17 @@ import org.xms.g.tasks.Task;
 
 import com.megaache.xmslocationmanager.XMSLocationRequest;
 import com.megaache.xmslocationmanager.constants.RequestCode;
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+import com.megaache.xmslocationmanager.helper.subscription.FusedSubscriptionHub;
 
 class XMSLocationSource extends LocationCallback {
 
     private final FusedLocationProviderClient fusedLocationProviderClient;
     private final XMSLocationRequest xmsLocationRequest;
     private final SourceListener sourceListener;
+    private final boolean shareSubscription;
+    private final Looper looper;
+    private final Clock clock;
     private Context context;
     interface SourceListener extends OnSuccessListener<LocationSettingsResponse>, OnFailureListener {
         void onConnected();
@@ -40,11 +45,23 @@ class XMSLocationSource extends LocationCallback {
         void onLocationResult(@Nullable LocationResult locationResult);
     }
 
-    XMSLocationSource(Context context, XMSLocationRequest xmsLocationRequest, SourceListener sourceListener) {
+    XMSLocationSource(Context context, XMSLocationRequest xmsLocationRequest, boolean shareSubscription,
+          @Nullable Looper looper, Clock clock, SourceListener sourceListener) {
+        this(context, xmsLocationRequest, shareSubscription, looper, clock, sourceListener,
+              LocationServices.getFusedLocationProviderClient(context));
+    }
+
+    // For test purposes
+    XMSLocationSource(Context context, XMSLocationRequest xmsLocationRequest, boolean shareSubscription,
+          @Nullable Looper looper, Clock clock, SourceListener sourceListener,
+          FusedLocationProviderClient fusedLocationProviderClient) {
         this.context = context;
+        this.shareSubscription = shareSubscription;
+        this.looper = looper;
+        this.clock = clock;
         this.sourceListener = sourceListener;
         this.xmsLocationRequest = xmsLocationRequest;
-        this.fusedLocationProviderClient = LocationServices.getFusedLocationProviderClient(context);
+        this.fusedLocationProviderClient = fusedLocationProviderClient;
     }
 
     void checkLocationSettings() {
@@ -72,15 +89,32 @@ class XMSLocationSource extends LocationCallback {
         resolvable.startResolutionForResult(activity, RequestCode.SETTINGS_API);
     }
 
-    @SuppressWarnings("ResourceType")
     void requestLocationUpdate() {
+        requestLocationUpdate(xmsLocationRequest);
+    }
+
+    /**
+     * Requests updates with given request instead of the configured one. Since the same callback is used,
+     * an active request is replaced rather than removed and added again, so no update is missed meanwhile.
+     */
+    @SuppressWarnings("ResourceType")
+    void requestLocationUpdate(@NonNull XMSLocationRequest request) {
         // This method is suited for the foreground use cases
-        fusedLocationProviderClient.requestLocationUpdates(xmsLocationRequest.getRequest(), this, Looper.myLooper());
+        Looper callbackLooper = looper != null ? looper : Looper.myLooper();
+        if (shareSubscription) {
+            FusedSubscriptionHub.getInstance().requestLocationUpdates(context, request, this, callbackLooper,
+                  clock);
+            return;
+        }
+        fusedLocationProviderClient.requestLocationUpdates(request.getRequest(), this, callbackLooper);
     }
 
-    @NonNull
-    Task<Void> removeLocationUpdates() {
-        return fusedLocationProviderClient.removeLocationUpdates(this);
+    void removeLocationUpdates() {
+        if (shareSubscription) {
+            FusedSubscriptionHub.getInstance().removeLocationUpdates(this);
+            return;
+        }
+        fusedLocationProviderClient.removeLocationUpdates(this);
     }
 
     @SuppressWarnings("ResourceType")
@@ -20,6 +20,8 @@ import java.lang.ref.WeakReference;
 
 public abstract class PermissionProvider {
 
+    private static final String TAG = "PermissionProvider";
+
     private WeakReference<ContextProcessor> weakContextProcessor;
     private WeakReference<PermissionListener> weakPermissionListener;
     private final String[] requiredPermissions;
@@ -96,7 +98,7 @@ public abstract class PermissionProvider {
      */
     public boolean hasPermission() {
         if (getContext() == null) {
-            LogUtils.logE("Couldn't check whether permissions are granted or not "
+            LogUtils.logE(TAG, "Couldn't check whether permissions are granted or not "
                   + "because of PermissionProvider doesn't contain any context.");
             return false;
         }
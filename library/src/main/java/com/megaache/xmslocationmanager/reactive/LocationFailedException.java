@@ -0,0 +1,22 @@
+package com.megaache.xmslocationmanager.reactive;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+/**
+ * Ends a location stream when {@linkplain LocationListener#onLocationFailed(int)} is called
+ */
+public class LocationFailedException extends Exception {
+
+    private final int type;
+
+    public LocationFailedException(@FailType int type) {
+        super("Getting location failed with type " + type);
+        this.type = type;
+    }
+
+    @FailType
+    public int type() {
+        return type;
+    }
+}
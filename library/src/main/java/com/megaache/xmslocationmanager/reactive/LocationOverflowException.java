@@ -0,0 +1,14 @@
+package com.megaache.xmslocationmanager.reactive;
+
+import com.megaache.xmslocationmanager.constants.OverflowStrategy;
+
+/**
+ * Ends a location stream with {@linkplain OverflowStrategy#BUFFER} once a location does not fit in the buffer,
+ * because the subscriber does not ask for locations as fast as they arrive
+ */
+public class LocationOverflowException extends IllegalStateException {
+
+    public LocationOverflowException(int bufferSize) {
+        super("Subscriber did not ask for locations as fast as they arrive, buffer of " + bufferSize + " is full");
+    }
+}
@@ -0,0 +1,385 @@
+package com.megaache.xmslocationmanager.reactive;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.megaache.xmslocationmanager.XMSLocationManager;
+import com.megaache.xmslocationmanager.base.SimpleLocationListener;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.OverflowStrategy;
+import com.megaache.xmslocationmanager.helper.LogUtils;
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
+import com.megaache.xmslocationmanager.listener.ProgressiveLocationListener;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes the locations of a manager as a {@linkplain Publisher}, so they are only delivered as fast as the
+ * subscriber asks for them. Locations arriving meanwhile are kept according to
+ * {@linkplain Builder#overflowStrategy(int)} in a bounded buffer, the provider callback never waits for
+ * the subscriber. {@linkplain com.megaache.xmslocationmanager.listener.LocationListener#onLocationFailed(int)}
+ * ends the stream with a {@linkplain LocationFailedException} after the buffered locations are delivered.
+ *
+ * The publisher takes one subscriber at a time. Manager is asked for location with
+ * {@linkplain XMSLocationManager#get()} once the subscriber first requests, on the requesting thread, and
+ * canceling the subscription cancels the manager. Unless the configuration keeps tracking, the stream completes
+ * after the first location, or after the final one in {@linkplain XMSLocationConfiguration#isProgressive()} mode.
+ * A new subscriber can subscribe once the stream of the previous one is over.
+ *
+ * Without an {@linkplain Builder#executor(Executor)}, the subscriber is called on the thread which delivers
+ * the location or requests more, so a slow subscriber still holds the callback thread while it has demand.
+ */
+public class LocationPublisher extends SimpleLocationListener
+      implements Publisher<Location>, BatchLocationListener, ProgressiveLocationListener {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16;
+
+    private static final String TAG = "LocationPublisher";
+
+    private final int overflowStrategy;
+    private final int bufferSize;
+    @Nullable
+    private final Executor executor;
+    private XMSLocationManager manager;
+
+    private final Object lock = new Object();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final ArrayDeque<Location> buffer;
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drainLoop();
+        }
+    };
+
+    // Guarded by lock
+    @Nullable
+    private LocationSubscription subscription;
+    private long droppedCount;
+
+    private LocationPublisher(Builder builder) {
+        this.overflowStrategy = builder.overflowStrategy;
+        this.bufferSize = builder.overflowStrategy == OverflowStrategy.LATEST ? 1 : builder.bufferSize;
+        this.executor = builder.executor;
+        this.buffer = new ArrayDeque<>(bufferSize);
+    }
+
+    // region Getters
+    /**
+     * Manager whose locations are published, its lifecycle methods such as {@linkplain XMSLocationManager#onPause()}
+     * are still to be called by the host
+     */
+    @NonNull
+    public XMSLocationManager manager() {
+        return manager;
+    }
+
+    @OverflowStrategy
+    public int overflowStrategy() {
+        return overflowStrategy;
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Number of locations dropped so far because the subscriber did not ask for them in time
+     */
+    public long droppedCount() {
+        synchronized (lock) {
+            return droppedCount;
+        }
+    }
+    // endregion
+
+    @Override
+    public void subscribe(@NonNull Subscriber<? super Location> subscriber) {
+        LocationSubscription newSubscription = new LocationSubscription(subscriber);
+        boolean isAccepted;
+        synchronized (lock) {
+            isAccepted = subscription == null;
+            if (isAccepted) {
+                buffer.clear();
+                subscription = newSubscription;
+            }
+        }
+
+        if (!isAccepted) {
+            newSubscription.isTerminated = true;
+            subscriber.onSubscribe(newSubscription);
+            subscriber.onError(new IllegalStateException("LocationPublisher allows only one subscriber at a time."));
+            return;
+        }
+
+        subscriber.onSubscribe(newSubscription);
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        synchronized (lock) {
+            if (offer(location) && isLastLocation(location)) subscription.isCompleted = true;
+        }
+        drain();
+    }
+
+    /**
+     * Final location is announced right before it is delivered, or once more after it is delivered when
+     * the deadline passes
+     */
+    @Override
+    public void onProgressiveLocation(@NonNull Location location, boolean isFinal) {
+        if (!isFinal) return;
+
+        synchronized (lock) {
+            if (subscription == null) return;
+
+            if (location == subscription.lastOffered) {
+                subscription.isCompleted = true;
+            } else {
+                subscription.finalLocation = location;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onLocationsChanged(@NonNull List<Location> locations) {
+        synchronized (lock) {
+            for (int i = 0; i < locations.size(); i++) {
+                if (!offer(locations.get(i))) break;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onLocationFailed(@FailType int type) {
+        synchronized (lock) {
+            if (subscription == null || subscription.error != null) return;
+            subscription.error = new LocationFailedException(type);
+        }
+        drain();
+    }
+
+    /**
+     * Returns true if the stream ends with given location, must be called with the lock held
+     */
+    private boolean isLastLocation(Location location) {
+        // Progressive mode keeps tracking until its final location
+        XMSLocationConfiguration configuration = manager.getConfiguration();
+        if (configuration.isProgressive()) return location == subscription.finalLocation;
+        return !configuration.keepTracking();
+    }
+
+    /**
+     * Keeps given location for the subscriber, must be called with the lock held
+     *
+     * @return false if the stream is over
+     */
+    private boolean offer(Location location) {
+        if (subscription == null || subscription.error != null || subscription.isCompleted) return false;
+
+        if (buffer.size() == bufferSize) {
+            if (overflowStrategy == OverflowStrategy.BUFFER) {
+                LogUtils.logW(TAG, "Buffer of {} locations is full, ending the stream.", bufferSize);
+                buffer.clear();
+                subscription.error = new LocationOverflowException(bufferSize);
+                return false;
+            }
+
+            buffer.pollFirst();
+            droppedCount++;
+        }
+        buffer.addLast(location);
+        subscription.lastOffered = location;
+        return true;
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) return;
+
+        if (executor != null) {
+            executor.execute(drainTask);
+        } else {
+            drainLoop();
+        }
+    }
+
+    /**
+     * Delivers buffered locations as long as there is demand, then the end of the stream. Only one thread runs it
+     * at a time, a drain requested meanwhile makes it run once more.
+     */
+    private void drainLoop() {
+        int missed = 1;
+        while (true) {
+            while (true) {
+                LocationSubscription current;
+                Location next = null;
+                boolean isEnding = false;
+
+                synchronized (lock) {
+                    current = subscription;
+                    if (current == null) {
+                        buffer.clear();
+                        break;
+                    }
+
+                    if (current.requested > 0 && !buffer.isEmpty()) {
+                        next = buffer.pollFirst();
+                        if (current.requested != Long.MAX_VALUE) current.requested--;
+                    } else if (buffer.isEmpty() && (current.error != null || current.isCompleted)) {
+                        isEnding = true;
+                        current.isTerminated = true;
+                        subscription = null;
+                    }
+                }
+
+                if (next != null) {
+                    current.subscriber.onNext(next);
+                } else if (isEnding) {
+                    if (current.error != null) {
+                        current.subscriber.onError(current.error);
+                        manager.cancel();
+                    } else {
+                        current.subscriber.onComplete();
+                    }
+                } else {
+                    break;
+                }
+            }
+
+            missed = drainRequests.addAndGet(-missed);
+            if (missed == 0) return;
+        }
+    }
+
+    private final class LocationSubscription implements Subscription {
+
+        final Subscriber<? super Location> subscriber;
+
+        // Guarded by lock
+        long requested;
+        boolean isStarted = false;
+        boolean isCompleted = false;
+        @Nullable
+        Throwable error;
+        @Nullable
+        Location lastOffered;
+        @Nullable
+        Location finalLocation;
+
+        // Set once no more signals are to be sent, a terminated subscription ignores requests
+        volatile boolean isTerminated = false;
+
+        LocationSubscription(Subscriber<? super Location> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long count) {
+            if (isTerminated) return;
+
+            boolean shouldStart = false;
+            synchronized (lock) {
+                if (subscription != this) return;
+
+                if (count <= 0) {
+                    buffer.clear();
+                    error = new IllegalArgumentException("count must be greater than 0.");
+                } else {
+                    requested = requested + count < 0 ? Long.MAX_VALUE : requested + count;
+                    shouldStart = !isStarted;
+                    isStarted = true;
+                }
+            }
+
+            if (shouldStart) {
+                LogUtils.logI(TAG, "Subscriber requested locations, starting the manager...");
+                manager.get();
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                if (subscription != this) return;
+
+                isTerminated = true;
+                subscription = null;
+                buffer.clear();
+            }
+
+            LogUtils.logI(TAG, "Subscription is canceled, canceling the manager...");
+            manager.cancel();
+        }
+    }
+
+    public static class Builder {
+
+        private final XMSLocationManager.Builder managerBuilder;
+        private int overflowStrategy = OverflowStrategy.LATEST;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private Executor executor;
+
+        /**
+         * Publisher is set as the listener of given builder, which must be configured apart from its listener
+         */
+        public Builder(@NonNull XMSLocationManager.Builder managerBuilder) {
+            this.managerBuilder = managerBuilder;
+        }
+
+        /**
+         * What happens to the locations arriving while the subscriber has no demand.
+         * Default is {@linkplain OverflowStrategy#LATEST}
+         */
+        public Builder overflowStrategy(@OverflowStrategy int overflowStrategy) {
+            if (overflowStrategy != OverflowStrategy.LATEST && overflowStrategy != OverflowStrategy.DROP_OLDEST
+                  && overflowStrategy != OverflowStrategy.BUFFER) {
+                throw new IllegalArgumentException("overflowStrategy must be one of OverflowStrategy values.");
+            }
+
+            this.overflowStrategy = overflowStrategy;
+            return this;
+        }
+
+        /**
+         * Maximum number of locations kept for the subscriber, ignored by {@linkplain OverflowStrategy#LATEST}.
+         * Default is {@linkplain #DEFAULT_BUFFER_SIZE}
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("bufferSize must be greater than 0.");
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Executor which the subscriber is called on, such as a single thread one, so the provider callback thread
+         * never runs the subscriber. Signals are never concurrent either way.
+         */
+        public Builder executor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public LocationPublisher build() {
+            LocationPublisher publisher = new LocationPublisher(this);
+            publisher.manager = managerBuilder.notify(publisher).build();
+            return publisher;
+        }
+    }
+}
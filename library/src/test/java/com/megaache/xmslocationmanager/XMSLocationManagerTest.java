@@ -3,10 +3,18 @@ package com.megaache.xmslocationmanager;
 import android.content.Intent;
 
 import com.megaache.xmslocationmanager.XMSLocationManager.Builder;
+import com.megaache.xmslocationmanager.configuration.FixIndexConfiguration;
+import com.megaache.xmslocationmanager.configuration.GeofencingConfiguration;
 import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
 import com.megaache.xmslocationmanager.constants.FailType;
 import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.helper.ExecutorLocationListener;
+import com.megaache.xmslocationmanager.helper.geofence.GeofenceLocationListener;
+import com.megaache.xmslocationmanager.helper.geohash.IndexingLocationListener;
+import com.megaache.xmslocationmanager.helper.history.HistoryLocationListener;
+import com.megaache.xmslocationmanager.helper.metrics.MetricsLocationListener;
 import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.MetricsListener;
 import com.megaache.xmslocationmanager.providers.locationprovider.DispatcherLocationProvider;
 import com.megaache.xmslocationmanager.providers.locationprovider.LocationProvider;
 import com.megaache.xmslocationmanager.providers.permissionprovider.PermissionProvider;
@@ -17,9 +25,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.concurrent.Executor;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -31,6 +42,7 @@ public class XMSLocationManagerTest {
 
     @Mock ContextProcessor contextProcessor;
     @Mock LocationListener locationListener;
+    @Mock MetricsListener metricsListener;
     @Mock LocationProvider locationProvider;
     @Mock PermissionProvider permissionProvider;
 
@@ -41,6 +53,8 @@ public class XMSLocationManagerTest {
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
         when(locationConfiguration.permissionConfiguration().permissionProvider()).thenReturn(permissionProvider);
+        when(locationConfiguration.geofencingConfiguration()).thenReturn(null);
+        when(locationConfiguration.fixIndexConfiguration()).thenReturn(null);
     }
 
     @Test public void buildingWithoutContextProcessorShouldThrowException() {
@@ -80,6 +94,98 @@ public class XMSLocationManagerTest {
         verify(locationProvider).configure(contextProcessor, locationConfiguration, locationListener);
     }
 
+    @Test public void buildingWithListenerExecutorShouldWrapListener() {
+        new Builder(contextProcessor)
+              .locationProvider(locationProvider)
+              .configuration(locationConfiguration)
+              .notify(locationListener)
+              .listenerExecutor(new Executor() {
+                  @Override
+                  public void execute(Runnable command) {
+                      command.run();
+                  }
+              })
+              .build();
+
+        ArgumentCaptor<LocationListener> captor = ArgumentCaptor.forClass(LocationListener.class);
+        verify(locationProvider).configure(eq(contextProcessor), eq(locationConfiguration), captor.capture());
+        assertThat(captor.getValue()).isExactlyInstanceOf(ExecutorLocationListener.class);
+
+        captor.getValue().onLocationFailed(FailType.TIMEOUT);
+        verify(locationListener).onLocationFailed(FailType.TIMEOUT);
+    }
+
+    @Test public void buildingWithMetricsListenerShouldSetStageMetricsAndWrapListener() {
+        XMSLocationManager locationManager = new Builder(contextProcessor)
+              .locationProvider(locationProvider)
+              .configuration(locationConfiguration)
+              .notify(locationListener)
+              .metricsListener(metricsListener)
+              .build();
+
+        assertThat(locationManager.getStageMetrics()).isNotNull();
+        verify(locationProvider).setStageTracer(locationManager.getStageMetrics());
+
+        ArgumentCaptor<LocationListener> captor = ArgumentCaptor.forClass(LocationListener.class);
+        verify(locationProvider).configure(eq(contextProcessor), eq(locationConfiguration), captor.capture());
+        assertThat(captor.getValue()).isExactlyInstanceOf(MetricsLocationListener.class);
+        assertThat(((MetricsLocationListener) captor.getValue()).delegate()).isSameAs(locationListener);
+    }
+
+    @Test public void buildingWithoutMetricsListenerShouldNotKeepStageMetrics() {
+        XMSLocationManager locationManager = buildLocationManager();
+
+        assertThat(locationManager.getStageMetrics()).isNull();
+    }
+
+    @Test public void buildingWithFixHistoryShouldKeepHistoryAndWrapListener() {
+        when(locationConfiguration.useFixHistory()).thenReturn(true);
+        when(locationConfiguration.fixHistoryCapacity()).thenReturn(8);
+
+        XMSLocationManager locationManager = buildLocationManager();
+
+        assertThat(locationManager.getFixHistory()).isNotNull();
+        assertThat(locationManager.getFixHistory().capacity()).isEqualTo(8);
+        ArgumentCaptor<LocationListener> captor = ArgumentCaptor.forClass(LocationListener.class);
+        verify(locationProvider).configure(eq(contextProcessor), eq(locationConfiguration), captor.capture());
+        assertThat(captor.getValue()).isExactlyInstanceOf(HistoryLocationListener.class);
+    }
+
+    @Test public void buildingWithoutFixHistoryShouldNotKeepHistory() {
+        XMSLocationManager locationManager = buildLocationManager();
+
+        assertThat(locationManager.getFixHistory()).isNull();
+    }
+
+    @Test public void buildingWithGeofencingShouldKeepEngineAndWrapListener() {
+        when(locationConfiguration.geofencingConfiguration())
+              .thenReturn(new GeofencingConfiguration.Builder().build());
+
+        XMSLocationManager locationManager = buildLocationManager();
+
+        assertThat(locationManager.getGeofenceEngine()).isNotNull();
+        ArgumentCaptor<LocationListener> captor = ArgumentCaptor.forClass(LocationListener.class);
+        verify(locationProvider).configure(eq(contextProcessor), eq(locationConfiguration), captor.capture());
+        assertThat(captor.getValue()).isExactlyInstanceOf(GeofenceLocationListener.class);
+    }
+
+    @Test public void buildingWithoutGeofencingShouldNotKeepEngine() {
+        XMSLocationManager locationManager = buildLocationManager();
+
+        assertThat(locationManager.getGeofenceEngine()).isNull();
+    }
+
+    @Test public void buildingWithFixIndexShouldKeepIndexAndWrapListener() {
+        when(locationConfiguration.fixIndexConfiguration()).thenReturn(new FixIndexConfiguration.Builder().build());
+
+        XMSLocationManager locationManager = buildLocationManager();
+
+        assertThat(locationManager.getFixIndex()).isNotNull();
+        ArgumentCaptor<LocationListener> captor = ArgumentCaptor.forClass(LocationListener.class);
+        verify(locationProvider).configure(eq(contextProcessor), eq(locationConfiguration), captor.capture());
+        assertThat(captor.getValue()).isExactlyInstanceOf(IndexingLocationListener.class);
+    }
+
     @Test public void buildingShouldSetContextProcessorAndListenerToPermissionListener() {
         XMSLocationManager locationManager = buildLocationManager();
 
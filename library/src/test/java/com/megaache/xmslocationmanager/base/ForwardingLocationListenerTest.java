@@ -0,0 +1,70 @@
+package com.megaache.xmslocationmanager.base;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.withSettings;
+
+public class ForwardingLocationListenerTest {
+
+    @Mock LocationListener locationListener;
+    @Mock Location location;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void isListeningShouldFollowChainToActualListener() {
+        LocationListener chain = new ForwardingLocationListener(new ForwardingLocationListener(locationListener));
+
+        assertThat(chain).isInstanceOf(BatchLocationListener.class);
+        assertThat(ForwardingLocationListener.isListening(chain, BatchLocationListener.class)).isFalse();
+        assertThat(ForwardingLocationListener.isListening(chain, BestFixListener.class)).isFalse();
+    }
+
+    @Test
+    public void isListeningShouldReturnTrueWhenActualListenerImplementsIt() {
+        LocationListener listener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BatchLocationListener.class));
+        LocationListener chain = new ForwardingLocationListener(new ForwardingLocationListener(listener));
+
+        assertThat(ForwardingLocationListener.isListening(chain, BatchLocationListener.class)).isTrue();
+        assertThat(ForwardingLocationListener.isListening(listener, BatchLocationListener.class)).isTrue();
+        assertThat(ForwardingLocationListener.isListening(null, BatchLocationListener.class)).isFalse();
+    }
+
+    @Test
+    public void batchShouldBeForwardedWhenDelegateSupportsIt() {
+        LocationListener listener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BatchLocationListener.class));
+        List<Location> locations = Arrays.asList(location, location);
+
+        new ForwardingLocationListener(listener).onLocationsChanged(locations);
+
+        verify((BatchLocationListener) listener).onLocationsChanged(locations);
+    }
+
+    @Test
+    public void bestFixShouldBeIgnoredWhenDelegateDoesNotSupportIt() {
+        new ForwardingLocationListener(locationListener).onBestFix(location, 1);
+
+        verifyZeroInteractions(locationListener);
+    }
+}
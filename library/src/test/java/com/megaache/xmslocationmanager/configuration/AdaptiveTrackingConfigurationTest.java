@@ -0,0 +1,72 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveTrackingConfigurationTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Test public void checkDefaultValues() {
+        AdaptiveTrackingConfiguration configuration = new AdaptiveTrackingConfiguration.Builder().build();
+        assertThat(configuration.minInterval()).isEqualTo(5 * 1000);
+        assertThat(configuration.maxInterval()).isEqualTo(5 * 60 * 1000);
+        assertThat(configuration.sampleDistance()).isEqualTo(50);
+        assertThat(configuration.stationarySpeed()).isEqualTo(0.5f);
+    }
+
+    @Test public void whenMinIntervalIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("minInterval"));
+
+        new AdaptiveTrackingConfiguration.Builder().minInterval(0);
+    }
+
+    @Test public void whenMaxIntervalIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("maxInterval"));
+
+        new AdaptiveTrackingConfiguration.Builder().maxInterval(0);
+    }
+
+    @Test public void whenSampleDistanceIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("sampleDistance"));
+
+        new AdaptiveTrackingConfiguration.Builder().sampleDistance(0);
+    }
+
+    @Test public void whenStationarySpeedIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("stationarySpeed"));
+
+        new AdaptiveTrackingConfiguration.Builder().stationarySpeed(-1);
+    }
+
+    @Test public void whenMinIntervalIsGreaterThanMaxIntervalBuildShouldThrowException() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("minInterval"));
+
+        new AdaptiveTrackingConfiguration.Builder().minInterval(10).maxInterval(5).build();
+    }
+
+    @Test public void clonesShouldHaveSameValues() {
+        AdaptiveTrackingConfiguration configuration = new AdaptiveTrackingConfiguration.Builder()
+              .minInterval(1000)
+              .maxInterval(2000)
+              .sampleDistance(10)
+              .stationarySpeed(1)
+              .build();
+
+        AdaptiveTrackingConfiguration clone = configuration.newBuilder().build();
+
+        assertThat(clone.minInterval()).isEqualTo(1000);
+        assertThat(clone.maxInterval()).isEqualTo(2000);
+        assertThat(clone.sampleDistance()).isEqualTo(10);
+        assertThat(clone.stationarySpeed()).isEqualTo(1);
+    }
+}
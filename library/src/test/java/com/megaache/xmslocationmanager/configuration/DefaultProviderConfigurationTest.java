@@ -28,6 +28,10 @@ public class DefaultProviderConfigurationTest {
         assertThat(configuration.gpsWaitPeriod()).isEqualTo(20 * SECOND);
         assertThat(configuration.networkWaitPeriod()).isEqualTo(20 * SECOND);
         assertThat(configuration.gpsDialogProvider()).isNull();
+        assertThat(configuration.deliverBestFixOnTimeout()).isTrue();
+        assertThat(configuration.minimumFixScore()).isEqualTo(0.1f);
+        assertThat(configuration.concurrentProviders()).isFalse();
+        assertThat(configuration.gpsGracePeriod()).isEqualTo(0);
     }
 
     @Test public void requiredTimeIntervalShouldThrowExceptionWhenNegative() {
@@ -58,6 +62,27 @@ public class DefaultProviderConfigurationTest {
         new DefaultProviderConfiguration.Builder().acceptableTimePeriod(-1);
     }
 
+    @Test public void minimumFixScoreShouldThrowExceptionWhenNegative() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("minimumFixScore"));
+
+        new DefaultProviderConfiguration.Builder().minimumFixScore(-0.1f);
+    }
+
+    @Test public void minimumFixScoreShouldThrowExceptionWhenGreaterThanOne() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("minimumFixScore"));
+
+        new DefaultProviderConfiguration.Builder().minimumFixScore(1.1f);
+    }
+
+    @Test public void gpsGracePeriodShouldThrowExceptionWhenNegative() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("gpsGracePeriod"));
+
+        new DefaultProviderConfiguration.Builder().gpsGracePeriod(-1);
+    }
+
     @Test public void setWaitPeriodShouldThrowExceptionWhenNetworkWaitPeriodIsNegative() {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage(CoreMatchers.startsWith("waitPeriod"));
@@ -145,6 +170,8 @@ public class DefaultProviderConfigurationTest {
     @Test public void clonesShouldShareSameInstances() {
         DefaultProviderConfiguration configuration = new DefaultProviderConfiguration.Builder()
               .gpsDialogProvider(new MockDialogProvider("some_text"))
+              .concurrentProviders(true)
+              .gpsGracePeriod(3 * SECOND)
               .build();
 
         DefaultProviderConfiguration firstClone = configuration.newBuilder().build();
@@ -172,6 +199,18 @@ public class DefaultProviderConfigurationTest {
               .isEqualTo(secondClone.gpsDialogProvider())
               .isNotNull()
               .isExactlyInstanceOf(MockDialogProvider.class);
+        assertThat(firstClone.deliverBestFixOnTimeout())
+              .isEqualTo(secondClone.deliverBestFixOnTimeout())
+              .isTrue();
+        assertThat(firstClone.minimumFixScore())
+              .isEqualTo(secondClone.minimumFixScore())
+              .isEqualTo(0.1f);
+        assertThat(firstClone.concurrentProviders())
+              .isEqualTo(secondClone.concurrentProviders())
+              .isTrue();
+        assertThat(firstClone.gpsGracePeriod())
+              .isEqualTo(secondClone.gpsGracePeriod())
+              .isEqualTo(3 * SECOND);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FixIndexConfigurationTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Test public void checkDefaultValues() {
+        FixIndexConfiguration configuration = new FixIndexConfiguration.Builder().build();
+        assertThat(configuration.precision()).isEqualTo(35);
+        assertThat(configuration.bucketDuration()).isEqualTo(60 * 60 * 1000);
+        assertThat(configuration.retention()).isEqualTo(7L * 24 * 60 * 60 * 1000);
+    }
+
+    @Test public void whenPrecisionIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("precision"));
+
+        new FixIndexConfiguration.Builder().precision(0);
+    }
+
+    @Test public void whenPrecisionIsTooLargeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("precision"));
+
+        new FixIndexConfiguration.Builder().precision(61);
+    }
+
+    @Test public void whenBucketDurationIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("bucketDuration"));
+
+        new FixIndexConfiguration.Builder().bucketDuration(0);
+    }
+
+    @Test public void whenRetentionIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("retention"));
+
+        new FixIndexConfiguration.Builder().retention(-1);
+    }
+
+    @Test public void clonesShouldShareSameValues() {
+        FixIndexConfiguration configuration = new FixIndexConfiguration.Builder()
+              .precision(25)
+              .bucketDuration(1000)
+              .retention(0)
+              .build();
+
+        FixIndexConfiguration clone = configuration.newBuilder().build();
+
+        assertThat(clone.precision()).isEqualTo(25);
+        assertThat(clone.bucketDuration()).isEqualTo(1000);
+        assertThat(clone.retention()).isZero();
+    }
+}
@@ -0,0 +1,62 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeofencingConfigurationTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Test public void checkDefaultValues() {
+        GeofencingConfiguration configuration = new GeofencingConfiguration.Builder().build();
+        assertThat(configuration.cellSize()).isEqualTo(0.01);
+        assertThat(configuration.dwellTime()).isEqualTo(0);
+        assertThat(configuration.maxHysteresis()).isEqualTo(100);
+    }
+
+    @Test public void whenCellSizeIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("cellSize"));
+
+        new GeofencingConfiguration.Builder().cellSize(0);
+    }
+
+    @Test public void whenCellSizeIsTooLargeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("cellSize"));
+
+        new GeofencingConfiguration.Builder().cellSize(90);
+    }
+
+    @Test public void whenDwellTimeIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("dwellTime"));
+
+        new GeofencingConfiguration.Builder().dwellTime(-1);
+    }
+
+    @Test public void whenMaxHysteresisIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("maxHysteresis"));
+
+        new GeofencingConfiguration.Builder().maxHysteresis(-1);
+    }
+
+    @Test public void clonesShouldShareSameValues() {
+        GeofencingConfiguration configuration = new GeofencingConfiguration.Builder()
+              .cellSize(0.1)
+              .dwellTime(1000)
+              .maxHysteresis(20)
+              .build();
+
+        GeofencingConfiguration clone = configuration.newBuilder().build();
+
+        assertThat(clone.cellSize()).isEqualTo(0.1);
+        assertThat(clone.dwellTime()).isEqualTo(1000);
+        assertThat(clone.maxHysteresis()).isEqualTo(20);
+    }
+}
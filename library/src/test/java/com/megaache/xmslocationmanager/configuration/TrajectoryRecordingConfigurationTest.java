@@ -0,0 +1,58 @@
+package com.megaache.xmslocationmanager.configuration;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrajectoryRecordingConfigurationTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Test public void checkDefaultValues() {
+        TrajectoryRecordingConfiguration configuration = new TrajectoryRecordingConfiguration.Builder().build();
+        assertThat(configuration.directory()).isNull();
+        assertThat(configuration.segmentCapacity()).isEqualTo(60 * 60);
+        assertThat(configuration.maxSegments()).isEqualTo(0);
+    }
+
+    @Test public void whenSegmentCapacityIsNotPositiveShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("segmentCapacity"));
+
+        new TrajectoryRecordingConfiguration.Builder().segmentCapacity(0);
+    }
+
+    @Test public void whenSegmentCapacityIsTooLargeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("segmentCapacity"));
+
+        new TrajectoryRecordingConfiguration.Builder().segmentCapacity(Integer.MAX_VALUE);
+    }
+
+    @Test public void whenMaxSegmentsIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("maxSegments"));
+
+        new TrajectoryRecordingConfiguration.Builder().maxSegments(-1);
+    }
+
+    @Test public void clonesShouldShareSameValues() {
+        File directory = new File("trajectory");
+        TrajectoryRecordingConfiguration configuration = new TrajectoryRecordingConfiguration.Builder()
+              .directory(directory)
+              .segmentCapacity(100)
+              .maxSegments(3)
+              .build();
+
+        TrajectoryRecordingConfiguration clone = configuration.newBuilder().build();
+
+        assertThat(clone.directory()).isSameAs(directory);
+        assertThat(clone.segmentCapacity()).isEqualTo(100);
+        assertThat(clone.maxSegments()).isEqualTo(3);
+    }
+}
@@ -26,6 +26,8 @@ public class XMSConfigurationTest {
         assertThat(configuration.failOnSettingsApiSuspended()).isFalse();
         assertThat(configuration.ignoreLastKnowLocation()).isFalse();
         assertThat(configuration.xmsWaitPeriod()).isEqualTo(20 * SECOND);
+        assertThat(configuration.maxWaitTime()).isEqualTo(0);
+        assertThat(configuration.batchLocations()).isFalse();
     }
 
     @Test public void setWaitPeriodShouldThrowExceptionWhenXmsWaitPeriodIsSet() {
@@ -35,6 +37,13 @@ public class XMSConfigurationTest {
         new XMSConfiguration.Builder().setWaitPeriod(-1);
     }
 
+    @Test public void setMaxWaitTimeShouldThrowExceptionWhenMaxWaitTimeIsNegative() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("maxWaitTime"));
+
+        new XMSConfiguration.Builder().setMaxWaitTime(-1);
+    }
+
     @Test public void clonesShouldShareSameInstances() {
         XMSConfiguration configuration = new Builder().build();
 
@@ -25,6 +25,113 @@ public class XMSLocationConfigurationTest {
     @Test public void checkDefaultValues() {
         XMSLocationConfiguration configuration = getConfiguration();
         assertThat(configuration.keepTracking()).isFalse();
+        assertThat(configuration.raceProviders()).isFalse();
+        assertThat(configuration.shareSubscriptions()).isFalse();
+        assertThat(configuration.useWarmStartCache()).isFalse();
+        assertThat(configuration.useFixHistory()).isFalse();
+        assertThat(configuration.adaptiveTrackingConfiguration()).isNull();
+        assertThat(configuration.isProgressive()).isFalse();
+        assertThat(configuration.trajectoryRecordingConfiguration()).isNull();
+        assertThat(configuration.geofencingConfiguration()).isNull();
+        assertThat(configuration.fixIndexConfiguration()).isNull();
+    }
+
+    @Test public void whenWarmStartCacheIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("warmStartCache"));
+
+        new XMSLocationConfiguration.Builder().warmStartCache(-1);
+    }
+
+    @Test public void whenFixHistoryIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("fixHistory"));
+
+        new XMSLocationConfiguration.Builder().fixHistory(-1);
+    }
+
+    @Test public void whenRaceProvidersIsSetWithoutBothProviderConfigurationsBuildShouldThrowException() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("raceProviders"));
+
+        new XMSLocationConfiguration.Builder()
+              .useXMS(new XMSConfiguration.Builder().build())
+              .raceProviders(true)
+              .build();
+    }
+
+    @Test public void whenAdaptiveTrackingIsSetWithoutKeepTrackingBuildShouldThrowException() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("adaptiveTracking"));
+
+        new XMSLocationConfiguration.Builder()
+              .useDefaultProviders(new DefaultProviderConfiguration.Builder().build())
+              .adaptiveTracking(new AdaptiveTrackingConfiguration.Builder().build())
+              .build();
+    }
+
+    @Test public void whenRecordTrajectoryIsSetWithoutKeepTrackingBuildShouldThrowException() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("recordTrajectory"));
+
+        new XMSLocationConfiguration.Builder()
+              .useDefaultProviders(new DefaultProviderConfiguration.Builder().build())
+              .recordTrajectory(new TrajectoryRecordingConfiguration.Builder().build())
+              .build();
+    }
+
+    @Test public void recordTrajectoryShouldBeKeptByClones() {
+        TrajectoryRecordingConfiguration recordingConfiguration =
+              new TrajectoryRecordingConfiguration.Builder().build();
+        XMSLocationConfiguration configuration = new XMSLocationConfiguration.Builder()
+              .useDefaultProviders(new DefaultProviderConfiguration.Builder().build())
+              .keepTracking(true)
+              .recordTrajectory(recordingConfiguration)
+              .build();
+
+        assertThat(configuration.newBuilder().build().trajectoryRecordingConfiguration())
+              .isSameAs(recordingConfiguration);
+    }
+
+    @Test public void whenProgressiveDeadlineIsNegativeShouldThrowException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("progressive"));
+
+        new XMSLocationConfiguration.Builder().progressive(-1);
+    }
+
+    @Test public void whenProgressiveIsSetWithKeepTrackingBuildShouldThrowException() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("progressive"));
+
+        new XMSLocationConfiguration.Builder()
+              .useDefaultProviders(new DefaultProviderConfiguration.Builder().build())
+              .keepTracking(true)
+              .progressive(1000)
+              .build();
+    }
+
+    @Test public void whenProgressiveIsSetWithoutDefaultProviderConfigurationBuildShouldThrowException() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("progressive"));
+
+        new XMSLocationConfiguration.Builder()
+              .useXMS(new XMSConfiguration.Builder().build())
+              .progressive(1000)
+              .build();
+    }
+
+    @Test public void progressiveConfigurationShouldKeepTracking() {
+        XMSLocationConfiguration configuration = getConfiguration().newBuilder()
+              .progressive(1000)
+              .build();
+
+        assertThat(configuration.isProgressive()).isTrue();
+        assertThat(configuration.progressiveDeadline()).isEqualTo(1000);
+        assertThat(configuration.keepTracking()).isTrue();
+
+        // Cloning shouldn't turn it into a keepTracking configuration
+        assertThat(configuration.newBuilder().build().isProgressive()).isTrue();
     }
 
     @Test public void whenNoPermissionConfigurationIsSetDefaultConfigurationShouldContainStubProvider() {
@@ -45,6 +152,18 @@ public class XMSLocationConfigurationTest {
         assertThat(firstClone.keepTracking())
               .isEqualTo(secondClone.keepTracking())
               .isFalse();
+        assertThat(firstClone.raceProviders())
+              .isEqualTo(secondClone.raceProviders())
+              .isFalse();
+        assertThat(firstClone.shareSubscriptions())
+              .isEqualTo(secondClone.shareSubscriptions())
+              .isFalse();
+        assertThat(firstClone.warmStartCacheSize())
+              .isEqualTo(secondClone.warmStartCacheSize())
+              .isZero();
+        assertThat(firstClone.fixHistoryCapacity())
+              .isEqualTo(secondClone.fixHistoryCapacity())
+              .isZero();
         assertThat(firstClone.permissionConfiguration())
               .isEqualTo(secondClone.permissionConfiguration())
               .isNotNull();
@@ -0,0 +1,142 @@
+package com.megaache.xmslocationmanager.helper;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.constants.GeofenceTransition;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.helper.geofence.Geofence;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.ProgressiveLocationListener;
+import com.megaache.xmslocationmanager.listener.TimeToFirstFixListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.withSettings;
+
+public class ExecutorLocationListenerTest {
+
+    @Mock LocationListener locationListener;
+    @Mock Location location;
+
+    private final List<Runnable> commands = new ArrayList<>();
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            commands.add(command);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void callbacksShouldOnlyReachListenerOnExecutor() {
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(locationListener, executor);
+
+        executorLocationListener.onLocationChanged(location);
+        executorLocationListener.onProviderDisabled("gps");
+        verifyZeroInteractions(locationListener);
+
+        runCommands();
+        verify(locationListener).onLocationChanged(location);
+        verify(locationListener).onProviderDisabled("gps");
+    }
+
+    @Test
+    public void timeToFirstFixShouldBeForwardedWhenListenerSupportsIt() {
+        LocationListener listener = mock(LocationListener.class,
+              withSettings().extraInterfaces(TimeToFirstFixListener.class));
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(listener, executor);
+
+        executorLocationListener.onTimeToFirstFix(ProviderType.GPS, 100);
+        runCommands();
+
+        verify((TimeToFirstFixListener) listener).onTimeToFirstFix(ProviderType.GPS, 100);
+    }
+
+    @Test
+    public void timeToFirstFixShouldBeIgnoredWhenListenerDoesNotSupportIt() {
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(locationListener, executor);
+
+        executorLocationListener.onTimeToFirstFix(ProviderType.GPS, 100);
+        runCommands();
+
+        verifyZeroInteractions(locationListener);
+    }
+
+    @Test
+    public void bestFixShouldBeForwardedOnExecutorWhenListenerSupportsIt() {
+        LocationListener listener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BestFixListener.class));
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(listener, executor);
+
+        executorLocationListener.onBestFix(location, 0.5f);
+        verifyZeroInteractions(listener);
+        runCommands();
+
+        verify((BestFixListener) listener).onBestFix(location, 0.5f);
+    }
+
+    @Test
+    public void progressiveLocationShouldBeForwardedOnExecutorWhenListenerSupportsIt() {
+        LocationListener listener = mock(LocationListener.class,
+              withSettings().extraInterfaces(ProgressiveLocationListener.class));
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(listener, executor);
+
+        executorLocationListener.onProgressiveLocation(location, true);
+        verifyZeroInteractions(listener);
+        runCommands();
+
+        verify((ProgressiveLocationListener) listener).onProgressiveLocation(location, true);
+    }
+
+    @Test
+    public void geofenceTransitionShouldBeForwardedOnExecutorWhenListenerSupportsIt() {
+        LocationListener listener = mock(LocationListener.class,
+              withSettings().extraInterfaces(GeofenceListener.class));
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(listener, executor);
+        Geofence geofence = Geofence.circle("home", 41, 29, 100);
+
+        executorLocationListener.onGeofenceTransition(geofence, GeofenceTransition.ENTER, location);
+        verifyZeroInteractions(listener);
+        runCommands();
+
+        verify((GeofenceListener) listener).onGeofenceTransition(geofence, GeofenceTransition.ENTER, location);
+    }
+
+    @Test
+    public void batchShouldBeDeliveredOneByOneWhenListenerDoesNotSupportIt() {
+        ExecutorLocationListener executorLocationListener = new ExecutorLocationListener(locationListener, executor);
+        List<Location> locations = new ArrayList<>();
+        locations.add(location);
+        locations.add(location);
+
+        executorLocationListener.onLocationsChanged(locations);
+        locations.clear();
+        runCommands();
+
+        verify(locationListener, times(2)).onLocationChanged(location);
+    }
+
+    private void runCommands() {
+        for (Runnable command : commands) {
+            command.run();
+        }
+        commands.clear();
+    }
+}
@@ -0,0 +1,89 @@
+package com.megaache.xmslocationmanager.helper;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LocationUtilsTest {
+
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+    private static final double METERS_PER_DEGREE = 6371009 * Math.PI / 180;
+
+    @Test
+    public void distanceShouldBeHaversineDistance() {
+        // One degree of latitude
+        assertThat(LocationUtils.distance(0, 0, 1, 0)).isCloseTo(METERS_PER_DEGREE, within(0.01));
+        assertThat(LocationUtils.distance(LATITUDE, LONGITUDE, LATITUDE, LONGITUDE)).isEqualTo(0);
+    }
+
+    @Test
+    public void distanceShouldTakeTheShortWayAroundAntimeridian() {
+        assertThat(LocationUtils.distance(0, 179.5, 0, -179.5)).isCloseTo(METERS_PER_DEGREE, within(0.01));
+    }
+
+    @Test
+    public void timeNanosOfShouldPreferElapsedRealtimeNanos() {
+        FakeLocation location = new FakeLocation("gps", 5000L, LATITUDE, LONGITUDE, 5);
+        location.setTime(1);
+
+        assertThat(LocationUtils.timeNanosOf(location)).isEqualTo(5000L);
+    }
+
+    @Test
+    public void timeNanosOfShouldBeUnknownWhenElapsedRealtimeNanosIsNotSet() {
+        FakeLocation location = new FakeLocation("gps", 7L, 5);
+
+        assertThat(LocationUtils.timeNanosOf(location)).isEqualTo(LocationUtils.UNKNOWN_TIME);
+    }
+
+    @Test
+    public void ageOfShouldUseElapsedRealtimeWhenLocationHasIt() {
+        FakeClock clock = new FakeClock(TimeUnit.MINUTES.toNanos(10), TimeUnit.DAYS.toMillis(1));
+        FakeLocation location = new FakeLocation("gps", TimeUnit.MINUTES.toNanos(8), LATITUDE, LONGITUDE, 5);
+        location.setTime(0);
+
+        assertThat(LocationUtils.ageOf(location, clock)).isEqualTo(TimeUnit.MINUTES.toMillis(2));
+    }
+
+    @Test
+    public void ageOfShouldNotBeAffectedByWallClockChange() {
+        FakeClock clock = new FakeClock(TimeUnit.MINUTES.toNanos(10), TimeUnit.DAYS.toMillis(1));
+        FakeLocation location = new FakeLocation("gps", clock.elapsedRealtimeNanos(), LATITUDE, LONGITUDE, 5);
+        location.setTime(clock.currentTimeMillis());
+
+        clock.setCurrentTimeMillis(clock.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        clock.advance(1000);
+
+        assertThat(LocationUtils.ageOf(location, clock)).isEqualTo(1000);
+    }
+
+    @Test
+    public void ageOfShouldFallbackToWallClockWhenLocationIsFromPreviousBoot() {
+        // Elapsed realtime of the location is ahead of the clock, so the device is rebooted since
+        FakeClock clock = new FakeClock(TimeUnit.MINUTES.toNanos(1), TimeUnit.DAYS.toMillis(1));
+        FakeLocation location = new FakeLocation("gps", TimeUnit.HOURS.toNanos(5), LATITUDE, LONGITUDE, 5);
+        location.setTime(clock.currentTimeMillis() - TimeUnit.HOURS.toMillis(2));
+
+        assertThat(LocationUtils.ageOf(location, clock)).isEqualTo(TimeUnit.HOURS.toMillis(2));
+    }
+
+    @Test
+    public void isSufficientShouldCheckBothAgeAndAccuracy() {
+        FakeClock clock = new FakeClock(TimeUnit.MINUTES.toNanos(10), 0);
+        FakeLocation location = new FakeLocation("gps", clock.elapsedRealtimeNanos(), LATITUDE, LONGITUDE, 5);
+
+        assertThat(LocationUtils.isSufficient(null, 1000, 5, clock)).isFalse();
+        assertThat(LocationUtils.isSufficient(location, 1000, 4, clock)).isFalse();
+        assertThat(LocationUtils.isSufficient(location, 1000, 5, clock)).isTrue();
+
+        clock.advance(1001);
+        assertThat(LocationUtils.isSufficient(location, 1000, 5, clock)).isFalse();
+    }
+}
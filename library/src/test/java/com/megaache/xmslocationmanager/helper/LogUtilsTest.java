@@ -7,6 +7,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -23,6 +24,7 @@ public class LogUtilsTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         LogUtils.setLogger(mockLogger);
+        LogUtils.setLevel(LogUtils.VERBOSE);
     }
 
     @Test
@@ -66,4 +68,44 @@ public class LogUtilsTest {
         verify(newLogger, times(1)).logD(anyString(), eq("Dmessage"));
         verify(mockLogger, times(0)).logD(anyString(), anyString());
     }
+
+    @Test
+    public void taggedCallsShouldForwardGivenTag() {
+        LogUtils.enable(true);
+
+        LogUtils.logI("Tag", "Imessage");
+        LogUtils.logW("Tag", "Wmessage {}", 1);
+
+        verify(mockLogger).logI("Tag", "Imessage");
+        verify(mockLogger).logW("Tag", "Wmessage 1");
+    }
+
+    @Test
+    public void callsBelowLevelShouldNotForwardToLogger() {
+        LogUtils.enable(true);
+        LogUtils.setLevel(LogUtils.WARN);
+
+        LogUtils.logD("Tag", "Dmessage");
+        LogUtils.logI("Tag", "Imessage {}", 1);
+        LogUtils.logV("Vmessage");
+
+        verifyZeroInteractions(mockLogger);
+        assertThat(LogUtils.isLoggable(LogUtils.INFO)).isFalse();
+        assertThat(LogUtils.isLoggable(LogUtils.ERROR)).isTrue();
+    }
+
+    @Test
+    public void whenLoggingIsDisabledNothingShouldBeLoggable() {
+        LogUtils.enable(false);
+
+        assertThat(LogUtils.isLoggable(LogUtils.ERROR)).isFalse();
+    }
+
+    @Test
+    public void formatShouldReplacePlaceholdersInOrder() {
+        assertThat(LogUtils.format("{} and {} or {}", "a", 2, null, 3)).isEqualTo("a and 2 or null");
+        assertThat(LogUtils.format("only {}", "a", "b", null, 2)).isEqualTo("only a");
+        assertThat(LogUtils.format("{}{} end", "a", "b", null, 2)).isEqualTo("ab end");
+        assertThat(LogUtils.format("none", "a", null, null, 1)).isEqualTo("none");
+    }
 }
@@ -0,0 +1,89 @@
+package com.megaache.xmslocationmanager.helper;
+
+import android.location.LocationListener;
+import android.location.LocationManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class UpdateRequestTest {
+
+    private static final String GPS_PROVIDER = LocationManager.GPS_PROVIDER;
+    private static final String NETWORK_PROVIDER = LocationManager.NETWORK_PROVIDER;
+
+    @Mock LocationManager locationManager;
+    @Mock LocationListener locationListener;
+
+    private UpdateRequest updateRequest;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        updateRequest = new UpdateRequest(locationManager, locationListener);
+    }
+
+    @Test
+    public void runShouldRequestUpdatesFromGivenProvider() {
+        updateRequest.run(GPS_PROVIDER, 1000, 10);
+
+        verify(locationManager).requestLocationUpdates(GPS_PROVIDER, 1000, 10, locationListener);
+    }
+
+    @Test
+    public void runShouldRequestUpdatesFromAllGivenProvidersWithSameListener() {
+        updateRequest.run(new String[] { GPS_PROVIDER, NETWORK_PROVIDER }, 0, 0);
+
+        verify(locationManager).requestLocationUpdates(GPS_PROVIDER, 0, 0, locationListener);
+        verify(locationManager).requestLocationUpdates(NETWORK_PROVIDER, 0, 0, locationListener);
+    }
+
+    @Test
+    public void runAgainShouldRequestUpdatesFromLastProviders() {
+        updateRequest.run(new String[] { GPS_PROVIDER, NETWORK_PROVIDER }, 0, 0);
+        updateRequest.release();
+
+        updateRequest.run();
+
+        verify(locationManager, times(2)).requestLocationUpdates(GPS_PROVIDER, 0, 0, locationListener);
+        verify(locationManager, times(2)).requestLocationUpdates(NETWORK_PROVIDER, 0, 0, locationListener);
+    }
+
+    @Test
+    public void runAgainShouldRequestUpdatesFromLastSingleProvider() {
+        updateRequest.run(new String[] { GPS_PROVIDER, NETWORK_PROVIDER }, 0, 0);
+        updateRequest.run(NETWORK_PROVIDER, 1000, 10);
+        updateRequest.release();
+
+        updateRequest.run();
+
+        verify(locationManager).requestLocationUpdates(GPS_PROVIDER, 0, 0, locationListener);
+        verify(locationManager, times(2)).requestLocationUpdates(NETWORK_PROVIDER, 1000, 10, locationListener);
+    }
+
+    @Test
+    public void runShouldDoNothingBeforeProvidersAreSet() {
+        updateRequest.run();
+
+        verify(locationManager, never()).requestLocationUpdates(anyString(), anyLong(), anyFloat(),
+              any(LocationListener.class));
+    }
+
+    @Test
+    public void releaseShouldRemoveListenerOnce() {
+        updateRequest.run(new String[] { GPS_PROVIDER, NETWORK_PROVIDER }, 0, 0);
+
+        updateRequest.release();
+
+        verify(locationManager).removeUpdates(locationListener);
+    }
+}
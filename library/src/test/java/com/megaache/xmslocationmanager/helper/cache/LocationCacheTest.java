@@ -0,0 +1,217 @@
+package com.megaache.xmslocationmanager.helper.cache;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class LocationCacheTest {
+
+    private static final int CAPACITY = 3;
+    private static final long ONE_MINUTE = 60 * 1000;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock Context context;
+
+    private final List<Runnable> queuedWrites = new ArrayList<>();
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            queuedWrites.add(command);
+        }
+    };
+
+    private ByteBuffer buffer;
+    private LocationCache locationCache;
+    private FakeClock clock;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(context.getApplicationContext()).thenReturn(context);
+        when(context.getFilesDir()).thenReturn(temporaryFolder.getRoot());
+
+        buffer = ByteBuffer.allocate(LocationCache.fileSize(CAPACITY));
+        locationCache = createCache(CAPACITY);
+        clock = new FakeClock(0, now());
+    }
+
+    @Test
+    public void emptyCacheShouldReturnNull() {
+        assertThat(locationCache.newest()).isNull();
+        assertThat(locationCache.sufficientLocation(ONE_MINUTE, 100, clock)).isNull();
+    }
+
+    @Test
+    public void putLocationShouldBeAvailableBeforeItIsWritten() {
+        Location location = createLocation(LocationManager.GPS_PROVIDER, now(), 5);
+
+        locationCache.put(location);
+
+        assertThat(locationCache.newest()).isSameAs(location);
+        assertThat(locationCache.read(LocationCache.SLOT_GPS)).isEmpty();
+    }
+
+    @Test
+    public void writesShouldBeBatched() {
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, now(), 5));
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, now(), 6));
+
+        assertThat(queuedWrites).hasSize(1);
+        runQueuedWrites();
+        assertThat(locationCache.read(LocationCache.SLOT_GPS)).hasSize(2);
+    }
+
+    @Test
+    public void sameLocationShouldNotBeWrittenTwice() {
+        Location location = createLocation(LocationManager.GPS_PROVIDER, now(), 5);
+
+        locationCache.put(location);
+        runQueuedWrites();
+        locationCache.put(location);
+
+        assertThat(queuedWrites).isEmpty();
+        assertThat(locationCache.read(LocationCache.SLOT_GPS)).hasSize(1);
+    }
+
+    @Test
+    public void locationsShouldBeKeptPerProvider() {
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, now(), 5));
+        locationCache.put(createLocation(LocationManager.NETWORK_PROVIDER, now(), 50));
+        locationCache.put(createLocation("fused", now(), 10));
+        runQueuedWrites();
+
+        assertThat(locationCache.read(LocationCache.SLOT_GPS)).hasSize(1);
+        assertThat(locationCache.read(LocationCache.SLOT_NETWORK)).hasSize(1);
+        assertThat(locationCache.read(LocationCache.SLOT_FUSED)).hasSize(1);
+        assertThat(locationCache.read(LocationCache.SLOT_OTHER)).isEmpty();
+    }
+
+    @Test
+    public void olderLocationsShouldBeOverwrittenWhenCapacityIsExceeded() {
+        for (int i = 1; i <= CAPACITY + 2; i++) {
+            locationCache.put(createLocation(LocationManager.GPS_PROVIDER, i, i));
+        }
+        runQueuedWrites();
+
+        List<Location> locations = locationCache.read(LocationCache.SLOT_GPS);
+        assertThat(locations).hasSize(CAPACITY);
+        assertThat(locations.get(0).getTime()).isEqualTo(3);
+        assertThat(locations.get(CAPACITY - 1).getTime()).isEqualTo(CAPACITY + 2);
+    }
+
+    @Test
+    public void newCacheOnSameBufferShouldRestoreNewestLocation() {
+        long time = now();
+        locationCache.put(createLocation(LocationManager.NETWORK_PROVIDER, time - ONE_MINUTE, 50));
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, time, 5));
+        runQueuedWrites();
+
+        LocationCache restored = createCache(CAPACITY);
+
+        Location newest = restored.newest();
+        assertThat(newest).isNotNull();
+        assertThat(newest.getProvider()).isEqualTo(LocationManager.GPS_PROVIDER);
+        assertThat(newest.getTime()).isEqualTo(time);
+        assertThat(newest.getLatitude()).isEqualTo(1.5);
+        assertThat(newest.getLongitude()).isEqualTo(2.5);
+        assertThat(newest.getAccuracy()).isEqualTo(5);
+    }
+
+    @Test
+    public void optionalValuesShouldBeRestoredOnlyIfTheyWereSet() {
+        Location withAltitude = createLocation(LocationManager.GPS_PROVIDER, now(), 5);
+        withAltitude.setAltitude(120);
+        withAltitude.setBearing(90);
+        locationCache.put(withAltitude);
+        locationCache.put(createLocation(LocationManager.NETWORK_PROVIDER, now(), 50));
+        runQueuedWrites();
+
+        LocationCache restored = createCache(CAPACITY);
+
+        Location gps = restored.read(LocationCache.SLOT_GPS).get(0);
+        assertThat(gps.hasAltitude()).isTrue();
+        assertThat(gps.getAltitude()).isEqualTo(120);
+        assertThat(gps.getBearing()).isEqualTo(90);
+        Location network = restored.read(LocationCache.SLOT_NETWORK).get(0);
+        assertThat(network.hasAltitude()).isFalse();
+        assertThat(network.hasBearing()).isFalse();
+        assertThat(network.hasSpeed()).isFalse();
+    }
+
+    @Test
+    public void differentCapacityShouldResetTheCache() {
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, now(), 5));
+        runQueuedWrites();
+
+        LocationCache restored = createCache(CAPACITY - 1);
+
+        assertThat(restored.newest()).isNull();
+    }
+
+    @Test
+    public void instanceShouldKeepCapacityOfFirstCall() {
+        LocationCache first = LocationCache.getInstance(context, CAPACITY);
+        LocationCache second = LocationCache.getInstance(context, CAPACITY + 1);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(second.capacity()).isEqualTo(first.capacity());
+    }
+
+    @Test
+    public void sufficientLocationShouldRespectTimeAndAccuracy() {
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, now() - 2 * ONE_MINUTE, 5));
+        assertThat(locationCache.sufficientLocation(ONE_MINUTE, 10, clock)).isNull();
+
+        locationCache.put(createLocation(LocationManager.GPS_PROVIDER, now(), 50));
+        assertThat(locationCache.sufficientLocation(ONE_MINUTE, 10, clock)).isNull();
+        assertThat(locationCache.sufficientLocation(ONE_MINUTE, 100, clock)).isNotNull();
+    }
+
+    private void runQueuedWrites() {
+        List<Runnable> writes = new ArrayList<>(queuedWrites);
+        queuedWrites.clear();
+        for (Runnable write : writes) {
+            write.run();
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    private LocationCache createCache(int capacity) {
+        return new LocationCache(buffer, capacity, executor) {
+            @Override
+            Location newLocation(String provider) {
+                return new FakeLocation(provider, 0, 0);
+            }
+        };
+    }
+
+    private static Location createLocation(String provider, long time, float accuracy) {
+        Location location = new FakeLocation(provider, time, accuracy);
+        location.setLatitude(1.5);
+        location.setLongitude(2.5);
+        return location;
+    }
+}
@@ -0,0 +1,112 @@
+package com.megaache.xmslocationmanager.helper.continuoustask;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask.ContinuousTaskRunner;
+import com.megaache.xmslocationmanager.helper.continuoustask.TimingWheelTest.FakeTimingWheel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ContinuousTaskTest {
+
+    private static final String TASK_ID = "task";
+
+    @Mock ContinuousTaskRunner continuousTaskRunner;
+
+    private FakeTimingWheel timingWheel;
+    private QueueExecutor executor;
+    private ContinuousTask continuousTask;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        timingWheel = new FakeTimingWheel();
+        executor = new QueueExecutor();
+        continuousTask = new ContinuousTask(TASK_ID, continuousTaskRunner, timingWheel, executor);
+    }
+
+    @Test
+    public void taskShouldRunOnExecutorWhenDelayIsPassed() {
+        continuousTask.delayed(100);
+
+        timingWheel.advance(100);
+        verify(continuousTaskRunner, never()).runScheduledTask(TASK_ID);
+
+        executor.runAll();
+        verify(continuousTaskRunner).runScheduledTask(TASK_ID);
+    }
+
+    @Test
+    public void stoppedTaskShouldNotRun() {
+        continuousTask.delayed(100);
+        continuousTask.stop();
+
+        timingWheel.advance(100);
+        executor.runAll();
+
+        verify(continuousTaskRunner, never()).runScheduledTask(TASK_ID);
+        assertThat(timingWheel.pendingCount()).isZero();
+    }
+
+    @Test
+    public void taskStoppedAfterExpiringShouldNotRun() {
+        continuousTask.delayed(100);
+        timingWheel.advance(100);
+
+        // Already handed to the executor, but stopped before it got the chance to run
+        continuousTask.stop();
+        executor.runAll();
+
+        verify(continuousTaskRunner, never()).runScheduledTask(TASK_ID);
+    }
+
+    @Test
+    public void pausedTaskShouldRunAfterRemainingTimeWhenResumed() {
+        continuousTask.delayed(100);
+        timingWheel.advance(40);
+        continuousTask.pause();
+
+        timingWheel.advance(500);
+        executor.runAll();
+        verify(continuousTaskRunner, never()).runScheduledTask(TASK_ID);
+
+        continuousTask.resume();
+        timingWheel.advance(50);
+        executor.runAll();
+        verify(continuousTaskRunner, never()).runScheduledTask(TASK_ID);
+
+        timingWheel.advance(10);
+        executor.runAll();
+        verify(continuousTaskRunner).runScheduledTask(TASK_ID);
+    }
+
+    static class QueueExecutor implements Executor {
+
+        private final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            queue.add(runnable);
+        }
+
+        void runAll() {
+            List<Runnable> runnables = new ArrayList<>(queue);
+            queue.clear();
+            for (Runnable runnable : runnables) {
+                runnable.run();
+            }
+        }
+    }
+}
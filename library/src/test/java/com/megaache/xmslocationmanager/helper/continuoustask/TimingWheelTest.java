@@ -0,0 +1,304 @@
+package com.megaache.xmslocationmanager.helper.continuoustask;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 8;
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock ScheduledExecutorService tickingExecutor;
+    @Mock ScheduledFuture<?> tickingFuture;
+
+    private FakeTimingWheel timingWheel;
+    private List<String> runTasks;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(tickingFuture).when(tickingExecutor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        timingWheel = new FakeTimingWheel();
+        runTasks = new ArrayList<>();
+    }
+
+    @Test
+    public void constructorShouldThrowExceptionWhenTickIsNotPositive() {
+        expectedException.expect(IllegalArgumentException.class);
+
+        new TimingWheel(0, WHEEL_SIZE, new FakeClock(), null);
+    }
+
+    @Test
+    public void forClockShouldShareWheelOfSameClock() {
+        FakeClock clock = new FakeClock();
+
+        assertThat(TimingWheel.forClock(clock)).isSameAs(TimingWheel.forClock(clock));
+        assertThat(TimingWheel.forClock(clock)).isNotSameAs(TimingWheel.forClock(new FakeClock()));
+    }
+
+    @Test
+    public void expireTimeoutsShouldRunTimeoutsPassedOnVirtualClock() {
+        FakeClock clock = new FakeClock();
+        TimingWheel wheel = TimingWheel.forClock(clock);
+        wheel.schedule(task("a"), 20 * 1000);
+
+        clock.advance(20 * 1000 - 1);
+        wheel.expireTimeouts();
+        assertThat(runTasks).isEmpty();
+
+        clock.advance(1);
+        wheel.expireTimeouts();
+        assertThat(runTasks).containsExactly("a");
+        assertThat(wheel.pendingCount()).isZero();
+    }
+
+    @Test
+    public void timeoutShouldNotRunBeforeItsDelay() {
+        timingWheel.schedule(task("a"), 25);
+
+        timingWheel.advance(20);
+        assertThat(runTasks).isEmpty();
+
+        timingWheel.advance(10);
+        assertThat(runTasks).containsExactly("a");
+    }
+
+    @Test
+    public void timeoutsShouldRunInOrderOfTheirDeadlines() {
+        timingWheel.schedule(task("c"), 50);
+        timingWheel.schedule(task("a"), 10);
+        timingWheel.schedule(task("b"), 30);
+
+        timingWheel.advance(100);
+
+        assertThat(runTasks).containsExactly("a", "b", "c");
+        assertThat(timingWheel.pendingCount()).isZero();
+    }
+
+    @Test
+    public void timeoutLongerThanOneRoundShouldWaitForItsRound() {
+        // One round is 80 ms, the timeout shares its bucket with the first tick of every round
+        TimingWheel.Timeout timeout = timingWheel.schedule(task("a"), 3 * WHEEL_SIZE * TICK + TICK);
+
+        timingWheel.advance(3 * WHEEL_SIZE * TICK);
+        assertThat(runTasks).isEmpty();
+        assertThat(timeout.isExpired()).isFalse();
+
+        timingWheel.advance(TICK);
+        assertThat(runTasks).containsExactly("a");
+        assertThat(timeout.isExpired()).isTrue();
+    }
+
+    @Test
+    public void canceledTimeoutShouldNotRun() {
+        TimingWheel.Timeout timeout = timingWheel.schedule(task("a"), 10);
+        timingWheel.schedule(task("b"), 10);
+
+        assertThat(timeout.cancel()).isTrue();
+        timingWheel.advance(20);
+
+        assertThat(runTasks).containsExactly("b");
+        assertThat(timeout.isCanceled()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+    }
+
+    @Test
+    public void expiredTimeoutShouldNotBeCanceled() {
+        TimingWheel.Timeout timeout = timingWheel.schedule(task("a"), 10);
+
+        timingWheel.advance(10);
+
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(timeout.isExpired()).isTrue();
+    }
+
+    @Test
+    public void negativeDelayShouldRunOnNextTick() {
+        timingWheel.schedule(task("a"), -5);
+
+        timingWheel.advance(TICK);
+
+        assertThat(runTasks).containsExactly("a");
+    }
+
+    @Test
+    public void timeoutShouldBeAbleToScheduleAnotherOne() {
+        timingWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runTasks.add("a");
+                timingWheel.schedule(task("b"), 10);
+            }
+        }, 10);
+
+        timingWheel.advance(10);
+        assertThat(runTasks).containsExactly("a");
+
+        timingWheel.advance(10);
+        assertThat(runTasks).containsExactly("a", "b");
+    }
+
+    @Test
+    public void timeoutScheduledAfterIdlePeriodShouldNotRunEarly() {
+        timingWheel.schedule(task("a"), 10);
+        timingWheel.advance(10);
+
+        // Wheel doesn't tick while there is nothing pending
+        timingWheel.advance(1000);
+        timingWheel.schedule(task("b"), 50);
+        timingWheel.advance(40);
+        assertThat(runTasks).containsExactly("a");
+
+        timingWheel.advance(10);
+        assertThat(runTasks).containsExactly("a", "b");
+    }
+
+    @Test
+    public void wheelSizeShouldBeRoundedUpToPowerOfTwo() {
+        TimingWheel wheel = new FakeTimingWheel(5);
+
+        // 8 buckets, so the timeout of 9th tick goes around once
+        wheel.schedule(task("a"), 9 * TICK);
+        ((FakeTimingWheel) wheel).advance(8 * TICK);
+        assertThat(runTasks).isEmpty();
+
+        ((FakeTimingWheel) wheel).advance(TICK);
+        assertThat(runTasks).containsExactly("a");
+    }
+
+    @Test
+    public void timeoutShouldNotBeAffectedByWallClockChange() {
+        FakeClock clock = new FakeClock();
+        FakeTimingWheel wheel = new FakeTimingWheel(WHEEL_SIZE, clock);
+        wheel.schedule(task("a"), 50);
+
+        clock.setCurrentTimeMillis(TimeUnit.DAYS.toMillis(1));
+        wheel.advance(0);
+        assertThat(runTasks).isEmpty();
+
+        wheel.advance(50);
+        assertThat(runTasks).containsExactly("a");
+    }
+
+    @Test
+    public void repeatingTimeoutShouldKeepItsPeriodForHours() {
+        final long period = TimeUnit.MINUTES.toMillis(5);
+        final int[] runCount = new int[1];
+        timingWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runCount[0]++;
+                timingWheel.schedule(this, period);
+            }
+        }, period);
+
+        // Every run goes around the small wheel many times, 3 hours pass in steps of a minute
+        for (int minute = 0; minute < 3 * 60; minute++) {
+            timingWheel.advance(TimeUnit.MINUTES.toMillis(1));
+        }
+
+        assertThat(runCount[0]).isEqualTo(36);
+        assertThat(timingWheel.pendingCount()).isEqualTo(1);
+        assertThat(timingWheel.currentTimeMillis()).isEqualTo(TimeUnit.HOURS.toMillis(3));
+    }
+
+    @Test
+    public void tickingThreadShouldOnlyWakeUpAtEarliestDeadline() {
+        FakeClock clock = new FakeClock();
+        TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE, clock, tickingExecutor);
+        ArgumentCaptor<Runnable> tickingTask = ArgumentCaptor.forClass(Runnable.class);
+
+        wheel.schedule(task("a"), 5000);
+        verify(tickingExecutor).schedule(tickingTask.capture(), eq(millisToNanos(5000)), eq(TimeUnit.NANOSECONDS));
+
+        wheel.schedule(task("b"), 100);
+        verify(tickingFuture).cancel(false);
+        verify(tickingExecutor).schedule(any(Runnable.class), eq(millisToNanos(100)), eq(TimeUnit.NANOSECONDS));
+
+        // Later than the scheduled tick, so it is found when that tick runs
+        wheel.schedule(task("c"), 200);
+        verify(tickingExecutor, never()).schedule(any(Runnable.class), eq(millisToNanos(200)),
+              any(TimeUnit.class));
+
+        clock.advance(100);
+        tickingTask.getValue().run();
+        assertThat(runTasks).containsExactly("b");
+        verify(tickingExecutor, times(2))
+              .schedule(any(Runnable.class), eq(millisToNanos(100)), eq(TimeUnit.NANOSECONDS));
+
+        clock.advance(100);
+        tickingTask.getValue().run();
+        assertThat(runTasks).containsExactly("b", "c");
+        verify(tickingExecutor).schedule(any(Runnable.class), eq(millisToNanos(4800)), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void tickingShouldStopWhenNothingIsPending() {
+        TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE, new FakeClock(), tickingExecutor);
+
+        wheel.schedule(task("a"), 100).cancel();
+
+        verify(tickingFuture).cancel(false);
+    }
+
+    private static long millisToNanos(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runTasks.add(name);
+            }
+        };
+    }
+
+    static class FakeTimingWheel extends TimingWheel {
+
+        private final FakeClock clock;
+
+        FakeTimingWheel() {
+            this(WHEEL_SIZE);
+        }
+
+        FakeTimingWheel(int wheelSize) {
+            this(wheelSize, new FakeClock());
+        }
+
+        FakeTimingWheel(int wheelSize, FakeClock clock) {
+            super(TICK, wheelSize, clock, null);
+            this.clock = clock;
+        }
+
+        void advance(long millis) {
+            clock.advance(millis);
+            expireTimeouts(clock.elapsedRealtimeNanos());
+        }
+    }
+}
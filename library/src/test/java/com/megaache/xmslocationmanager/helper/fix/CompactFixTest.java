@@ -0,0 +1,71 @@
+package com.megaache.xmslocationmanager.helper.fix;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class CompactFixTest {
+
+    private static final long ELAPSED_NANOS = 123456789L;
+
+    @Test
+    public void fixShouldKeepValuesOfLocation() {
+        Location location = new FakeLocation(LocationManager.GPS_PROVIDER, ELAPSED_NANOS, 41.0082376, 28.9783589, 4.5f);
+        location.setTime(1500000000000L);
+        location.setSpeed(1.5f);
+
+        CompactFix fix = CompactFix.from(location);
+
+        assertThat(fix.latitudeE7()).isEqualTo(410082376);
+        assertThat(fix.longitudeE7()).isEqualTo(289783589);
+        assertThat(fix.latitude()).isCloseTo(41.0082376, within(1e-9));
+        assertThat(fix.longitude()).isCloseTo(28.9783589, within(1e-9));
+        assertThat(fix.elapsedRealtimeNanos()).isEqualTo(ELAPSED_NANOS);
+        assertThat(fix.time()).isEqualTo(1500000000000L);
+        assertThat(fix.accuracy()).isEqualTo(4.5f);
+        assertThat(fix.speed()).isEqualTo(1.5f);
+        assertThat(fix.providerId()).isEqualTo(CompactFix.PROVIDER_GPS);
+        assertThat(fix.provider()).isEqualTo(LocationManager.GPS_PROVIDER);
+    }
+
+    @Test
+    public void missingValuesShouldBeKeptAsUnknown() {
+        CompactFix fix = CompactFix.from(new FakeLocation(LocationManager.NETWORK_PROVIDER, 0, 10));
+
+        assertThat(fix.hasAccuracy()).isTrue();
+        assertThat(fix.hasSpeed()).isFalse();
+        assertThat(fix.hasBearing()).isFalse();
+        assertThat(fix.speed()).isNaN();
+    }
+
+    @Test
+    public void providersShouldBeMappedBothWays() {
+        String[] providers = { "fused", LocationManager.GPS_PROVIDER, LocationManager.NETWORK_PROVIDER,
+              LocationManager.PASSIVE_PROVIDER };
+
+        for (String provider : providers) {
+            assertThat(CompactFix.providerOf(CompactFix.providerIdOf(provider))).isEqualTo(provider);
+        }
+    }
+
+    @Test
+    public void unknownProvidersShouldBeMappedToUnknown() {
+        assertThat(CompactFix.providerIdOf("mock")).isEqualTo(CompactFix.PROVIDER_UNKNOWN);
+        assertThat(CompactFix.providerIdOf(null)).isEqualTo(CompactFix.PROVIDER_UNKNOWN);
+        assertThat(CompactFix.providerOf((byte) 99)).isEmpty();
+    }
+
+    @Test
+    public void degreesShouldBeRoundedToNearestE7() {
+        assertThat(CompactFix.toE7(0.00000005)).isEqualTo(1);
+        assertThat(CompactFix.toE7(-0.00000006)).isEqualTo(-1);
+        assertThat(CompactFix.toE7(180)).isEqualTo(1800000000);
+        assertThat(CompactFix.toE7(-180)).isEqualTo(-1800000000);
+    }
+}
@@ -0,0 +1,72 @@
+package com.megaache.xmslocationmanager.helper.geodesy;
+
+import com.megaache.xmslocationmanager.fakes.PlatformDistance;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class GeodesyTest {
+
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+
+    @Test
+    public void haversineShouldBeGreatCircleDistance() {
+        assertThat(Geodesy.haversine(0, 0, 1, 0)).isCloseTo(Geodesy.METERS_PER_DEGREE, within(1e-6));
+        assertThat(Geodesy.haversine(0, 0, 0, 180)).isCloseTo(Math.PI * Geodesy.EARTH_RADIUS, within(1e-6));
+        assertThat(Geodesy.haversine(LATITUDE, LONGITUDE, LATITUDE, LONGITUDE)).isEqualTo(0);
+    }
+
+    @Test
+    public void haversineShouldStayWithinDocumentedErrorAtAnyDistance() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            double latitude1 = (random.nextDouble() * 2 - 1) * 89;
+            double longitude1 = (random.nextDouble() * 2 - 1) * 180;
+            double latitude2 = (random.nextDouble() * 2 - 1) * 89;
+            double longitude2 = (random.nextDouble() * 2 - 1) * 180;
+
+            double expected = PlatformDistance.distance(latitude1, longitude1, latitude2, longitude2);
+            double actual = Geodesy.haversine(latitude1, longitude1, latitude2, longitude2);
+            assertThat(actual).isCloseTo(expected, within(expected * 0.006 + 0.01));
+        }
+    }
+
+    @Test
+    public void equirectangularShouldStayWithinDocumentedErrorUpTo10Kilometers() {
+        Random random = new Random(2);
+        for (int i = 0; i < 10000; i++) {
+            double latitude1 = (random.nextDouble() * 2 - 1) * 70;
+            double longitude1 = (random.nextDouble() * 2 - 1) * 180;
+            double latitude2 = latitude1 + (random.nextDouble() * 2 - 1) * 0.06;
+            double longitude2 = longitude1 + (random.nextDouble() * 2 - 1) * 0.06;
+
+            double expected = PlatformDistance.distance(latitude1, longitude1, latitude2, longitude2);
+            double actual = Geodesy.equirectangular(latitude1, longitude1, latitude2, longitude2,
+                  Geodesy.cosLatitude(latitude1));
+            assertThat(actual).isCloseTo(expected, within(expected * 0.006 + 0.01));
+        }
+    }
+
+    @Test
+    public void equirectangularShouldTakeTheShortWayAroundAntimeridian() {
+        double cosLatitude = Geodesy.cosLatitude(0);
+
+        assertThat(Geodesy.equirectangular(0, 179.5, 0, -179.5, cosLatitude))
+              .isCloseTo(Geodesy.METERS_PER_DEGREE, within(1e-6));
+        assertThat(Geodesy.equirectangular(0, -179.5, 0, 179.5, cosLatitude))
+              .isCloseTo(Geodesy.METERS_PER_DEGREE, within(1e-6));
+    }
+
+    @Test
+    public void cosLatitudeShouldNotBeZeroAtThePoles() {
+        assertThat(Geodesy.cosLatitude(0)).isEqualTo(1);
+        assertThat(Geodesy.cosLatitude(60)).isCloseTo(0.5, within(1e-9));
+        assertThat(Geodesy.cosLatitude(90)).isPositive();
+        assertThat(Geodesy.cosLatitude(-90)).isPositive();
+    }
+}
@@ -0,0 +1,94 @@
+package com.megaache.xmslocationmanager.helper.geodesy;
+
+import com.megaache.xmslocationmanager.fakes.PlatformDistance;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LocalTangentPlaneTest {
+
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+
+    @Test
+    public void originShouldBeAtZero() {
+        LocalTangentPlane plane = new LocalTangentPlane(LATITUDE, LONGITUDE);
+
+        assertThat(plane.east(LONGITUDE)).isEqualTo(0);
+        assertThat(plane.north(LATITUDE)).isEqualTo(0);
+        assertThat(plane.up(LATITUDE, LONGITUDE, 0)).isEqualTo(0);
+        assertThat(plane.distanceFromOrigin(LATITUDE, LONGITUDE)).isEqualTo(0);
+    }
+
+    @Test
+    public void axesShouldPointEastAndNorth() {
+        LocalTangentPlane plane = new LocalTangentPlane(LATITUDE, LONGITUDE);
+
+        assertThat(plane.east(LONGITUDE + 0.01)).isPositive();
+        assertThat(plane.east(LONGITUDE - 0.01)).isNegative();
+        assertThat(plane.north(LATITUDE + 0.01)).isPositive();
+        assertThat(plane.north(LATITUDE - 0.01)).isNegative();
+    }
+
+    @Test
+    public void projectionShouldMatchTheEllipsoidAlongTheAxes() {
+        LocalTangentPlane plane = new LocalTangentPlane(LATITUDE, LONGITUDE);
+
+        assertThat(plane.north(LATITUDE + 0.001))
+              .isCloseTo(PlatformDistance.distance(LATITUDE, LONGITUDE, LATITUDE + 0.001, LONGITUDE), within(0.01));
+        assertThat(plane.east(LONGITUDE + 0.001))
+              .isCloseTo(PlatformDistance.distance(LATITUDE, LONGITUDE, LATITUDE, LONGITUDE + 0.001), within(0.01));
+    }
+
+    @Test
+    public void inverseShouldReturnProjectedCoordinates() {
+        LocalTangentPlane plane = new LocalTangentPlane(LATITUDE, LONGITUDE);
+
+        assertThat(plane.latitudeOf(plane.north(41.05))).isCloseTo(41.05, within(1e-9));
+        assertThat(plane.longitudeOf(plane.east(28.95))).isCloseTo(28.95, within(1e-9));
+    }
+
+    @Test
+    public void shouldTakeTheShortWayAroundAntimeridian() {
+        LocalTangentPlane plane = new LocalTangentPlane(0, 179.999);
+
+        assertThat(plane.east(-179.999)).isCloseTo(-plane.east(179.997), within(1e-6));
+        assertThat(plane.longitudeOf(plane.east(-179.999))).isCloseTo(-179.999, within(1e-9));
+        assertThat(plane.distance(0, 179.999, 0, -179.999)).isCloseTo(plane.distance(0, 179.999, 0, 179.997),
+              within(1e-6));
+    }
+
+    @Test
+    public void upShouldFollowTheCurvatureOfTheEarth() {
+        LocalTangentPlane plane = new LocalTangentPlane(LATITUDE, LONGITUDE);
+        plane.setOrigin(LATITUDE, LONGITUDE, 100);
+
+        assertThat(plane.up(LATITUDE, LONGITUDE, 150)).isEqualTo(50);
+        // Earth drops about 7.8 meters below the plane 10 km away
+        assertThat(plane.up(plane.latitudeOf(10000), LONGITUDE, 100)).isCloseTo(-7.8, within(0.1));
+    }
+
+    @Test
+    public void distancesShouldStayWithinDocumentedErrorUpTo10Kilometers() {
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            double latitude = (random.nextDouble() * 2 - 1) * 70;
+            double longitude = (random.nextDouble() * 2 - 1) * 180;
+            LocalTangentPlane plane = new LocalTangentPlane(latitude, longitude);
+
+            double north = (random.nextDouble() * 2 - 1) * 7000;
+            double east = (random.nextDouble() * 2 - 1) * 7000;
+            double otherLatitude = plane.latitudeOf(north);
+            double otherLongitude = plane.longitudeOf(east);
+
+            double expected = PlatformDistance.distance(latitude, longitude, otherLatitude, otherLongitude);
+            double actual = plane.distanceFromOrigin(otherLatitude, otherLongitude);
+            assertThat(actual).isCloseTo(expected, within(expected * 0.001 + 0.01));
+            if (expected <= 1000) assertThat(actual).isCloseTo(expected, within(expected * 0.0001 + 0.01));
+        }
+    }
+}
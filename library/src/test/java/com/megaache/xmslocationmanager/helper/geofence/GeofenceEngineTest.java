@@ -0,0 +1,209 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.configuration.GeofencingConfiguration;
+import com.megaache.xmslocationmanager.constants.GeofenceTransition;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.listener.GeofenceListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class GeofenceEngineTest {
+
+    private static final long SECOND = 1000;
+    private static final long DWELL_TIME = 60 * SECOND;
+    private static final float ACCURATE = 5;
+
+    // About 111 meters
+    private static final double STEP = 0.001;
+
+    @Mock GeofenceListener geofenceListener;
+
+    private final Geofence home = Geofence.circle("home", 41, 29, 200);
+    private final Geofence park = Geofence.polygon("park",
+          new double[] { 41.01, 41.01, 41.02, 41.02 }, new double[] { 29.01, 29.02, 29.02, 29.01 });
+
+    private GeofenceEngine geofenceEngine;
+    private long timeNanos = 1;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        geofenceEngine = new GeofenceEngine(new GeofencingConfiguration.Builder()
+              .dwellTime(DWELL_TIME)
+              .maxHysteresis(50)
+              .build());
+        geofenceEngine.addGeofences(Arrays.asList(home, park));
+    }
+
+    @Test
+    public void enteringAndExitingShouldDeliverTransitions() {
+        Location inside = evaluate(41, 29, ACCURATE);
+        verify(geofenceListener).onGeofenceTransition(home, GeofenceTransition.ENTER, inside);
+
+        evaluate(41 + STEP, 29, ACCURATE);
+        verify(geofenceListener, never()).onGeofenceTransition(home, GeofenceTransition.EXIT, inside);
+
+        Location outside = evaluate(41 + 3 * STEP, 29, ACCURATE);
+        verify(geofenceListener).onGeofenceTransition(home, GeofenceTransition.EXIT, outside);
+    }
+
+    @Test
+    public void polygonsShouldBeEnteredAsWell() {
+        Location inside = evaluate(41.015, 29.015, ACCURATE);
+
+        verify(geofenceListener).onGeofenceTransition(park, GeofenceTransition.ENTER, inside);
+        verifyNoMoreInteractions(geofenceListener);
+    }
+
+    @Test
+    public void inaccurateLocationAroundBorderShouldNotChangeState() {
+        // 180 meters from the center, inside by 20 meters but accuracy is 30
+        evaluate(41 + 1.62 * STEP, 29, 30);
+        verifyZeroInteractions(geofenceListener);
+
+        evaluate(41, 29, ACCURATE);
+        clearInvocations(geofenceListener);
+
+        // 220 meters from the center, outside by 20 meters but accuracy is 30
+        evaluate(41 + 1.98 * STEP, 29, 30);
+        verifyZeroInteractions(geofenceListener);
+    }
+
+    @Test
+    public void hysteresisShouldBeLimited() {
+        // Inside by 100 meters with an accuracy of 500, which is taken as 50
+        Location inside = evaluate(41 + 0.9 * STEP, 29, 500);
+
+        verify(geofenceListener).onGeofenceTransition(home, GeofenceTransition.ENTER, inside);
+    }
+
+    @Test
+    public void stayingInsideShouldDeliverDwellOnce() {
+        evaluate(41, 29, ACCURATE);
+        timeNanos += (DWELL_TIME - SECOND) * 1000000;
+        evaluate(41, 29, ACCURATE);
+        verify(geofenceListener, never())
+              .onGeofenceTransition(any(Geofence.class), eq(GeofenceTransition.DWELL), any(Location.class));
+
+        timeNanos += SECOND * 1000000;
+        Location dwelling = evaluate(41, 29, ACCURATE);
+        timeNanos += SECOND * 1000000;
+        evaluate(41, 29, ACCURATE);
+
+        verify(geofenceListener).onGeofenceTransition(home, GeofenceTransition.DWELL, dwelling);
+    }
+
+    @Test
+    public void dwellShouldBeCountedFromFirstLocationWithTimeWhenEnteredWithoutTime() {
+        long startNanos = timeNanos;
+        timeNanos = 0;
+        evaluate(41, 29, ACCURATE);
+        timeNanos = startNanos;
+        evaluate(41, 29, ACCURATE);
+        timeNanos += (DWELL_TIME - SECOND) * 1000000;
+        evaluate(41, 29, ACCURATE);
+        verify(geofenceListener, never())
+              .onGeofenceTransition(any(Geofence.class), eq(GeofenceTransition.DWELL), any(Location.class));
+
+        timeNanos += SECOND * 1000000;
+        Location dwelling = evaluate(41, 29, ACCURATE);
+
+        verify(geofenceListener).onGeofenceTransition(home, GeofenceTransition.DWELL, dwelling);
+    }
+
+    @Test
+    public void dwellShouldNotBeDeliveredWhenItIsDisabled() {
+        geofenceEngine = new GeofenceEngine(new GeofencingConfiguration.Builder().build());
+        geofenceEngine.addGeofences(Collections.singletonList(home));
+
+        evaluate(41, 29, ACCURATE);
+        timeNanos += 3600 * SECOND * 1000000;
+        evaluate(41, 29, ACCURATE);
+
+        verify(geofenceListener, never())
+              .onGeofenceTransition(any(Geofence.class), eq(GeofenceTransition.DWELL), any(Location.class));
+    }
+
+    @Test
+    public void stateShouldBeKeptWhenOtherFencesAreAdded() {
+        evaluate(41, 29, ACCURATE);
+        clearInvocations(geofenceListener);
+
+        geofenceEngine.addGeofences(Collections.singletonList(Geofence.circle("office", 41.05, 29.05, 100)));
+        evaluate(41, 29, ACCURATE);
+        verifyZeroInteractions(geofenceListener);
+
+        Location outside = evaluate(41 + 3 * STEP, 29, ACCURATE);
+        verify(geofenceListener).onGeofenceTransition(home, GeofenceTransition.EXIT, outside);
+    }
+
+    @Test
+    public void removedFenceShouldNotDeliverExit() {
+        evaluate(41, 29, ACCURATE);
+        clearInvocations(geofenceListener);
+
+        geofenceEngine.removeGeofences(Collections.singletonList("home"));
+        evaluate(41 + 3 * STEP, 29, ACCURATE);
+
+        verifyZeroInteractions(geofenceListener);
+        assertThat(geofenceEngine.size()).isEqualTo(1);
+        assertThat(geofenceEngine.geofence("home")).isNull();
+    }
+
+    @Test
+    public void replacedFenceShouldBeEnteredAgain() {
+        evaluate(41, 29, ACCURATE);
+        clearInvocations(geofenceListener);
+
+        Geofence largerHome = Geofence.circle("home", 41, 29, 300);
+        geofenceEngine.addGeofences(Collections.singletonList(largerHome));
+        Location inside = evaluate(41, 29, ACCURATE);
+
+        verify(geofenceListener).onGeofenceTransition(largerHome, GeofenceTransition.ENTER, inside);
+        assertThat(geofenceEngine.size()).isEqualTo(2);
+        assertThat(geofenceEngine.geofence("home")).isSameAs(largerHome);
+    }
+
+    @Test
+    public void clearShouldRemoveEveryFence() {
+        geofenceEngine.clearGeofences();
+        evaluate(41, 29, ACCURATE);
+
+        assertThat(geofenceEngine.size()).isZero();
+        verifyZeroInteractions(geofenceListener);
+    }
+
+    @Test
+    public void largeFencesShouldBeEvaluatedAsWell() {
+        Geofence city = Geofence.circle("city", 40, 30, 50000);
+        geofenceEngine.addGeofences(Collections.singletonList(city));
+
+        Location inside = evaluate(40.2, 30.2, ACCURATE);
+
+        verify(geofenceListener).onGeofenceTransition(city, GeofenceTransition.ENTER, inside);
+    }
+
+    private Location evaluate(double latitude, double longitude, float accuracy) {
+        Location location = new FakeLocation(LocationManager.GPS_PROVIDER, timeNanos, latitude, longitude, accuracy);
+        geofenceEngine.evaluate(location, geofenceListener);
+        return location;
+    }
+}
@@ -0,0 +1,78 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeofenceIndexTest {
+
+    private static final double CELL_SIZE = 0.01;
+
+    @Test
+    public void emptyIndexShouldHaveNoCell() {
+        assertThat(GeofenceIndex.EMPTY.size()).isZero();
+        assertThat(GeofenceIndex.EMPTY.cellOf(41, 29)).isEqualTo(-1);
+        assertThat(GeofenceIndex.EMPTY.largeFenceCount()).isZero();
+    }
+
+    @Test
+    public void fenceShouldBeListedUnderEveryCellItOverlaps() {
+        // Crosses the cell borders at 41.01 and 29.01
+        Geofence fence = Geofence.circle("fence", 41.01, 29.01, 100);
+        GeofenceIndex index = new GeofenceIndex(new Geofence[] { fence }, CELL_SIZE);
+
+        assertThat(fencesAround(index, 41.005, 29.005)).containsExactly(fence);
+        assertThat(fencesAround(index, 41.015, 29.005)).containsExactly(fence);
+        assertThat(fencesAround(index, 41.005, 29.015)).containsExactly(fence);
+        assertThat(fencesAround(index, 41.015, 29.015)).containsExactly(fence);
+        assertThat(fencesAround(index, 41.025, 29.015)).isEmpty();
+    }
+
+    @Test
+    public void cellsShouldWorkOnNegativeCoordinates() {
+        Geofence south = Geofence.circle("south", -33.8688, 151.2093, 50);
+        Geofence west = Geofence.circle("west", 40.7128, -74.0060, 50);
+        GeofenceIndex index = new GeofenceIndex(new Geofence[] { south, west }, CELL_SIZE);
+
+        assertThat(fencesAround(index, -33.8688, 151.2093)).containsExactly(south);
+        assertThat(fencesAround(index, 40.7128, -74.0060)).containsExactly(west);
+        assertThat(fencesAround(index, 33.8688, 151.2093)).isEmpty();
+        assertThat(fencesAround(index, 40.7128, 74.0060)).isEmpty();
+    }
+
+    @Test
+    public void fencesOverlappingTooManyCellsShouldBeKeptAside() {
+        Geofence large = Geofence.circle("large", 41, 29, 100000);
+        Geofence small = Geofence.circle("small", 41, 29, 100);
+        GeofenceIndex index = new GeofenceIndex(new Geofence[] { large, small }, CELL_SIZE);
+
+        assertThat(index.largeFenceCount()).isEqualTo(1);
+        assertThat(index.fenceAt(index.largeFence(0))).isSameAs(large);
+        assertThat(fencesAround(index, 41, 29)).containsExactly(small);
+    }
+
+    @Test
+    public void fencesShouldBeFoundByTheirId() {
+        Geofence first = Geofence.circle("first", 41, 29, 100);
+        Geofence second = Geofence.circle("second", 41, 29, 200);
+        GeofenceIndex index = new GeofenceIndex(new Geofence[] { first, second }, CELL_SIZE);
+
+        assertThat(index.indexOf("second")).isEqualTo(1);
+        assertThat(index.indexOf("third")).isEqualTo(-1);
+        assertThat(fencesAround(index, 41, 29)).containsExactlyInAnyOrder(first, second);
+    }
+
+    private static List<Geofence> fencesAround(GeofenceIndex index, double latitude, double longitude) {
+        List<Geofence> fences = new ArrayList<>();
+        int cell = index.cellOf(latitude, longitude);
+        if (cell < 0) return fences;
+
+        for (int i = index.cellStart(cell); i < index.cellEnd(cell); i++) {
+            fences.add(index.fenceAt(index.cellFence(i)));
+        }
+        return fences;
+    }
+}
@@ -0,0 +1,100 @@
+package com.megaache.xmslocationmanager.helper.geofence;
+
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class GeofenceTest {
+
+    // A square of about 222 meters around the origin
+    private static final double[] SQUARE_LATITUDES = { -0.001, -0.001, 0.001, 0.001 };
+    private static final double[] SQUARE_LONGITUDES = { -0.001, 0.001, 0.001, -0.001 };
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void circleRadiusShouldBePositive() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("radius"));
+
+        Geofence.circle("circle", 41, 29, 0);
+    }
+
+    @Test
+    public void polygonShouldHaveAtLeastThreeVertices() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("latitudes"));
+
+        Geofence.polygon("polygon", new double[] { 0, 1 }, new double[] { 0, 1 });
+    }
+
+    @Test
+    public void polygonShouldHaveSameNumberOfLatitudesAndLongitudes() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("latitudes and longitudes"));
+
+        Geofence.polygon("polygon", new double[] { 0, 1, 2 }, new double[] { 0, 1 });
+    }
+
+    @Test
+    public void distanceToBorderOfCircleShouldBeNegativeInside() {
+        Geofence circle = Geofence.circle("circle", 41, 29, 100);
+        double step = LocationUtils.distance(41, 29, 41.0005, 29);
+
+        assertThat(circle.distanceToBorder(41, 29)).isCloseTo(-100, within(1e-6));
+        assertThat(circle.distanceToBorder(41.0005, 29)).isCloseTo(step - 100, within(1e-6));
+        assertThat(circle.distanceToBorder(41.002, 29)).isPositive();
+    }
+
+    @Test
+    public void boundingBoxOfCircleShouldContainIt() {
+        Geofence circle = Geofence.circle("circle", 60, 29, 1000);
+
+        assertThat(circle.distanceToBorder(circle.maxLatitude(), 29)).isCloseTo(0, within(0.01));
+        assertThat(circle.distanceToBorder(60, circle.minLongitude())).isCloseTo(0, within(0.01));
+        assertThat(circle.isCircle()).isTrue();
+        assertThat(circle.vertexCount()).isZero();
+    }
+
+    @Test
+    public void distanceToBorderOfPolygonShouldBeNegativeInside() {
+        Geofence square = Geofence.polygon("square", SQUARE_LATITUDES, SQUARE_LONGITUDES);
+        double halfSide = LocationUtils.distance(0, 0, 0.001, 0);
+
+        assertThat(square.distanceToBorder(0, 0)).isCloseTo(-halfSide, within(0.01));
+        assertThat(square.distanceToBorder(0.0005, 0)).isCloseTo(-halfSide / 2, within(0.01));
+        assertThat(square.distanceToBorder(0.0015, 0)).isCloseTo(halfSide / 2, within(0.01));
+        // Closest to a vertex
+        assertThat(square.distanceToBorder(0.002, 0.002)).isCloseTo(Math.sqrt(2) * halfSide, within(0.05));
+    }
+
+    @Test
+    public void concavePolygonShouldNotContainItsNotch() {
+        // U shape, open to the north
+        Geofence polygon = Geofence.polygon("u",
+              new double[] { 0, 0, 0.003, 0.003, 0.001, 0.001, 0.003, 0.003 },
+              new double[] { 0, 0.003, 0.003, 0.002, 0.002, 0.001, 0.001, 0 });
+
+        assertThat(polygon.distanceToBorder(0.002, 0.0015)).isPositive();
+        assertThat(polygon.distanceToBorder(0.002, 0.0005)).isNegative();
+        assertThat(polygon.distanceToBorder(0.0005, 0.0015)).isNegative();
+    }
+
+    @Test
+    public void polygonShouldKeepItsOwnVertices() {
+        double[] latitudes = SQUARE_LATITUDES.clone();
+        Geofence square = Geofence.polygon("square", latitudes, SQUARE_LONGITUDES);
+        latitudes[0] = 10;
+
+        assertThat(square.vertexCount()).isEqualTo(4);
+        assertThat(square.vertexLatitude(0)).isEqualTo(-0.001);
+        assertThat(square.latitude()).isEqualTo(0);
+        assertThat(square.maxLongitude()).isEqualTo(0.001);
+    }
+}
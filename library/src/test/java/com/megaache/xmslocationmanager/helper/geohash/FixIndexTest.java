@@ -0,0 +1,167 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.configuration.FixIndexConfiguration;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FixIndexTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final long DAY = 24 * HOUR;
+    private static final long START = 1500000000000L;
+
+    // About 111 meters
+    private static final double STEP = 0.001;
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    private FixIndex fixIndex;
+
+    @Before
+    public void setUp() {
+        fixIndex = new FixIndex(new FixIndexConfiguration.Builder().build());
+    }
+
+    @Test
+    public void radiusQueryShouldOnlyFindCloseFixes() {
+        add(41, 29, START);
+        add(41 + STEP, 29, START + 1000);
+        add(41 + 3 * STEP, 29, START + 2000);
+
+        List<Long> times = new ArrayList<>();
+        int found = fixIndex.findWithinRadius(41, 29, 200, START, START + HOUR, collectTimes(times));
+
+        assertThat(found).isEqualTo(2);
+        assertThat(times).containsExactlyInAnyOrder(START, START + 1000);
+        assertThat(fixIndex.hasBeenWithin(41 + 3 * STEP, 29, 50, START, START + HOUR)).isTrue();
+        assertThat(fixIndex.hasBeenWithin(41 + 6 * STEP, 29, 200, START, START + HOUR)).isFalse();
+    }
+
+    @Test
+    public void queriesShouldOnlyFindFixesOfTheirTimeRange() {
+        add(41, 29, START);
+        add(41, 29, START + 2 * DAY);
+        add(41, 29, START + 2 * DAY + 1);
+
+        assertThat(fixIndex.findWithinRadius(41, 29, 200, START + DAY, START + 3 * DAY, null)).isEqualTo(2);
+        assertThat(fixIndex.findWithinRadius(41, 29, 200, START + 2 * DAY, START + 2 * DAY, null)).isEqualTo(1);
+        assertThat(fixIndex.hasBeenWithin(41, 29, 200, START + 1, START + DAY)).isFalse();
+    }
+
+    @Test
+    public void boundsQueryShouldFindFixesAcrossCells() {
+        add(41, 29, START);
+        add(41.05, 29.05, START);
+        add(41.2, 29, START);
+        add(-41, 29, START);
+
+        List<Long> times = new ArrayList<>();
+        assertThat(fixIndex.findWithinBounds(40.99, 28.99, 41.1, 29.1, START, START, null)).isEqualTo(2);
+        // A box with more cells than the index has
+        assertThat(fixIndex.findWithinBounds(-60, -60, 60, 60, START, START, collectTimes(times))).isEqualTo(4);
+        assertThat(fixIndex.findWithinBounds(0, 0, 60, 60, START, START, null)).isEqualTo(3);
+    }
+
+    @Test
+    public void visitorShouldBeAbleToStopQuery() {
+        for (int i = 0; i < 5; i++) {
+            add(41, 29, START + i);
+        }
+
+        final List<Long> times = new ArrayList<>();
+        int found = fixIndex.findWithinRadius(41, 29, 100, START, START + HOUR, new FixIndex.FixVisitor() {
+            @Override
+            public boolean visit(double latitude, double longitude, long time) {
+                times.add(time);
+                return times.size() < 2;
+            }
+        });
+
+        assertThat(found).isEqualTo(2);
+        assertThat(times).hasSize(2);
+    }
+
+    @Test
+    public void coveredCellsShouldBeDistinctAndInOrder() {
+        add(41.0001, 29.0001, START);
+        add(41.0002, 29.0002, START + 1);
+        add(41.5, 29.5, START + HOUR);
+        add(41.5, 29.5, START + 3 * HOUR);
+        add(10, 10, START + 5 * DAY);
+
+        long[] cells = fixIndex.coveredCells(START, START + 2 * HOUR, 35);
+
+        assertThat(cells).containsExactly(Geohash.encode(41.0001, 29.0001, 35), Geohash.encode(41.5, 29.5, 35));
+        // Both places are in the same cell of 2 characters
+        assertThat(fixIndex.coveredCells(START, START + 10 * DAY, 10))
+              .containsExactly(Geohash.encode(10, 10, 10), Geohash.encode(41.5, 29.5, 10));
+        assertThat(fixIndex.coveredCells(START + 2 * HOUR, START + 4 * HOUR, 35))
+              .containsExactly(Geohash.encode(41.5, 29.5, 35));
+    }
+
+    @Test
+    public void coveragePrecisionShouldNotBeFinerThanIndex() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("precision"));
+
+        fixIndex.coveredCells(START, START, 36);
+    }
+
+    @Test
+    public void fixesOlderThanRetentionShouldBeDropped() {
+        fixIndex = new FixIndex(new FixIndexConfiguration.Builder()
+              .bucketDuration(HOUR)
+              .retention(DAY)
+              .build());
+
+        add(41, 29, START);
+        add(41, 29, START + HOUR);
+        add(41, 29, START + DAY + 2 * HOUR);
+        // Already out of retention
+        add(41, 29, START);
+
+        assertThat(fixIndex.size()).isEqualTo(1);
+        assertThat(fixIndex.hasBeenWithin(41, 29, 100, 0, START + DAY)).isFalse();
+    }
+
+    @Test
+    public void fixesArrivingOutOfOrderShouldBeFound() {
+        add(41, 29, START + 5 * HOUR);
+        add(41, 29, START);
+        add(41, 29, START + 2 * HOUR);
+
+        assertThat(fixIndex.size()).isEqualTo(3);
+        assertThat(fixIndex.findWithinRadius(41, 29, 100, START, START + HOUR, null)).isEqualTo(1);
+        assertThat(fixIndex.findWithinRadius(41, 29, 100, START + HOUR, START + 6 * HOUR, null)).isEqualTo(2);
+    }
+
+    private void add(double latitude, double longitude, long time) {
+        Location location = new FakeLocation(LocationManager.GPS_PROVIDER, time, 5);
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        fixIndex.add(location);
+    }
+
+    private static FixIndex.FixVisitor collectTimes(final List<Long> times) {
+        return new FixIndex.FixVisitor() {
+            @Override
+            public boolean visit(double latitude, double longitude, long time) {
+                times.add(time);
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeohashTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void cellsShouldMatchWellKnownGeohashes() {
+        assertThat(Geohash.toString(Geohash.encode(57.64911, 10.40744, 55), 55)).isEqualTo("u4pruydqqvj");
+        assertThat(Geohash.toString(Geohash.encode(42.605, -5.603, 25), 25)).isEqualTo("ezs42");
+    }
+
+    @Test
+    public void parentShouldBeTheCellOfFewerBits() {
+        long cell = Geohash.encode(57.64911, 10.40744, 55);
+
+        assertThat(Geohash.parent(cell, 55, 25)).isEqualTo(Geohash.encode(57.64911, 10.40744, 25));
+        assertThat(Geohash.parent(cell, 55, 34)).isEqualTo(Geohash.encode(57.64911, 10.40744, 34));
+    }
+
+    @Test
+    public void boundsOfCellShouldContainThePoint() {
+        for (int bits = 1; bits <= Geohash.MAX_BITS; bits++) {
+            long cell = Geohash.encode(41.0082, 28.9784, bits);
+
+            assertThat(Geohash.minLatitude(cell, bits)).isLessThanOrEqualTo(41.0082);
+            assertThat(Geohash.maxLatitude(cell, bits)).isGreaterThan(41.0082);
+            assertThat(Geohash.minLongitude(cell, bits)).isLessThanOrEqualTo(28.9784);
+            assertThat(Geohash.maxLongitude(cell, bits)).isGreaterThan(28.9784);
+        }
+    }
+
+    @Test
+    public void edgesOfTheWorldShouldBeClampedIntoTheGrid() {
+        assertThat(Geohash.toString(Geohash.encode(90, 180, 10), 10)).isEqualTo("zz");
+        assertThat(Geohash.toString(Geohash.encode(-90, -180, 10), 10)).isEqualTo("00");
+    }
+
+    @Test
+    public void rowsAndColumnsShouldBeReadBackFromCell() {
+        long cell = Geohash.encode(41.0082, 28.9784, 35);
+
+        assertThat(Geohash.rowOfCell(cell, 35)).isEqualTo(Geohash.rowOf(41.0082, 35));
+        assertThat(Geohash.columnOfCell(cell, 35)).isEqualTo(Geohash.columnOf(28.9784, 35));
+        assertThat(Geohash.interleave(Geohash.columnOfCell(cell, 35), Geohash.rowOfCell(cell, 35), 35))
+              .isEqualTo(cell);
+    }
+
+    @Test
+    public void stringShouldOnlyBeMadeOfWholeCharacters() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("bits"));
+
+        Geohash.toString(0, 12);
+    }
+}
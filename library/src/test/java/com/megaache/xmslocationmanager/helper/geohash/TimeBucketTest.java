@@ -0,0 +1,50 @@
+package com.megaache.xmslocationmanager.helper.geohash;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeBucketTest {
+
+    @Test
+    public void postingListsShouldBeWalkedNewestFirst() {
+        TimeBucket bucket = new TimeBucket(0);
+        bucket.add(7, 1, 1, 10);
+        bucket.add(8, 2, 2, 20);
+        bucket.add(7, 3, 3, 30);
+
+        assertThat(timesOf(bucket, 7)).containsExactly(30L, 10L);
+        assertThat(timesOf(bucket, 8)).containsExactly(20L);
+        assertThat(timesOf(bucket, 9)).isEmpty();
+        assertThat(bucket.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void postingListsShouldSurviveGrowing() {
+        TimeBucket bucket = new TimeBucket(0);
+        for (int i = 0; i < 1000; i++) {
+            // Cells which collide in a small table
+            bucket.add((i % 300) * 1024L, i, -i, i);
+        }
+
+        assertThat(timesOf(bucket, 0)).containsExactly(900L, 600L, 300L, 0L);
+        assertThat(timesOf(bucket, 299 * 1024L)).containsExactly(899L, 599L, 299L);
+
+        int usedSlots = 0;
+        for (int slot = 0; slot < bucket.slotCount(); slot++) {
+            if (bucket.isSlotUsed(slot)) usedSlots++;
+        }
+        assertThat(usedSlots).isEqualTo(300);
+    }
+
+    private static List<Long> timesOf(TimeBucket bucket, long cell) {
+        List<Long> times = new ArrayList<>();
+        for (int fix = bucket.head(cell); !TimeBucket.isNone(fix); fix = bucket.previous(fix)) {
+            times.add(bucket.time(fix));
+        }
+        return times;
+    }
+}
@@ -0,0 +1,177 @@
+package com.megaache.xmslocationmanager.helper.history;
+
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.helper.LocationUtils;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class FixHistoryTest {
+
+    private static final int CAPACITY = 4;
+    private static final long SECOND = 1000;
+    // About 111 meters
+    private static final double STEP = 0.001;
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    private FakeClock clock;
+    private FixHistory fixHistory;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock(100 * SECOND * 1000000, 0);
+        fixHistory = new FixHistory(CAPACITY, clock);
+    }
+
+    @Test
+    public void capacityShouldBePositive() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(CoreMatchers.startsWith("capacity"));
+
+        new FixHistory(0, clock);
+    }
+
+    @Test
+    public void emptyHistoryShouldAnswerEmpty() {
+        assertThat(fixHistory.size()).isZero();
+        assertThat(fixHistory.countWithin(10 * SECOND)).isZero();
+        assertThat(fixHistory.pathLength(CAPACITY)).isZero();
+        assertThat(fixHistory.averageAccuracy(CAPACITY)).isNaN();
+        assertThat(fixHistory.bounds(CAPACITY, new FixHistory.Bounds())).isFalse();
+    }
+
+    @Test
+    public void oldestLocationsShouldBeOverwritten() {
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            addLocationAndWait(i * STEP, 0, 5);
+        }
+
+        assertThat(fixHistory.size()).isEqualTo(CAPACITY);
+        FixHistory.Bounds bounds = new FixHistory.Bounds();
+        assertThat(fixHistory.bounds(Integer.MAX_VALUE, bounds)).isTrue();
+        assertThat(bounds.minLatitude()).isCloseTo(2 * STEP, within(1e-12));
+        assertThat(bounds.maxLatitude()).isCloseTo(5 * STEP, within(1e-12));
+    }
+
+    @Test
+    public void countWithinShouldOnlyCountRecentLocations() {
+        for (int i = 0; i < 3; i++) {
+            addLocationAndWait(0, 0, 5);
+        }
+
+        // Locations are 3, 2 and 1 seconds old
+        assertThat(fixHistory.countWithin(SECOND)).isEqualTo(1);
+        assertThat(fixHistory.countWithin(2 * SECOND)).isEqualTo(2);
+        assertThat(fixHistory.countWithin(10 * SECOND)).isEqualTo(3);
+    }
+
+    @Test
+    public void locationWithoutTimeShouldNotBeWithinAnyPeriod() {
+        fixHistory.add(new FakeLocation(LocationManager.GPS_PROVIDER, 0, STEP, 0, 5));
+        addLocationAndWait(0, 0, 5);
+
+        assertThat(fixHistory.countWithin(10 * SECOND)).isEqualTo(1);
+        assertThat(fixHistory.pathLengthWithin(10 * SECOND)).isZero();
+        assertThat(fixHistory.pathLength(CAPACITY)).isGreaterThan(0);
+    }
+
+    @Test
+    public void pathLengthShouldSumDistancesBetweenConsecutiveLocations() {
+        addLocationAndWait(0, 0, 5);
+        addLocationAndWait(STEP, 0, 5);
+        addLocationAndWait(STEP, STEP, 5);
+
+        double step = LocationUtils.distance(0, 0, STEP, 0);
+        assertThat(fixHistory.pathLength(1)).isZero();
+        assertThat(fixHistory.pathLength(2)).isCloseTo(LocationUtils.distance(STEP, 0, STEP, STEP), within(1e-6));
+        assertThat(fixHistory.pathLength(CAPACITY)).isCloseTo(2 * step, within(0.01));
+        assertThat(fixHistory.pathLengthWithin(2 * SECOND)).isCloseTo(step, within(0.01));
+    }
+
+    @Test
+    public void averageAccuracyShouldSkipUnknownAccuracies() {
+        addLocationAndWait(0, 0, 10);
+        addLocationAndWait(0, 0, 20);
+        fixHistory.add(new UnknownAccuracyLocation());
+
+        assertThat(fixHistory.averageAccuracy(1)).isNaN();
+        assertThat(fixHistory.averageAccuracy(2)).isEqualTo(20);
+        assertThat(fixHistory.averageAccuracy(CAPACITY)).isEqualTo(15);
+    }
+
+    @Test
+    public void boundsWithinShouldOnlyContainRecentLocations() {
+        addLocationAndWait(-STEP, -STEP, 5);
+        addLocationAndWait(STEP, 0, 5);
+        addLocationAndWait(0, 2 * STEP, 5);
+
+        FixHistory.Bounds bounds = new FixHistory.Bounds();
+        assertThat(fixHistory.boundsWithin(2 * SECOND, bounds)).isTrue();
+
+        assertThat(bounds.minLatitude()).isEqualTo(0);
+        assertThat(bounds.maxLatitude()).isEqualTo(STEP);
+        assertThat(bounds.minLongitude()).isEqualTo(0);
+        assertThat(bounds.maxLongitude()).isEqualTo(2 * STEP);
+        assertThat(fixHistory.boundsWithin(SECOND / 2, bounds)).isFalse();
+    }
+
+    @Test
+    public void queriesShouldNotSeeHalfWrittenLocations() throws InterruptedException {
+        // Latitude and longitude of every location are the same, a torn read would show them different
+        final FixHistory history = new FixHistory(64, clock);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                FixHistory.Bounds bounds = new FixHistory.Bounds();
+                while (running.get()) {
+                    if (history.bounds(1, bounds) && bounds.minLatitude() != bounds.minLongitude()) {
+                        failure.set("Torn read " + bounds.minLatitude() + " " + bounds.minLongitude());
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 200000; i++) {
+            history.add(new FakeLocation(LocationManager.GPS_PROVIDER, 1, i, i, 5));
+        }
+        running.set(false);
+        reader.join();
+
+        assertThat(failure.get()).isNull();
+    }
+
+    private void addLocationAndWait(double latitude, double longitude, float accuracy) {
+        fixHistory.add(new FakeLocation(LocationManager.GPS_PROVIDER, clock.elapsedRealtimeNanos(),
+              latitude, longitude, accuracy));
+        clock.advance(SECOND);
+    }
+
+    private class UnknownAccuracyLocation extends FakeLocation {
+
+        UnknownAccuracyLocation() {
+            super(LocationManager.GPS_PROVIDER, clock.elapsedRealtimeNanos(), 0, 0, 0);
+        }
+
+        @Override
+        public boolean hasAccuracy() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.megaache.xmslocationmanager.helper.logging;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+public class RingBufferLoggerTest {
+
+    private static final int CAPACITY = 3;
+
+    @Mock Logger delegate;
+
+    private RingBufferLogger ringBufferLogger;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        ringBufferLogger = new RingBufferLogger(CAPACITY) {
+            @Override
+            long currentTimeMillis() {
+                return 42;
+            }
+        };
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityShouldThrowException() {
+        new RingBufferLogger(0);
+    }
+
+    @Test
+    public void dumpShouldContainLinesFromOldestToNewest() {
+        ringBufferLogger.logI("Tag", "first");
+        ringBufferLogger.logE("Other", "second");
+
+        assertThat(ringBufferLogger.size()).isEqualTo(2);
+        assertThat(ringBufferLogger.dump()).isEqualTo("42 I/Tag: first\n42 E/Other: second\n");
+    }
+
+    @Test
+    public void oldestLinesShouldBeDroppedWhenCapacityIsExceeded() {
+        ringBufferLogger.logD("Tag", "1");
+        ringBufferLogger.logV("Tag", "2");
+        ringBufferLogger.logW("Tag", "3");
+        ringBufferLogger.logI("Tag", "4");
+
+        assertThat(ringBufferLogger.size()).isEqualTo(CAPACITY);
+        assertThat(ringBufferLogger.dump()).isEqualTo("42 V/Tag: 2\n42 W/Tag: 3\n42 I/Tag: 4\n");
+    }
+
+    @Test
+    public void clearShouldDropAllLines() {
+        ringBufferLogger.logI("Tag", "first");
+        ringBufferLogger.clear();
+
+        assertThat(ringBufferLogger.size()).isZero();
+        assertThat(ringBufferLogger.dump()).isEmpty();
+    }
+
+    @Test
+    public void delegateShouldReceiveEveryLine() {
+        RingBufferLogger logger = new RingBufferLogger(CAPACITY, delegate);
+
+        logger.logI("Tag", "first");
+        logger.logE("Tag", "second");
+
+        verify(delegate).logI("Tag", "first");
+        verify(delegate).logE("Tag", "second");
+    }
+}
@@ -0,0 +1,96 @@
+package com.megaache.xmslocationmanager.helper.metrics;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void emptyHistogramShouldReturnZero() {
+        assertThat(histogram.count()).isEqualTo(0);
+        assertThat(histogram.min()).isEqualTo(0);
+        assertThat(histogram.max()).isEqualTo(0);
+        assertThat(histogram.mean()).isEqualTo(0);
+        assertThat(histogram.percentile(50)).isEqualTo(0);
+    }
+
+    @Test
+    public void bucketsShouldCoverEveryValueWithoutGap() {
+        for (long value : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, LatencyHistogram.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+
+            assertThat(LatencyHistogram.bucketLowerBound(index)).isLessThanOrEqualTo(value);
+            assertThat(LatencyHistogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(LatencyHistogram.bucketLowerBound(index + 1))
+                  .isEqualTo(LatencyHistogram.bucketUpperBound(index) + 1);
+        }
+    }
+
+    @Test
+    public void percentileShouldBeWithinBucketError() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100);
+        assertThat(histogram.min()).isEqualTo(1000000L);
+        assertThat(histogram.max()).isEqualTo(100000000L);
+        assertThat(histogram.mean()).isEqualTo(50500000L);
+        assertThat(histogram.percentile(50)).isBetween(50000000L, 56250000L);
+        assertThat(histogram.percentile(99)).isBetween(99000000L, 100000000L);
+        assertThat(histogram.percentile(100)).isEqualTo(100000000L);
+    }
+
+    @Test
+    public void recordShouldClampOutOfRangeValues() {
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.min()).isEqualTo(0);
+        assertThat(histogram.max()).isEqualTo(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void percentileShouldThrowExceptionWhenOutOfRange() {
+        expectedException.expect(IllegalArgumentException.class);
+
+        histogram.percentile(101);
+    }
+
+    @Test
+    public void resetShouldClearRecordedValues() {
+        histogram.record(10);
+
+        histogram.reset();
+
+        assertThat(histogram.count()).isEqualTo(0);
+        assertThat(histogram.max()).isEqualTo(0);
+    }
+
+    @Test
+    public void dumpShouldWriteNonEmptyBuckets() throws IOException {
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(17);
+
+        StringBuilder builder = new StringBuilder();
+        histogram.dump(builder);
+
+        assertThat(builder.toString()).isEqualTo("3,3,2\n16,17,1\n");
+    }
+}
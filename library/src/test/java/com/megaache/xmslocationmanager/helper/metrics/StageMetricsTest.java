@@ -0,0 +1,127 @@
+package com.megaache.xmslocationmanager.helper.metrics;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.constants.Stage;
+import com.megaache.xmslocationmanager.listener.MetricsListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class StageMetricsTest {
+
+    @Mock MetricsListener metricsListener;
+
+    private FakeStageMetrics stageMetrics;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        stageMetrics = new FakeStageMetrics(metricsListener);
+        stageMetrics.now = 1000;
+        stageMetrics.requestStarted();
+    }
+
+    @Test
+    public void requestStartedShouldNotifyListener() {
+        verify(metricsListener).onRequestStarted(1000);
+    }
+
+    @Test
+    public void stageFinishedShouldRecordDurationAndNotifyListener() {
+        stageMetrics.stageStarted(Stage.GET_LAST_LOCATION, ProviderType.GPS);
+        stageMetrics.now = 1500;
+        stageMetrics.stageFinished(Stage.GET_LAST_LOCATION, ProviderType.GPS);
+
+        verify(metricsListener).onStageStarted(Stage.GET_LAST_LOCATION, ProviderType.GPS, 1000);
+        verify(metricsListener).onStageFinished(Stage.GET_LAST_LOCATION, ProviderType.GPS, 1500, 500);
+        assertThat(stageMetrics.stageLatency(Stage.GET_LAST_LOCATION).count()).isEqualTo(1);
+        assertThat(stageMetrics.stageLatency(Stage.GET_LAST_LOCATION).max()).isEqualTo(500);
+    }
+
+    @Test
+    public void stageFinishedShouldBeIgnoredWhenStageIsNotStarted() {
+        stageMetrics.stageFinished(Stage.CHECK_LOCATION_SETTINGS, ProviderType.XMS);
+
+        verify(metricsListener, never()).onStageFinished(anyInt(), anyInt(), anyLong(), anyLong());
+        assertThat(stageMetrics.stageLatency(Stage.CHECK_LOCATION_SETTINGS).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void stagesShouldBeTrackedPerProvider() {
+        stageMetrics.stageStarted(Stage.REQUEST_LOCATION_UPDATES, ProviderType.XMS);
+        stageMetrics.now = 2000;
+        stageMetrics.stageStarted(Stage.REQUEST_LOCATION_UPDATES, ProviderType.GPS);
+        stageMetrics.now = 2500;
+        stageMetrics.stageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.XMS);
+
+        verify(metricsListener).onStageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.XMS, 2500, 1500);
+    }
+
+    @Test
+    public void fallbackShouldDropRunningStagesOfGivenUpProvider() {
+        stageMetrics.stageStarted(Stage.REQUEST_LOCATION_UPDATES, ProviderType.GPS);
+        stageMetrics.fallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.TIMEOUT);
+        stageMetrics.stageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.GPS);
+
+        verify(metricsListener).onFallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.TIMEOUT, 1000);
+        assertThat(stageMetrics.stageLatency(Stage.REQUEST_LOCATION_UPDATES).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void fixShouldBeReportedOnlyOncePerRequest() {
+        stageMetrics.now = 4000;
+        stageMetrics.fix(ProviderType.NETWORK);
+        stageMetrics.fix(ProviderType.NETWORK);
+        stageMetrics.failure(FailType.TIMEOUT);
+
+        verify(metricsListener).onFix(ProviderType.NETWORK, 4000, 3000);
+        verify(metricsListener, never()).onFailure(anyInt(), anyLong());
+        assertThat(stageMetrics.timeToFixLatency().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void requestStartedShouldAllowNextOutcome() {
+        stageMetrics.failure(FailType.PERMISSION_DENIED);
+        stageMetrics.requestStarted();
+        stageMetrics.failure(FailType.TIMEOUT);
+
+        verify(metricsListener).onFailure(FailType.PERMISSION_DENIED, 1000);
+        verify(metricsListener).onFailure(FailType.TIMEOUT, 1000);
+    }
+
+    @Test
+    public void dumpShouldWriteALinePerStageAndTimeToFirstFix() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        stageMetrics.dump(builder);
+
+        assertThat(builder.toString().split("\n")).hasSize(6);
+        assertThat(builder.toString()).startsWith("askForPermission,0,").contains("timeToFirstFix,0,");
+    }
+
+    private static class FakeStageMetrics extends StageMetrics {
+
+        long now;
+
+        FakeStageMetrics(MetricsListener listener) {
+            super(listener);
+        }
+
+        @Override
+        long elapsedRealtimeNanos() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class KalmanFilterProcessorTest {
+
+    private static final long SECOND = 1000L * 1000 * 1000;
+    // Elapsed realtime of the locations at time 0, since 0 means they have no time
+    private static final long START = 100 * SECOND;
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+    private static final double METERS_PER_DEGREE = 6371009 * Math.PI / 180;
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    private KalmanFilterProcessor processor;
+
+    @Before
+    public void setUp() {
+        processor = newProcessor(KalmanFilterProcessor.DEFAULT_ACCELERATION_NOISE);
+    }
+
+    @Test
+    public void constructorShouldThrowExceptionWhenNoiseIsNotPositive() {
+        expectedException.expect(IllegalArgumentException.class);
+
+        new KalmanFilterProcessor(0);
+    }
+
+    @Test
+    public void firstLocationShouldBePassedAsItIs() {
+        Location location = location(0, LATITUDE, LONGITUDE, 10);
+
+        Location processed = processor.process(location);
+
+        assertThat(processed).isSameAs(location);
+        assertThat(processed.getLatitude()).isEqualTo(LATITUDE);
+        assertThat(processed.getLongitude()).isEqualTo(LONGITUDE);
+        assertThat(processed.getAccuracy()).isEqualTo(10f);
+    }
+
+    @Test
+    public void locationWithoutAccuracyShouldBePassedAsItIs() {
+        processor.process(location(0, LATITUDE, LONGITUDE, 10));
+        Location location = location(SECOND, LATITUDE + 0.01, LONGITUDE, 0);
+
+        Location processed = processor.process(location);
+
+        assertThat(processed).isSameAs(location);
+        assertThat(processed.getLatitude()).isEqualTo(LATITUDE + 0.01);
+    }
+
+    @Test
+    public void locationWithoutTimeShouldBePassedThrough() {
+        processor.process(location(0, LATITUDE, LONGITUDE, 10));
+        Location location = new FakeLocation("fused", 0, LATITUDE + 0.001, LONGITUDE, 10);
+
+        assertThat(processor.process(location)).isSameAs(location);
+        // Filter goes on from the location before it
+        assertThat(processor.process(location(SECOND, LATITUDE + 0.001, LONGITUDE, 10)).getLatitude())
+              .isLessThan(LATITUDE + 0.001);
+    }
+
+    @Test
+    public void receivedLocationShouldNotBeModified() {
+        processor.process(location(0, LATITUDE, LONGITUDE, 10));
+        Location location = location(SECOND, LATITUDE + 0.001, LONGITUDE, 10);
+
+        Location processed = processor.process(location);
+
+        assertThat(processed).isNotSameAs(location);
+        assertThat(processed.getLatitude()).isNotEqualTo(LATITUDE + 0.001);
+        assertThat(location.getLatitude()).isEqualTo(LATITUDE + 0.001);
+        assertThat(location.getAccuracy()).isEqualTo(10f);
+    }
+
+    @Test
+    public void noiseOfStationaryLocationsShouldBeReduced() {
+        assertThat(filteredErrorRatio(newProcessor(KalmanFilterProcessor.DEFAULT_ACCELERATION_NOISE))).isLessThan(1);
+    }
+
+    @Test
+    public void lowerAccelerationNoiseShouldSmoothMore() {
+        assertThat(filteredErrorRatio(newProcessor(0.5))).isLessThan(0.5);
+    }
+
+    @Test
+    public void estimateShouldFollowConstantMovement() {
+        // 10 m/s to the north
+        Location location = null;
+        for (int i = 0; i < 60; i++) {
+            location = processor.process(location(i * SECOND, LATITUDE + i * 10 / METERS_PER_DEGREE, LONGITUDE, 5));
+        }
+
+        double expectedLatitude = LATITUDE + 59 * 10 / METERS_PER_DEGREE;
+        assertThat(location.getLatitude()).isCloseTo(expectedLatitude, within(1 / METERS_PER_DEGREE));
+        assertThat(location.getLongitude()).isCloseTo(LONGITUDE, within(1e-9));
+    }
+
+    @Test
+    public void accuracyShouldBeImprovedAfterSeveralLocations() {
+        Location location = null;
+        for (int i = 0; i < 10; i++) {
+            location = processor.process(location(i * SECOND, LATITUDE, LONGITUDE, 20));
+        }
+
+        assertThat(location.getAccuracy()).isLessThan(20f);
+    }
+
+    @Test
+    public void filterShouldStartOverAfterLongGap() {
+        processor.process(location(0, LATITUDE, LONGITUDE, 10));
+        Location location = processor.process(
+              location(KalmanFilterProcessor.MAX_GAP_NANOS + SECOND, LATITUDE + 1, LONGITUDE + 1, 10));
+
+        assertThat(location.getLatitude()).isEqualTo(LATITUDE + 1);
+        assertThat(location.getLongitude()).isEqualTo(LONGITUDE + 1);
+    }
+
+    @Test
+    public void filterShouldStartOverAfterReset() {
+        processor.process(location(0, LATITUDE, LONGITUDE, 10));
+        processor.reset();
+        Location location = processor.process(location(SECOND, LATITUDE + 0.001, LONGITUDE, 10));
+
+        assertThat(location.getLatitude()).isEqualTo(LATITUDE + 0.001);
+    }
+
+    @Test
+    public void longitudeShouldStayInRangeAroundAntimeridian() {
+        processor.process(location(0, 0, 179.99999, 5));
+        Location location = processor.process(location(SECOND, 0, -179.99999, 5));
+
+        assertThat(location.getLongitude()).isBetween(-180.0, 180.0);
+        assertThat(Math.abs(location.getLongitude())).isGreaterThan(179.9999);
+    }
+
+    private static double filteredErrorRatio(KalmanFilterProcessor processor) {
+        Random random = new Random(42);
+        double rawError = 0;
+        double filteredError = 0;
+
+        for (int i = 0; i < 200; i++) {
+            double noiseNorth = random.nextGaussian() * 10;
+            Location location = processor.process(
+                  location(i * SECOND, LATITUDE + noiseNorth / METERS_PER_DEGREE, LONGITUDE, 10));
+
+            if (i >= 20) {
+                rawError += Math.abs(noiseNorth);
+                filteredError += Math.abs((location.getLatitude() - LATITUDE) * METERS_PER_DEGREE);
+            }
+        }
+
+        return filteredError / rawError;
+    }
+
+    private static KalmanFilterProcessor newProcessor(double accelerationNoise) {
+        return new KalmanFilterProcessor(accelerationNoise) {
+            @Override
+            Location copyOf(Location location) {
+                return location(location.getElapsedRealtimeNanos() - START, location.getLatitude(),
+                      location.getLongitude(), location.getAccuracy());
+            }
+        };
+    }
+
+    private static Location location(long elapsedRealtimeNanos, double latitude, double longitude, float accuracy) {
+        return new FakeLocation("fused", START + elapsedRealtimeNanos, latitude, longitude, accuracy) {
+            @Override
+            public boolean hasAccuracy() {
+                return getAccuracy() > 0;
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ProcessingLocationListenerTest {
+
+    @Mock LocationListener locationListener;
+    @Mock FixProcessor firstProcessor;
+    @Mock FixProcessor secondProcessor;
+    @Mock Location location;
+    @Mock Location processedLocation;
+
+    private ProcessingLocationListener processingLocationListener;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        processingLocationListener = new ProcessingLocationListener(locationListener,
+              new FixProcessor[] {firstProcessor, secondProcessor});
+    }
+
+    @Test
+    public void locationShouldPassThroughProcessorsInOrder() {
+        when(firstProcessor.process(location)).thenReturn(processedLocation);
+        when(secondProcessor.process(processedLocation)).thenReturn(processedLocation);
+
+        processingLocationListener.onLocationChanged(location);
+
+        verify(locationListener).onLocationChanged(processedLocation);
+    }
+
+    @Test
+    public void droppedLocationShouldNotReachFollowingProcessorsAndListener() {
+        when(firstProcessor.process(location)).thenReturn(null);
+
+        processingLocationListener.onLocationChanged(location);
+
+        verify(secondProcessor, never()).process(any(Location.class));
+        verify(locationListener, never()).onLocationChanged(any(Location.class));
+    }
+
+    @Test
+    public void batchShouldOnlyContainLocationsThatAreNotDropped() {
+        LocationListener batchListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BatchLocationListener.class));
+        List<Location> received = new ArrayList<>();
+        processingLocationListener = new ProcessingLocationListener(new BatchRecorder(batchListener, received),
+              new FixProcessor[] {firstProcessor});
+        when(firstProcessor.process(location)).thenReturn(location);
+        when(firstProcessor.process(processedLocation)).thenReturn(null);
+
+        List<Location> batch = new ArrayList<>();
+        batch.add(processedLocation);
+        batch.add(location);
+        processingLocationListener.onLocationsChanged(batch);
+
+        assertThat(received).containsExactly(location);
+    }
+
+    @Test
+    public void batchShouldNotBeDeliveredWhenAllLocationsAreDropped() {
+        LocationListener batchListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BatchLocationListener.class));
+        processingLocationListener = new ProcessingLocationListener(batchListener, new FixProcessor[] {firstProcessor});
+
+        processingLocationListener.onLocationsChanged(Collections.singletonList(location));
+
+        verify((BatchLocationListener) batchListener, never()).onLocationsChanged(any(List.class));
+    }
+
+    /**
+     * Copies the batch, since it is reused after the call
+     */
+    private static class BatchRecorder extends ForwardingLocationListener {
+
+        private final List<Location> received;
+
+        BatchRecorder(LocationListener delegate, List<Location> received) {
+            super(delegate);
+            this.received = received;
+        }
+
+        @Override
+        public void onLocationsChanged(@NonNull List<Location> locations) {
+            received.addAll(locations);
+        }
+    }
+}
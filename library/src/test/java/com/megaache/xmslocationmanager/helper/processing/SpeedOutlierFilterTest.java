@@ -0,0 +1,128 @@
+package com.megaache.xmslocationmanager.helper.processing;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.constants.TransportProfile;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpeedOutlierFilterTest {
+
+    private static final long SECOND = 1000L * 1000 * 1000;
+    // Elapsed realtime of the locations at time 0, since 0 means they have no time
+    private static final long START = 100 * SECOND;
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+    private static final double METERS_PER_DEGREE = 6371009 * Math.PI / 180;
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    private SpeedOutlierFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new SpeedOutlierFilter(TransportProfile.WALKING);
+    }
+
+    @Test
+    public void constructorShouldThrowExceptionWhenMaxSpeedIsNotPositive() {
+        expectedException.expect(IllegalArgumentException.class);
+
+        new SpeedOutlierFilter(0f);
+    }
+
+    @Test
+    public void maxSpeedShouldDependOnTransportProfile() {
+        assertThat(new SpeedOutlierFilter(TransportProfile.WALKING).maxSpeed()).isEqualTo(7f);
+        assertThat(new SpeedOutlierFilter(TransportProfile.CYCLING).maxSpeed()).isEqualTo(20f);
+        assertThat(new SpeedOutlierFilter(TransportProfile.DRIVING).maxSpeed()).isEqualTo(70f);
+        assertThat(new SpeedOutlierFilter(TransportProfile.FLYING).maxSpeed()).isEqualTo(300f);
+    }
+
+    @Test
+    public void firstLocationShouldBeAccepted() {
+        Location location = northOf(0, 0, 10);
+
+        assertThat(filter.process(location)).isSameAs(location);
+        assertThat(filter.acceptedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void plausibleMovementShouldBeAccepted() {
+        filter.process(northOf(0, 0, 5));
+
+        assertThat(filter.process(northOf(10 * SECOND, 60, 5))).isNotNull();
+        assertThat(filter.droppedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void jumpWithinAccuracyShouldBeAccepted() {
+        filter.process(northOf(0, 0, 50));
+
+        assertThat(filter.process(northOf(SECOND, 80, 50))).isNotNull();
+    }
+
+    @Test
+    public void jumpAndBackShouldOnlyDropTheJump() {
+        filter.process(northOf(0, 0, 10));
+
+        assertThat(filter.process(northOf(SECOND, 3000, 10))).isNull();
+        assertThat(filter.process(northOf(2 * SECOND, 5, 10))).isNotNull();
+        assertThat(filter.acceptedCount()).isEqualTo(2);
+        assertThat(filter.droppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void speedShouldBeMeasuredFromLastAcceptedLocation() {
+        filter.process(northOf(0, 0, 5));
+        filter.process(northOf(SECOND, 3000, 5));
+
+        // 100 meters in 20 seconds from the first location, but 2900 meters from the dropped one
+        assertThat(filter.process(northOf(20 * SECOND, 100, 5))).isNotNull();
+    }
+
+    @Test
+    public void locationShouldBeAcceptedAfterTooManyConsecutiveDrops() {
+        filter.process(northOf(0, 0, 5));
+        for (int i = 1; i <= SpeedOutlierFilter.MAX_CONSECUTIVE_DROPS; i++) {
+            assertThat(filter.process(northOf(i * SECOND, 5000, 5))).isNull();
+        }
+
+        assertThat(filter.process(northOf(10 * SECOND, 5000, 5))).isNotNull();
+        assertThat(filter.process(northOf(11 * SECOND, 5005, 5))).isNotNull();
+    }
+
+    @Test
+    public void locationWithoutTimeShouldBeAcceptedWithoutBecomingLastAccepted() {
+        filter.process(northOf(0, 0, 5));
+        Location location = new FakeLocation("network", 0, LATITUDE + 3000 / METERS_PER_DEGREE, LONGITUDE, 5);
+
+        assertThat(filter.process(location)).isSameAs(location);
+        // Still measured from the first location
+        assertThat(filter.process(northOf(SECOND, 3000, 5))).isNull();
+        assertThat(filter.acceptedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void resetShouldForgetLastLocationAndCounters() {
+        filter.process(northOf(0, 0, 5));
+        filter.process(northOf(SECOND, 3000, 5));
+
+        filter.reset();
+
+        assertThat(filter.acceptedCount()).isEqualTo(0);
+        assertThat(filter.droppedCount()).isEqualTo(0);
+        assertThat(filter.process(northOf(2 * SECOND, 3000, 5))).isNotNull();
+    }
+
+    private static Location northOf(long elapsedRealtimeNanos, double meters, float accuracy) {
+        return new FakeLocation("network", START + elapsedRealtimeNanos, LATITUDE + meters / METERS_PER_DEGREE,
+              LONGITUDE, accuracy);
+    }
+}
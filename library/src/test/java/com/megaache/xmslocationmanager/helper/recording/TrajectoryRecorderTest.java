@@ -0,0 +1,169 @@
+package com.megaache.xmslocationmanager.helper.recording;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrajectoryRecorderTest {
+
+    private static final int CAPACITY = 3;
+    private static final long START = 1500000000000L;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Runnable> queuedWrites = new ArrayList<>();
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            queuedWrites.add(command);
+        }
+    };
+
+    private File directory;
+    private TrajectoryRecorder trajectoryRecorder;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File(temporaryFolder.getRoot(), "trajectory");
+        trajectoryRecorder = new TrajectoryRecorder(directory, CAPACITY, 0, executor);
+    }
+
+    @Test
+    public void recordShouldNotWriteOnCallingThread() {
+        trajectoryRecorder.record(location(START));
+
+        assertThat(directory).doesNotExist();
+        assertThat(queuedWrites).hasSize(1);
+    }
+
+    @Test
+    public void writesShouldBeBatched() {
+        trajectoryRecorder.record(location(START));
+        trajectoryRecorder.record(location(START + 1000));
+
+        assertThat(queuedWrites).hasSize(1);
+        runQueuedWrites();
+        assertThat(TrajectoryReader.readAll(directory)).hasSize(2);
+    }
+
+    @Test
+    public void recordedLocationsShouldBeReadableBeforeSegmentIsSealed() {
+        trajectoryRecorder.record(location(START));
+        runQueuedWrites();
+
+        List<TrajectoryReader.Segment> segments = TrajectoryReader.readSegments(directory);
+        assertThat(segments).hasSize(1);
+        assertThat(segments.get(0).isSealed()).isFalse();
+        assertThat(segments.get(0).fixes().get(0).time()).isEqualTo(START);
+    }
+
+    @Test
+    public void fullSegmentShouldBeSealedAndRolledOver() {
+        for (int i = 0; i < CAPACITY + 1; i++) {
+            trajectoryRecorder.record(location(START + i * 1000));
+        }
+        runQueuedWrites();
+
+        List<TrajectoryReader.Segment> segments = TrajectoryReader.readSegments(directory);
+        assertThat(segments).hasSize(2);
+        assertThat(segments.get(0).isSealed()).isTrue();
+        assertThat(segments.get(0).fixes()).hasSize(CAPACITY);
+        assertThat(segments.get(1).fixes()).hasSize(1);
+        assertThat(TrajectoryReader.readAll(directory)).extracting("time")
+              .containsExactly(START, START + 1000, START + 2000, START + 3000);
+    }
+
+    @Test
+    public void oldestSegmentsShouldBeDeletedBeyondMaxSegments() {
+        trajectoryRecorder = new TrajectoryRecorder(directory, 1, 2, executor);
+
+        for (int i = 0; i < 4; i++) {
+            trajectoryRecorder.record(location(START + i * 1000));
+        }
+        runQueuedWrites();
+
+        assertThat(TrajectoryReader.segmentFiles(directory)).extracting("name")
+              .containsExactly(TrajectoryReader.fileName(2), TrajectoryReader.fileName(3));
+        assertThat(TrajectoryReader.readAll(directory)).extracting("time")
+              .containsExactly(START + 2000, START + 3000);
+    }
+
+    @Test
+    public void closeShouldSealCurrentSegmentAndIgnoreLaterLocations() {
+        trajectoryRecorder.record(location(START));
+        trajectoryRecorder.close();
+        trajectoryRecorder.record(location(START + 1000));
+        runQueuedWrites();
+
+        List<TrajectoryReader.Segment> segments = TrajectoryReader.readSegments(directory);
+        assertThat(segments).hasSize(1);
+        assertThat(segments.get(0).isSealed()).isTrue();
+        assertThat(segments.get(0).fixes()).hasSize(1);
+    }
+
+    @Test
+    public void newRecorderShouldSealLeftoverSegmentsAndContinueWithNextOne() {
+        trajectoryRecorder.record(location(START));
+        runQueuedWrites();
+        // Process dies without closing
+
+        TrajectoryRecorder nextRecorder = new TrajectoryRecorder(directory, CAPACITY, 0, executor);
+        nextRecorder.record(location(START + 1000));
+        runQueuedWrites();
+
+        List<TrajectoryReader.Segment> segments = TrajectoryReader.readSegments(directory);
+        assertThat(segments).hasSize(2);
+        assertThat(segments.get(0).isSealed()).isTrue();
+        assertThat(TrajectoryReader.segmentFiles(directory).get(1).getName())
+              .isEqualTo(TrajectoryReader.fileName(1));
+        assertThat(TrajectoryReader.readAll(directory)).extracting("time").containsExactly(START, START + 1000);
+    }
+
+    @Test
+    public void unknownFilesShouldBeIgnored() throws IOException {
+        assertThat(directory.mkdirs()).isTrue();
+        new RandomAccessFile(new File(directory, TrajectoryReader.fileName(7)), "rw").close();
+        assertThat(new File(directory, "notes.txt").createNewFile()).isTrue();
+
+        trajectoryRecorder.record(location(START));
+        runQueuedWrites();
+
+        assertThat(TrajectoryReader.readSegments(directory)).hasSize(1);
+        assertThat(new File(directory, TrajectoryReader.fileName(8))).exists();
+    }
+
+    @Test
+    public void fileNamesShouldBeParsedBack() {
+        assertThat(TrajectoryReader.indexOf(new File(TrajectoryReader.fileName(42)))).isEqualTo(42);
+        assertThat(TrajectoryReader.indexOf(new File("segment-x.xtr"))).isEqualTo(-1);
+        assertThat(TrajectoryReader.indexOf(new File("notes.txt"))).isEqualTo(-1);
+    }
+
+    private void runQueuedWrites() {
+        while (!queuedWrites.isEmpty()) {
+            queuedWrites.remove(0).run();
+        }
+    }
+
+    private static Location location(long time) {
+        Location location = new FakeLocation(LocationManager.GPS_PROVIDER, time, 5);
+        location.setLatitude(41);
+        location.setLongitude(29);
+        return location;
+    }
+}
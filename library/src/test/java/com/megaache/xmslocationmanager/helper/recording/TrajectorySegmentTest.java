@@ -0,0 +1,166 @@
+package com.megaache.xmslocationmanager.helper.recording;
+
+import com.megaache.xmslocationmanager.helper.fix.CompactFix;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TrajectorySegmentTest {
+
+    private static final int CAPACITY = 4;
+    private static final long START = 1500000000000L;
+
+    private ByteBuffer buffer;
+    private TrajectorySegment segment;
+
+    @Before
+    public void setUp() {
+        buffer = ByteBuffer.allocate(TrajectorySegment.fileSize(CAPACITY));
+        segment = new TrajectorySegment(buffer, CAPACITY);
+    }
+
+    @Test
+    public void recordsShouldHaveFixedWidth() {
+        assertThat(TrajectorySegment.fileSize(CAPACITY)).isEqualTo(32 + CAPACITY * 16 + 16);
+    }
+
+    @Test
+    public void emptySegmentShouldBeReadAsEmpty() {
+        TrajectoryReader.Segment read = TrajectorySegment.read(buffer);
+
+        assertThat(read).isNotNull();
+        assertThat(read.fixes()).isEmpty();
+        assertThat(read.isSealed()).isFalse();
+    }
+
+    @Test
+    public void fixesShouldBeReadBackWithTheirPrecision() {
+        segment.append(fix(START, 41.0082376, 28.9783589, 4.56f, 1.234f));
+        segment.append(fix(START + 1000, 41.0082412, 28.9783501, 3.5f, Float.NaN));
+        segment.append(fix(START + 900, -33.8688197, 151.2092955, Float.NaN, 0));
+
+        List<CompactFix> fixes = TrajectorySegment.read(buffer).fixes();
+
+        assertThat(fixes).hasSize(3);
+        assertThat(fixes.get(0).time()).isEqualTo(START);
+        assertThat(fixes.get(0).latitude()).isCloseTo(41.0082376, within(1e-9));
+        assertThat(fixes.get(0).longitude()).isCloseTo(28.9783589, within(1e-9));
+        assertThat(fixes.get(0).accuracy()).isEqualTo(4.6f);
+        assertThat(fixes.get(0).speed()).isEqualTo(1.23f);
+
+        assertThat(fixes.get(1).time()).isEqualTo(START + 1000);
+        assertThat(fixes.get(1).latitude()).isCloseTo(41.0082412, within(1e-9));
+        assertThat(fixes.get(1).hasSpeed()).isFalse();
+
+        // Time may go backwards, differences are signed
+        assertThat(fixes.get(2).time()).isEqualTo(START + 900);
+        assertThat(fixes.get(2).latitude()).isCloseTo(-33.8688197, within(1e-9));
+        assertThat(fixes.get(2).longitude()).isCloseTo(151.2092955, within(1e-9));
+        assertThat(fixes.get(2).hasAccuracy()).isFalse();
+        assertThat(fixes.get(2).speed()).isZero();
+        assertThat(fixes.get(2).providerId()).isEqualTo(CompactFix.PROVIDER_UNKNOWN);
+    }
+
+    @Test
+    public void outOfRangeAccuracyShouldBeCapped() {
+        segment.append(fix(START, 0, 0, 100000, 1000));
+
+        CompactFix fix = TrajectorySegment.read(buffer).fixes().get(0);
+        assertThat(fix.accuracy()).isEqualTo(6553.4f);
+        assertThat(fix.speed()).isEqualTo(655.34f);
+    }
+
+    @Test
+    public void appendShouldFailWhenSegmentIsFull() {
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(segment.append(fix(START + i * 1000))).isTrue();
+        }
+
+        assertThat(segment.append(fix(START + CAPACITY * 1000))).isFalse();
+        assertThat(segment.count()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    public void appendShouldFailWhenDifferenceDoesNotFitIntoRecord() {
+        segment.append(fix(START, 0, -179.9, 5, 0));
+
+        // Crossing the antimeridian
+        assertThat(segment.append(fix(START + 1000, 0, 179.9, 5, 0))).isFalse();
+        // Far apart in time
+        assertThat(segment.append(fix(START + 30L * 24 * 60 * 60 * 1000, 0, -179.9, 5, 0)))
+              .isFalse();
+        assertThat(segment.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void sealedSegmentShouldBeVerified() {
+        segment.append(fix(START));
+        segment.append(fix(START + 1000));
+
+        segment.seal();
+
+        TrajectoryReader.Segment read = TrajectorySegment.read(buffer);
+        assertThat(read.isSealed()).isTrue();
+        assertThat(read.fixes()).hasSize(2);
+    }
+
+    @Test
+    public void corruptedSegmentShouldNotBeVerified() {
+        segment.append(fix(START));
+        segment.seal();
+
+        buffer.put(TrajectorySegment.HEADER_SIZE + 2, (byte) 7);
+
+        assertThat(TrajectorySegment.read(buffer).isSealed()).isFalse();
+    }
+
+    @Test
+    public void unsealedSegmentShouldBeReadUpToCommittedRecords() {
+        segment.append(fix(START));
+        segment.append(fix(START + 1000));
+        // Record written after the last commit is ignored
+        buffer.putInt(TrajectorySegment.HEADER_SIZE + 2 * TrajectorySegment.RECORD_SIZE, 1000);
+
+        TrajectoryReader.Segment read = TrajectorySegment.read(buffer);
+
+        assertThat(read.isSealed()).isFalse();
+        assertThat(read.fixes()).hasSize(2);
+    }
+
+    @Test
+    public void recoverShouldSealUnsealedSegmentOnce() {
+        segment.append(fix(START));
+
+        assertThat(TrajectorySegment.recover(buffer)).isTrue();
+        assertThat(TrajectorySegment.recover(buffer)).isFalse();
+
+        TrajectoryReader.Segment read = TrajectorySegment.read(buffer);
+        assertThat(read.isSealed()).isTrue();
+        assertThat(read.fixes()).hasSize(1);
+    }
+
+    @Test
+    public void otherFilesShouldNotBeRead() {
+        ByteBuffer other = ByteBuffer.allocate(TrajectorySegment.fileSize(CAPACITY));
+        other.putInt(0, 0x12345678);
+
+        assertThat(TrajectorySegment.read(other)).isNull();
+        assertThat(TrajectorySegment.recover(other)).isFalse();
+        assertThat(TrajectorySegment.read(ByteBuffer.allocate(4))).isNull();
+    }
+
+    private static CompactFix fix(long time) {
+        return fix(time, 41, 29, 5, 0);
+    }
+
+    private static CompactFix fix(long time, double latitude, double longitude, float accuracy, float speed) {
+        return new CompactFix(CompactFix.toE7(latitude), CompactFix.toE7(longitude), accuracy, 0, time, speed,
+              Float.NaN, CompactFix.PROVIDER_GPS);
+    }
+}
@@ -0,0 +1,245 @@
+package com.megaache.xmslocationmanager.helper.subscription;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.megaache.xmslocationmanager.XMSLocationRequest;
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xms.g.location.FusedLocationProviderClient;
+import org.xms.g.location.LocationCallback;
+import org.xms.g.location.LocationRequest;
+import org.xms.g.location.LocationResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FusedSubscriptionHubTest {
+
+    @Mock Context context;
+    @Mock FusedLocationProviderClient fusedLocationProviderClient;
+    @Mock LocationCallback firstCallback;
+    @Mock LocationCallback secondCallback;
+    @Mock LocationResult locationResult;
+
+    private final List<Handler> handlers = new ArrayList<>();
+    private final List<Handler> otherThreadHandlers = new ArrayList<>();
+    private final Map<Handler, Runnable> posted = new HashMap<>();
+    private final FakeClock clock = new FakeClock();
+    private FusedSubscriptionHub hub;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(context.getApplicationContext()).thenReturn(context);
+
+        hub = new FusedSubscriptionHub() {
+            @Override
+            FusedLocationProviderClient createClient(Context applicationContext) {
+                return fusedLocationProviderClient;
+            }
+
+            @Override
+            Handler createHandler(Looper looper) {
+                Handler handler = mock(Handler.class);
+                handlers.add(handler);
+                return handler;
+            }
+
+            @Override
+            boolean isCurrentThread(Handler handler) {
+                return !otherThreadHandlers.contains(handler);
+            }
+
+            @Override
+            void post(Handler handler, Runnable runnable) {
+                posted.put(handler, runnable);
+            }
+        };
+    }
+
+    @Test
+    public void firstClientShouldCreateSubscription() {
+        hub.requestLocationUpdates(context, request(1000, XMSLocationRequest.PRIORITY_LOW_POWER), firstCallback, null,
+              clock);
+
+        verify(fusedLocationProviderClient).requestLocationUpdates(any(LocationRequest.class),
+              any(LocationCallback.class), isNull(Looper.class));
+        assertThat(hub.clientCount()).isEqualTo(1);
+        assertThat(hub.activeRequest().getInterval()).isEqualTo(1000);
+    }
+
+    @Test
+    public void mergedRequestShouldUseSmallestIntervalAndHighestPriority() {
+        hub.requestLocationUpdates(context, request(1000, XMSLocationRequest.PRIORITY_LOW_POWER), firstCallback, null,
+              clock);
+        hub.requestLocationUpdates(context, request(5000, XMSLocationRequest.PRIORITY_HIGH_ACCURACY), secondCallback,
+              null, clock);
+
+        assertThat(hub.activeRequest().getInterval()).isEqualTo(1000);
+        assertThat(hub.activeRequest().getPriority()).isEqualTo(XMSLocationRequest.PRIORITY_HIGH_ACCURACY);
+        verify(fusedLocationProviderClient, times(2)).requestLocationUpdates(any(LocationRequest.class),
+              any(LocationCallback.class), isNull(Looper.class));
+    }
+
+    @Test
+    public void sameRequestShouldNotBeIssuedAgain() {
+        hub.requestLocationUpdates(context, request(1000, XMSLocationRequest.PRIORITY_LOW_POWER), firstCallback, null,
+              clock);
+        hub.requestLocationUpdates(context, request(1000, XMSLocationRequest.PRIORITY_LOW_POWER), secondCallback,
+              null, clock);
+
+        verify(fusedLocationProviderClient, times(1)).requestLocationUpdates(any(LocationRequest.class),
+              any(LocationCallback.class), isNull(Looper.class));
+    }
+
+    @Test
+    public void lastClientLeavingShouldRemoveSubscription() {
+        subscribeBoth(0, 0);
+
+        hub.removeLocationUpdates(firstCallback);
+        verify(fusedLocationProviderClient, never()).removeLocationUpdates(any(LocationCallback.class));
+
+        hub.removeLocationUpdates(secondCallback);
+        verify(fusedLocationProviderClient).removeLocationUpdates(any(LocationCallback.class));
+        assertThat(hub.clientCount()).isZero();
+        assertThat(hub.activeRequest()).isNull();
+    }
+
+    @Test
+    public void resultShouldBeFannedOutToAllClients() {
+        LocationCallback hubCallback = subscribeBoth(0, 0);
+
+        hubCallback.onLocationResult(locationResult);
+
+        verify(firstCallback).onLocationResult(locationResult);
+        verify(secondCallback).onLocationResult(locationResult);
+    }
+
+    @Test
+    public void clientShouldNotReceiveResultsFasterThanItsFastestInterval() {
+        LocationCallback hubCallback = subscribeBoth(0, 1000);
+
+        hubCallback.onLocationResult(locationResult);
+        clock.advance(500);
+        hubCallback.onLocationResult(locationResult);
+        clock.advance(500);
+        hubCallback.onLocationResult(locationResult);
+
+        verify(firstCallback, times(3)).onLocationResult(locationResult);
+        verify(secondCallback, times(2)).onLocationResult(locationResult);
+    }
+
+    @Test
+    public void clientRemovedDuringDispatchShouldNotReceiveResult() {
+        LocationCallback hubCallback = subscribeBoth(0, 0);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                hub.removeLocationUpdates(secondCallback);
+                return null;
+            }
+        }).when(firstCallback).onLocationResult(locationResult);
+
+        hubCallback.onLocationResult(locationResult);
+
+        verify(firstCallback).onLocationResult(locationResult);
+        verify(secondCallback, never()).onLocationResult(locationResult);
+    }
+
+    @Test
+    public void resultShouldBePostedToLooperOfClientOnAnotherThread() {
+        LocationCallback hubCallback = subscribeBoth(0, 0);
+        otherThreadHandlers.add(handlers.get(1));
+
+        hubCallback.onLocationResult(locationResult);
+
+        verify(firstCallback).onLocationResult(locationResult);
+        verify(secondCallback, never()).onLocationResult(locationResult);
+
+        runPosted(handlers.get(1));
+        verify(secondCallback).onLocationResult(locationResult);
+    }
+
+    @Test
+    public void postedResultShouldNotBeDeliveredAfterClientLeft() {
+        LocationCallback hubCallback = subscribeBoth(0, 0);
+        otherThreadHandlers.add(handlers.get(1));
+
+        hubCallback.onLocationResult(locationResult);
+        hub.removeLocationUpdates(secondCallback);
+        runPosted(handlers.get(1));
+
+        verify(secondCallback, never()).onLocationResult(locationResult);
+    }
+
+    @Test
+    public void subscriptionShouldMoveToAnotherLooperWhenItsClientLeaves() {
+        subscribeBoth(0, 0);
+
+        hub.removeLocationUpdates(firstCallback);
+
+        verify(fusedLocationProviderClient, times(2)).requestLocationUpdates(any(LocationRequest.class),
+              any(LocationCallback.class), isNull(Looper.class));
+    }
+
+    @Test
+    public void clientRemovingItselfDuringDispatchShouldNotBreakFanOut() {
+        LocationCallback hubCallback = subscribeBoth(0, 0);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                hub.removeLocationUpdates(firstCallback);
+                return null;
+            }
+        }).when(firstCallback).onLocationResult(locationResult);
+
+        hubCallback.onLocationResult(locationResult);
+
+        verify(secondCallback).onLocationResult(locationResult);
+        assertThat(hub.clientCount()).isEqualTo(1);
+    }
+
+    private void runPosted(Handler handler) {
+        assertThat(posted).containsKey(handler);
+        posted.remove(handler).run();
+    }
+
+    private LocationCallback subscribeBoth(long firstFastestInterval, long secondFastestInterval) {
+        hub.requestLocationUpdates(context, request(firstFastestInterval, XMSLocationRequest.PRIORITY_HIGH_ACCURACY)
+              .setFastestInterval(firstFastestInterval), firstCallback, null, clock);
+        hub.requestLocationUpdates(context, request(secondFastestInterval, XMSLocationRequest.PRIORITY_HIGH_ACCURACY)
+              .setFastestInterval(secondFastestInterval), secondCallback, null, clock);
+
+        ArgumentCaptor<LocationCallback> captor = ArgumentCaptor.forClass(LocationCallback.class);
+        verify(fusedLocationProviderClient).requestLocationUpdates(any(LocationRequest.class), captor.capture(),
+              isNull(Looper.class));
+        return captor.getValue();
+    }
+
+    private static XMSLocationRequest request(long interval, int priority) {
+        return XMSLocationRequest.create()
+              .setInterval(interval)
+              .setPriority(priority);
+    }
+}
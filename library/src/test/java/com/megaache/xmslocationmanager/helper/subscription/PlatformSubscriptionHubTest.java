@@ -0,0 +1,253 @@
+package com.megaache.xmslocationmanager.helper.subscription;
+
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class PlatformSubscriptionHubTest {
+
+    private static final String PROVIDER = LocationManager.GPS_PROVIDER;
+
+    @Mock LocationManager locationManager;
+    @Mock LocationListener firstListener;
+    @Mock LocationListener secondListener;
+    @Mock Location location;
+
+    private final List<Handler> handlers = new ArrayList<>();
+    private final List<Handler> otherThreadHandlers = new ArrayList<>();
+    private final Map<Handler, Runnable> posted = new HashMap<>();
+    private final FakeClock clock = new FakeClock();
+    private PlatformSubscriptionHub hub;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        hub = new PlatformSubscriptionHub() {
+            @Override
+            Handler createHandler(Looper looper) {
+                Handler handler = mock(Handler.class);
+                handlers.add(handler);
+                return handler;
+            }
+
+            @Override
+            boolean isCurrentThread(Handler handler) {
+                return !otherThreadHandlers.contains(handler);
+            }
+
+            @Override
+            void post(Handler handler, Runnable runnable) {
+                posted.put(handler, runnable);
+            }
+        };
+    }
+
+    @Test
+    public void firstClientShouldCreateSubscription() {
+        hub.requestLocationUpdates(locationManager, PROVIDER, 1000, 10, firstListener, null, clock);
+
+        verify(locationManager).requestLocationUpdates(eq(PROVIDER), eq(1000L), eq(10f),
+              any(LocationListener.class), isNull(Looper.class));
+        assertThat(hub.clientCount(PROVIDER)).isEqualTo(1);
+    }
+
+    @Test
+    public void sameRequestShouldNotBeIssuedAgain() {
+        hub.requestLocationUpdates(locationManager, PROVIDER, 1000, 10, firstListener, null, clock);
+        hub.requestLocationUpdates(locationManager, PROVIDER, 2000, 20, secondListener, null, clock);
+
+        verify(locationManager, times(1)).requestLocationUpdates(eq(PROVIDER), anyLong(), anyFloat(),
+              any(LocationListener.class), isNull(Looper.class));
+        assertThat(hub.clientCount(PROVIDER)).isEqualTo(2);
+    }
+
+    @Test
+    public void mergedRequestShouldUseSmallestIntervals() {
+        hub.requestLocationUpdates(locationManager, PROVIDER, 2000, 5, firstListener, null, clock);
+        hub.requestLocationUpdates(locationManager, PROVIDER, 1000, 20, secondListener, null, clock);
+
+        verify(locationManager).requestLocationUpdates(eq(PROVIDER), eq(1000L), eq(5f),
+              any(LocationListener.class), isNull(Looper.class));
+    }
+
+    @Test
+    public void leavingClientShouldRelaxMergedRequest() {
+        hub.requestLocationUpdates(locationManager, PROVIDER, 2000, 0, firstListener, null, clock);
+        hub.requestLocationUpdates(locationManager, PROVIDER, 1000, 0, secondListener, null, clock);
+        hub.removeUpdates(secondListener);
+
+        verify(locationManager, times(2)).requestLocationUpdates(eq(PROVIDER), eq(2000L), eq(0f),
+              any(LocationListener.class), isNull(Looper.class));
+        verify(locationManager, never()).removeUpdates(any(LocationListener.class));
+    }
+
+    @Test
+    public void lastClientLeavingShouldRemoveSubscription() {
+        hub.requestLocationUpdates(locationManager, PROVIDER, 1000, 0, firstListener, null, clock);
+        hub.requestLocationUpdates(locationManager, PROVIDER, 1000, 0, secondListener, null, clock);
+
+        hub.removeUpdates(firstListener);
+        verify(locationManager, never()).removeUpdates(any(LocationListener.class));
+
+        hub.removeUpdates(secondListener);
+        verify(locationManager).removeUpdates(any(LocationListener.class));
+        assertThat(hub.clientCount(PROVIDER)).isZero();
+    }
+
+    @Test
+    public void removingUnknownListenerShouldDoNothing() {
+        hub.removeUpdates(firstListener);
+
+        verifyZeroInteractions(locationManager);
+    }
+
+    @Test
+    public void locationShouldBeFannedOutToAllClients() {
+        LocationListener hubListener = subscribeBoth(0, 0);
+
+        hubListener.onLocationChanged(location);
+
+        verify(firstListener).onLocationChanged(location);
+        verify(secondListener).onLocationChanged(location);
+    }
+
+    @Test
+    public void clientShouldNotReceiveLocationsFasterThanItsMinTime() {
+        LocationListener hubListener = subscribeBoth(0, 1000);
+
+        hubListener.onLocationChanged(location);
+        clock.advance(500);
+        hubListener.onLocationChanged(location);
+        clock.advance(500);
+        hubListener.onLocationChanged(location);
+
+        verify(firstListener, times(3)).onLocationChanged(location);
+        verify(secondListener, times(2)).onLocationChanged(location);
+    }
+
+    @Test
+    public void clientRemovingItselfDuringDispatchShouldNotBreakFanOut() {
+        LocationListener hubListener = subscribeBoth(0, 0);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                hub.removeUpdates(firstListener);
+                return null;
+            }
+        }).when(firstListener).onLocationChanged(location);
+
+        hubListener.onLocationChanged(location);
+
+        verify(secondListener).onLocationChanged(location);
+        assertThat(hub.clientCount(PROVIDER)).isEqualTo(1);
+    }
+
+    @Test
+    public void clientRemovedDuringDispatchShouldNotReceiveLocation() {
+        LocationListener hubListener = subscribeBoth(0, 0);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                hub.removeUpdates(secondListener);
+                return null;
+            }
+        }).when(firstListener).onLocationChanged(location);
+
+        hubListener.onLocationChanged(location);
+
+        verify(firstListener).onLocationChanged(location);
+        verify(secondListener, never()).onLocationChanged(location);
+    }
+
+    @Test
+    public void locationShouldBePostedToLooperOfClientOnAnotherThread() {
+        LocationListener hubListener = subscribeBoth(0, 0);
+        otherThreadHandlers.add(handlers.get(1));
+
+        hubListener.onLocationChanged(location);
+
+        verify(firstListener).onLocationChanged(location);
+        verify(secondListener, never()).onLocationChanged(location);
+
+        runPosted(handlers.get(1));
+        verify(secondListener).onLocationChanged(location);
+    }
+
+    @Test
+    public void postedLocationShouldNotBeDeliveredAfterClientLeft() {
+        LocationListener hubListener = subscribeBoth(0, 0);
+        otherThreadHandlers.add(handlers.get(1));
+
+        hubListener.onLocationChanged(location);
+        hub.removeUpdates(secondListener);
+        runPosted(handlers.get(1));
+
+        verify(secondListener, never()).onLocationChanged(location);
+    }
+
+    @Test
+    public void subscriptionShouldMoveToAnotherLooperWhenItsClientLeaves() {
+        subscribeBoth(0, 0);
+
+        hub.removeUpdates(firstListener);
+
+        verify(locationManager, times(2)).requestLocationUpdates(eq(PROVIDER), eq(0L), eq(0f),
+              any(LocationListener.class), isNull(Looper.class));
+    }
+
+    @Test
+    public void providerEventsShouldBeFannedOutToAllClients() {
+        LocationListener hubListener = subscribeBoth(0, 0);
+
+        hubListener.onProviderDisabled(PROVIDER);
+
+        verify(firstListener).onProviderDisabled(PROVIDER);
+        verify(secondListener).onProviderDisabled(PROVIDER);
+    }
+
+    private void runPosted(Handler handler) {
+        assertThat(posted).containsKey(handler);
+        posted.remove(handler).run();
+    }
+
+    private LocationListener subscribeBoth(long firstMinTime, long secondMinTime) {
+        hub.requestLocationUpdates(locationManager, PROVIDER, firstMinTime, 0, firstListener, null, clock);
+        hub.requestLocationUpdates(locationManager, PROVIDER, secondMinTime, 0, secondListener, null, clock);
+
+        ArgumentCaptor<LocationListener> captor = ArgumentCaptor.forClass(LocationListener.class);
+        verify(locationManager).requestLocationUpdates(eq(PROVIDER), eq(firstMinTime), eq(0f),
+              captor.capture(), isNull(Looper.class));
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,74 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class CsvTraceReaderTest {
+
+    private final TraceFix fix = new TraceFix();
+
+    @Test
+    public void shouldReadColumnsNamedByHeader() throws IOException {
+        TraceReader reader = reader("speed,Lng,time,lat,accuracy,altitude,bearing\n"
+              + "12.5,29.1,1000,41.2,5,30,90\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(1000);
+        assertThat(fix.latitude()).isEqualTo(41.2);
+        assertThat(fix.longitude()).isEqualTo(29.1);
+        assertThat(fix.accuracy()).isEqualTo(5);
+        assertThat(fix.altitude()).isEqualTo(30);
+        assertThat(fix.speed()).isEqualTo(12.5);
+        assertThat(fix.bearing()).isEqualTo(90);
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    @Test
+    public void missingOptionalValuesShouldBeUnknown() throws IOException {
+        TraceReader reader = reader("time,latitude,longitude,accuracy\n1000,41,29,5\n2000,41.1,29.1,\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.accuracy()).isEqualTo(5);
+        assertThat(fix.speed()).isNaN();
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.accuracy()).isNaN();
+        assertThat(fix.altitude()).isNaN();
+    }
+
+    @Test
+    public void shouldReadIsoTimes() throws IOException {
+        TraceReader reader = reader("time,latitude,longitude\n2020-05-17T08:30:15Z,41,29\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(1589704215000L);
+    }
+
+    @Test
+    public void shouldSkipCommentsBlankLinesAndBrokenRows() throws IOException {
+        TraceReader reader = reader("# exported trace\ntime,latitude,longitude\n\n1000,41,29\n2000,north,29\n"
+              + "3000,41.2\n4000,41.3,29.3\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(1000);
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(4000);
+        assertThat(fix.longitude()).isCloseTo(29.3, within(1e-9));
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    @Test(expected = IOException.class)
+    public void headerWithoutRequiredColumnsShouldThrowException() throws IOException {
+        reader("time,latitude\n1000,41\n").next(fix);
+    }
+
+    private static TraceReader reader(String csv) {
+        return new CsvTraceReader(new BufferedReader(new StringReader(csv)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GpxTraceReaderTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<gpx version=\"1.1\" creator=\"test\" xmlns=\"http://www.topografix.com/GPX/1/1\""
+          + " xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v2\">\n";
+
+    private final TraceFix fix = new TraceFix();
+
+    @Test
+    public void shouldReadTrackPoints() throws IOException {
+        TraceReader reader = reader(HEADER
+              + "<trk><name>Drive</name><trkseg>\n"
+              + "  <trkpt lat=\"41.5\" lon=\"29.25\">\n"
+              + "    <ele>12.5</ele>\n"
+              + "    <time>2020-05-17T08:30:15Z</time>\n"
+              + "    <hdop>1.2</hdop>\n"
+              + "    <extensions><gpxtpx:TrackPointExtension>\n"
+              + "      <gpxtpx:speed>13.9</gpxtpx:speed><gpxtpx:course>270</gpxtpx:course>\n"
+              + "    </gpxtpx:TrackPointExtension></extensions>\n"
+              + "  </trkpt>\n"
+              + "  <trkpt lon='29.3' lat='41.6'><time>2020-05-17T08:30:16Z</time></trkpt>\n"
+              + "</trkseg></trk></gpx>\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.latitude()).isEqualTo(41.5);
+        assertThat(fix.longitude()).isEqualTo(29.25);
+        assertThat(fix.altitude()).isEqualTo(12.5);
+        assertThat(fix.time()).isEqualTo(1589704215000L);
+        assertThat(fix.accuracy()).isEqualTo(1.2 * TraceReaders.ACCURACY_PER_HDOP);
+        assertThat(fix.speed()).isEqualTo(13.9);
+        assertThat(fix.bearing()).isEqualTo(270);
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.latitude()).isEqualTo(41.6);
+        assertThat(fix.longitude()).isEqualTo(29.3);
+        assertThat(fix.time()).isEqualTo(1589704216000L);
+        assertThat(fix.altitude()).isNaN();
+        assertThat(fix.speed()).isNaN();
+
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    @Test
+    public void shouldReadRoutePointsWithNamespacePrefix() throws IOException {
+        TraceReader reader = reader("<g:gpx><g:rte><g:rtept lat=\"1\" lon=\"2\">"
+              + "<g:time>1970-01-01T00:00:01Z</g:time></g:rtept></g:rte></g:gpx>");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.latitude()).isEqualTo(1);
+        assertThat(fix.longitude()).isEqualTo(2);
+        assertThat(fix.time()).isEqualTo(1000);
+    }
+
+    @Test
+    public void shouldSkipWaypointsCommentsAndPointsWithoutTime() throws IOException {
+        TraceReader reader = reader(HEADER
+              + "<wpt lat=\"1\" lon=\"1\"><time>2020-05-17T08:30:00Z</time></wpt>\n"
+              + "<!-- <trkpt lat=\"2\" lon=\"2\"><time>2020-05-17T08:30:01Z</time></trkpt> -->\n"
+              + "<trk><trkseg><trkpt lat=\"3\" lon=\"3\"/>\n"
+              + "<trkpt lat=\"north\" lon=\"4\"><time>2020-05-17T08:30:02Z</time></trkpt>\n"
+              + "<trkpt lat=\"5\" lon=\"5\"><time>2020-05-17T08:30:03Z</time></trkpt>\n"
+              + "</trkseg></trk></gpx>");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.latitude()).isEqualTo(5);
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    private static TraceReader reader(String gpx) {
+        return new GpxTraceReader(new BufferedReader(new StringReader(gpx)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class NmeaTraceReaderTest {
+
+    private static final String RMC = "$GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*6A";
+    private static final String GGA = "$GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,*47";
+
+    private final TraceFix fix = new TraceFix();
+
+    @Test
+    public void shouldMergeSentencesOfSameTime() throws IOException {
+        TraceReader reader = reader(GGA + "\n" + RMC + "\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(TraceReaders.parseTime("1994-03-23T12:35:19Z"));
+        assertThat(fix.latitude()).isCloseTo(48 + 7.038 / 60, within(1e-9));
+        assertThat(fix.longitude()).isCloseTo(11 + 31.0 / 60, within(1e-9));
+        assertThat(fix.altitude()).isEqualTo(545.4);
+        assertThat(fix.accuracy()).isCloseTo(0.9 * TraceReaders.ACCURACY_PER_HDOP, within(1e-9));
+        assertThat(fix.speed()).isCloseTo(22.4 * 1852 / 3600, within(1e-9));
+        assertThat(fix.bearing()).isEqualTo(84.4);
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    @Test
+    public void shouldReadOneFixPerTime() throws IOException {
+        TraceReader reader = reader(RMC + "\n" + GGA + "\n"
+              + sentence("GNRMC,123520.50,A,4807.038,S,01131.000,W,0,0,230394,,") + "\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.altitude()).isEqualTo(545.4);
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(TraceReaders.parseTime("1994-03-23T12:35:20.5Z"));
+        assertThat(fix.latitude()).isNegative();
+        assertThat(fix.longitude()).isNegative();
+        assertThat(fix.altitude()).isNaN();
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    @Test
+    public void shouldSkipInvalidSentences() throws IOException {
+        TraceReader reader = reader(RMC.replace("*6A", "*00") + "\n"
+              + sentence("GPRMC,123520,V,4807.038,N,01131.000,E,,,230394,,") + "\n"
+              + sentence("GPGGA,123521,4807.038,N,01131.000,E,0,00,,,M,,M,,") + "\n"
+              + sentence("GPGSV,1,1,01,01,40,083,46") + "\n"
+              + "garbage\n");
+
+        assertThat(reader.next(fix)).isFalse();
+    }
+
+    @Test
+    public void fixesWithoutDateShouldMoveToNextDayAfterMidnight() throws IOException {
+        TraceReader reader = reader(sentence("GPGGA,235959,4807.038,N,01131.000,E,1,08,0.9,545.4,M,,M,,") + "\n"
+              + sentence("GPGGA,000000,4807.038,N,01131.000,E,1,08,0.9,545.4,M,,M,,") + "\n");
+
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(TraceReaders.parseTime("1970-01-01T23:59:59Z"));
+        assertThat(reader.next(fix)).isTrue();
+        assertThat(fix.time()).isEqualTo(TraceReaders.parseTime("1970-01-02T00:00:00Z"));
+    }
+
+    private static TraceReader reader(String nmea) {
+        return new NmeaTraceReader(new BufferedReader(new StringReader(nmea)));
+    }
+
+    private static String sentence(String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format("$%s*%02X", body, checksum);
+    }
+}
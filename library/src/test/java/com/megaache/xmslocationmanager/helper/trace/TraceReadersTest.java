@@ -0,0 +1,66 @@
+package com.megaache.xmslocationmanager.helper.trace;
+
+import com.megaache.xmslocationmanager.constants.TraceFormat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.startsWith;
+
+public class TraceReadersTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void formatOfShouldDecideByExtension() {
+        assertThat(TraceReaders.formatOf("drive.gpx")).isEqualTo(TraceFormat.GPX);
+        assertThat(TraceReaders.formatOf("DRIVE.NMEA")).isEqualTo(TraceFormat.NMEA);
+        assertThat(TraceReaders.formatOf("drive.nma")).isEqualTo(TraceFormat.NMEA);
+        assertThat(TraceReaders.formatOf("drive.csv")).isEqualTo(TraceFormat.CSV);
+    }
+
+    @Test
+    public void formatOfShouldThrowExceptionForUnknownExtension() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("fileName"));
+
+        TraceReaders.formatOf("drive.kml");
+    }
+
+    @Test
+    public void createShouldReturnReaderOfFormat() {
+        assertThat(TraceReaders.create(TraceFormat.GPX, new StringReader(""))).isInstanceOf(GpxTraceReader.class);
+        assertThat(TraceReaders.create(TraceFormat.NMEA, new StringReader(""))).isInstanceOf(NmeaTraceReader.class);
+        assertThat(TraceReaders.create(TraceFormat.CSV, new StringReader(""))).isInstanceOf(CsvTraceReader.class);
+    }
+
+    @Test
+    public void parseTimeShouldReadUtcTimes() {
+        assertThat(TraceReaders.parseTime("1970-01-01T00:00:00Z")).isEqualTo(0);
+        assertThat(TraceReaders.parseTime("2000-03-01T00:00:00Z")).isEqualTo(951868800000L);
+        assertThat(TraceReaders.parseTime("2020-05-17T08:30:15Z")).isEqualTo(1589704215000L);
+        assertThat(TraceReaders.parseTime("2020-05-17 08:30:15")).isEqualTo(1589704215000L);
+    }
+
+    @Test
+    public void parseTimeShouldKeepMilliseconds() {
+        assertThat(TraceReaders.parseTime("2020-05-17T08:30:15.25Z")).isEqualTo(1589704215250L);
+        assertThat(TraceReaders.parseTime("2020-05-17T08:30:15.123456Z")).isEqualTo(1589704215123L);
+    }
+
+    @Test
+    public void parseTimeShouldApplyZoneOffset() {
+        assertThat(TraceReaders.parseTime("2020-05-17T11:30:15+03:00")).isEqualTo(1589704215000L);
+        assertThat(TraceReaders.parseTime("2020-05-17T03:30:15-0500")).isEqualTo(1589704215000L);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseTimeShouldThrowExceptionForOtherFormats() {
+        TraceReaders.parseTime("17/05/2020 08:30");
+    }
+}
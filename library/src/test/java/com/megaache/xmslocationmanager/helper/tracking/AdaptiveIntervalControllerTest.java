@@ -0,0 +1,139 @@
+package com.megaache.xmslocationmanager.helper.tracking;
+
+import android.location.Location;
+
+import com.megaache.xmslocationmanager.configuration.AdaptiveTrackingConfiguration;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class AdaptiveIntervalControllerTest {
+
+    private static final long SECOND = 1000L * 1000 * 1000;
+    // Elapsed realtime of the locations at time 0, since 0 means they have no time
+    private static final long START = 100 * SECOND;
+    private static final long INITIAL_INTERVAL = 60 * 1000;
+    private static final long MIN_INTERVAL = 5 * 1000;
+    private static final long MAX_INTERVAL = 5 * 60 * 1000;
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+    private static final double METERS_PER_DEGREE = 6371009 * Math.PI / 180;
+
+    private AdaptiveIntervalController controller;
+
+    @Before
+    public void setUp() {
+        AdaptiveTrackingConfiguration configuration = new AdaptiveTrackingConfiguration.Builder()
+              .minInterval(MIN_INTERVAL)
+              .maxInterval(MAX_INTERVAL)
+              .sampleDistance(100)
+              .stationarySpeed(0.5f)
+              .build();
+        controller = new AdaptiveIntervalController(configuration, INITIAL_INTERVAL);
+    }
+
+    @Test
+    public void intervalShouldBeInitialIntervalUntilSpeedIsKnown() {
+        // No reported speed, and no previous location to calculate it from
+        assertThat(controller.onLocationChanged(northOf(0, 0))).isFalse();
+
+        assertThat(controller.interval()).isEqualTo(INITIAL_INTERVAL);
+        assertThat(controller.speed()).isZero();
+    }
+
+    @Test
+    public void intervalShouldBeShortenedWhileMovingFast() {
+        assertThat(controller.onLocationChanged(withSpeed(0, 10))).isTrue();
+
+        // 100 meters at 10 m/s
+        assertThat(controller.interval()).isEqualTo(10 * 1000);
+        assertThat(controller.isStationary()).isFalse();
+    }
+
+    @Test
+    public void intervalShouldNotBeShorterThanMinInterval() {
+        controller.onLocationChanged(withSpeed(0, 100));
+
+        assertThat(controller.interval()).isEqualTo(MIN_INTERVAL);
+    }
+
+    @Test
+    public void intervalShouldBeMaxIntervalWhileStationary() {
+        assertThat(controller.onLocationChanged(withSpeed(0, 0.1f))).isTrue();
+
+        assertThat(controller.interval()).isEqualTo(MAX_INTERVAL);
+        assertThat(controller.isStationary()).isTrue();
+    }
+
+    @Test
+    public void speedShouldBeCalculatedFromLocationsWhenItIsNotReported() {
+        controller.onLocationChanged(northOf(0, 0));
+
+        // 200 meters in 10 seconds
+        assertThat(controller.onLocationChanged(northOf(10 * SECOND, 200))).isTrue();
+
+        assertThat(controller.speed()).isCloseTo(20, within(0.01));
+        assertThat(controller.interval()).isEqualTo(MIN_INTERVAL);
+    }
+
+    @Test
+    public void locationWithoutTimeShouldNotBeUsedToCalculateSpeed() {
+        controller.onLocationChanged(northOf(0, 0));
+
+        assertThat(controller.onLocationChanged(new FakeLocation("network", 0, LATITUDE + 1, LONGITUDE, 5))).isFalse();
+        assertThat(controller.speed()).isZero();
+
+        // Still calculated from the first location
+        controller.onLocationChanged(northOf(10 * SECOND, 200));
+        assertThat(controller.speed()).isCloseTo(20, within(0.01));
+    }
+
+    @Test
+    public void smallSpeedChangesShouldNotChangeInterval() {
+        controller.onLocationChanged(withSpeed(0, 2));
+        long interval = controller.interval();
+
+        assertThat(controller.onLocationChanged(withSpeed(SECOND, 2.4f))).isFalse();
+        assertThat(controller.interval()).isEqualTo(interval);
+    }
+
+    @Test
+    public void stationaryStateShouldHaveHysteresis() {
+        controller.onLocationChanged(withSpeed(0, 0.1f));
+        assertThat(controller.isStationary()).isTrue();
+
+        // Smoothed speed is above stationary speed but not enough to be considered as moving
+        controller.onLocationChanged(withSpeed(SECOND, 1.2f));
+        assertThat(controller.isStationary()).isTrue();
+
+        controller.onLocationChanged(withSpeed(2 * SECOND, 5));
+        assertThat(controller.isStationary()).isFalse();
+        assertThat(controller.interval()).isLessThan(MAX_INTERVAL);
+    }
+
+    @Test
+    public void resetShouldForgetSpeedHistory() {
+        controller.onLocationChanged(withSpeed(0, 0.1f));
+
+        controller.reset(INITIAL_INTERVAL);
+
+        assertThat(controller.interval()).isEqualTo(INITIAL_INTERVAL);
+        assertThat(controller.isStationary()).isFalse();
+        assertThat(controller.speed()).isZero();
+    }
+
+    private static Location withSpeed(long elapsedRealtimeNanos, float speed) {
+        FakeLocation location = new FakeLocation("gps", START + elapsedRealtimeNanos, LATITUDE, LONGITUDE, 5);
+        location.setSpeed(speed);
+        return location;
+    }
+
+    private static Location northOf(long elapsedRealtimeNanos, double meters) {
+        return new FakeLocation("network", START + elapsedRealtimeNanos, LATITUDE + meters / METERS_PER_DEGREE,
+              LONGITUDE, 5);
+    }
+}
@@ -0,0 +1,116 @@
+package com.megaache.xmslocationmanager.helper.tracking;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class BestFixTrackerTest {
+
+    private static final long MILLI = 1000L * 1000;
+    private static final long ACCEPTABLE_TIME_PERIOD = 60 * 1000;
+    private static final float ACCEPTABLE_ACCURACY = 10;
+
+    private FakeClock clock;
+    private BestFixTracker bestFixTracker;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock(60 * 60 * 1000 * MILLI, 0);
+        bestFixTracker = new BestFixTracker(ACCEPTABLE_TIME_PERIOD, ACCEPTABLE_ACCURACY, clock);
+    }
+
+    @Test
+    public void sufficientLocationFromGPSShouldScoreOne() {
+        assertThat(bestFixTracker.score(location(0, 10), ProviderType.GPS, false)).isEqualTo(1f);
+        assertThat(bestFixTracker.score(location(ACCEPTABLE_TIME_PERIOD, 5), ProviderType.XMS, false)).isEqualTo(1f);
+    }
+
+    @Test
+    public void scoreShouldBeInverselyProportionalToAccuracyAndAgeBeyondAcceptableValues() {
+        assertThat(bestFixTracker.score(location(0, 40), ProviderType.GPS, false)).isEqualTo(0.25f);
+        assertThat(bestFixTracker.score(location(2 * ACCEPTABLE_TIME_PERIOD, 10), ProviderType.GPS, false))
+              .isEqualTo(0.5f);
+        assertThat(bestFixTracker.score(location(2 * ACCEPTABLE_TIME_PERIOD, 40), ProviderType.GPS, false))
+              .isEqualTo(0.125f);
+    }
+
+    @Test
+    public void scoreShouldBeWeightedBySource() {
+        Location location = location(0, 10);
+
+        assertThat(bestFixTracker.score(location, ProviderType.NETWORK, false))
+              .isEqualTo(BestFixTracker.NETWORK_WEIGHT);
+        assertThat(bestFixTracker.score(location, ProviderType.GPS, true))
+              .isEqualTo(BestFixTracker.LAST_KNOWN_FACTOR);
+        assertThat(bestFixTracker.score(location, ProviderType.DEFAULT_PROVIDERS, false))
+              .isEqualTo(BestFixTracker.UNKNOWN_WEIGHT);
+    }
+
+    @Test
+    public void zeroAcceptableValuesShouldStillRankLocations() {
+        BestFixTracker tracker = new BestFixTracker(0, 0, clock);
+
+        assertThat(tracker.score(location(0, 20), ProviderType.GPS, false))
+              .isGreaterThan(tracker.score(location(0, 40), ProviderType.GPS, false))
+              .isGreaterThan(0f);
+    }
+
+    @Test
+    public void offerShouldKeepTheBestLocation() {
+        Location inaccurate = location(0, 100);
+        Location accurate = location(0, 20);
+        Location worse = location(0, 50);
+
+        assertThat(bestFixTracker.offer(inaccurate, ProviderType.GPS, false)).isTrue();
+        assertThat(bestFixTracker.offer(accurate, ProviderType.GPS, false)).isTrue();
+        assertThat(bestFixTracker.offer(worse, ProviderType.GPS, false)).isFalse();
+
+        assertThat(bestFixTracker.best()).isSameAs(accurate);
+        assertThat(bestFixTracker.bestScore()).isEqualTo(0.5f);
+    }
+
+    @Test
+    public void offerShouldIgnoreNull() {
+        assertThat(bestFixTracker.offer(null, ProviderType.GPS, false)).isFalse();
+        assertThat(bestFixTracker.best()).isNull();
+        assertThat(bestFixTracker.bestScore()).isZero();
+    }
+
+    @Test
+    public void bestShouldBeScoredAgainAsItGetsOlder() {
+        Location accurate = location(0, 10);
+        bestFixTracker.offer(accurate, ProviderType.GPS, false);
+
+        clock.advance(4 * ACCEPTABLE_TIME_PERIOD);
+        assertThat(bestFixTracker.bestScore()).isCloseTo(0.25f, within(0.0001f));
+
+        // Fresh one with 2 times worse accuracy is better than 4 times older one now
+        Location fresh = location(0, 20);
+        assertThat(bestFixTracker.offer(fresh, ProviderType.GPS, false)).isTrue();
+        assertThat(bestFixTracker.best()).isSameAs(fresh);
+    }
+
+    @Test
+    public void resetShouldForgetTheBestLocation() {
+        bestFixTracker.offer(location(0, 10), ProviderType.GPS, false);
+
+        bestFixTracker.reset();
+
+        assertThat(bestFixTracker.best()).isNull();
+        assertThat(bestFixTracker.bestScore()).isZero();
+    }
+
+    private Location location(long ageMillis, float accuracy) {
+        return new FakeLocation(LocationManager.GPS_PROVIDER, clock.elapsedRealtimeNanos() - ageMillis * MILLI,
+              41, 29, accuracy);
+    }
+}
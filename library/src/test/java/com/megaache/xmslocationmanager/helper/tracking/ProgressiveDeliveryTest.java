@@ -0,0 +1,212 @@
+package com.megaache.xmslocationmanager.helper.tracking;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.ProgressiveLocationListener;
+import com.megaache.xmslocationmanager.providers.locationprovider.LocationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+public class ProgressiveDeliveryTest {
+
+    private static final float TARGET_ACCURACY = 10;
+    private static final long DEADLINE = 30 * 1000;
+
+    @Mock LocationProvider locationProvider;
+    @Mock ContinuousTask deadlineTask;
+    @Mock ContinuousTask stopTask;
+
+    private LocationListener locationListener;
+    private ProgressiveDelivery progressiveDelivery;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        locationListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(ProgressiveLocationListener.class));
+
+        progressiveDelivery = new ProgressiveDelivery(locationListener, locationProvider, TARGET_ACCURACY, DEADLINE,
+              null, new FakeClock()) {
+            @Override
+            ContinuousTask createTask(String taskId) {
+                return ProgressiveDelivery.DEADLINE_TASK.equals(taskId) ? deadlineTask : stopTask;
+            }
+        };
+        progressiveDelivery.start();
+        clearInvocations(deadlineTask, stopTask);
+    }
+
+    @Test
+    public void startShouldScheduleDeadline() {
+        progressiveDelivery.start();
+
+        verify(deadlineTask).delayed(DEADLINE);
+        assertThat(progressiveDelivery.isRunning()).isTrue();
+        assertThat(progressiveDelivery.isFinished()).isFalse();
+    }
+
+    @Test
+    public void firstLocationShouldBeDeliveredImmediately() {
+        Location coarse = location(500);
+
+        progressiveDelivery.onLocationChanged(coarse);
+
+        InOrder inOrder = inOrder(locationListener);
+        inOrder.verify((ProgressiveLocationListener) locationListener).onProgressiveLocation(coarse, false);
+        inOrder.verify(locationListener).onLocationChanged(coarse);
+        verify(locationProvider, never()).cancel();
+    }
+
+    @Test
+    public void onlyMoreAccurateLocationsShouldBeDelivered() {
+        Location coarse = location(500);
+        Location worse = location(800);
+        Location same = location(500);
+        Location better = location(50);
+
+        progressiveDelivery.onLocationChanged(coarse);
+        progressiveDelivery.onLocationChanged(worse);
+        progressiveDelivery.onLocationChanged(same);
+        progressiveDelivery.onLocationChanged(better);
+
+        verify(locationListener).onLocationChanged(coarse);
+        verify(locationListener, never()).onLocationChanged(worse);
+        verify(locationListener, never()).onLocationChanged(same);
+        verify(locationListener).onLocationChanged(better);
+        assertThat(progressiveDelivery.lastDelivered()).isSameAs(better);
+    }
+
+    @Test
+    public void locationReachingTargetAccuracyShouldBeFinal() {
+        Location precise = location(TARGET_ACCURACY);
+
+        progressiveDelivery.onLocationChanged(location(500));
+        progressiveDelivery.onLocationChanged(precise);
+
+        verify((ProgressiveLocationListener) locationListener).onProgressiveLocation(precise, true);
+        verify(locationListener).onLocationChanged(precise);
+        verify(deadlineTask).stop();
+        verify(stopTask).delayed(0);
+        assertThat(progressiveDelivery.isFinished()).isTrue();
+    }
+
+    @Test
+    public void providerShouldBeStoppedAfterItsCallbackReturns() {
+        progressiveDelivery.onLocationChanged(location(5));
+        verify(locationProvider, never()).cancel();
+
+        progressiveDelivery.runScheduledTask(ProgressiveDelivery.STOP_TASK);
+
+        verify(locationProvider).cancel();
+    }
+
+    @Test
+    public void locationsAfterFinalOneShouldBeIgnored() {
+        progressiveDelivery.onLocationChanged(location(5));
+        Location late = location(1);
+
+        progressiveDelivery.onLocationChanged(late);
+        progressiveDelivery.onLocationFailed(FailType.TIMEOUT);
+
+        verify(locationListener, never()).onLocationChanged(late);
+        verify(locationListener, never()).onLocationFailed(anyInt());
+    }
+
+    @Test
+    public void deadlineShouldMarkLastDeliveredLocationAsFinal() {
+        Location coarse = location(500);
+        progressiveDelivery.onLocationChanged(coarse);
+
+        progressiveDelivery.runScheduledTask(ProgressiveDelivery.DEADLINE_TASK);
+
+        verify((ProgressiveLocationListener) locationListener).onProgressiveLocation(coarse, true);
+        // It is not delivered again
+        verify(locationListener).onLocationChanged(coarse);
+        verify(stopTask).delayed(0);
+        assertThat(progressiveDelivery.isFinished()).isTrue();
+    }
+
+    @Test
+    public void deadlineWithoutAnyLocationShouldFailWithTimeout() {
+        progressiveDelivery.runScheduledTask(ProgressiveDelivery.DEADLINE_TASK);
+
+        verify(locationListener).onLocationFailed(FailType.TIMEOUT);
+        verify((ProgressiveLocationListener) locationListener, never())
+              .onProgressiveLocation(any(Location.class), anyBoolean());
+        verify(stopTask).delayed(0);
+    }
+
+    @Test
+    public void failureAfterDeliveryShouldMarkLastDeliveredLocationAsFinal() {
+        Location coarse = location(500);
+        progressiveDelivery.onLocationChanged(coarse);
+
+        progressiveDelivery.onLocationFailed(FailType.TIMEOUT);
+
+        verify((ProgressiveLocationListener) locationListener).onProgressiveLocation(coarse, true);
+        verify(locationListener, never()).onLocationFailed(anyInt());
+    }
+
+    @Test
+    public void failureBeforeAnyDeliveryShouldBeForwarded() {
+        progressiveDelivery.onLocationFailed(FailType.NETWORK_NOT_AVAILABLE);
+
+        verify(locationListener).onLocationFailed(FailType.NETWORK_NOT_AVAILABLE);
+        verify(deadlineTask).stop();
+        assertThat(progressiveDelivery.isRunning()).isFalse();
+    }
+
+    @Test
+    public void batchShouldBeConsideredOneByOne() {
+        Location coarse = location(500);
+        Location worse = location(800);
+        Location precise = location(5);
+
+        progressiveDelivery.onLocationsChanged(Arrays.asList(coarse, worse, precise));
+
+        verify(locationListener).onLocationChanged(coarse);
+        verify(locationListener, never()).onLocationChanged(worse);
+        verify((ProgressiveLocationListener) locationListener).onProgressiveLocation(precise, true);
+    }
+
+    @Test
+    public void stopShouldEndWithoutFinalDelivery() {
+        progressiveDelivery.onLocationChanged(location(500));
+
+        progressiveDelivery.stop();
+        progressiveDelivery.onLocationChanged(location(5));
+
+        verify((ProgressiveLocationListener) locationListener, never())
+              .onProgressiveLocation(any(Location.class), eq(true));
+        verify(deadlineTask).stop();
+        verify(stopTask).stop();
+    }
+
+    private static Location location(float accuracy) {
+        return new FakeLocation(LocationManager.GPS_PROVIDER, 0, accuracy);
+    }
+}
@@ -6,13 +6,24 @@ import android.content.Context;
 import android.location.Location;
 import android.location.LocationManager;
 
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.AdaptiveTrackingConfiguration;
 import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
 import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
 import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.FallbackReason;
 import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
 import com.megaache.xmslocationmanager.constants.RequestCode;
+import com.megaache.xmslocationmanager.constants.Stage;
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
 import com.megaache.xmslocationmanager.helper.UpdateRequest;
 import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask;
+import com.megaache.xmslocationmanager.helper.continuoustask.TimingWheel;
+import com.megaache.xmslocationmanager.helper.metrics.StageTracer;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
 import com.megaache.xmslocationmanager.listener.LocationListener;
 import com.megaache.xmslocationmanager.providers.dialogprovider.DialogProvider;
 import com.megaache.xmslocationmanager.view.ContextProcessor;
@@ -22,20 +33,30 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.concurrent.Executor;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyFloat;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class DefaultLocationProviderTest {
 
     private static final String GPS_PROVIDER = LocationManager.GPS_PROVIDER;
     private static final String NETWORK_PROVIDER = LocationManager.NETWORK_PROVIDER;
     private static final Location DUMMY_LOCATION = new Location("");
+    private static final long ONE_HOUR_NANOS = 60L * 60 * 1000 * 1000 * 1000;
 
     @Mock ContextProcessor contextProcessor;
     @Mock LocationListener locationListener;
@@ -45,6 +66,7 @@ public class DefaultLocationProviderTest {
     @Mock Dialog dialog;
 
     @Mock ContinuousTask continuousTask;
+    @Mock ContinuousTask gpsGraceTask;
     @Mock UpdateRequest updateRequest;
 
     @Mock
@@ -53,6 +75,7 @@ public class DefaultLocationProviderTest {
     @Mock DialogProvider dialogProvider;
 
     @Mock DefaultLocationSource defaultLocationSource;
+    @Mock StageTracer stageTracer;
 
     private DefaultLocationProvider defaultLocationProvider;
 
@@ -68,6 +91,7 @@ public class DefaultLocationProviderTest {
         when(contextProcessor.getActivity()).thenReturn(activity);
 
         when(defaultLocationSource.getProviderSwitchTask()).thenReturn(continuousTask);
+        when(defaultLocationSource.getGpsGraceTask()).thenReturn(gpsGraceTask);
         when(defaultLocationSource.getUpdateRequest()).thenReturn(updateRequest);
 
         defaultLocationProvider = spy(new DefaultLocationProvider());
@@ -89,6 +113,7 @@ public class DefaultLocationProviderTest {
 
         verify(defaultLocationSource).removeLocationUpdates(defaultLocationProvider);
         verify(defaultLocationSource).removeSwitchTask();
+        verify(defaultLocationSource).removeGpsGraceTask();
         verify(defaultLocationSource).removeUpdateRequest();
     }
 
@@ -259,6 +284,29 @@ public class DefaultLocationProviderTest {
         verify(locationListener).onLocationFailed(FailType.NETWORK_NOT_AVAILABLE);
     }
 
+    @Test
+    public void getLocationByNetworkShouldDeliverBestFixWhenNetworkIsNotAvailable() {
+        Location lastKnownLocation = offerLastKnownLocation(20);
+        disableLocationProvider();
+
+        defaultLocationProvider.getLocationByNetwork();
+
+        verify(locationListener).onLocationChanged(lastKnownLocation);
+        verify(locationListener, never()).onLocationFailed(anyInt());
+    }
+
+    @Test
+    public void runScheduledTaskShouldDeliverBestFixWhenGPSTimesOutAndNetworkIsNotAvailable() {
+        Location lastKnownLocation = offerLastKnownLocation(20);
+        defaultLocationProvider.setCurrentProvider(GPS_PROVIDER);
+        disableLocationProvider();
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(locationListener).onLocationChanged(lastKnownLocation);
+        verify(locationListener, never()).onLocationFailed(anyInt());
+    }
+
     @Test
     public void askForLocationShouldStopSwitchTasks() {
         defaultLocationProvider.askForLocation(GPS_PROVIDER);
@@ -440,6 +488,35 @@ public class DefaultLocationProviderTest {
         verify(defaultLocationProvider).requestUpdateLocation(timeInterval, distanceInterval, false);
     }
 
+    @Test
+    public void onLocationChangedShouldRequireUpdatesWithoutIntervalsWhenProgressive() {
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        when(locationConfiguration.isProgressive()).thenReturn(true);
+        when(defaultProviderConfiguration.requiredTimeInterval()).thenReturn(10L);
+        when(defaultProviderConfiguration.requiredDistanceInterval()).thenReturn(20L);
+
+        defaultLocationProvider.onLocationChanged(DUMMY_LOCATION);
+
+        verify(defaultLocationProvider).requestUpdateLocation(0, 0, false);
+    }
+
+    @Test
+    public void onLocationChangedShouldRequireUpdatesWithAdaptedIntervalWhenAdaptiveTrackingIsSet() {
+        long distanceInterval = 20;
+        Location stationaryLocation = new FakeLocation(GPS_PROVIDER, 0, 41, 29, 5);
+        stationaryLocation.setSpeed(0);
+
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        when(locationConfiguration.adaptiveTrackingConfiguration())
+              .thenReturn(new AdaptiveTrackingConfiguration.Builder().maxInterval(60 * 1000).build());
+        when(defaultProviderConfiguration.requiredTimeInterval()).thenReturn(10L);
+        when(defaultProviderConfiguration.requiredDistanceInterval()).thenReturn(distanceInterval);
+
+        defaultLocationProvider.onLocationChanged(stationaryLocation);
+
+        verify(defaultLocationProvider).requestUpdateLocation(60 * 1000, distanceInterval, false);
+    }
+
     @Test
     public void onStatusChangedShouldRedirectToListener() {
         defaultLocationProvider.onStatusChanged(GPS_PROVIDER, 1, null);
@@ -477,6 +554,32 @@ public class DefaultLocationProviderTest {
         verify(defaultLocationProvider).getLocationByNetwork();
     }
 
+    @Test
+    public void gpsWaitPeriodShouldPassOnClockOfProvider() {
+        FakeClock clock = new FakeClock(ONE_HOUR_NANOS, 0);
+        defaultLocationProvider.setClock(clock);
+        // Task as the source creates it for the clock of the provider, but run right where it expires
+        ContinuousTask switchTask = new ContinuousTask(DefaultLocationSource.PROVIDER_SWITCH_TASK,
+              defaultLocationProvider, TimingWheel.forClock(clock), new Executor() {
+                  @Override
+                  public void execute(@NonNull Runnable command) {
+                      command.run();
+                  }
+              });
+        when(defaultLocationSource.getProviderSwitchTask()).thenReturn(switchTask);
+        when(defaultProviderConfiguration.gpsWaitPeriod()).thenReturn(20 * 1000L);
+        when(defaultLocationSource.isProviderEnabled(GPS_PROVIDER)).thenReturn(true);
+
+        defaultLocationProvider.get();
+        clock.advance(20 * 1000 - 1);
+        TimingWheel.forClock(clock).expireTimeouts();
+        verify(defaultLocationProvider, never()).getLocationByNetwork();
+
+        clock.advance(1);
+        TimingWheel.forClock(clock).expireTimeouts();
+        verify(defaultLocationProvider).getLocationByNetwork();
+    }
+
     @Test
     public void runScheduledTaskShouldFailWithTimeoutWhenCurrentProviderIsNetwork() {
         defaultLocationProvider.setCurrentProvider(NETWORK_PROVIDER);
@@ -486,6 +589,256 @@ public class DefaultLocationProviderTest {
         verify(locationListener).onLocationFailed(FailType.TIMEOUT);
     }
 
+    @Test
+    public void runScheduledTaskShouldDeliverBestFixInsteadOfFailingWhenCurrentProviderIsNetwork() {
+        Location lastKnownLocation = offerLastKnownLocation(20);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(locationListener).onLocationChanged(lastKnownLocation);
+        verify(locationListener, never()).onLocationFailed(anyInt());
+        assertThat(defaultLocationProvider.isWaiting()).isFalse();
+    }
+
+    @Test
+    public void runScheduledTaskShouldNotifyBestFixListenerWithScore() {
+        LocationListener bestFixListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BestFixListener.class));
+        defaultLocationProvider.configure(contextProcessor, locationConfiguration, bestFixListener);
+        Location lastKnownLocation = offerLastKnownLocation(20);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        // Accuracy is 4 times worse than acceptable, and it is a last known GPS location
+        verify((BestFixListener) bestFixListener).onBestFix(lastKnownLocation, 0.25f * 0.9f);
+        verify(bestFixListener).onLocationChanged(lastKnownLocation);
+    }
+
+    @Test
+    public void runScheduledTaskShouldFailWithTimeoutWhenBestFixScoreIsTooLow() {
+        offerLastKnownLocation(500);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(locationListener).onLocationFailed(FailType.TIMEOUT);
+        verify(locationListener, never()).onLocationChanged(any(Location.class));
+    }
+
+    @Test
+    public void runScheduledTaskShouldFailWithTimeoutWhenDeliveringBestFixIsDisabled() {
+        offerLastKnownLocation(20);
+        when(defaultProviderConfiguration.deliverBestFixOnTimeout()).thenReturn(false);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(locationListener).onLocationFailed(FailType.TIMEOUT);
+        verify(locationListener, never()).onLocationChanged(any(Location.class));
+    }
+
+    @Test
+    public void getShouldForgetBestFixOfPreviousRequest() {
+        offerLastKnownLocation(20);
+        disableLocationProvider();
+
+        defaultLocationProvider.get();
+
+        assertThat(defaultLocationProvider.getBestFixTracker().best()).isNull();
+    }
+
+    @Test
+    public void runScheduledTaskShouldReportFallbackToNetworkWhenCurrentProviderIsGPS() {
+        defaultLocationProvider.setStageTracer(stageTracer);
+        defaultLocationProvider.setCurrentProvider(GPS_PROVIDER);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(stageTracer).fallback(ProviderType.GPS, ProviderType.NETWORK, FallbackReason.TIMEOUT);
+    }
+
+    @Test
+    public void onLocationChangedShouldFinishRequestLocationUpdatesStage() {
+        defaultLocationProvider.setStageTracer(stageTracer);
+        defaultLocationProvider.setCurrentProvider(NETWORK_PROVIDER);
+
+        defaultLocationProvider.onLocationChanged(DUMMY_LOCATION);
+
+        verify(stageTracer).stageFinished(Stage.REQUEST_LOCATION_UPDATES, ProviderType.NETWORK);
+    }
+
+    @Test
+    public void getShouldListenBothProvidersWhenConcurrentProvidersIsEnabled() {
+        when(defaultProviderConfiguration.concurrentProviders()).thenReturn(true);
+        when(defaultProviderConfiguration.gpsWaitPeriod()).thenReturn(20 * 1000L);
+        when(defaultProviderConfiguration.networkWaitPeriod()).thenReturn(10 * 1000L);
+        enableLocationProvider();
+
+        defaultLocationProvider.get();
+
+        verify(updateRequest).run(aryEq(new String[] { GPS_PROVIDER, NETWORK_PROVIDER }), eq(0L), eq(0F));
+        verify(continuousTask).delayed(20 * 1000);
+        verify(defaultLocationProvider, never()).getLocationByNetwork();
+        assertThat(defaultLocationProvider.isAcquiringConcurrently()).isTrue();
+    }
+
+    @Test
+    public void getShouldAskProvidersOneByOneWhenNetworkIsDisabled() {
+        when(defaultProviderConfiguration.concurrentProviders()).thenReturn(true);
+        when(defaultLocationSource.isProviderEnabled(GPS_PROVIDER)).thenReturn(true);
+
+        defaultLocationProvider.get();
+
+        verify(defaultLocationProvider).askForLocation(GPS_PROVIDER);
+        verify(defaultLocationProvider, never()).askForLocationConcurrently();
+    }
+
+    @Test
+    public void getShouldNotListenProvidersWhenLastKnownNetworkLocationIsUsable() {
+        Location location = new FakeLocation(NETWORK_PROVIDER, 0, 3);
+        when(defaultLocationSource.getLastKnownLocation(NETWORK_PROVIDER)).thenReturn(location);
+        makeSufficient(location);
+
+        startConcurrentAcquisition(0);
+
+        verify(locationListener).onLocationChanged(location);
+        verify(updateRequest, never()).run(any(String[].class), anyLong(), anyFloat());
+    }
+
+    @Test
+    public void concurrentGPSLocationShouldBeDeliveredAndReleaseBothProviders() {
+        startConcurrentAcquisition(3 * 1000);
+        Location location = new FakeLocation(GPS_PROVIDER, 0, 3);
+
+        defaultLocationProvider.onLocationChanged(location);
+
+        verify(locationListener).onLocationChanged(location);
+        verify(defaultLocationSource).removeLocationUpdates(defaultLocationProvider);
+        verify(continuousTask).stop();
+        verify(gpsGraceTask, never()).delayed(anyLong());
+        assertThat(defaultLocationProvider.isAcquiringConcurrently()).isFalse();
+    }
+
+    @Test
+    public void concurrentNetworkLocationShouldBeDeliveredRightAwayWithoutGracePeriod() {
+        startConcurrentAcquisition(0);
+        Location location = new FakeLocation(NETWORK_PROVIDER, 0, 3);
+
+        defaultLocationProvider.onLocationChanged(location);
+
+        verify(locationListener).onLocationChanged(location);
+        verify(defaultLocationSource).removeLocationUpdates(defaultLocationProvider);
+    }
+
+    @Test
+    public void concurrentNetworkLocationShouldWaitForBetterGPSLocationInGracePeriod() {
+        startConcurrentAcquisition(3 * 1000);
+        Location networkLocation = new FakeLocation(NETWORK_PROVIDER, 0, 4);
+        Location gpsLocation = new FakeLocation(GPS_PROVIDER, 0, 2);
+
+        defaultLocationProvider.onLocationChanged(networkLocation);
+
+        verify(gpsGraceTask).delayed(3 * 1000);
+        verify(locationListener, never()).onLocationChanged(any(Location.class));
+
+        defaultLocationProvider.onLocationChanged(gpsLocation);
+
+        verify(locationListener).onLocationChanged(gpsLocation);
+        verify(locationListener, never()).onLocationChanged(networkLocation);
+        verify(gpsGraceTask).stop();
+    }
+
+    @Test
+    public void concurrentGPSLocationLessAccurateThanHeldNetworkLocationShouldNotReplaceIt() {
+        startConcurrentAcquisition(3 * 1000);
+        Location networkLocation = new FakeLocation(NETWORK_PROVIDER, 0, 2);
+        Location gpsLocation = new FakeLocation(GPS_PROVIDER, 0, 4);
+
+        defaultLocationProvider.onLocationChanged(networkLocation);
+        defaultLocationProvider.onLocationChanged(gpsLocation);
+
+        verify(locationListener).onLocationChanged(networkLocation);
+        verify(locationListener, never()).onLocationChanged(gpsLocation);
+    }
+
+    @Test
+    public void gpsGraceTaskShouldDeliverHeldNetworkLocation() {
+        startConcurrentAcquisition(3 * 1000);
+        Location networkLocation = new FakeLocation(NETWORK_PROVIDER, 0, 4);
+        defaultLocationProvider.onLocationChanged(networkLocation);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.GPS_GRACE_TASK);
+
+        verify(locationListener).onLocationChanged(networkLocation);
+        verify(defaultLocationSource).removeLocationUpdates(defaultLocationProvider);
+        assertThat(defaultLocationProvider.isAcquiringConcurrently()).isFalse();
+    }
+
+    @Test
+    public void concurrentLocationShouldBeDeliveredEvenIfItIsNotAcceptable() {
+        startConcurrentAcquisition(0);
+        Location inaccurate = new FakeLocation(NETWORK_PROVIDER, 0, 200);
+
+        defaultLocationProvider.onLocationChanged(inaccurate);
+
+        verify(locationListener).onLocationChanged(inaccurate);
+        verify(defaultLocationSource).removeLocationUpdates(defaultLocationProvider);
+        assertThat(defaultLocationProvider.isAcquiringConcurrently()).isFalse();
+    }
+
+    @Test
+    public void concurrentInaccurateNetworkLocationShouldBeUpgradedToGPSLocationInGracePeriod() {
+        startConcurrentAcquisition(3 * 1000);
+        Location networkLocation = new FakeLocation(NETWORK_PROVIDER, 0, 200);
+        Location gpsLocation = new FakeLocation(GPS_PROVIDER, 0, 50);
+
+        defaultLocationProvider.onLocationChanged(networkLocation);
+        verify(gpsGraceTask).delayed(3 * 1000);
+
+        defaultLocationProvider.onLocationChanged(gpsLocation);
+
+        verify(locationListener).onLocationChanged(gpsLocation);
+        verify(locationListener, never()).onLocationChanged(networkLocation);
+    }
+
+    @Test
+    public void concurrentWaitPeriodShouldDeliverBestOfLastKnownLocations() {
+        FakeClock clock = new FakeClock(ONE_HOUR_NANOS, 0);
+        defaultLocationProvider.setClock(clock);
+        when(defaultProviderConfiguration.acceptableAccuracy()).thenReturn(5f);
+        when(defaultProviderConfiguration.acceptableTimePeriod()).thenReturn(60 * 1000L);
+        when(defaultProviderConfiguration.deliverBestFixOnTimeout()).thenReturn(true);
+        when(defaultProviderConfiguration.minimumFixScore()).thenReturn(0.1f);
+        Location lastKnownLocation = new FakeLocation(GPS_PROVIDER, clock.elapsedRealtimeNanos(), 41, 29, 20);
+        when(defaultLocationSource.getLastKnownLocation(GPS_PROVIDER)).thenReturn(lastKnownLocation);
+        startConcurrentAcquisition(0);
+        verify(locationListener, never()).onLocationChanged(any(Location.class));
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(updateRequest).release();
+        verify(locationListener).onLocationChanged(lastKnownLocation);
+        verify(defaultLocationProvider, never()).getLocationByNetwork();
+    }
+
+    @Test
+    public void concurrentWaitPeriodShouldFailWithTimeoutWhenThereIsNoLocation() {
+        startConcurrentAcquisition(0);
+
+        defaultLocationProvider.runScheduledTask(DefaultLocationSource.PROVIDER_SWITCH_TASK);
+
+        verify(locationListener).onLocationFailed(FailType.TIMEOUT);
+        assertThat(defaultLocationProvider.isAcquiringConcurrently()).isFalse();
+    }
+
+    @Test
+    public void cancelShouldStopConcurrentAcquisition() {
+        startConcurrentAcquisition(3 * 1000);
+
+        defaultLocationProvider.cancel();
+
+        verify(gpsGraceTask).stop();
+        assertThat(defaultLocationProvider.isAcquiringConcurrently()).isFalse();
+    }
+
     @Test
     public void onPositiveButtonClickShouldFailWhenThereIsNoActivityOrFragment() {
         when(contextProcessor.getActivity()).thenReturn(null);
@@ -502,6 +855,42 @@ public class DefaultLocationProviderTest {
         verify(defaultLocationProvider).getLocationByNetwork();
     }
 
+    /**
+     * Makes an insufficient last known GPS location with given accuracy be seen, and switches to network provider
+     */
+    private Location offerLastKnownLocation(float accuracy) {
+        FakeClock clock = new FakeClock(ONE_HOUR_NANOS, 0);
+        defaultLocationProvider.setClock(clock);
+        when(defaultProviderConfiguration.acceptableAccuracy()).thenReturn(5f);
+        when(defaultProviderConfiguration.acceptableTimePeriod()).thenReturn(60 * 1000L);
+        when(defaultProviderConfiguration.deliverBestFixOnTimeout()).thenReturn(true);
+        when(defaultProviderConfiguration.minimumFixScore()).thenReturn(0.1f);
+
+        Location location = new FakeLocation(GPS_PROVIDER, clock.elapsedRealtimeNanos(), 41, 29, accuracy);
+        when(defaultLocationSource.getLastKnownLocation(GPS_PROVIDER)).thenReturn(location);
+        defaultLocationProvider.setCurrentProvider(GPS_PROVIDER);
+        assertThat(defaultLocationProvider.checkForLastKnowLocation()).isFalse();
+
+        defaultLocationProvider.setCurrentProvider(NETWORK_PROVIDER);
+        return location;
+    }
+
+    private void startConcurrentAcquisition(long gpsGracePeriod) {
+        when(defaultProviderConfiguration.concurrentProviders()).thenReturn(true);
+        when(defaultProviderConfiguration.gpsGracePeriod()).thenReturn(gpsGracePeriod);
+        when(defaultProviderConfiguration.gpsWaitPeriod()).thenReturn(20 * 1000L);
+        when(defaultProviderConfiguration.networkWaitPeriod()).thenReturn(10 * 1000L);
+        enableLocationProvider();
+
+        defaultLocationProvider.get();
+        // Tasks are stopped before they are scheduled, ignore them
+        clearInvocations(continuousTask, gpsGraceTask);
+    }
+
+    private void makeSufficient(Location location) {
+        when(defaultLocationSource.isLocationSufficient(eq(location), anyLong(), anyFloat())).thenReturn(true);
+    }
+
     private void enableLocationProvider() {
         when(defaultLocationSource.isProviderEnabled(anyString())).thenReturn(true);
     }
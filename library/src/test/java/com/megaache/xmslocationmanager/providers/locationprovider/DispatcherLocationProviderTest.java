@@ -28,6 +28,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -57,6 +58,7 @@ private final static int NOT_RESOLVABLE_ERROR = ConnectionResult.getINTERNAL_ERR
     @Mock
     XMSLocationProvider xmsLocationProvider;
     @Mock ContinuousTask continuousTask;
+    @Mock ProviderRace providerRace;
 
     private DispatcherLocationProvider dispatcherLocationProvider;
 
@@ -76,6 +78,7 @@ private final static int NOT_RESOLVABLE_ERROR = ConnectionResult.getINTERNAL_ERR
         when(dispatcherLocationSource.createXMSLocationProvider(dispatcherLocationProvider))
               .thenReturn(xmsLocationProvider);
         when(dispatcherLocationSource.gpServicesSwitchTask()).thenReturn(continuousTask);
+        when(dispatcherLocationSource.createProviderRace(dispatcherLocationProvider)).thenReturn(providerRace);
 
         when(contextProcessor.getContext()).thenReturn(context);
         when(contextProcessor.getActivity()).thenReturn(activity);
@@ -395,6 +398,62 @@ int unresolvableError = ConnectionResult.getSERVICE_INVALID();
         verify(xmsLocationProvider).get();
     }
 
+    @Test
+    public void getLocationFromXMSShouldRaceProvidersWhenConfigurationRequires() {
+        when(locationConfiguration.raceProviders()).thenReturn(true);
+
+        dispatcherLocationProvider.getLocationFromXMS();
+
+        verify(dispatcherLocationProvider).raceProviders();
+        verify(continuousTask).delayed(XMS_SWITCH_PERIOD);
+        verify(providerRace).start();
+        verify(xmsLocationProvider, never()).get();
+    }
+
+    @Test
+    public void runScheduledTaskShouldNotifyRaceDeadlineWhileRacing() {
+        when(locationConfiguration.raceProviders()).thenReturn(true);
+        when(providerRace.isRunning()).thenReturn(true);
+        dispatcherLocationProvider.getLocationFromXMS();
+
+        dispatcherLocationProvider.runScheduledTask(DispatcherLocationSource.XMS_SWITCH_TASK);
+
+        verify(providerRace).onDeadline();
+    }
+
+    @Test
+    public void lifecycleShouldRedirectToRaceWhileRacing() {
+        when(locationConfiguration.raceProviders()).thenReturn(true);
+        when(providerRace.isRunning()).thenReturn(true);
+        dispatcherLocationProvider.getLocationFromXMS();
+
+        dispatcherLocationProvider.onPause();
+        dispatcherLocationProvider.onResume();
+        dispatcherLocationProvider.cancel();
+
+        verify(providerRace).onPause();
+        verify(providerRace).onResume();
+        verify(providerRace).cancel();
+    }
+
+    @Test
+    public void onRaceWonShouldStopSwitchTaskAndSetWinnerAsActiveProvider() {
+        dispatcherLocationProvider.onRaceWon(defaultLocationProvider);
+        when(defaultLocationProvider.isWaiting()).thenReturn(true);
+
+        verify(continuousTask).stop();
+        assertThat(dispatcherLocationProvider.isWaiting()).isTrue();
+    }
+
+    @Test
+    public void onRaceFailedShouldNotifyListener() {
+        dispatcherLocationProvider.onRaceFailed(FailType.TIMEOUT);
+
+        verify(continuousTask).stop();
+        //noinspection WrongConstant
+        verify(locationListener).onLocationFailed(eq(FailType.TIMEOUT));
+    }
+
     @Test
     public void continueWithDefaultProvidersShouldNotifyFailWhenNoDefaultProviderConfiguration() {
         when(locationConfiguration.defaultProviderConfiguration()).thenReturn(null);
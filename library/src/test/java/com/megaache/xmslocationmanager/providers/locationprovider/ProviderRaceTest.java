@@ -0,0 +1,272 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.megaache.xmslocationmanager.configuration.DefaultProviderConfiguration;
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.ProviderType;
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.helper.continuoustask.ContinuousTask;
+import com.megaache.xmslocationmanager.listener.BestFixListener;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.listener.TimeToFirstFixListener;
+import com.megaache.xmslocationmanager.view.ContextProcessor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ProviderRaceTest {
+
+    private static final long START_TIME = 1000L;
+    private static final long FIRST_FIX_DURATION = 300L;
+    private static final long ONE_HOUR_NANOS = 60L * 60 * 1000 * 1000 * 1000;
+
+    @Mock ContextProcessor contextProcessor;
+    @Mock LocationListener locationListener;
+    @Mock XMSLocationConfiguration locationConfiguration;
+    @Mock DefaultProviderConfiguration defaultProviderConfiguration;
+
+    @Mock DispatcherLocationSource dispatcherLocationSource;
+    @Mock XMSLocationProvider xmsLocationProvider;
+    @Mock DefaultLocationProvider defaultLocationProvider;
+    @Mock ContinuousTask continuousTask;
+
+    @Mock Location sufficientLocation;
+    @Mock Location insufficientLocation;
+    @Mock Location worseLocation;
+
+    private DispatcherLocationProvider dispatcherLocationProvider;
+    private ProviderRace providerRace;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(locationConfiguration.defaultProviderConfiguration()).thenReturn(defaultProviderConfiguration);
+
+        dispatcherLocationProvider = spy(new DispatcherLocationProvider());
+        dispatcherLocationProvider.configure(contextProcessor, locationConfiguration, locationListener);
+        dispatcherLocationProvider.setDispatcherLocationSource(dispatcherLocationSource);
+
+        providerRace = new ProviderRace(dispatcherLocationProvider, dispatcherLocationSource);
+
+        when(dispatcherLocationSource.createXMSLocationProvider(providerRace)).thenReturn(xmsLocationProvider);
+        when(dispatcherLocationSource.createDefaultLocationProvider()).thenReturn(defaultLocationProvider);
+        when(dispatcherLocationSource.elapsedRealtime()).thenReturn(START_TIME);
+        when(dispatcherLocationSource.gpServicesSwitchTask()).thenReturn(continuousTask);
+        when(dispatcherLocationSource.isLocationSufficient(eq(sufficientLocation), anyLong(), anyFloat()))
+              .thenReturn(true);
+
+        when(insufficientLocation.getAccuracy()).thenReturn(50f);
+        when(worseLocation.getAccuracy()).thenReturn(500f);
+    }
+
+    @Test
+    public void startShouldConfigureAndStartBothProviders() {
+        providerRace.start();
+
+        verify(xmsLocationProvider).configure(dispatcherLocationProvider, providerRace.xmsRacer());
+        verify(defaultLocationProvider).configure(dispatcherLocationProvider, providerRace.defaultRacer());
+        verify(xmsLocationProvider).get();
+        verify(defaultLocationProvider).get();
+        assertThat(providerRace.isRunning()).isTrue();
+    }
+
+    @Test
+    public void firstSufficientLocationShouldWinAndCancelOtherProvider() {
+        providerRace.start();
+
+        providerRace.defaultRacer().onLocationChanged(sufficientLocation);
+
+        verify(locationListener).onLocationChanged(sufficientLocation);
+        verify(xmsLocationProvider).cancel();
+        verify(defaultLocationProvider, never()).cancel();
+        verify(dispatcherLocationProvider).onRaceWon(defaultLocationProvider);
+        assertThat(providerRace.isRunning()).isFalse();
+    }
+
+    @Test
+    public void locationsFromLoserShouldBeIgnored() {
+        providerRace.start();
+        providerRace.xmsRacer().onLocationChanged(sufficientLocation);
+
+        providerRace.defaultRacer().onLocationChanged(insufficientLocation);
+
+        verify(locationListener, never()).onLocationChanged(insufficientLocation);
+    }
+
+    @Test
+    public void winnerShouldKeepDeliveringWhenKeepTracking() {
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        providerRace.start();
+        providerRace.xmsRacer().onLocationChanged(sufficientLocation);
+
+        providerRace.xmsRacer().onLocationChanged(insufficientLocation);
+
+        verify(locationListener).onLocationChanged(insufficientLocation);
+    }
+
+    @Test
+    public void insufficientLocationShouldNotBeDeliveredWhileOtherProviderIsRunning() {
+        providerRace.start();
+
+        providerRace.xmsRacer().onLocationChanged(insufficientLocation);
+
+        verify(locationListener, never()).onLocationChanged(any(Location.class));
+        assertThat(providerRace.isRunning()).isTrue();
+    }
+
+    @Test
+    public void bestLocationShouldBeDeliveredWhenBothProvidersFinishWithoutSufficientLocation() {
+        providerRace.start();
+
+        providerRace.xmsRacer().onLocationChanged(insufficientLocation);
+        providerRace.defaultRacer().onLocationChanged(worseLocation);
+
+        verify(locationListener).onLocationChanged(insufficientLocation);
+        verify(locationListener, never()).onLocationChanged(worseLocation);
+        verify(dispatcherLocationProvider).onRaceWon(xmsLocationProvider);
+    }
+
+    @Test
+    public void freshLocationShouldBeatMoreAccurateButStaleOne() {
+        FakeClock clock = new FakeClock(ONE_HOUR_NANOS, 0);
+        dispatcherLocationProvider.setClock(clock);
+        when(defaultProviderConfiguration.acceptableAccuracy()).thenReturn(5f);
+        when(defaultProviderConfiguration.acceptableTimePeriod()).thenReturn(60 * 1000L);
+        // 10 minutes old with 10 meters accuracy, against a current one with 20 meters accuracy
+        Location stale = new FakeLocation(LocationManager.GPS_PROVIDER,
+              clock.elapsedRealtimeNanos() - 10 * 60 * 1000L * 1000 * 1000, 41, 29, 10);
+        Location fresh = new FakeLocation(LocationManager.GPS_PROVIDER, clock.elapsedRealtimeNanos(), 41, 29, 20);
+        providerRace.start();
+
+        providerRace.xmsRacer().onLocationChanged(stale);
+        providerRace.defaultRacer().onLocationChanged(fresh);
+
+        verify(locationListener).onLocationChanged(fresh);
+        verify(locationListener, never()).onLocationChanged(stale);
+        verify(dispatcherLocationProvider).onRaceWon(defaultLocationProvider);
+    }
+
+    @Test
+    public void deliveredBestLocationShouldBeReportedWithItsScore() {
+        LocationListener bestFixListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BestFixListener.class));
+        dispatcherLocationProvider.configure(contextProcessor, locationConfiguration, bestFixListener);
+        dispatcherLocationProvider.setClock(new FakeClock());
+        when(defaultProviderConfiguration.acceptableAccuracy()).thenReturn(5f);
+        when(defaultProviderConfiguration.acceptableTimePeriod()).thenReturn(60 * 1000L);
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        providerRace.start();
+        providerRace.xmsRacer().onLocationChanged(insufficientLocation);
+
+        providerRace.onDeadline();
+
+        // 50 meters accuracy against 5 acceptable, from XMS
+        verify((BestFixListener) bestFixListener).onBestFix(insufficientLocation, 0.1f);
+        verify(bestFixListener).onLocationChanged(insufficientLocation);
+    }
+
+    @Test
+    public void improvingLocationsShouldBeDeliveredBeforeWinnerWhenProgressive() {
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        when(locationConfiguration.isProgressive()).thenReturn(true);
+        providerRace.start();
+
+        providerRace.xmsRacer().onLocationChanged(worseLocation);
+        providerRace.defaultRacer().onLocationChanged(insufficientLocation);
+
+        verify(locationListener).onLocationChanged(worseLocation);
+        verify(locationListener).onLocationChanged(insufficientLocation);
+        assertThat(providerRace.isRunning()).isTrue();
+    }
+
+    @Test
+    public void raceShouldFailWhenBothProvidersFail() {
+        providerRace.start();
+
+        providerRace.onFallback();
+        providerRace.defaultRacer().onLocationFailed(FailType.NETWORK_NOT_AVAILABLE);
+
+        verify(dispatcherLocationProvider).onRaceFailed(FailType.NETWORK_NOT_AVAILABLE);
+        //noinspection WrongConstant
+        verify(locationListener).onLocationFailed(FailType.NETWORK_NOT_AVAILABLE);
+    }
+
+    @Test
+    public void failureOfOneProviderShouldNotEndTheRace() {
+        providerRace.start();
+
+        providerRace.onFallback();
+
+        assertThat(providerRace.isRunning()).isTrue();
+        verify(locationListener, never()).onLocationFailed(any(Integer.class));
+    }
+
+    @Test
+    public void deadlineShouldDeliverBestLocationSoFar() {
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        providerRace.start();
+        providerRace.defaultRacer().onLocationChanged(insufficientLocation);
+
+        providerRace.onDeadline();
+
+        verify(locationListener).onLocationChanged(insufficientLocation);
+        verify(xmsLocationProvider).cancel();
+    }
+
+    @Test
+    public void deadlineShouldContinueWithDefaultProvidersWhenThereIsNoLocation() {
+        providerRace.start();
+
+        providerRace.onDeadline();
+
+        verify(xmsLocationProvider).cancel();
+        verify(dispatcherLocationProvider).onRaceWon(defaultLocationProvider);
+    }
+
+    @Test
+    public void timeToFirstFixShouldBeReportedPerProvider() {
+        LocationListener ttffListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(TimeToFirstFixListener.class));
+        dispatcherLocationProvider.configure(contextProcessor, locationConfiguration, ttffListener);
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        when(insufficientLocation.getProvider()).thenReturn(LocationManager.NETWORK_PROVIDER);
+        providerRace.start();
+
+        when(dispatcherLocationSource.elapsedRealtime()).thenReturn(START_TIME + FIRST_FIX_DURATION);
+        providerRace.defaultRacer().onLocationChanged(insufficientLocation);
+        providerRace.xmsRacer().onLocationChanged(sufficientLocation);
+
+        verify((TimeToFirstFixListener) ttffListener).onTimeToFirstFix(ProviderType.NETWORK, FIRST_FIX_DURATION);
+        verify((TimeToFirstFixListener) ttffListener).onTimeToFirstFix(ProviderType.XMS, FIRST_FIX_DURATION);
+    }
+
+    @Test
+    public void cancelShouldCancelBothProviders() {
+        providerRace.start();
+
+        providerRace.cancel();
+
+        verify(xmsLocationProvider).cancel();
+        verify(defaultLocationProvider).cancel();
+        assertThat(providerRace.isRunning()).isFalse();
+    }
+}
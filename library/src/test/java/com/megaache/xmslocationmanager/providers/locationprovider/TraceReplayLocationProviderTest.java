@@ -0,0 +1,243 @@
+package com.megaache.xmslocationmanager.providers.locationprovider;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.ProcessType;
+import com.megaache.xmslocationmanager.constants.TraceFormat;
+import com.megaache.xmslocationmanager.fakes.FakeClock;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+import com.megaache.xmslocationmanager.helper.trace.TraceSource;
+import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.view.ContextProcessor;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TraceReplayLocationProviderTest {
+
+    private static final long START_NANOS = 5000000000L;
+    private static final long START_MILLIS = 1600000000000L;
+
+    // 10 fixes, one second apart
+    private static final String TRACE = "time,latitude,longitude,accuracy\n"
+          + "1000,41.0,29.0,5\n2000,41.1,29.1,5\n3000,41.2,29.2,5\n4000,41.3,29.3,5\n5000,41.4,29.4,5\n"
+          + "6000,41.5,29.5,5\n7000,41.6,29.6,5\n8000,41.7,29.7,5\n9000,41.8,29.8,5\n10000,41.9,29.9,5\n";
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock
+    ContextProcessor contextProcessor;
+    @Mock
+    XMSLocationConfiguration configuration;
+    @Mock
+    LocationListener listener;
+
+    private final FakeClock clock = new FakeClock(START_NANOS, START_MILLIS);
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void shouldReplayWholeTraceWhenKeepTracking() {
+        when(configuration.keepTracking()).thenReturn(true);
+        TraceReplayLocationProvider provider = provider(TRACE, 1000);
+
+        provider.get();
+        verify(listener, timeout(2000)).onLocationChanged(any(Location.class));
+        // Last fix is 9 ms after the first one
+        clock.advance(9);
+
+        ArgumentCaptor<Location> captor = ArgumentCaptor.forClass(Location.class);
+        verify(listener).onProcessTypeChanged(ProcessType.GETTING_LOCATION_FROM_CUSTOM_PROVIDER);
+        verify(listener, timeout(2000).times(10)).onLocationChanged(captor.capture());
+
+        List<Location> locations = captor.getAllValues();
+        assertThat(locations.get(0).getLatitude()).isEqualTo(41.0);
+        assertThat(locations.get(0).getAccuracy()).isEqualTo(5);
+        assertThat(locations.get(9).getLongitude()).isEqualTo(29.9);
+        assertThat(provider.isWaiting()).isFalse();
+    }
+
+    @Test
+    public void timesShouldBeTimeOfDeliveryEvenWhenReplayedFaster() {
+        when(configuration.keepTracking()).thenReturn(true);
+        TraceReplayLocationProvider provider = provider(TRACE, 1000);
+
+        provider.get();
+        verify(listener, timeout(2000)).onLocationChanged(any(Location.class));
+        clock.advance(9);
+
+        ArgumentCaptor<Location> captor = ArgumentCaptor.forClass(Location.class);
+        verify(listener, timeout(2000).times(10)).onLocationChanged(captor.capture());
+
+        // Clock moves 9 milliseconds, while the trace moves 9 seconds
+        List<Location> locations = captor.getAllValues();
+        assertThat(locations.get(0).getElapsedRealtimeNanos()).isEqualTo(START_NANOS);
+        assertThat(locations.get(0).getTime()).isEqualTo(START_MILLIS);
+        assertThat(locations.get(9).getElapsedRealtimeNanos()).isEqualTo(START_NANOS + 9 * 1000 * 1000);
+        assertThat(locations.get(9).getTime()).isEqualTo(START_MILLIS + 9);
+    }
+
+    @Test
+    public void shouldStopAfterFirstFixWhenNotKeepTracking() {
+        TraceReplayLocationProvider provider = provider(TRACE, 1000);
+
+        provider.get();
+
+        verify(listener, timeout(2000)).onLocationChanged(any(Location.class));
+        verify(listener, after(100)).onLocationChanged(any(Location.class));
+        assertThat(provider.isWaiting()).isFalse();
+    }
+
+    @Test
+    public void shouldReplayAtGivenSpeed() {
+        when(configuration.keepTracking()).thenReturn(true);
+        TraceReplayLocationProvider provider = provider(TRACE, 10);
+
+        provider.get();
+
+        // Second fix is 100 ms after the first one on the clock
+        verify(listener, timeout(1000)).onLocationChanged(any(Location.class));
+        clock.advance(99);
+        verify(listener, after(50).times(1)).onLocationChanged(any(Location.class));
+        clock.advance(1);
+        verify(listener, timeout(1000).times(2)).onLocationChanged(any(Location.class));
+        provider.cancel();
+    }
+
+    @Test
+    public void cancelShouldStopReplay() {
+        when(configuration.keepTracking()).thenReturn(true);
+        TraceReplayLocationProvider provider = provider(TRACE, 10);
+
+        provider.get();
+        verify(listener, timeout(1000)).onLocationChanged(any(Location.class));
+        provider.cancel();
+        clock.advance(1000);
+
+        verify(listener, after(100).times(1)).onLocationChanged(any(Location.class));
+    }
+
+    @Test
+    public void pauseShouldHoldReplayUntilResume() {
+        when(configuration.keepTracking()).thenReturn(true);
+        TraceReplayLocationProvider provider = provider(TRACE, 10);
+
+        provider.get();
+        verify(listener, timeout(1000)).onLocationChanged(any(Location.class));
+        provider.onPause();
+        clock.advance(1000);
+
+        verify(listener, after(100).times(1)).onLocationChanged(any(Location.class));
+
+        // Time spent paused doesn't count
+        provider.onResume();
+        verify(listener, after(100).times(1)).onLocationChanged(any(Location.class));
+        clock.advance(100);
+        verify(listener, timeout(1000).times(2)).onLocationChanged(any(Location.class));
+        provider.cancel();
+    }
+
+    @Test
+    public void emptyTraceShouldFail() {
+        TraceReplayLocationProvider provider = provider("time,latitude,longitude\n", 1000);
+
+        provider.get();
+
+        verify(listener, timeout(2000)).onLocationFailed(FailType.UNKNOWN);
+        verify(listener, never()).onLocationChanged(any(Location.class));
+        assertThat(provider.isWaiting()).isFalse();
+    }
+
+    @Test
+    public void unreadableTraceShouldFail() {
+        TraceReplayLocationProvider provider = configure(spy(new TraceReplayLocationProvider.Builder(
+              new TraceSource() {
+                  @NonNull
+                  @Override
+                  public Reader open() throws IOException {
+                      throw new IOException("No such file");
+                  }
+              }, TraceFormat.CSV).build()));
+
+        provider.get();
+
+        verify(listener, timeout(2000)).onLocationFailed(FailType.UNKNOWN);
+    }
+
+    @Test
+    public void speedShouldBeWithinLimits() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("speed"));
+
+        new TraceReplayLocationProvider.Builder(source(TRACE), TraceFormat.CSV)
+              .speed(TraceReplayLocationProvider.MAX_SPEED + 1);
+    }
+
+    @Test
+    public void formatShouldBeOneOfTraceFormats() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("format"));
+
+        new TraceReplayLocationProvider.Builder(source(TRACE), 0);
+    }
+
+    private TraceReplayLocationProvider provider(String trace, double speed) {
+        return configure(spy(new TraceReplayLocationProvider.Builder(source(trace), TraceFormat.CSV)
+              .speed(speed)
+              .build()));
+    }
+
+    private TraceReplayLocationProvider configure(TraceReplayLocationProvider provider) {
+        doAnswer(new Answer<Location>() {
+            @Override
+            public Location answer(InvocationOnMock invocation) {
+                return new FakeLocation(TraceReplayLocationProvider.PROVIDER, 0, 0, 0, 0);
+            }
+        }).when(provider).newLocation();
+
+        provider.setClock(clock);
+        provider.configure(contextProcessor, configuration, listener);
+        return provider;
+    }
+
+    private static TraceSource source(final String trace) {
+        return new TraceSource() {
+            @NonNull
+            @Override
+            public Reader open() {
+                return new StringReader(trace);
+            }
+        };
+    }
+}
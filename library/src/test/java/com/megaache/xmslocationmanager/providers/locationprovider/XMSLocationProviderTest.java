@@ -14,18 +14,24 @@ import org.xms.g.location.LocationResult;
 import org.xms.g.location.LocationSettingsResponse;
 import org.xms.g.location.LocationSettingsResult;
 import org.xms.g.location.LocationSettingsStatusCodes;
+import com.megaache.xmslocationmanager.XMSLocationRequest;
+import com.megaache.xmslocationmanager.base.ForwardingLocationListener;
+import com.megaache.xmslocationmanager.configuration.AdaptiveTrackingConfiguration;
 import com.megaache.xmslocationmanager.configuration.XMSConfiguration;
 import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
 import com.megaache.xmslocationmanager.constants.FailType;
 import com.megaache.xmslocationmanager.constants.ProcessType;
 import com.megaache.xmslocationmanager.constants.RequestCode;
+import com.megaache.xmslocationmanager.listener.BatchLocationListener;
 import com.megaache.xmslocationmanager.listener.FallbackListener;
 import com.megaache.xmslocationmanager.listener.LocationListener;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
 import com.megaache.xmslocationmanager.fakes.FakeSimpleTask;
 import com.megaache.xmslocationmanager.view.ContextProcessor;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.xms.g.utils.XBox;
@@ -38,9 +44,12 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class XMSLocationProviderTest {
 
@@ -371,6 +380,53 @@ public class XMSLocationProviderTest {
         verify(locationListener, atLeastOnce()).onLocationChanged(any(Location.class));
     }
 
+    @Test
+    public void onLocationResultShouldDeliverBatchOnceWhenListenerIsBatchLocationListener() {
+        LocationListener batchListener = mock(LocationListener.class,
+              withSettings().extraInterfaces(BatchLocationListener.class));
+        XMSLocationProvider.configure(contextProcessor, locationConfiguration, batchListener);
+        List<Location> locations = new ArrayList<>();
+        locations.add(location);
+        locations.add(location);
+        LocationResult locationResult = mock(LocationResult.class);
+        when(locationResult.getLocations()).thenReturn(locations);
+
+        XMSLocationProvider.onLocationResult(locationResult);
+
+        verify((BatchLocationListener) batchListener).onLocationsChanged(locations);
+        verify(batchListener, never()).onLocationChanged(any(Location.class));
+        verify(XMSLocationProvider, never()).onLocationChanged(any(Location.class));
+    }
+
+    @Test
+    public void onLocationResultShouldDeliverLocationsOneByOneWhenListenerIsNotBatchLocationListener() {
+        List<Location> locations = new ArrayList<>();
+        locations.add(location);
+        locations.add(location);
+        LocationResult locationResult = mock(LocationResult.class);
+        when(locationResult.getLocations()).thenReturn(locations);
+
+        XMSLocationProvider.onLocationResult(locationResult);
+
+        verify(locationListener, times(2)).onLocationChanged(location);
+    }
+
+    @Test
+    public void onLocationResultShouldDeliverLocationsOneByOneWhenWrappedListenerIsNotBatchLocationListener() {
+        XMSLocationProvider.configure(contextProcessor, locationConfiguration,
+              new ForwardingLocationListener(locationListener));
+        List<Location> locations = new ArrayList<>();
+        locations.add(location);
+        locations.add(location);
+        LocationResult locationResult = mock(LocationResult.class);
+        when(locationResult.getLocations()).thenReturn(locations);
+
+        XMSLocationProvider.onLocationResult(locationResult);
+
+        verify(XMSLocationProvider, times(2)).onLocationChanged(location);
+        verify(locationListener, times(2)).onLocationChanged(location);
+    }
+
     @Test
     public void onLocationResultShouldNotCallOnLocationChangedWhenLocationListIsEmpty() {
         List<Location> locations = new ArrayList<>();
@@ -511,6 +567,89 @@ public class XMSLocationProviderTest {
         verify(mockedSource).requestLocationUpdate();
     }
 
+    @Test
+    public void requestLocationUpdateShouldAskForAccurateLocationsQuicklyInProgressiveMode() {
+        when(locationConfiguration.isProgressive()).thenReturn(true);
+        when(xmsConfiguration.locationRequest()).thenReturn(XMSLocationRequest.create()
+              .setPriority(XMSLocationRequest.PRIORITY_BALANCED_POWER_ACCURACY)
+              .setInterval(5 * 60 * 1000)
+              .setFastestInterval(60 * 1000)
+              .setMaxWaitTime(10 * 60 * 1000));
+
+        XMSLocationProvider.requestLocationUpdate();
+
+        ArgumentCaptor<XMSLocationRequest> captor = ArgumentCaptor.forClass(XMSLocationRequest.class);
+        verify(mockedSource).requestLocationUpdate(captor.capture());
+        verify(mockedSource, never()).requestLocationUpdate();
+        XMSLocationRequest request = captor.getValue();
+        assertThat(request.getPriority()).isEqualTo(XMSLocationRequest.PRIORITY_HIGH_ACCURACY);
+        assertThat(request.getInterval()).isEqualTo(XMSLocationProvider.PROGRESSIVE_INTERVAL);
+        assertThat(request.getFastestInterval()).isEqualTo(XMSLocationProvider.PROGRESSIVE_INTERVAL);
+        assertThat(request.getMaxWaitTime()).isZero();
+    }
+
+    @Test
+    public void createProgressiveRequestShouldKeepShorterConfiguredIntervals() {
+        XMSLocationRequest request = XMSLocationRequest.create()
+              .setInterval(500)
+              .setFastestInterval(200);
+
+        XMSLocationRequest progressive = XMSLocationProvider.createProgressiveRequest(request);
+
+        assertThat(progressive.getInterval()).isEqualTo(500);
+        assertThat(progressive.getFastestInterval()).isEqualTo(200);
+    }
+
+    @Test
+    public void onLocationResultShouldReplaceRequestWhenAdaptedIntervalChanges() {
+        enableAdaptiveTracking();
+        XMSLocationProvider.requestLocationUpdate();
+
+        XMSLocationProvider.onLocationResult(resultOf(locationWithSpeed(0.1f)));
+
+        verify(mockedSource).requestLocationUpdate(any(XMSLocationRequest.class));
+        verify(mockedSource, never()).removeLocationUpdates();
+    }
+
+    @Test
+    public void onLocationResultShouldNotReplaceRequestWhenAdaptiveTrackingIsNotSet() {
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        XMSLocationProvider.requestLocationUpdate();
+
+        XMSLocationProvider.onLocationResult(resultOf(locationWithSpeed(0.1f)));
+
+        verify(mockedSource, never()).requestLocationUpdate(any(XMSLocationRequest.class));
+    }
+
+    @Test
+    public void onLocationResultShouldNotReplaceRequestAfterUpdatesAreRemoved() {
+        enableAdaptiveTracking();
+        XMSLocationProvider.requestLocationUpdate();
+        XMSLocationProvider.cancel();
+
+        XMSLocationProvider.onLocationResult(resultOf(locationWithSpeed(0.1f)));
+
+        verify(mockedSource, never()).requestLocationUpdate(any(XMSLocationRequest.class));
+    }
+
+    @Test
+    public void createAdaptedRequestShouldLowerPriorityWhileStationary() {
+        XMSLocationRequest request = XMSLocationRequest.create()
+              .setPriority(XMSLocationRequest.PRIORITY_HIGH_ACCURACY)
+              .setInterval(60 * 1000)
+              .setFastestInterval(30 * 1000);
+
+        XMSLocationRequest moving = XMSLocationProvider.createAdaptedRequest(request, 10 * 1000, false);
+        XMSLocationRequest stationary = XMSLocationProvider.createAdaptedRequest(request, 300 * 1000, true);
+
+        assertThat(moving.getPriority()).isEqualTo(XMSLocationRequest.PRIORITY_HIGH_ACCURACY);
+        assertThat(moving.getInterval()).isEqualTo(10 * 1000);
+        assertThat(moving.getFastestInterval()).isEqualTo(10 * 1000);
+        assertThat(stationary.getPriority()).isEqualTo(XMSLocationRequest.PRIORITY_BALANCED_POWER_ACCURACY);
+        assertThat(stationary.getInterval()).isEqualTo(300 * 1000);
+        assertThat(stationary.getFastestInterval()).isEqualTo(30 * 1000);
+    }
+
     @Test
     public void settingsApiFailShouldCallFailWhenConfigurationFailOnSettingsApiSuspendedTrue() {
         when(xmsConfiguration.failOnSettingsApiSuspended()).thenReturn(true);
@@ -557,6 +696,27 @@ public class XMSLocationProviderTest {
         assertThat(XMSLocationProvider.isWaiting()).isFalse();
     }
 
+    private void enableAdaptiveTracking() {
+        when(xmsConfiguration.locationRequest()).thenReturn(XMSLocationRequest.create().setInterval(60 * 1000));
+        when(locationConfiguration.keepTracking()).thenReturn(true);
+        when(locationConfiguration.adaptiveTrackingConfiguration())
+              .thenReturn(new AdaptiveTrackingConfiguration.Builder().build());
+    }
+
+    private static LocationResult resultOf(Location location) {
+        List<Location> locations = new ArrayList<>();
+        locations.add(location);
+        LocationResult locationResult = mock(LocationResult.class);
+        when(locationResult.getLocations()).thenReturn(locations);
+        return locationResult;
+    }
+
+    private static Location locationWithSpeed(float speed) {
+        Location location = new FakeLocation("fused", 0, 41, 29, 5);
+        location.setSpeed(speed);
+        return location;
+    }
+
     private void makeSettingsDialogIsOnTrue() {
         XMSLocationProvider.onFailure(getSettingsResultWithError(LocationSettingsStatusCodes.getRESOLUTION_REQUIRED()));
     }
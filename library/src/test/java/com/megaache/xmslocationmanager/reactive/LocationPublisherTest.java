@@ -0,0 +1,348 @@
+package com.megaache.xmslocationmanager.reactive;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.megaache.xmslocationmanager.XMSLocationManager;
+import com.megaache.xmslocationmanager.configuration.XMSLocationConfiguration;
+import com.megaache.xmslocationmanager.constants.FailType;
+import com.megaache.xmslocationmanager.constants.OverflowStrategy;
+import com.megaache.xmslocationmanager.fakes.FakeLocation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LocationPublisherTest {
+
+    @Rule public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock XMSLocationManager.Builder managerBuilder;
+    @Mock XMSLocationManager manager;
+    @Mock XMSLocationConfiguration configuration;
+
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(managerBuilder.notify(any(LocationPublisher.class))).thenReturn(managerBuilder);
+        when(managerBuilder.build()).thenReturn(manager);
+        when(manager.getConfiguration()).thenReturn(configuration);
+        when(configuration.keepTracking()).thenReturn(true);
+    }
+
+    @Test
+    public void buildShouldSetPublisherAsListener() {
+        LocationPublisher publisher = new LocationPublisher.Builder(managerBuilder).build();
+
+        verify(managerBuilder).notify(publisher);
+        assertThat(publisher.manager()).isSameAs(manager);
+    }
+
+    @Test
+    public void latestShouldKeepOnlyOneLocation() {
+        LocationPublisher publisher = new LocationPublisher.Builder(managerBuilder)
+              .overflowStrategy(OverflowStrategy.LATEST)
+              .bufferSize(8)
+              .build();
+
+        assertThat(publisher.bufferSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void firstRequestShouldStartManager() {
+        LocationPublisher publisher = new LocationPublisher.Builder(managerBuilder).build();
+        publisher.subscribe(subscriber);
+        verify(manager, never()).get();
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(1);
+
+        verify(manager, times(1)).get();
+    }
+
+    @Test
+    public void locationsShouldBeDeliveredOnlyAsRequested() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.DROP_OLDEST, 4);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        Location first = location(1);
+        Location second = location(2);
+        Location third = location(3);
+        publisher.onLocationsChanged(Arrays.asList(first, second, third));
+        assertThat(subscriber.locations).containsExactly(first, second);
+
+        subscriber.subscription.request(5);
+        assertThat(subscriber.locations).containsExactly(first, second, third);
+
+        Location fourth = location(4);
+        publisher.onLocationChanged(fourth);
+        assertThat(subscriber.locations).containsExactly(first, second, third, fourth);
+        assertThat(publisher.droppedCount()).isZero();
+    }
+
+    @Test
+    public void latestShouldReplaceUnrequestedLocation() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.LATEST, 1);
+        publisher.subscribe(subscriber);
+
+        Location newest = location(3);
+        publisher.onLocationChanged(location(1));
+        publisher.onLocationChanged(location(2));
+        publisher.onLocationChanged(newest);
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.locations).containsExactly(newest);
+        assertThat(publisher.droppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void dropOldestShouldKeepNewestLocations() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.DROP_OLDEST, 2);
+        publisher.subscribe(subscriber);
+
+        Location second = location(2);
+        Location third = location(3);
+        publisher.onLocationsChanged(Arrays.asList(location(1), second, third));
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.locations).containsExactly(second, third);
+        assertThat(publisher.droppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void bufferShouldFailWhenFull() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.BUFFER, 2);
+        publisher.subscribe(subscriber);
+
+        publisher.onLocationsChanged(Arrays.asList(location(1), location(2)));
+        assertThat(subscriber.error).isNull();
+
+        publisher.onLocationChanged(location(3));
+
+        assertThat(subscriber.error).isInstanceOf(LocationOverflowException.class);
+        assertThat(subscriber.locations).isEmpty();
+        verify(manager).cancel();
+    }
+
+    @Test
+    public void failureShouldBeDeliveredAfterBufferedLocations() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.BUFFER, 4);
+        publisher.subscribe(subscriber);
+
+        Location buffered = location(1);
+        publisher.onLocationChanged(buffered);
+        publisher.onLocationFailed(FailType.TIMEOUT);
+        assertThat(subscriber.error).isNull();
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.locations).containsExactly(buffered);
+        assertThat(subscriber.error).isInstanceOf(LocationFailedException.class);
+        assertThat(((LocationFailedException) subscriber.error).type()).isEqualTo(FailType.TIMEOUT);
+    }
+
+    @Test
+    public void singleUpdateShouldCompleteAfterFirstLocation() {
+        when(configuration.keepTracking()).thenReturn(false);
+        LocationPublisher publisher = newPublisher(OverflowStrategy.LATEST, 1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        Location location = location(1);
+        publisher.onLocationChanged(location);
+        publisher.onLocationChanged(location(2));
+
+        assertThat(subscriber.locations).containsExactly(location);
+        assertThat(subscriber.isCompleted).isTrue();
+    }
+
+    @Test
+    public void progressiveUpdateShouldCompleteAfterFinalLocation() {
+        when(configuration.isProgressive()).thenReturn(true);
+        LocationPublisher publisher = newPublisher(OverflowStrategy.DROP_OLDEST, 4);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Location first = location(1);
+        publisher.onProgressiveLocation(first, false);
+        publisher.onLocationChanged(first);
+        assertThat(subscriber.isCompleted).isFalse();
+
+        Location last = location(2);
+        publisher.onProgressiveLocation(last, true);
+        publisher.onLocationChanged(last);
+        publisher.onLocationChanged(location(3));
+
+        assertThat(subscriber.locations).containsExactly(first, last);
+        assertThat(subscriber.isCompleted).isTrue();
+    }
+
+    @Test
+    public void progressiveUpdateShouldCompleteWhenDeadlinePasses() {
+        when(configuration.isProgressive()).thenReturn(true);
+        LocationPublisher publisher = newPublisher(OverflowStrategy.DROP_OLDEST, 4);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Location location = location(1);
+        publisher.onProgressiveLocation(location, false);
+        publisher.onLocationChanged(location);
+        // Last delivered one is announced as final without being delivered again
+        publisher.onProgressiveLocation(location, true);
+
+        assertThat(subscriber.locations).containsExactly(location);
+        assertThat(subscriber.isCompleted).isTrue();
+    }
+
+    @Test
+    public void cancelShouldCancelManagerAndStopDelivery() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.LATEST, 1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(10);
+
+        subscriber.subscription.cancel();
+        publisher.onLocationChanged(location(1));
+
+        verify(manager).cancel();
+        assertThat(subscriber.locations).isEmpty();
+    }
+
+    @Test
+    public void nonPositiveRequestShouldFail() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.LATEST, 1);
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void secondSubscriberShouldBeRejected() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.LATEST, 1);
+        publisher.subscribe(subscriber);
+
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+
+        assertThat(second.subscription).isNotNull();
+        assertThat(second.error).isInstanceOf(IllegalStateException.class);
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void newSubscriberShouldBeAcceptedAfterCancel() {
+        LocationPublisher publisher = newPublisher(OverflowStrategy.LATEST, 1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.cancel();
+
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        second.subscription.request(1);
+        Location location = location(1);
+        publisher.onLocationChanged(location);
+
+        assertThat(second.error).isNull();
+        assertThat(second.locations).containsExactly(location);
+    }
+
+    @Test
+    public void executorShouldRunDelivery() {
+        final List<Runnable> tasks = new ArrayList<>();
+        LocationPublisher publisher = new LocationPublisher.Builder(managerBuilder)
+              .executor(new Executor() {
+                  @Override
+                  public void execute(@NonNull Runnable command) {
+                      tasks.add(command);
+                  }
+              })
+              .build();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        tasks.remove(0).run();
+
+        Location location = location(1);
+        publisher.onLocationChanged(location);
+        assertThat(subscriber.locations).isEmpty();
+
+        tasks.remove(0).run();
+        assertThat(subscriber.locations).containsExactly(location);
+    }
+
+    @Test
+    public void bufferSizeShouldThrowWhenNotPositive() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("bufferSize"));
+
+        new LocationPublisher.Builder(managerBuilder).bufferSize(0);
+    }
+
+    @Test
+    public void overflowStrategyShouldThrowWhenUnknown() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("overflowStrategy"));
+
+        new LocationPublisher.Builder(managerBuilder).overflowStrategy(0);
+    }
+
+    private LocationPublisher newPublisher(@OverflowStrategy int overflowStrategy, int bufferSize) {
+        return new LocationPublisher.Builder(managerBuilder)
+              .overflowStrategy(overflowStrategy)
+              .bufferSize(bufferSize)
+              .build();
+    }
+
+    private static Location location(long time) {
+        return new FakeLocation("gps", time, 10);
+    }
+
+    private static class RecordingSubscriber implements Subscriber<Location> {
+
+        final List<Location> locations = new ArrayList<>();
+        Subscription subscription;
+        Throwable error;
+        boolean isCompleted;
+
+        @Override
+        public void onSubscribe(@NonNull Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(@NonNull Location location) {
+            locations.add(location);
+        }
+
+        @Override
+        public void onError(@NonNull Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            isCompleted = true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.megaache.xmslocationmanager.fakes;
+
+import com.megaache.xmslocationmanager.helper.clock.Clock;
+
+/**
+ * {@linkplain Clock} which only moves when it is told to, so hours can pass in a test without waiting.
+ * It can be moved by the test thread while another thread reads it.
+ */
+public class FakeClock implements Clock {
+
+    private static final long MILLI = 1000L * 1000;
+
+    private volatile long elapsedRealtimeNanos;
+    private volatile long currentTimeMillis;
+
+    public FakeClock() {
+        this(0, 0);
+    }
+
+    public FakeClock(long elapsedRealtimeNanos, long currentTimeMillis) {
+        this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * Moves both elapsed realtime and wall clock forward
+     */
+    public void advance(long millis) {
+        elapsedRealtimeNanos += millis * MILLI;
+        currentTimeMillis += millis;
+    }
+
+    /**
+     * Moves only the wall clock, as if user changed the time of the device
+     */
+    public void setCurrentTimeMillis(long currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public long elapsedRealtimeNanos() {
+        return elapsedRealtimeNanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+}
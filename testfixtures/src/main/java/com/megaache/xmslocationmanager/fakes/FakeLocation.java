@@ -0,0 +1,161 @@
+package com.megaache.xmslocationmanager.fakes;
+
+import android.location.Location;
+
+/**
+ * {@linkplain Location} whose values survive on the JVM, where android.jar only returns default values
+ */
+public class FakeLocation extends Location {
+
+    private final String provider;
+    private long time;
+    private long elapsedRealtimeNanos;
+    private double latitude;
+    private double longitude;
+    private float accuracy;
+    private float speed;
+    private boolean hasSpeed;
+    private double altitude;
+    private boolean hasAltitude;
+    private float bearing;
+    private boolean hasBearing;
+
+    public FakeLocation(String provider, long time, float accuracy) {
+        super(provider);
+        this.provider = provider;
+        this.time = time;
+        this.accuracy = accuracy;
+    }
+
+    public FakeLocation(String provider, long elapsedRealtimeNanos, double latitude, double longitude,
+          float accuracy) {
+        this(provider, 0, accuracy);
+        this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Copies every value of given location, as {@linkplain Location#Location(Location)} does on a device
+     */
+    public FakeLocation(Location location) {
+        this(location.getProvider(), location.getTime(), location.getAccuracy());
+        this.elapsedRealtimeNanos = location.getElapsedRealtimeNanos();
+        this.latitude = location.getLatitude();
+        this.longitude = location.getLongitude();
+        this.speed = location.getSpeed();
+        this.hasSpeed = location.hasSpeed();
+        this.altitude = location.getAltitude();
+        this.hasAltitude = location.hasAltitude();
+        this.bearing = location.getBearing();
+        this.hasBearing = location.hasBearing();
+    }
+
+    @Override
+    public String getProvider() {
+        return provider;
+    }
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public long getElapsedRealtimeNanos() {
+        return elapsedRealtimeNanos;
+    }
+
+    @Override
+    public void setElapsedRealtimeNanos(long elapsedRealtimeNanos) {
+        this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+    }
+
+    @Override
+    public double getLatitude() {
+        return latitude;
+    }
+
+    @Override
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    @Override
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    @Override
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    @Override
+    public void setAccuracy(float accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    @Override
+    public boolean hasAccuracy() {
+        return true;
+    }
+
+    @Override
+    public float getSpeed() {
+        return speed;
+    }
+
+    @Override
+    public void setSpeed(float speed) {
+        this.speed = speed;
+        this.hasSpeed = true;
+    }
+
+    @Override
+    public boolean hasSpeed() {
+        return hasSpeed;
+    }
+
+    @Override
+    public double getAltitude() {
+        return altitude;
+    }
+
+    @Override
+    public void setAltitude(double altitude) {
+        this.altitude = altitude;
+        this.hasAltitude = true;
+    }
+
+    @Override
+    public boolean hasAltitude() {
+        return hasAltitude;
+    }
+
+    @Override
+    public float getBearing() {
+        return bearing;
+    }
+
+    @Override
+    public void setBearing(float bearing) {
+        this.bearing = bearing;
+        this.hasBearing = true;
+    }
+
+    @Override
+    public boolean hasBearing() {
+        return hasBearing;
+    }
+}
@@ -0,0 +1,80 @@
+package com.megaache.xmslocationmanager.fakes;
+
+/**
+ * Same algorithm as {@linkplain android.location.Location#distanceBetween}, which only exists on a device,
+ * android.jar on the JVM throws or returns 0. Solves the inverse geodesic problem on the WGS84 ellipsoid
+ * iteratively, see Vincenty 1975, and writes the distance in meters into the first element of given results.
+ */
+public final class PlatformDistance {
+
+    private static final int MAX_ITERATIONS = 20;
+
+    private PlatformDistance() {
+        // No instance
+    }
+
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        float[] results = new float[1];
+        distanceBetween(latitude1, longitude1, latitude2, longitude2, results);
+        return results[0];
+    }
+
+    public static void distanceBetween(double latitude1, double longitude1, double latitude2, double longitude2,
+          float[] results) {
+        latitude1 *= Math.PI / 180.0;
+        latitude2 *= Math.PI / 180.0;
+        longitude1 *= Math.PI / 180.0;
+        longitude2 *= Math.PI / 180.0;
+
+        double a = 6378137.0;
+        double b = 6356752.3142;
+        double f = (a - b) / a;
+        double aSqMinusBSqOverBSq = (a * a - b * b) / (b * b);
+
+        double l = longitude2 - longitude1;
+        double aa = 0.0;
+        double u1 = Math.atan((1.0 - f) * Math.tan(latitude1));
+        double u2 = Math.atan((1.0 - f) * Math.tan(latitude2));
+
+        double cosU1 = Math.cos(u1);
+        double cosU2 = Math.cos(u2);
+        double sinU1 = Math.sin(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU1cosU2 = cosU1 * cosU2;
+        double sinU1sinU2 = sinU1 * sinU2;
+
+        double sigma = 0.0;
+        double deltaSigma = 0.0;
+        double lambda = l;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double lambdaOrig = lambda;
+            double cosLambda = Math.cos(lambda);
+            double sinLambda = Math.sin(lambda);
+            double t1 = cosU2 * sinLambda;
+            double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            double sinSqSigma = t1 * t1 + t2 * t2;
+            double sinSigma = Math.sqrt(sinSqSigma);
+            double cosSigma = sinU1sinU2 + cosU1cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = (sinSigma == 0) ? 0.0 : cosU1cosU2 * sinLambda / sinSigma;
+            double cosSqAlpha = 1.0 - sinAlpha * sinAlpha;
+            double cos2SM = (cosSqAlpha == 0) ? 0.0 : cosSigma - 2.0 * sinU1sinU2 / cosSqAlpha;
+
+            double uSquared = cosSqAlpha * aSqMinusBSqOverBSq;
+            aa = 1 + (uSquared / 16384.0) * (4096.0 + uSquared * (-768 + uSquared * (320.0 - 175.0 * uSquared)));
+            double bb = (uSquared / 1024.0) * (256.0 + uSquared * (-128.0 + uSquared * (74.0 - 47.0 * uSquared)));
+            double cc = (f / 16.0) * cosSqAlpha * (4.0 + f * (4.0 - 3.0 * cosSqAlpha));
+            double cos2SMSq = cos2SM * cos2SM;
+            deltaSigma = bb * sinSigma * (cos2SM + (bb / 4.0) * (cosSigma * (-1.0 + 2.0 * cos2SMSq)
+                  - (bb / 6.0) * cos2SM * (-3.0 + 4.0 * sinSigma * sinSigma) * (-3.0 + 4.0 * cos2SMSq)));
+
+            lambda = l + (1.0 - cc) * f * sinAlpha
+                  * (sigma + cc * sinSigma * (cos2SM + cc * cosSigma * (-1.0 + 2.0 * cos2SM * cos2SM)));
+
+            double delta = (lambda - lambdaOrig) / lambda;
+            if (Math.abs(delta) < 1.0e-12) break;
+        }
+
+        results[0] = (float) (b * aa * (sigma - deltaSigma));
+    }
+}